@@ -0,0 +1,66 @@
+package com.ftn.sbnz.benchmarks;
+
+import com.ftn.sbnz.model.events.AirQualityEvent;
+import com.ftn.sbnz.model.models.Environment;
+import com.ftn.sbnz.service.services.FindingsService;
+
+import org.kie.api.runtime.KieSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CEP-2 (episodic air contamination): one module's 24h window of events
+ * inserted into a fresh session and the cep.air-quality agenda fired.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class AirQualityCepBenchmark {
+
+  @Param({ "1000", "10000", "100000" })
+  public int events;
+
+  private Environment environment;
+  private List<AirQualityEvent> window;
+  private FindingsService findingsService;
+
+  @Setup
+  public void setUp() {
+    SplittableRandom random = new SplittableRandom(Engines.SEED);
+    environment = Engines.environment("LAB", random);
+    window = Engines.airQualityEvents("LAB", events, random);
+    findingsService = new FindingsService(1024);
+  }
+
+  @Benchmark
+  public int episodicContamination() {
+    KieSession session = Engines.container().newKieSession();
+    try {
+      session.setGlobal("findingsService", findingsService);
+      session.insert(environment);
+      for (AirQualityEvent event : window) {
+        session.insert(event);
+      }
+      session.getAgenda().getAgendaGroup("cep.air-quality").setFocus();
+      return session.fireAllRules();
+    } finally {
+      session.dispose();
+    }
+  }
+}
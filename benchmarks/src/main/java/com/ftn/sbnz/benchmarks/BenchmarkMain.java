@@ -0,0 +1,30 @@
+package com.ftn.sbnz.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Entry point of benchmarks.jar. Runs JMH with the given arguments and, unless
+ * they choose a result format themselves, writes JSON results to
+ * target/jmh-result.json for JmhResultComparison:
+ *
+ * java -jar target/benchmarks.jar [JMH options] [benchmark regex]
+ * java -cp target/benchmarks.jar com.ftn.sbnz.benchmarks.JmhResultComparison base.json new.json
+ */
+public final class BenchmarkMain {
+
+  private BenchmarkMain() {
+  }
+
+  public static void main(String[] args) throws Exception {
+    List<String> options = new ArrayList<>(Arrays.asList(args));
+    if (!options.contains("-rf")) {
+      options.addAll(Arrays.asList("-rf", "json"));
+      if (!options.contains("-rff")) {
+        options.addAll(Arrays.asList("-rff", "target/jmh-result.json"));
+      }
+    }
+    org.openjdk.jmh.Main.main(options.toArray(new String[0]));
+  }
+}
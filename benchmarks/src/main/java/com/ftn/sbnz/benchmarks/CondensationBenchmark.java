@@ -0,0 +1,99 @@
+package com.ftn.sbnz.benchmarks;
+
+import com.ftn.sbnz.model.enums.CondensationLocation;
+import com.ftn.sbnz.model.events.HumidityEvent;
+import com.ftn.sbnz.model.models.CondensationData;
+import com.ftn.sbnz.model.models.Environment;
+import com.ftn.sbnz.model.models.VentilationStatus;
+import com.ftn.sbnz.model.models.WaterRecycling;
+import com.ftn.sbnz.service.services.EnvironmentalMonitoringService;
+import com.ftn.sbnz.service.services.FindingsService;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Humidity-condensation rules through EnvironmentalMonitoringService: 6h of
+ * rising humidity per module at the given reading rate, with wall, panel
+ * and water line surfaces below the dew point. The sessions are reset
+ * before every call, so each call replays the full window.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CondensationBenchmark {
+
+  @Param({ "12", "60", "360", "3600" })
+  public int readingsPerHour;
+
+  @Param({ "1", "16" })
+  public int modules;
+
+  private ExecutorService executor;
+  private EnvironmentalMonitoringService service;
+  private final List<Environment> environments = new ArrayList<>();
+  private final List<CondensationData> surfaces = new ArrayList<>();
+  private final List<HumidityEvent> humidity = new ArrayList<>();
+  private final List<WaterRecycling> waterRecyclings = new ArrayList<>();
+  private final List<VentilationStatus> ventilation = new ArrayList<>();
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    SplittableRandom random = new SplittableRandom(Engines.SEED);
+    for (int m = 0; m < modules; m++) {
+      String moduleId = Engines.moduleId(m);
+      environments.add(new Environment(moduleId, 21.0, 400.0, 0.5, 22.0, 70.0, 1013.25, 30.0, 20.0));
+      humidity.addAll(Engines.humidityEvents(moduleId, readingsPerHour, random));
+      waterRecyclings.add(new WaterRecycling(moduleId, m % 2 == 0, 0.8));
+      ventilation.add(new VentilationStatus(moduleId, m % 3 == 0));
+    }
+    executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    service = new EnvironmentalMonitoringService(Engines.container(), new FindingsService(1024), executor,
+        "module", 4);
+  }
+
+  // The rules mark surfaces as condensing, so every call gets fresh ones
+  @Setup(Level.Invocation)
+  public void reset() {
+    service.resetSession();
+    surfaces.clear();
+    for (int m = 0; m < modules; m++) {
+      String moduleId = Engines.moduleId(m);
+      surfaces.add(new CondensationData(moduleId, CondensationLocation.WALLS, 14.0));
+      surfaces.add(new CondensationData(moduleId, CondensationLocation.PANELS, 13.5));
+      surfaces.add(new CondensationData(moduleId, CondensationLocation.WATER_LINES, 12.0));
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    service.destroy();
+    executor.shutdownNow();
+  }
+
+  @Benchmark
+  public Object condensation() {
+    return service.processEnvironmentalData(environments, surfaces, humidity, waterRecyclings, ventilation);
+  }
+}
@@ -0,0 +1,81 @@
+package com.ftn.sbnz.benchmarks;
+
+import com.ftn.sbnz.model.events.AirQualityEvent;
+import com.ftn.sbnz.model.events.HumidityEvent;
+import com.ftn.sbnz.model.models.Environment;
+
+import org.kie.api.KieServices;
+import org.kie.api.runtime.KieContainer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Shared fixtures: the kjar loaded from the classpath (no Maven resolution,
+ * no scanner) and seeded generators for telemetry, so every fork and every
+ * commit measures the same input.
+ */
+final class Engines {
+
+  static final long SEED = 42;
+  private static volatile KieContainer container;
+
+  private Engines() {
+  }
+
+  static KieContainer container() {
+    if (container == null) {
+      synchronized (Engines.class) {
+        if (container == null) {
+          container = KieServices.Factory.get().getKieClasspathContainer();
+        }
+      }
+    }
+    return container;
+  }
+
+  static String moduleId(int i) {
+    return "M" + i;
+  }
+
+  static Environment environment(String moduleId, SplittableRandom random) {
+    return new Environment(moduleId, 20.5 + random.nextDouble(), 400 + random.nextDouble(200),
+        random.nextDouble(2), 21 + random.nextDouble(3), 55 + random.nextDouble(15), 1013.25,
+        20 + random.nextDouble(40), 10 + random.nextDouble(30));
+  }
+
+  /**
+   * Events spread evenly over the 24 hours before now, about one in ten
+   * above the VOC or PM episode threshold.
+   */
+  static List<AirQualityEvent> airQualityEvents(String moduleId, int count, SplittableRandom random) {
+    long now = System.currentTimeMillis();
+    long step = Math.max(1, (23L * 60 * 60 * 1000) / count);
+    List<AirQualityEvent> events = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      boolean spike = random.nextInt(10) == 0;
+      double voc = spike ? 50 + random.nextDouble(30) : 10 + random.nextDouble(30);
+      double pm = spike ? 35 + random.nextDouble(20) : 5 + random.nextDouble(20);
+      events.add(new AirQualityEvent(voc, pm, moduleId, now - (long) (count - i) * step));
+    }
+    return events;
+  }
+
+  /**
+   * Humidity readings over the 6h5m before now at the given rate, rising
+   * by 15 points so the condensation trend fires.
+   */
+  static List<HumidityEvent> humidityEvents(String moduleId, int perHour, SplittableRandom random) {
+    long now = System.currentTimeMillis();
+    long span = (6L * 60 + 5) * 60 * 1000;
+    int count = Math.max(2, perHour * 6 + perHour / 12 + 1);
+    long step = span / (count - 1);
+    List<HumidityEvent> events = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      double humidity = 60 + 15.0 * i / (count - 1) + random.nextDouble(0.5);
+      events.add(new HumidityEvent(humidity, moduleId, now - span + i * step));
+    }
+    return events;
+  }
+}
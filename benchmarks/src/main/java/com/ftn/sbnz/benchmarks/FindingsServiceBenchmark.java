@@ -0,0 +1,85 @@
+package com.ftn.sbnz.benchmarks;
+
+import com.ftn.sbnz.model.models.Finding;
+import com.ftn.sbnz.service.services.FindingsService;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Collections;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FindingsService under concurrent writers and readers: writers raise
+ * findings for random (module, type) pairs, so most raises merge into an
+ * active finding and some delete and re-add one; readers run the lookups
+ * the rule services make on every request.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FindingsServiceBenchmark {
+
+  private static final int MODULES = 16;
+  private static final int TYPES = 32;
+
+  private FindingsService findingsService;
+  private String[] types;
+
+  @Setup
+  public void setUp() {
+    // no journal and no coalescing delays: measures the store itself
+    findingsService = new FindingsService(10_000);
+    types = new String[TYPES];
+    for (int t = 0; t < TYPES; t++) {
+      types[t] = "Benchmark finding " + t;
+    }
+  }
+
+  @Benchmark
+  @Group("mixed")
+  @GroupThreads(2)
+  public boolean add() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    String moduleId = Engines.moduleId(random.nextInt(MODULES));
+    String type = types[random.nextInt(TYPES)];
+    if (random.nextInt(64) == 0) {
+      return findingsService.deleteFindingsByTypeAndModule(type, moduleId);
+    }
+    return findingsService.addFindingIfAbsent(moduleId, new Finding(type, moduleId, "benchmark", "MEDIUM"));
+  }
+
+  @Benchmark
+  @Group("mixed")
+  @GroupThreads(6)
+  public void lookup(Blackhole blackhole) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    String moduleId = Engines.moduleId(random.nextInt(MODULES));
+    blackhole.consume(findingsService.hasActiveFinding(moduleId, types[random.nextInt(TYPES)]));
+    blackhole.consume(findingsService.getActiveFindingKeys(moduleId));
+    blackhole.consume(findingsService.getFindings(moduleId));
+  }
+
+  @Benchmark
+  public void addBatch() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    String moduleId = Engines.moduleId(random.nextInt(MODULES));
+    String type = types[random.nextInt(TYPES)];
+    findingsService.addFindings(moduleId, Collections.singletonList(new Finding(type, moduleId, "benchmark", "HIGH")));
+  }
+}
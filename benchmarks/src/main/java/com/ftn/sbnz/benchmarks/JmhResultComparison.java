@@ -0,0 +1,76 @@
+package com.ftn.sbnz.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares two JMH JSON result files, e.g. from two commits, and prints the
+ * change of every benchmark / parameter combination present in both. Exits
+ * with status 1 if any got worse by more than the threshold (default 10%),
+ * taking into account whether lower (time) or higher (throughput) is better.
+ *
+ * Usage: JmhResultComparison baseline.json candidate.json [thresholdPercent]
+ */
+public final class JmhResultComparison {
+
+  private JmhResultComparison() {
+  }
+
+  public static void main(String[] args) throws Exception {
+    if (args.length < 2) {
+      System.out.println("Usage: JmhResultComparison baseline.json candidate.json [thresholdPercent]");
+      System.exit(2);
+    }
+    double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+    Map<String, JsonNode> baseline = load(new File(args[0]));
+    Map<String, JsonNode> candidate = load(new File(args[1]));
+
+    int regressions = 0;
+    for (Map.Entry<String, JsonNode> entry : candidate.entrySet()) {
+      JsonNode before = baseline.get(entry.getKey());
+      if (before == null) {
+        System.out.printf("%-90s %14s%n", entry.getKey(), "new");
+        continue;
+      }
+      JsonNode after = entry.getValue();
+      double old = before.path("primaryMetric").path("score").asDouble();
+      double now = after.path("primaryMetric").path("score").asDouble();
+      double change = old == 0 ? 0 : (now - old) / old * 100;
+      // throughput modes: higher is better; time modes: lower is better
+      boolean higherIsBetter = "thrpt".equals(after.path("mode").asText());
+      double worse = higherIsBetter ? -change : change;
+      boolean regression = worse > threshold;
+      if (regression) {
+        regressions++;
+      }
+      System.out.printf("%-90s %12.3f -> %12.3f %s %+7.1f%%%s%n", entry.getKey(), old, now,
+          after.path("primaryMetric").path("scoreUnit").asText(), change, regression ? "  REGRESSION" : "");
+    }
+    if (regressions > 0) {
+      System.out.println(regressions + " benchmark(s) regressed by more than " + threshold + "%");
+      System.exit(1);
+    }
+  }
+
+  // Keyed by benchmark name, mode and parameters
+  private static Map<String, JsonNode> load(File file) throws Exception {
+    Map<String, JsonNode> results = new LinkedHashMap<>();
+    for (JsonNode result : new ObjectMapper().readTree(file)) {
+      StringBuilder key = new StringBuilder(result.path("benchmark").asText())
+          .append(" [").append(result.path("mode").asText()).append(']');
+      JsonNode params = result.path("params");
+      Iterator<Map.Entry<String, JsonNode>> fields = params.fields();
+      while (fields.hasNext()) {
+        Map.Entry<String, JsonNode> param = fields.next();
+        key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText());
+      }
+      results.put(key.toString(), result);
+    }
+    return results;
+  }
+}
@@ -0,0 +1,68 @@
+package com.ftn.sbnz.benchmarks;
+
+import com.ftn.sbnz.model.enums.CondensationLocation;
+import com.ftn.sbnz.model.models.CondensationData;
+import com.ftn.sbnz.model.models.Finding;
+import com.ftn.sbnz.model.models.ModuleLink;
+import com.ftn.sbnz.model.models.WaterRecycling;
+import com.ftn.sbnz.service.services.FindingsService;
+
+import org.kie.api.runtime.KieSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Backward-chaining findMoistureSource query over a chain of ModuleLinks
+ * M0 -> M1 -> ... -> Mn-1, asked from the last module with the water line
+ * leak (hypothesis H1) at M0, so the query recurses across the whole chain.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MoistureSourceBenchmark {
+
+  @Param({ "4", "16", "64", "256" })
+  public int modules;
+
+  private KieSession session;
+  private String lastModule;
+
+  @Setup
+  public void setUp() {
+    session = Engines.container().newKieSession();
+    session.setGlobal("findingsService", new FindingsService(1024));
+    String source = Engines.moduleId(0);
+    session.insert(new WaterRecycling(source, true, 0.4));
+    session.insert(new CondensationData(source, CondensationLocation.WATER_LINES, 12.0));
+    session.insert(new Finding("Condensation detected on WATER_LINES", source, "benchmark", "HIGH"));
+    for (int i = 1; i < modules; i++) {
+      session.insert(new ModuleLink(Engines.moduleId(i - 1), Engines.moduleId(i)));
+    }
+    lastModule = Engines.moduleId(modules - 1);
+  }
+
+  @TearDown
+  public void tearDown() {
+    session.dispose();
+  }
+
+  @Benchmark
+  public int findMoistureSource() {
+    return session.getQueryResults("findMoistureSource", "H1", lastModule).size();
+  }
+}
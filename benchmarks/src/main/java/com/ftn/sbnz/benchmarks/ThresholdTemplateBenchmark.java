@@ -0,0 +1,84 @@
+package com.ftn.sbnz.benchmarks;
+
+import com.ftn.sbnz.model.models.Environment;
+import com.ftn.sbnz.model.models.EnvironmentalThresholdTemplateModel;
+import com.ftn.sbnz.model.models.Finding;
+import com.ftn.sbnz.service.services.EnvironmentalThresholdTemplateService;
+import com.ftn.sbnz.service.services.FindingsService;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Template-generated threshold rules: N thresholds spread over 16 modules,
+ * evaluated against M environments. The KieBase is compiled during setup
+ * and served from the service's cache, so this measures evaluation only.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ThresholdTemplateBenchmark {
+
+  private static final int MODULES = 16;
+  private static final String[][] PARAMETERS = {
+      { "o2Level", "<", "20.0" },
+      { "co2Level", ">", "500.0" },
+      { "coLevel", ">", "1.5" },
+      { "temperature", ">", "23.5" },
+      { "humidity", ">", "68.0" },
+      { "vocLevel", ">", "50.0" },
+      { "pmLevel", ">", "35.0" },
+  };
+
+  @Param({ "10", "100", "1000" })
+  public int thresholds;
+
+  @Param({ "10", "100", "1000" })
+  public int environments;
+
+  private EnvironmentalThresholdTemplateService service;
+  private List<EnvironmentalThresholdTemplateModel> rules;
+  private List<Environment> batch;
+
+  @Setup
+  public void setUp() {
+    service = new EnvironmentalThresholdTemplateService(new FindingsService(1024), 4);
+    rules = new ArrayList<>(thresholds);
+    for (int i = 0; i < thresholds; i++) {
+      String[] parameter = PARAMETERS[i % PARAMETERS.length];
+      // vary the threshold so every rule is distinct
+      double threshold = Double.parseDouble(parameter[2]) + (i / PARAMETERS.length) * 0.001;
+      rules.add(new EnvironmentalThresholdTemplateModel(parameter[0], parameter[1], threshold, "1m",
+          Engines.moduleId(i % MODULES), "Benchmark " + parameter[0] + " " + i, "MEDIUM",
+          "Benchmark threshold " + i));
+    }
+    SplittableRandom random = new SplittableRandom(Engines.SEED);
+    batch = new ArrayList<>(environments);
+    for (int i = 0; i < environments; i++) {
+      batch.add(Engines.environment(Engines.moduleId(i % MODULES), random));
+    }
+    service.evaluateCustomThresholds(batch, rules);
+  }
+
+  @Benchmark
+  public List<Finding> evaluateThresholds() {
+    return service.evaluateCustomThresholds(batch, rules);
+  }
+}
@@ -0,0 +1,97 @@
+package com.ftn.sbnz.loadgen;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Log-linear histogram of latencies in microseconds. Values below 64 get a
+ * bucket each; above that every power of two is split into 32 buckets, so a
+ * percentile is off by at most ~3%. Recording is lock-free and allocation
+ * free, so response threads can record concurrently.
+ */
+public class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 5;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int LINEAR_LIMIT = SUB_BUCKETS * 2;
+  private static final int MAX_EXPONENT = 62;
+  private static final int BUCKETS = LINEAR_LIMIT + (MAX_EXPONENT - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final AtomicLong total = new AtomicLong();
+  private final AtomicLong sum = new AtomicLong();
+  private final AtomicLong max = new AtomicLong();
+
+  public void record(long micros) {
+    long value = Math.max(0, micros);
+    counts.incrementAndGet(index(value));
+    total.incrementAndGet();
+    sum.addAndGet(value);
+    max.accumulateAndGet(value, Math::max);
+  }
+
+  public long count() {
+    return total.get();
+  }
+
+  public double mean() {
+    long n = total.get();
+    return n == 0 ? 0 : (double) sum.get() / n;
+  }
+
+  public long max() {
+    return max.get();
+  }
+
+  /**
+   * Upper bound of the bucket holding the given percentile (0-100), capped
+   * at the largest recorded value.
+   */
+  public long percentile(double percentile) {
+    long n = total.get();
+    if (n == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * n));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += counts.get(i);
+      if (seen >= rank) {
+        return Math.min(upperBound(i), max.get());
+      }
+    }
+    return max.get();
+  }
+
+  public void add(LatencyHistogram other) {
+    for (int i = 0; i < BUCKETS; i++) {
+      long c = other.counts.get(i);
+      if (c != 0) {
+        counts.addAndGet(i, c);
+      }
+    }
+    total.addAndGet(other.total.get());
+    sum.addAndGet(other.sum.get());
+    max.accumulateAndGet(other.max.get(), Math::max);
+  }
+
+  static int index(long value) {
+    if (value < LINEAR_LIMIT) {
+      return (int) value;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    int shift = exponent - SUB_BUCKET_BITS;
+    int top = (int) (value >>> shift);
+    return LINEAR_LIMIT + (exponent - SUB_BUCKET_BITS - 1) * SUB_BUCKETS + (top - SUB_BUCKETS);
+  }
+
+  static long upperBound(int index) {
+    if (index < LINEAR_LIMIT) {
+      return index;
+    }
+    int offset = index - LINEAR_LIMIT;
+    int shift = offset / SUB_BUCKETS + 1;
+    long top = SUB_BUCKETS + offset % SUB_BUCKETS;
+    return ((top + 1) << shift) - 1;
+  }
+}
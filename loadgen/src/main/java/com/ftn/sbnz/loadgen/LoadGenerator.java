@@ -0,0 +1,373 @@
+package com.ftn.sbnz.loadgen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.ftn.sbnz.loadgen.LoadGeneratorConfig.Endpoint;
+
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * End-to-end load test against a running service. Requests are built by
+ * StationSimulator and sent open loop at a fixed rate: each request has an
+ * intended send time and its latency is measured from that time, so a
+ * stalled server shows up in the percentiles instead of silently lowering
+ * the rate (coordinated omission). Requests in flight are capped by
+ * --max-in-flight.
+ *
+ * Simulated time starts (warmup + duration) * time-scale in the past and
+ * runs time-scale times faster than the wall clock, so it reaches the
+ * present as the run ends and event timestamps are never in the future.
+ *
+ * Reports p50/p99/p999 latency, throughput and findings per endpoint, plus
+ * server-side allocation and GC per request sampled from GET /engine/jvm:
+ *
+ * java -jar loadgen/target/loadgen.jar --rate 200 --duration 120 --report target/load.json
+ */
+public class LoadGenerator {
+
+  private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+  private final LoadGeneratorConfig config;
+  private final HttpClient client;
+  private final ObjectMapper objectMapper;
+  private final Semaphore inFlight;
+  private final Random random;
+  private final Endpoint[] mixTable;
+  private final StationSimulator simulator;
+  private final long wallStartMillis;
+  private final long simulatedStartMillis;
+
+  public LoadGenerator(LoadGeneratorConfig config) {
+    this.config = config;
+    this.client = HttpClient.newBuilder()
+        .connectTimeout(Duration.ofSeconds(5))
+        .build();
+    this.objectMapper = new ObjectMapper()
+        .registerModule(new JavaTimeModule())
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    this.inFlight = new Semaphore(config.getMaxInFlight());
+    this.random = new Random(config.getSeed());
+    this.mixTable = buildMixTable(config.getMix());
+    this.wallStartMillis = System.currentTimeMillis();
+    long simulatedSpan = (long) ((config.getWarmup().toMillis() + config.getDuration().toMillis())
+        * config.getTimeScale());
+    this.simulatedStartMillis = wallStartMillis - simulatedSpan;
+    this.simulator = new StationSimulator(config.getModules(), config.getCrew(), config.getScenarioRate(),
+        config.getSeed(), simulatedStartMillis);
+  }
+
+  public static void main(String[] args) throws Exception {
+    LoadGeneratorConfig config;
+    try {
+      config = LoadGeneratorConfig.parse(args);
+    } catch (IllegalArgumentException e) {
+      System.err.println("LoadGenerator: " + e.getMessage());
+      System.err.println(LoadGeneratorConfig.usage());
+      System.exit(2);
+      return;
+    }
+    new LoadGenerator(config).run();
+  }
+
+  public void run() throws Exception {
+    System.out.println("LoadGenerator: target " + config.getTarget() + ", " + config.getRate() + " req/s, "
+        + config.getModules() + " modules, " + config.getCrew() + " crew, mix " + config.getMix());
+
+    if (!config.getWarmup().isZero()) {
+      System.out.println("LoadGenerator: warming up for " + config.getWarmup().getSeconds() + "s");
+      runPhase(config.getWarmup(), newResults());
+    }
+
+    Map<String, Object> jvmBefore = getJson("/engine/jvm");
+    long findingsBefore = findingsTotal();
+    Map<Endpoint, EndpointResults> results = newResults();
+    System.out.println("LoadGenerator: measuring for " + config.getDuration().getSeconds() + "s");
+    long elapsedNanos = runPhase(config.getDuration(), results);
+    Map<String, Object> jvmAfter = getJson("/engine/jvm");
+    long findingsAfter = findingsTotal();
+
+    Map<String, Object> report = report(results, elapsedNanos, jvmBefore, jvmAfter,
+        findingsBefore, findingsAfter);
+    print(report);
+    if (config.getReport() != null) {
+      File file = new File(config.getReport());
+      if (file.getParentFile() != null) {
+        file.getParentFile().mkdirs();
+      }
+      objectMapper.writerWithDefaultPrettyPrinter().writeValue(file, report);
+      System.out.println("LoadGenerator: report written to " + file.getPath());
+    }
+  }
+
+  // Sends requests at the configured rate for the given time, then waits for
+  // the ones still in flight. Returns the elapsed time.
+  private long runPhase(Duration length, Map<Endpoint, EndpointResults> results) throws InterruptedException {
+    long periodNanos = (long) (TimeUnit.SECONDS.toNanos(1) / config.getRate());
+    long start = System.nanoTime();
+    long end = start + length.toNanos();
+    for (long i = 0;; i++) {
+      long intended = start + i * periodNanos;
+      if (intended >= end) {
+        break;
+      }
+      long wait = intended - System.nanoTime();
+      if (wait > 0) {
+        LockSupport.parkNanos(wait);
+      }
+      Endpoint endpoint = mixTable[random.nextInt(mixTable.length)];
+      byte[] body;
+      try {
+        body = objectMapper.writeValueAsBytes(buildRequest(endpoint, simulatedNow()));
+      } catch (Exception e) {
+        throw new IllegalStateException("Could not serialize " + endpoint + " request", e);
+      }
+      inFlight.acquire();
+      send(endpoint, body, intended, results.get(endpoint));
+    }
+    inFlight.acquire(config.getMaxInFlight());
+    inFlight.release(config.getMaxInFlight());
+    return System.nanoTime() - start;
+  }
+
+  private void send(Endpoint endpoint, byte[] body, long intended, EndpointResults results) {
+    HttpRequest request = HttpRequest.newBuilder(URI.create(config.getTarget() + endpoint.getPath()))
+        .timeout(REQUEST_TIMEOUT)
+        .header("Content-Type", "application/json")
+        .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+        .build();
+    long sent = System.nanoTime();
+    results.bytesSent.addAndGet(body.length);
+    client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+        .whenComplete((response, error) -> {
+          long done = System.nanoTime();
+          try {
+            results.latency.record(TimeUnit.NANOSECONDS.toMicros(done - intended));
+            results.serviceTime.record(TimeUnit.NANOSECONDS.toMicros(done - sent));
+            if (error != null || response.statusCode() >= 400) {
+              results.errors.incrementAndGet();
+              if (results.errors.get() == 1) {
+                System.out.println("LoadGenerator: first " + endpoint.getKey() + " error: "
+                    + (error != null ? error : "HTTP " + response.statusCode()));
+              }
+            } else {
+              results.findings.addAndGet(countFindings(response.body()));
+            }
+          } finally {
+            inFlight.release();
+          }
+        });
+  }
+
+  private Object buildRequest(Endpoint endpoint, long now) {
+    switch (endpoint) {
+      case AIR:
+        return simulator.airQuality(now);
+      case ENVIRONMENT:
+        return simulator.environmental(now);
+      case HEALTH:
+        return simulator.health(now);
+      case EQUIPMENT:
+        return simulator.equipment(now);
+      default:
+        throw new IllegalArgumentException("Unknown endpoint " + endpoint);
+    }
+  }
+
+  private long simulatedNow() {
+    return simulatedStartMillis
+        + (long) ((System.currentTimeMillis() - wallStartMillis) * config.getTimeScale());
+  }
+
+  // Analysis results carry a findings list; the check endpoints return the list itself
+  private int countFindings(byte[] body) {
+    try {
+      JsonNode node = objectMapper.readTree(body);
+      if (node != null && node.has("findings")) {
+        node = node.get("findings");
+      }
+      return node != null && node.isArray() ? node.size() : 0;
+    } catch (Exception e) {
+      return 0;
+    }
+  }
+
+  private long findingsTotal() {
+    Map<String, Object> summary = getJson("/findings/summary");
+    Object total = summary == null ? null : summary.get("total");
+    return total instanceof Number ? ((Number) total).longValue() : -1;
+  }
+
+  @SuppressWarnings("unchecked")
+  private Map<String, Object> getJson(String path) {
+    try {
+      HttpRequest request = HttpRequest.newBuilder(URI.create(config.getTarget() + path))
+          .timeout(REQUEST_TIMEOUT)
+          .GET()
+          .build();
+      HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+      if (response.statusCode() != 200) {
+        System.out.println("LoadGenerator: GET " + path + " returned " + response.statusCode());
+        return null;
+      }
+      return objectMapper.readValue(response.body(), Map.class);
+    } catch (Exception e) {
+      System.out.println("LoadGenerator: GET " + path + " failed: " + e);
+      return null;
+    }
+  }
+
+  private Map<String, Object> report(Map<Endpoint, EndpointResults> results, long elapsedNanos,
+      Map<String, Object> jvmBefore, Map<String, Object> jvmAfter, long findingsBefore, long findingsAfter) {
+    double seconds = elapsedNanos / 1e9;
+    EndpointResults total = new EndpointResults();
+    Map<String, Object> endpoints = new LinkedHashMap<>();
+    for (Map.Entry<Endpoint, EndpointResults> entry : results.entrySet()) {
+      EndpointResults endpoint = entry.getValue();
+      if (endpoint.latency.count() == 0) {
+        continue;
+      }
+      total.add(endpoint);
+      endpoints.put(entry.getKey().getKey(), endpoint.toMap(seconds));
+    }
+
+    Map<String, Object> report = new LinkedHashMap<>();
+    report.put("target", config.getTarget());
+    report.put("durationSeconds", seconds);
+    report.put("targetRate", config.getRate());
+    report.put("modules", config.getModules());
+    report.put("crew", config.getCrew());
+    report.put("timeScale", config.getTimeScale());
+    report.put("scenariosStarted", simulator.getScenariosStarted());
+    report.put("total", total.toMap(seconds));
+    report.put("endpoints", endpoints);
+    if (findingsBefore >= 0 && findingsAfter >= 0) {
+      // Net change of the store: raised findings minus expired and merged ones
+      report.put("activeFindingsDelta", findingsAfter - findingsBefore);
+    }
+    report.put("jvm", jvmDelta(jvmBefore, jvmAfter, total.latency.count()));
+    return report;
+  }
+
+  private static Map<String, Object> jvmDelta(Map<String, Object> before, Map<String, Object> after, long requests) {
+    Map<String, Object> delta = new LinkedHashMap<>();
+    if (before == null || after == null) {
+      delta.put("available", false);
+      return delta;
+    }
+    long allocatedBefore = number(before, "allocatedBytes");
+    long allocatedAfter = number(after, "allocatedBytes");
+    if (allocatedBefore >= 0 && allocatedAfter >= allocatedBefore) {
+      long allocated = allocatedAfter - allocatedBefore;
+      delta.put("allocatedBytes", allocated);
+      delta.put("allocatedBytesPerRequest", requests == 0 ? 0 : allocated / requests);
+    }
+    delta.put("gcCount", number(after, "gcCount") - number(before, "gcCount"));
+    delta.put("gcTimeMillis", number(after, "gcTimeMillis") - number(before, "gcTimeMillis"));
+    delta.put("heapUsedBytes", number(after, "heapUsedBytes"));
+    return delta;
+  }
+
+  private static long number(Map<String, Object> map, String key) {
+    Object value = map.get(key);
+    return value instanceof Number ? ((Number) value).longValue() : -1;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static void print(Map<String, Object> report) {
+    System.out.println();
+    System.out.println(String.format("%-10s %9s %9s %7s %10s %10s %10s %10s %9s",
+        "endpoint", "requests", "req/s", "errors", "p50 ms", "p99 ms", "p999 ms", "max ms", "findings"));
+    Map<String, Object> endpoints = (Map<String, Object>) report.get("endpoints");
+    for (Map.Entry<String, Object> entry : endpoints.entrySet()) {
+      printRow(entry.getKey(), (Map<String, Object>) entry.getValue());
+    }
+    printRow("total", (Map<String, Object>) report.get("total"));
+    System.out.println();
+    System.out.println("Scenarios started: " + report.get("scenariosStarted"));
+    if (report.containsKey("activeFindingsDelta")) {
+      System.out.println("Active findings delta: " + report.get("activeFindingsDelta"));
+    }
+    System.out.println("Server JVM: " + report.get("jvm"));
+  }
+
+  private static void printRow(String name, Map<String, Object> row) {
+    Map<?, ?> latency = (Map<?, ?>) row.get("latencyMillis");
+    System.out.println(String.format("%-10s %9d %9.1f %7d %10.2f %10.2f %10.2f %10.2f %9d",
+        name, row.get("requests"), row.get("throughput"), row.get("errors"),
+        latency.get("p50"), latency.get("p99"), latency.get("p999"), latency.get("max"), row.get("findings")));
+  }
+
+  private static Endpoint[] buildMixTable(Map<Endpoint, Integer> mix) {
+    List<Endpoint> table = new ArrayList<>();
+    for (Map.Entry<Endpoint, Integer> entry : mix.entrySet()) {
+      for (int i = 0; i < entry.getValue(); i++) {
+        table.add(entry.getKey());
+      }
+    }
+    return table.toArray(new Endpoint[0]);
+  }
+
+  private static Map<Endpoint, EndpointResults> newResults() {
+    Map<Endpoint, EndpointResults> results = new EnumMap<>(Endpoint.class);
+    for (Endpoint endpoint : Endpoint.values()) {
+      results.put(endpoint, new EndpointResults());
+    }
+    return results;
+  }
+
+  private static final class EndpointResults {
+    // From the intended send time; serviceTime is from the actual send
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LatencyHistogram serviceTime = new LatencyHistogram();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong findings = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+
+    private void add(EndpointResults other) {
+      latency.add(other.latency);
+      serviceTime.add(other.serviceTime);
+      errors.addAndGet(other.errors.get());
+      findings.addAndGet(other.findings.get());
+      bytesSent.addAndGet(other.bytesSent.get());
+    }
+
+    private Map<String, Object> toMap(double seconds) {
+      Map<String, Object> map = new LinkedHashMap<>();
+      map.put("requests", latency.count());
+      map.put("throughput", seconds > 0 ? latency.count() / seconds : 0.0);
+      map.put("errors", errors.get());
+      map.put("findings", findings.get());
+      map.put("bytesSent", bytesSent.get());
+      map.put("latencyMillis", percentiles(latency));
+      map.put("serviceTimeMillis", percentiles(serviceTime));
+      return map;
+    }
+
+    private static Map<String, Object> percentiles(LatencyHistogram histogram) {
+      Map<String, Object> map = new LinkedHashMap<>();
+      map.put("mean", histogram.mean() / 1000.0);
+      map.put("p50", histogram.percentile(50) / 1000.0);
+      map.put("p99", histogram.percentile(99) / 1000.0);
+      map.put("p999", histogram.percentile(99.9) / 1000.0);
+      map.put("max", histogram.max() / 1000.0);
+      return map;
+    }
+  }
+}
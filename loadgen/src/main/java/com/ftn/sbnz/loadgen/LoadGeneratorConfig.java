@@ -0,0 +1,200 @@
+package com.ftn.sbnz.loadgen;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Command line options of the load generator, as --name value pairs.
+ */
+public class LoadGeneratorConfig {
+
+  private String target = "http://localhost:8080";
+  private int modules = 3;
+  private int crew = 6;
+  private Duration duration = Duration.ofSeconds(60);
+  private Duration warmup = Duration.ofSeconds(10);
+  // Requests per second over all endpoints
+  private double rate = 50;
+  // Simulated seconds per wall-clock second
+  private double timeScale = 60;
+  // Scenarios started per module and simulated hour
+  private double scenarioRate = 0.5;
+  private int maxInFlight = 64;
+  private long seed = 42;
+  private String report;
+  private final Map<Endpoint, Integer> mix = new EnumMap<>(Endpoint.class);
+
+  public LoadGeneratorConfig() {
+    mix.put(Endpoint.AIR, 40);
+    mix.put(Endpoint.ENVIRONMENT, 30);
+    mix.put(Endpoint.HEALTH, 20);
+    mix.put(Endpoint.EQUIPMENT, 10);
+  }
+
+  public static LoadGeneratorConfig parse(String[] args) {
+    LoadGeneratorConfig config = new LoadGeneratorConfig();
+    for (int i = 0; i < args.length; i++) {
+      String name = args[i];
+      if (!name.startsWith("--") || i + 1 >= args.length) {
+        throw new IllegalArgumentException("Expected --option value, got: " + name);
+      }
+      String value = args[++i];
+      switch (name) {
+        case "--target":
+          config.target = value.endsWith("/") ? value.substring(0, value.length() - 1) : value;
+          break;
+        case "--modules":
+          config.modules = positive(name, Integer.parseInt(value));
+          break;
+        case "--crew":
+          config.crew = positive(name, Integer.parseInt(value));
+          break;
+        case "--duration":
+          config.duration = Duration.ofSeconds(positive(name, Integer.parseInt(value)));
+          break;
+        case "--warmup":
+          config.warmup = Duration.ofSeconds(Math.max(0, Integer.parseInt(value)));
+          break;
+        case "--rate":
+          config.rate = Double.parseDouble(value);
+          break;
+        case "--time-scale":
+          config.timeScale = Double.parseDouble(value);
+          break;
+        case "--scenario-rate":
+          config.scenarioRate = Math.max(0, Double.parseDouble(value));
+          break;
+        case "--max-in-flight":
+          config.maxInFlight = positive(name, Integer.parseInt(value));
+          break;
+        case "--seed":
+          config.seed = Long.parseLong(value);
+          break;
+        case "--report":
+          config.report = value;
+          break;
+        case "--mix":
+          config.parseMix(value);
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown option: " + name);
+      }
+    }
+    if (config.rate <= 0 || config.timeScale <= 0) {
+      throw new IllegalArgumentException("--rate and --time-scale must be positive");
+    }
+    return config;
+  }
+
+  // air=40,env=30,health=20,equipment=10; endpoints left out get no traffic
+  private void parseMix(String value) {
+    mix.clear();
+    for (String part : value.split(",")) {
+      String[] pair = part.split("=");
+      if (pair.length != 2) {
+        throw new IllegalArgumentException("Bad --mix entry: " + part);
+      }
+      int weight = Integer.parseInt(pair[1].trim());
+      if (weight > 0) {
+        mix.put(Endpoint.fromKey(pair[0].trim()), weight);
+      }
+    }
+    if (mix.isEmpty()) {
+      throw new IllegalArgumentException("--mix selects no endpoint");
+    }
+  }
+
+  private static int positive(String name, int value) {
+    if (value <= 0) {
+      throw new IllegalArgumentException(name + " must be positive");
+    }
+    return value;
+  }
+
+  public static String usage() {
+    return "java -jar loadgen.jar [--target http://localhost:8080] [--modules 3] [--crew 6]\n"
+        + "    [--duration 60] [--warmup 10] [--rate 50] [--mix air=40,env=30,health=20,equipment=10]\n"
+        + "    [--time-scale 60] [--scenario-rate 0.5] [--max-in-flight 64] [--seed 42] [--report report.json]";
+  }
+
+  public String getTarget() {
+    return target;
+  }
+
+  public int getModules() {
+    return modules;
+  }
+
+  public int getCrew() {
+    return crew;
+  }
+
+  public Duration getDuration() {
+    return duration;
+  }
+
+  public Duration getWarmup() {
+    return warmup;
+  }
+
+  public double getRate() {
+    return rate;
+  }
+
+  public double getTimeScale() {
+    return timeScale;
+  }
+
+  public double getScenarioRate() {
+    return scenarioRate;
+  }
+
+  public int getMaxInFlight() {
+    return maxInFlight;
+  }
+
+  public long getSeed() {
+    return seed;
+  }
+
+  public String getReport() {
+    return report;
+  }
+
+  public Map<Endpoint, Integer> getMix() {
+    return mix;
+  }
+
+  public enum Endpoint {
+    AIR("air", "/air-quality-monitoring/process"),
+    ENVIRONMENT("env", "/environmental-monitoring/process"),
+    HEALTH("health", "/health-metrics/check"),
+    EQUIPMENT("equipment", "/equipment-maintenance/check");
+
+    private final String key;
+    private final String path;
+
+    Endpoint(String key, String path) {
+      this.key = key;
+      this.path = path;
+    }
+
+    public String getKey() {
+      return key;
+    }
+
+    public String getPath() {
+      return path;
+    }
+
+    public static Endpoint fromKey(String key) {
+      for (Endpoint endpoint : values()) {
+        if (endpoint.key.equalsIgnoreCase(key)) {
+          return endpoint;
+        }
+      }
+      throw new IllegalArgumentException("No endpoint with key " + key + " found");
+    }
+  }
+}
@@ -0,0 +1,275 @@
+package com.ftn.sbnz.loadgen;
+
+import com.ftn.sbnz.model.dtos.AirQualityMonitoringRequest;
+import com.ftn.sbnz.model.dtos.EnvironmentalMonitoringRequest;
+import com.ftn.sbnz.model.dtos.EquipmentMaintenanceRequest;
+import com.ftn.sbnz.model.dtos.HealthMetricsRequest;
+import com.ftn.sbnz.model.enums.CondensationLocation;
+import com.ftn.sbnz.model.enums.Module;
+import com.ftn.sbnz.model.events.AirQualityEvent;
+import com.ftn.sbnz.model.events.HumidityEvent;
+import com.ftn.sbnz.model.models.AirFilter;
+import com.ftn.sbnz.model.models.CondensationData;
+import com.ftn.sbnz.model.models.CrewSymptoms;
+import com.ftn.sbnz.model.models.Environment;
+import com.ftn.sbnz.model.models.VentilationStatus;
+import com.ftn.sbnz.model.models.Vitals;
+import com.ftn.sbnz.model.models.WaterRecycling;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Simulated station: every module carries an atmosphere that drifts as a
+ * bounded random walk, and crew members are assigned to modules round-robin.
+ * Now and then a module enters a scenario that pushes it over the rule
+ * thresholds:
+ *
+ * - AIR_EPISODE: VOC and PM spikes (VOC >= 50 ppb, PM >= 35 ug/m3) that
+ * feed the episodic and chronic contamination rules.
+ * - CONDENSATION: humidity climbs ~15% over six simulated hours while the
+ * wall surfaces stay below the dew point.
+ * - HYPOXIA: O2 drops below 19.5%, CO2 climbs past 1000 ppm, ventilation
+ * degrades and the crew in the module show low SpO2 and symptoms.
+ *
+ * Time is simulated: a request for a module first advances that module to
+ * the current simulated time, and every event carries a simulated
+ * timestamp. Not thread-safe; the generator calls it from its pacing thread.
+ */
+public class StationSimulator {
+
+  private static final long MINUTE = 60_000L;
+  private static final long HOUR = 60 * MINUTE;
+
+  private final Random random;
+  private final double scenarioRate;
+  private final List<ModuleState> modules = new ArrayList<>();
+  private final List<String> crew = new ArrayList<>();
+  private final Map<Scenario, Integer> scenariosStarted = new EnumMap<>(Scenario.class);
+
+  public StationSimulator(int moduleCount, int crewCount, double scenarioRate, long seed, long startMillis) {
+    this.random = new Random(seed);
+    this.scenarioRate = scenarioRate;
+    for (int i = 0; i < moduleCount; i++) {
+      modules.add(new ModuleState(moduleId(i), startMillis));
+    }
+    for (int i = 0; i < crewCount; i++) {
+      crew.add(String.format("CREW-%02d", i + 1));
+    }
+    for (Scenario scenario : Scenario.values()) {
+      scenariosStarted.put(scenario, 0);
+    }
+  }
+
+  // The station's own modules first, then synthetic ones
+  private static String moduleId(int index) {
+    Module[] known = Module.values();
+    return index < known.length ? known[index].getId() : "M" + index;
+  }
+
+  public Map<Scenario, Integer> getScenariosStarted() {
+    return scenariosStarted;
+  }
+
+  public AirQualityMonitoringRequest airQuality(long now) {
+    ModuleState module = advance(pickModule(), now);
+    List<AirQualityEvent> events = new ArrayList<>();
+    // A handful of samples spread over the time since the last request
+    int samples = 1 + random.nextInt(4);
+    for (int i = samples; i > 0; i--) {
+      long at = now - (now - module.lastAirSampleAt) * (i - 1) / samples;
+      events.add(new AirQualityEvent(jitter(module.voc, 0.1), jitter(module.pm, 0.1), module.id, at));
+    }
+    module.lastAirSampleAt = now;
+    List<Environment> environments = new ArrayList<>();
+    environments.add(module.environment());
+    return new AirQualityMonitoringRequest(environments, events);
+  }
+
+  public EnvironmentalMonitoringRequest environmental(long now) {
+    ModuleState module = advance(pickModule(), now);
+    List<Environment> environments = new ArrayList<>();
+    environments.add(module.environment());
+
+    List<HumidityEvent> humidityEvents = new ArrayList<>();
+    for (long[] sample : module.humidityHistory) {
+      humidityEvents.add(new HumidityEvent(Double.longBitsToDouble(sample[1]), module.id, sample[0]));
+    }
+
+    List<CondensationData> condensation = new ArrayList<>();
+    double dewPoint = module.dewPoint();
+    for (CondensationLocation location : CondensationLocation.values()) {
+      double surface = module.temperature - 3 - random.nextDouble() * 2;
+      if (module.scenario == Scenario.CONDENSATION && location == CondensationLocation.WALLS) {
+        surface = dewPoint - 1 - random.nextDouble();
+      }
+      condensation.add(new CondensationData(module.id, location, round(surface)));
+    }
+
+    List<WaterRecycling> water = new ArrayList<>();
+    water.add(new WaterRecycling(module.id, module.waterEfficiency < 0.8, round(module.waterEfficiency)));
+    List<VentilationStatus> ventilation = new ArrayList<>();
+    ventilation.add(new VentilationStatus(module.id, module.ventilationDegraded()));
+    return new EnvironmentalMonitoringRequest(environments, condensation, humidityEvents, water, ventilation);
+  }
+
+  public HealthMetricsRequest health(long now) {
+    int index = random.nextInt(crew.size());
+    String crewId = crew.get(index);
+    ModuleState module = advance(modules.get(index % modules.size()), now);
+    boolean hypoxic = module.o2 < 19.5;
+    double spo2 = hypoxic ? 84 + random.nextDouble() * 5 : 95 + random.nextDouble() * 4;
+    Vitals vitals = new Vitals(crewId, round(spo2), round(jitter(hypoxic ? 105 : 72, 0.08)),
+        round(jitter(120, 0.05)), round(jitter(78, 0.05)), round(jitter(hypoxic ? 24 : 15, 0.1)),
+        round(36.6 + random.nextDouble() * 0.6));
+    CrewSymptoms symptoms = new CrewSymptoms(crewId, hypoxic && random.nextDouble() < 0.8,
+        hypoxic && random.nextDouble() < 0.6, module.voc >= 50 && random.nextDouble() < 0.5,
+        module.pm >= 35 && random.nextDouble() < 0.5, hypoxic && random.nextDouble() < 0.5,
+        random.nextDouble() < (hypoxic ? 0.7 : 0.05));
+    return new HealthMetricsRequest(module.environment(), vitals, symptoms,
+        new VentilationStatus(module.id, module.ventilationDegraded()));
+  }
+
+  public EquipmentMaintenanceRequest equipment(long now) {
+    ModuleState module = advance(pickModule(), now);
+    AirFilter filter = new AirFilter(module.id, module.filterEfficiency < 0.7, round(module.filterEfficiency));
+    return new EquipmentMaintenanceRequest(module.environment(),
+        new VentilationStatus(module.id, module.ventilationDegraded()), filter);
+  }
+
+  private ModuleState pickModule() {
+    return modules.get(random.nextInt(modules.size()));
+  }
+
+  // Steps the module's random walk minute by minute up to now
+  private ModuleState advance(ModuleState module, long now) {
+    long minutes = Math.min((now - module.simulatedAt) / MINUTE, 24 * 60);
+    for (long i = 0; i < minutes; i++) {
+      module.simulatedAt += MINUTE;
+      step(module);
+    }
+    if (minutes == 24 * 60) {
+      module.simulatedAt = now;
+    }
+    return module;
+  }
+
+  private void step(ModuleState module) {
+    if (module.scenario != null && module.simulatedAt >= module.scenarioEndsAt) {
+      module.scenario = null;
+    }
+    if (module.scenario == null && random.nextDouble() < scenarioRate / 60.0) {
+      startScenario(module);
+    }
+    Scenario scenario = module.scenario;
+    double progress = scenario == null ? 0
+        : (double) (module.simulatedAt - module.scenarioStartedAt) / (module.scenarioEndsAt - module.scenarioStartedAt);
+
+    module.o2 = walk(module.o2, scenario == Scenario.HYPOXIA ? 18.6 : 20.9, 0.02, 0.1);
+    module.co2 = walk(module.co2, scenario == Scenario.HYPOXIA ? 1400 : 600, 5, 0.05);
+    module.co = walk(module.co, 2, 0.1, 0.1);
+    module.temperature = walk(module.temperature, 22, 0.05, 0.05);
+    module.pressure = walk(module.pressure, 101.3, 0.05, 0.1);
+    double humidityTarget = scenario == Scenario.CONDENSATION ? module.scenarioHumidityBase + 15 * progress : 45;
+    module.humidity = Math.min(95, walk(module.humidity, humidityTarget, 0.2, 0.2));
+    if (scenario == Scenario.AIR_EPISODE && random.nextDouble() < 0.3) {
+      // Episodes come as short bursts on top of an elevated baseline
+      module.voc = 55 + random.nextDouble() * 40;
+      module.pm = 38 + random.nextDouble() * 25;
+    } else {
+      module.voc = walk(module.voc, scenario == Scenario.AIR_EPISODE ? 35 : 12, 1, 0.2);
+      module.pm = walk(module.pm, scenario == Scenario.AIR_EPISODE ? 25 : 8, 0.8, 0.2);
+    }
+    module.filterEfficiency = Math.max(0.5, module.filterEfficiency - 0.00002 - random.nextDouble() * 0.00002);
+    module.waterEfficiency = walk(module.waterEfficiency, 0.92, 0.005, 0.05);
+
+    if (module.simulatedAt - module.lastHumiditySampleAt >= 15 * MINUTE) {
+      module.lastHumiditySampleAt = module.simulatedAt;
+      module.humidityHistory.add(new long[] {module.simulatedAt, Double.doubleToLongBits(round(module.humidity))});
+      // The trend rule looks back six hours
+      while (module.humidityHistory.size() > 6 * 4 + 1) {
+        module.humidityHistory.remove(0);
+      }
+    }
+  }
+
+  private void startScenario(ModuleState module) {
+    Scenario scenario = Scenario.values()[random.nextInt(Scenario.values().length)];
+    long length = scenario == Scenario.CONDENSATION ? 7 * HOUR : (1 + random.nextInt(2)) * HOUR;
+    module.scenario = scenario;
+    module.scenarioStartedAt = module.simulatedAt;
+    module.scenarioEndsAt = module.simulatedAt + length;
+    module.scenarioHumidityBase = module.humidity;
+    if (scenario == Scenario.HYPOXIA) {
+      module.o2 = 19.3;
+      module.co2 = 1100;
+    }
+    scenariosStarted.merge(scenario, 1, Integer::sum);
+  }
+
+  // Mean-reverting random walk
+  private double walk(double value, double target, double noise, double pull) {
+    return value + (target - value) * pull + random.nextGaussian() * noise;
+  }
+
+  private double jitter(double value, double relative) {
+    return Math.max(0, value * (1 + random.nextGaussian() * relative));
+  }
+
+  private static double round(double value) {
+    return Math.round(value * 100) / 100.0;
+  }
+
+  public enum Scenario {
+    AIR_EPISODE,
+    CONDENSATION,
+    HYPOXIA
+  }
+
+  private static final class ModuleState {
+    private final String id;
+    private long simulatedAt;
+    private long lastAirSampleAt;
+    private long lastHumiditySampleAt;
+    private double o2 = 20.9;
+    private double co2 = 600;
+    private double co = 2;
+    private double temperature = 22;
+    private double humidity = 45;
+    private double pressure = 101.3;
+    private double voc = 12;
+    private double pm = 8;
+    private double filterEfficiency = 0.95;
+    private double waterEfficiency = 0.92;
+    // {timestamp, humidity bits}
+    private final List<long[]> humidityHistory = new ArrayList<>();
+    private Scenario scenario;
+    private long scenarioStartedAt;
+    private long scenarioEndsAt;
+    private double scenarioHumidityBase;
+
+    private ModuleState(String id, long startMillis) {
+      this.id = id;
+      this.simulatedAt = startMillis;
+      this.lastAirSampleAt = startMillis;
+      this.lastHumiditySampleAt = startMillis;
+    }
+
+    private boolean ventilationDegraded() {
+      return scenario == Scenario.HYPOXIA;
+    }
+
+    // Same approximation as Environment.calculateDewPoint
+    private double dewPoint() {
+      return temperature - (100 - humidity) / 5;
+    }
+
+    private Environment environment() {
+      return new Environment(id, round(o2), round(co2), round(co), round(temperature), round(humidity),
+          round(pressure), round(voc), round(pm));
+    }
+  }
+}
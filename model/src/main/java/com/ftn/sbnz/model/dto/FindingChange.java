@@ -0,0 +1,84 @@
+package com.ftn.sbnz.model.dto;
+
+import com.ftn.sbnz.model.models.Finding;
+
+/**
+ * A change to the active findings store. Sequence numbers are assigned in
+ * the order the changes were applied and are used by clients as a resume
+ * cursor.
+ */
+public class FindingChange {
+
+  // Journal records store the ordinal; append new kinds at the end
+  public enum Kind {
+    ADDED, EXPIRED, DELETED, UPDATED
+  }
+
+  private long sequence;
+  private Kind kind;
+  private String moduleId;
+  private Finding finding;
+  private long changedAt;
+
+  public FindingChange() {
+  }
+
+  public FindingChange(long sequence, Kind kind, String moduleId, Finding finding, long changedAt) {
+    this.sequence = sequence;
+    this.kind = kind;
+    this.moduleId = moduleId;
+    this.finding = finding;
+    this.changedAt = changedAt;
+  }
+
+  public long getSequence() {
+    return sequence;
+  }
+
+  public void setSequence(long sequence) {
+    this.sequence = sequence;
+  }
+
+  public Kind getKind() {
+    return kind;
+  }
+
+  public void setKind(Kind kind) {
+    this.kind = kind;
+  }
+
+  public String getModuleId() {
+    return moduleId;
+  }
+
+  public void setModuleId(String moduleId) {
+    this.moduleId = moduleId;
+  }
+
+  public Finding getFinding() {
+    return finding;
+  }
+
+  public void setFinding(Finding finding) {
+    this.finding = finding;
+  }
+
+  public long getChangedAt() {
+    return changedAt;
+  }
+
+  public void setChangedAt(long changedAt) {
+    this.changedAt = changedAt;
+  }
+
+  @Override
+  public String toString() {
+    return "FindingChange{" +
+        "sequence=" + sequence +
+        ", kind=" + kind +
+        ", moduleId='" + moduleId + '\'' +
+        ", finding=" + finding +
+        ", changedAt=" + changedAt +
+        '}';
+  }
+}
@@ -0,0 +1,71 @@
+package com.ftn.sbnz.model.dto;
+
+import com.ftn.sbnz.model.models.Finding;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Answer to a delta sync request. Either changes holds everything after the
+ * client's sequence, or (snapshot = true) the client was too far behind and
+ * findings holds the full current state instead. sequence is the cursor to
+ * send on the next sync.
+ */
+public class FindingChanges {
+  private long sequence;
+  private boolean snapshot;
+  private List<FindingChange> changes;
+  private Map<String, List<Finding>> findings;
+
+  public FindingChanges() {
+  }
+
+  public FindingChanges(long sequence, boolean snapshot, List<FindingChange> changes,
+      Map<String, List<Finding>> findings) {
+    this.sequence = sequence;
+    this.snapshot = snapshot;
+    this.changes = changes;
+    this.findings = findings;
+  }
+
+  public long getSequence() {
+    return sequence;
+  }
+
+  public void setSequence(long sequence) {
+    this.sequence = sequence;
+  }
+
+  public boolean isSnapshot() {
+    return snapshot;
+  }
+
+  public void setSnapshot(boolean snapshot) {
+    this.snapshot = snapshot;
+  }
+
+  public List<FindingChange> getChanges() {
+    return changes;
+  }
+
+  public void setChanges(List<FindingChange> changes) {
+    this.changes = changes;
+  }
+
+  public Map<String, List<Finding>> getFindings() {
+    return findings;
+  }
+
+  public void setFindings(Map<String, List<Finding>> findings) {
+    this.findings = findings;
+  }
+
+  @Override
+  public String toString() {
+    return "FindingChanges{" +
+        "sequence=" + sequence +
+        ", snapshot=" + snapshot +
+        ", changes=" + changes +
+        ", findings=" + findings +
+        '}';
+  }
+}
@@ -0,0 +1,112 @@
+package com.ftn.sbnz.model.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * A finding that is no longer active, as kept by the history store.
+ * retiredBy is EXPIRED or DELETED; id orders entries by retirement and is
+ * used as the pagination cursor.
+ */
+public class FindingHistoryEntry {
+  private long id;
+  private String type;
+  private String moduleId;
+  private String details;
+  private String priority;
+  private LocalDateTime timestamp;
+  private long retiredAt;
+  private String retiredBy;
+
+  public FindingHistoryEntry() {
+  }
+
+  public FindingHistoryEntry(long id, String type, String moduleId, String details, String priority,
+      LocalDateTime timestamp, long retiredAt, String retiredBy) {
+    this.id = id;
+    this.type = type;
+    this.moduleId = moduleId;
+    this.details = details;
+    this.priority = priority;
+    this.timestamp = timestamp;
+    this.retiredAt = retiredAt;
+    this.retiredBy = retiredBy;
+  }
+
+  public long getId() {
+    return id;
+  }
+
+  public void setId(long id) {
+    this.id = id;
+  }
+
+  public String getType() {
+    return type;
+  }
+
+  public void setType(String type) {
+    this.type = type;
+  }
+
+  public String getModuleId() {
+    return moduleId;
+  }
+
+  public void setModuleId(String moduleId) {
+    this.moduleId = moduleId;
+  }
+
+  public String getDetails() {
+    return details;
+  }
+
+  public void setDetails(String details) {
+    this.details = details;
+  }
+
+  public String getPriority() {
+    return priority;
+  }
+
+  public void setPriority(String priority) {
+    this.priority = priority;
+  }
+
+  public LocalDateTime getTimestamp() {
+    return timestamp;
+  }
+
+  public void setTimestamp(LocalDateTime timestamp) {
+    this.timestamp = timestamp;
+  }
+
+  public long getRetiredAt() {
+    return retiredAt;
+  }
+
+  public void setRetiredAt(long retiredAt) {
+    this.retiredAt = retiredAt;
+  }
+
+  public String getRetiredBy() {
+    return retiredBy;
+  }
+
+  public void setRetiredBy(String retiredBy) {
+    this.retiredBy = retiredBy;
+  }
+
+  @Override
+  public String toString() {
+    return "FindingHistoryEntry{" +
+        "id=" + id +
+        ", type='" + type + '\'' +
+        ", moduleId='" + moduleId + '\'' +
+        ", details='" + details + '\'' +
+        ", priority='" + priority + '\'' +
+        ", timestamp=" + timestamp +
+        ", retiredAt=" + retiredAt +
+        ", retiredBy='" + retiredBy + '\'' +
+        '}';
+  }
+}
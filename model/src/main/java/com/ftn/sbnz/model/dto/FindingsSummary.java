@@ -0,0 +1,79 @@
+package com.ftn.sbnz.model.dto;
+
+import java.util.Map;
+
+/**
+ * Station-wide rollup of active findings: totals per priority, the highest
+ * active priority, and the same per module. version changes whenever a
+ * count does, so it doubles as the summary's ETag.
+ */
+public class FindingsSummary {
+  private long version;
+  private int total;
+  private Map<String, Integer> byPriority;
+  private String highestPriority;
+  private Map<String, ModuleFindingsSummary> modules;
+
+  public FindingsSummary() {
+  }
+
+  public FindingsSummary(long version, int total, Map<String, Integer> byPriority, String highestPriority,
+      Map<String, ModuleFindingsSummary> modules) {
+    this.version = version;
+    this.total = total;
+    this.byPriority = byPriority;
+    this.highestPriority = highestPriority;
+    this.modules = modules;
+  }
+
+  public long getVersion() {
+    return version;
+  }
+
+  public void setVersion(long version) {
+    this.version = version;
+  }
+
+  public int getTotal() {
+    return total;
+  }
+
+  public void setTotal(int total) {
+    this.total = total;
+  }
+
+  public Map<String, Integer> getByPriority() {
+    return byPriority;
+  }
+
+  public void setByPriority(Map<String, Integer> byPriority) {
+    this.byPriority = byPriority;
+  }
+
+  public String getHighestPriority() {
+    return highestPriority;
+  }
+
+  public void setHighestPriority(String highestPriority) {
+    this.highestPriority = highestPriority;
+  }
+
+  public Map<String, ModuleFindingsSummary> getModules() {
+    return modules;
+  }
+
+  public void setModules(Map<String, ModuleFindingsSummary> modules) {
+    this.modules = modules;
+  }
+
+  @Override
+  public String toString() {
+    return "FindingsSummary{" +
+        "version=" + version +
+        ", total=" + total +
+        ", byPriority=" + byPriority +
+        ", highestPriority='" + highestPriority + '\'' +
+        ", modules=" + modules +
+        '}';
+  }
+}
@@ -0,0 +1,55 @@
+package com.ftn.sbnz.model.dto;
+
+import java.util.Map;
+
+/**
+ * Active finding counts of one module: total, per priority, and the highest
+ * priority among them (null when the module has no findings).
+ */
+public class ModuleFindingsSummary {
+  private int total;
+  private Map<String, Integer> byPriority;
+  private String highestPriority;
+
+  public ModuleFindingsSummary() {
+  }
+
+  public ModuleFindingsSummary(int total, Map<String, Integer> byPriority, String highestPriority) {
+    this.total = total;
+    this.byPriority = byPriority;
+    this.highestPriority = highestPriority;
+  }
+
+  public int getTotal() {
+    return total;
+  }
+
+  public void setTotal(int total) {
+    this.total = total;
+  }
+
+  public Map<String, Integer> getByPriority() {
+    return byPriority;
+  }
+
+  public void setByPriority(Map<String, Integer> byPriority) {
+    this.byPriority = byPriority;
+  }
+
+  public String getHighestPriority() {
+    return highestPriority;
+  }
+
+  public void setHighestPriority(String highestPriority) {
+    this.highestPriority = highestPriority;
+  }
+
+  @Override
+  public String toString() {
+    return "ModuleFindingsSummary{" +
+        "total=" + total +
+        ", byPriority=" + byPriority +
+        ", highestPriority='" + highestPriority + '\'' +
+        '}';
+  }
+}
@@ -0,0 +1,122 @@
+package com.ftn.sbnz.model.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a telemetry replay. fromMillis and toMillis bound the replayed
+ * (event) time, elapsedMillis is the wall-clock time the replay took. The
+ * timeline is ordered by replayed time, then module. droppedEvents counts
+ * repeated events (same module, time and readings) that were not replayed.
+ */
+public class ReplayResult {
+  private int modules;
+  private long records;
+  private long rulesFired;
+  private long fromMillis;
+  private long toMillis;
+  private long elapsedMillis;
+  private int activeAtEnd;
+  private long droppedEvents;
+  private List<ReplayTimelineEntry> timeline;
+
+  public ReplayResult() {
+  }
+
+  public ReplayResult(int modules, long records, long rulesFired, long fromMillis, long toMillis,
+      long elapsedMillis, int activeAtEnd, List<ReplayTimelineEntry> timeline) {
+    this.modules = modules;
+    this.records = records;
+    this.rulesFired = rulesFired;
+    this.fromMillis = fromMillis;
+    this.toMillis = toMillis;
+    this.elapsedMillis = elapsedMillis;
+    this.activeAtEnd = activeAtEnd;
+    this.timeline = timeline;
+  }
+
+  public int getModules() {
+    return modules;
+  }
+
+  public void setModules(int modules) {
+    this.modules = modules;
+  }
+
+  public long getRecords() {
+    return records;
+  }
+
+  public void setRecords(long records) {
+    this.records = records;
+  }
+
+  public long getRulesFired() {
+    return rulesFired;
+  }
+
+  public void setRulesFired(long rulesFired) {
+    this.rulesFired = rulesFired;
+  }
+
+  public long getFromMillis() {
+    return fromMillis;
+  }
+
+  public void setFromMillis(long fromMillis) {
+    this.fromMillis = fromMillis;
+  }
+
+  public long getToMillis() {
+    return toMillis;
+  }
+
+  public void setToMillis(long toMillis) {
+    this.toMillis = toMillis;
+  }
+
+  public long getElapsedMillis() {
+    return elapsedMillis;
+  }
+
+  public void setElapsedMillis(long elapsedMillis) {
+    this.elapsedMillis = elapsedMillis;
+  }
+
+  public int getActiveAtEnd() {
+    return activeAtEnd;
+  }
+
+  public void setActiveAtEnd(int activeAtEnd) {
+    this.activeAtEnd = activeAtEnd;
+  }
+
+  public long getDroppedEvents() {
+    return droppedEvents;
+  }
+
+  public void setDroppedEvents(long droppedEvents) {
+    this.droppedEvents = droppedEvents;
+  }
+
+  public List<ReplayTimelineEntry> getTimeline() {
+    return timeline;
+  }
+
+  public void setTimeline(List<ReplayTimelineEntry> timeline) {
+    this.timeline = timeline;
+  }
+
+  @Override
+  public String toString() {
+    return "ReplayResult{" +
+        "modules=" + modules +
+        ", records=" + records +
+        ", rulesFired=" + rulesFired +
+        ", fromMillis=" + fromMillis +
+        ", toMillis=" + toMillis +
+        ", elapsedMillis=" + elapsedMillis +
+        ", activeAtEnd=" + activeAtEnd +
+        ", timeline=" + (timeline == null ? 0 : timeline.size()) + " entries" +
+        '}';
+  }
+}
@@ -0,0 +1,87 @@
+package com.ftn.sbnz.model.dto;
+
+/**
+ * A change of a finding during a replay, at replayed (event) time. change
+ * is RAISED when a rule inserted the finding, CLEARED when a rule retracted
+ * it and EXPIRED when its expiry time passed in replayed time.
+ */
+public class ReplayTimelineEntry {
+  private long time;
+  private String moduleId;
+  private String type;
+  private String priority;
+  private String details;
+  private String change;
+
+  public ReplayTimelineEntry() {
+  }
+
+  public ReplayTimelineEntry(long time, String moduleId, String type, String priority, String details,
+      String change) {
+    this.time = time;
+    this.moduleId = moduleId;
+    this.type = type;
+    this.priority = priority;
+    this.details = details;
+    this.change = change;
+  }
+
+  public long getTime() {
+    return time;
+  }
+
+  public void setTime(long time) {
+    this.time = time;
+  }
+
+  public String getModuleId() {
+    return moduleId;
+  }
+
+  public void setModuleId(String moduleId) {
+    this.moduleId = moduleId;
+  }
+
+  public String getType() {
+    return type;
+  }
+
+  public void setType(String type) {
+    this.type = type;
+  }
+
+  public String getPriority() {
+    return priority;
+  }
+
+  public void setPriority(String priority) {
+    this.priority = priority;
+  }
+
+  public String getDetails() {
+    return details;
+  }
+
+  public void setDetails(String details) {
+    this.details = details;
+  }
+
+  public String getChange() {
+    return change;
+  }
+
+  public void setChange(String change) {
+    this.change = change;
+  }
+
+  @Override
+  public String toString() {
+    return "ReplayTimelineEntry{" +
+        "time=" + time +
+        ", moduleId='" + moduleId + '\'' +
+        ", type='" + type + '\'' +
+        ", priority='" + priority + '\'' +
+        ", change='" + change + '\'' +
+        '}';
+  }
+}
@@ -0,0 +1,89 @@
+package com.ftn.sbnz.model.dto;
+
+import com.ftn.sbnz.model.models.Finding;
+import java.util.List;
+
+/**
+ * One line of an NDJSON streaming response: the outcome of a micro-batch.
+ * findings holds only the findings not yet reported earlier in the same
+ * stream. The last line has last set, and error set if the upload could not
+ * be read to the end.
+ */
+public class StreamBatchResult {
+  private int batch;
+  private int records;
+  private int rulesFired;
+  private List<Finding> findings;
+  private boolean last;
+  private String error;
+
+  public StreamBatchResult() {
+  }
+
+  public StreamBatchResult(int batch, int records, int rulesFired, List<Finding> findings) {
+    this.batch = batch;
+    this.records = records;
+    this.rulesFired = rulesFired;
+    this.findings = findings;
+  }
+
+  public int getBatch() {
+    return batch;
+  }
+
+  public void setBatch(int batch) {
+    this.batch = batch;
+  }
+
+  public int getRecords() {
+    return records;
+  }
+
+  public void setRecords(int records) {
+    this.records = records;
+  }
+
+  public int getRulesFired() {
+    return rulesFired;
+  }
+
+  public void setRulesFired(int rulesFired) {
+    this.rulesFired = rulesFired;
+  }
+
+  public List<Finding> getFindings() {
+    return findings;
+  }
+
+  public void setFindings(List<Finding> findings) {
+    this.findings = findings;
+  }
+
+  public boolean isLast() {
+    return last;
+  }
+
+  public void setLast(boolean last) {
+    this.last = last;
+  }
+
+  public String getError() {
+    return error;
+  }
+
+  public void setError(String error) {
+    this.error = error;
+  }
+
+  @Override
+  public String toString() {
+    return "StreamBatchResult{" +
+        "batch=" + batch +
+        ", records=" + records +
+        ", rulesFired=" + rulesFired +
+        ", findings=" + findings +
+        ", last=" + last +
+        ", error='" + error + '\'' +
+        '}';
+  }
+}
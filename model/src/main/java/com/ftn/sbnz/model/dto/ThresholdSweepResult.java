@@ -0,0 +1,151 @@
+package com.ftn.sbnz.model.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of a threshold sweep, one entry per candidate in generation
+ * order. kieBaseCompiled is false when the sweep reused a parametric
+ * KieBase compiled for an earlier sweep of the same shape.
+ */
+public class ThresholdSweepResult {
+  private int samples;
+  private boolean kieBaseCompiled;
+  private long elapsedMillis;
+  private List<Candidate> candidates;
+
+  public ThresholdSweepResult() {
+  }
+
+  public ThresholdSweepResult(int samples, boolean kieBaseCompiled, long elapsedMillis, List<Candidate> candidates) {
+    this.samples = samples;
+    this.kieBaseCompiled = kieBaseCompiled;
+    this.elapsedMillis = elapsedMillis;
+    this.candidates = candidates;
+  }
+
+  public int getSamples() {
+    return samples;
+  }
+
+  public void setSamples(int samples) {
+    this.samples = samples;
+  }
+
+  public boolean isKieBaseCompiled() {
+    return kieBaseCompiled;
+  }
+
+  public void setKieBaseCompiled(boolean kieBaseCompiled) {
+    this.kieBaseCompiled = kieBaseCompiled;
+  }
+
+  public long getElapsedMillis() {
+    return elapsedMillis;
+  }
+
+  public void setElapsedMillis(long elapsedMillis) {
+    this.elapsedMillis = elapsedMillis;
+  }
+
+  public List<Candidate> getCandidates() {
+    return candidates;
+  }
+
+  public void setCandidates(List<Candidate> candidates) {
+    this.candidates = candidates;
+  }
+
+  /**
+   * Results of one candidate threshold set. An alarm is the onset of a
+   * violation: a row whose condition starts to hold for its module. The
+   * false positive and missed incident counts are null when the sweep had
+   * no incidents to compare against.
+   */
+  public static class Candidate {
+    private int index;
+    private Map<String, Double> values;
+    private int alarms;
+    private int violatingSamples;
+    private Long firstAlarmMillis;
+    private Map<String, Integer> alarmsByType;
+    private Map<String, Long> firstAlarmByType;
+    private Integer falsePositives;
+    private Integer missedIncidents;
+
+    public Candidate() {
+    }
+
+    public int getIndex() {
+      return index;
+    }
+
+    public void setIndex(int index) {
+      this.index = index;
+    }
+
+    public Map<String, Double> getValues() {
+      return values;
+    }
+
+    public void setValues(Map<String, Double> values) {
+      this.values = values;
+    }
+
+    public int getAlarms() {
+      return alarms;
+    }
+
+    public void setAlarms(int alarms) {
+      this.alarms = alarms;
+    }
+
+    public int getViolatingSamples() {
+      return violatingSamples;
+    }
+
+    public void setViolatingSamples(int violatingSamples) {
+      this.violatingSamples = violatingSamples;
+    }
+
+    public Long getFirstAlarmMillis() {
+      return firstAlarmMillis;
+    }
+
+    public void setFirstAlarmMillis(Long firstAlarmMillis) {
+      this.firstAlarmMillis = firstAlarmMillis;
+    }
+
+    public Map<String, Integer> getAlarmsByType() {
+      return alarmsByType;
+    }
+
+    public void setAlarmsByType(Map<String, Integer> alarmsByType) {
+      this.alarmsByType = alarmsByType;
+    }
+
+    public Map<String, Long> getFirstAlarmByType() {
+      return firstAlarmByType;
+    }
+
+    public void setFirstAlarmByType(Map<String, Long> firstAlarmByType) {
+      this.firstAlarmByType = firstAlarmByType;
+    }
+
+    public Integer getFalsePositives() {
+      return falsePositives;
+    }
+
+    public void setFalsePositives(Integer falsePositives) {
+      this.falsePositives = falsePositives;
+    }
+
+    public Integer getMissedIncidents() {
+      return missedIncidents;
+    }
+
+    public void setMissedIncidents(Integer missedIncidents) {
+      this.missedIncidents = missedIncidents;
+    }
+  }
+}
@@ -0,0 +1,45 @@
+package com.ftn.sbnz.model.dtos;
+
+import com.ftn.sbnz.model.models.Environment;
+import com.ftn.sbnz.model.events.AirQualityEvent;
+
+/**
+ * One line of an NDJSON air quality upload. Each line carries an
+ * environment reading, an air quality event, or both.
+ */
+public class AirQualityStreamRecord {
+    private Environment environment;
+    private AirQualityEvent airQualityEvent;
+
+    public AirQualityStreamRecord() {
+    }
+
+    public AirQualityStreamRecord(Environment environment, AirQualityEvent airQualityEvent) {
+        this.environment = environment;
+        this.airQualityEvent = airQualityEvent;
+    }
+
+    public Environment getEnvironment() {
+        return environment;
+    }
+
+    public void setEnvironment(Environment environment) {
+        this.environment = environment;
+    }
+
+    public AirQualityEvent getAirQualityEvent() {
+        return airQualityEvent;
+    }
+
+    public void setAirQualityEvent(AirQualityEvent airQualityEvent) {
+        this.airQualityEvent = airQualityEvent;
+    }
+
+    @Override
+    public String toString() {
+        return "AirQualityStreamRecord{" +
+                "environment=" + environment +
+                ", airQualityEvent=" + airQualityEvent +
+                '}';
+    }
+}
@@ -0,0 +1,73 @@
+package com.ftn.sbnz.model.dtos;
+
+import com.ftn.sbnz.model.models.Environment;
+import com.ftn.sbnz.model.models.CondensationData;
+import com.ftn.sbnz.model.events.HumidityEvent;
+import com.ftn.sbnz.model.models.WaterRecycling;
+import com.ftn.sbnz.model.models.VentilationStatus;
+
+/**
+ * One line of an NDJSON environmental upload. Any combination of the fields
+ * may be set; missing ones are ignored.
+ */
+public class EnvironmentalStreamRecord {
+  private Environment environment;
+  private CondensationData condensationData;
+  private HumidityEvent humidityEvent;
+  private WaterRecycling waterRecycling;
+  private VentilationStatus ventilationStatus;
+
+  public EnvironmentalStreamRecord() {
+  }
+
+  public Environment getEnvironment() {
+    return environment;
+  }
+
+  public void setEnvironment(Environment environment) {
+    this.environment = environment;
+  }
+
+  public CondensationData getCondensationData() {
+    return condensationData;
+  }
+
+  public void setCondensationData(CondensationData condensationData) {
+    this.condensationData = condensationData;
+  }
+
+  public HumidityEvent getHumidityEvent() {
+    return humidityEvent;
+  }
+
+  public void setHumidityEvent(HumidityEvent humidityEvent) {
+    this.humidityEvent = humidityEvent;
+  }
+
+  public WaterRecycling getWaterRecycling() {
+    return waterRecycling;
+  }
+
+  public void setWaterRecycling(WaterRecycling waterRecycling) {
+    this.waterRecycling = waterRecycling;
+  }
+
+  public VentilationStatus getVentilationStatus() {
+    return ventilationStatus;
+  }
+
+  public void setVentilationStatus(VentilationStatus ventilationStatus) {
+    this.ventilationStatus = ventilationStatus;
+  }
+
+  @Override
+  public String toString() {
+    return "EnvironmentalStreamRecord{" +
+        "environment=" + environment +
+        ", condensationData=" + condensationData +
+        ", humidityEvent=" + humidityEvent +
+        ", waterRecycling=" + waterRecycling +
+        ", ventilationStatus=" + ventilationStatus +
+        '}';
+  }
+}
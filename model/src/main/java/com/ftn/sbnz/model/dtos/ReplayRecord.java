@@ -0,0 +1,99 @@
+package com.ftn.sbnz.model.dtos;
+
+import com.ftn.sbnz.model.events.AirQualityEvent;
+import com.ftn.sbnz.model.events.HumidityEvent;
+import com.ftn.sbnz.model.models.CondensationData;
+import com.ftn.sbnz.model.models.Environment;
+import com.ftn.sbnz.model.models.VentilationStatus;
+import com.ftn.sbnz.model.models.WaterRecycling;
+
+/**
+ * One line of an archived telemetry file replayed through the CEP rules.
+ * Any combination of the fields may be set.
+ *
+ * The record happens at timestamp (epoch millis) if set, else at the time
+ * of its event; an explicit timestamp also overrides the event's own. A
+ * record with neither, e.g. a bare Environment reading, happens at the time
+ * of the module's previous record.
+ */
+public class ReplayRecord {
+  private Long timestamp;
+  private Environment environment;
+  private AirQualityEvent airQualityEvent;
+  private HumidityEvent humidityEvent;
+  private CondensationData condensationData;
+  private WaterRecycling waterRecycling;
+  private VentilationStatus ventilationStatus;
+
+  public ReplayRecord() {
+  }
+
+  public Long getTimestamp() {
+    return timestamp;
+  }
+
+  public void setTimestamp(Long timestamp) {
+    this.timestamp = timestamp;
+  }
+
+  public Environment getEnvironment() {
+    return environment;
+  }
+
+  public void setEnvironment(Environment environment) {
+    this.environment = environment;
+  }
+
+  public AirQualityEvent getAirQualityEvent() {
+    return airQualityEvent;
+  }
+
+  public void setAirQualityEvent(AirQualityEvent airQualityEvent) {
+    this.airQualityEvent = airQualityEvent;
+  }
+
+  public HumidityEvent getHumidityEvent() {
+    return humidityEvent;
+  }
+
+  public void setHumidityEvent(HumidityEvent humidityEvent) {
+    this.humidityEvent = humidityEvent;
+  }
+
+  public CondensationData getCondensationData() {
+    return condensationData;
+  }
+
+  public void setCondensationData(CondensationData condensationData) {
+    this.condensationData = condensationData;
+  }
+
+  public WaterRecycling getWaterRecycling() {
+    return waterRecycling;
+  }
+
+  public void setWaterRecycling(WaterRecycling waterRecycling) {
+    this.waterRecycling = waterRecycling;
+  }
+
+  public VentilationStatus getVentilationStatus() {
+    return ventilationStatus;
+  }
+
+  public void setVentilationStatus(VentilationStatus ventilationStatus) {
+    this.ventilationStatus = ventilationStatus;
+  }
+
+  @Override
+  public String toString() {
+    return "ReplayRecord{" +
+        "timestamp=" + timestamp +
+        ", environment=" + environment +
+        ", airQualityEvent=" + airQualityEvent +
+        ", humidityEvent=" + humidityEvent +
+        ", condensationData=" + condensationData +
+        ", waterRecycling=" + waterRecycling +
+        ", ventilationStatus=" + ventilationStatus +
+        '}';
+  }
+}
@@ -0,0 +1,189 @@
+package com.ftn.sbnz.model.dtos;
+
+import com.ftn.sbnz.model.models.EnvironmentalThresholdTemplateModel;
+
+import java.util.List;
+
+/**
+ * A threshold sweep: the base threshold set (the default set if null), the
+ * ranges to sweep, the historical samples to evaluate every candidate
+ * against and, optionally, the known incidents used to estimate false
+ * positives.
+ *
+ * A range applies to the base rows with its parameter, and with its
+ * operator and module if those are set. Candidates are the cartesian
+ * product of all range values. Samples are ReplayRecords; only their
+ * timestamp and environment are used.
+ */
+public class ThresholdSweepRequest {
+  private List<EnvironmentalThresholdTemplateModel> thresholds;
+  private List<Range> ranges;
+  private List<ReplayRecord> samples;
+  private List<Incident> incidents;
+
+  public ThresholdSweepRequest() {
+  }
+
+  public List<EnvironmentalThresholdTemplateModel> getThresholds() {
+    return thresholds;
+  }
+
+  public void setThresholds(List<EnvironmentalThresholdTemplateModel> thresholds) {
+    this.thresholds = thresholds;
+  }
+
+  public List<Range> getRanges() {
+    return ranges;
+  }
+
+  public void setRanges(List<Range> ranges) {
+    this.ranges = ranges;
+  }
+
+  public List<ReplayRecord> getSamples() {
+    return samples;
+  }
+
+  public void setSamples(List<ReplayRecord> samples) {
+    this.samples = samples;
+  }
+
+  public List<Incident> getIncidents() {
+    return incidents;
+  }
+
+  public void setIncidents(List<Incident> incidents) {
+    this.incidents = incidents;
+  }
+
+  /**
+   * Threshold values from, from + step, ... up to to (inclusive).
+   */
+  public static class Range {
+    private String parameter;
+    private String operator;
+    private String moduleId;
+    private double from;
+    private double to;
+    private double step;
+
+    public Range() {
+    }
+
+    public Range(String parameter, String operator, String moduleId, double from, double to, double step) {
+      this.parameter = parameter;
+      this.operator = operator;
+      this.moduleId = moduleId;
+      this.from = from;
+      this.to = to;
+      this.step = step;
+    }
+
+    public String getParameter() {
+      return parameter;
+    }
+
+    public void setParameter(String parameter) {
+      this.parameter = parameter;
+    }
+
+    public String getOperator() {
+      return operator;
+    }
+
+    public void setOperator(String operator) {
+      this.operator = operator;
+    }
+
+    public String getModuleId() {
+      return moduleId;
+    }
+
+    public void setModuleId(String moduleId) {
+      this.moduleId = moduleId;
+    }
+
+    public double getFrom() {
+      return from;
+    }
+
+    public void setFrom(double from) {
+      this.from = from;
+    }
+
+    public double getTo() {
+      return to;
+    }
+
+    public void setTo(double to) {
+      this.to = to;
+    }
+
+    public double getStep() {
+      return step;
+    }
+
+    public void setStep(double step) {
+      this.step = step;
+    }
+
+    // Key of the range's value in a candidate, e.g. "o2Level < LAB"
+    public String label() {
+      return parameter + (operator == null ? "" : " " + operator) + (moduleId == null ? "" : " " + moduleId);
+    }
+  }
+
+  /**
+   * A period in which a module really was in an alarm condition, of the
+   * given alarm type or of any type if alarmType is null. Times are epoch
+   * millis.
+   */
+  public static class Incident {
+    private String moduleId;
+    private String alarmType;
+    private long from;
+    private long to;
+
+    public Incident() {
+    }
+
+    public Incident(String moduleId, String alarmType, long from, long to) {
+      this.moduleId = moduleId;
+      this.alarmType = alarmType;
+      this.from = from;
+      this.to = to;
+    }
+
+    public String getModuleId() {
+      return moduleId;
+    }
+
+    public void setModuleId(String moduleId) {
+      this.moduleId = moduleId;
+    }
+
+    public String getAlarmType() {
+      return alarmType;
+    }
+
+    public void setAlarmType(String alarmType) {
+      this.alarmType = alarmType;
+    }
+
+    public long getFrom() {
+      return from;
+    }
+
+    public void setFrom(long from) {
+      this.from = from;
+    }
+
+    public long getTo() {
+      return to;
+    }
+
+    public void setTo(long to) {
+      this.to = to;
+    }
+  }
+}
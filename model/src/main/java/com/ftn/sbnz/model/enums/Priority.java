@@ -0,0 +1,58 @@
+package com.ftn.sbnz.model.enums;
+
+import java.util.Arrays;
+
+/**
+ * Finding priorities, lowest first, so ordinal order is severity order.
+ */
+public enum Priority {
+    INFO,
+    LOW,
+    MEDIUM,
+    HIGH,
+    CRITICAL;
+
+    private static final Priority[] VALUES = values();
+
+    // Null for null or unknown names; for values that were validated on the
+    // way in, e.g. priorities written by rules. Client input goes through of
+    public static Priority parse(String name) {
+        if (name == null) {
+            return null;
+        }
+        for (Priority priority : VALUES) {
+            if (priority.name().equalsIgnoreCase(name.trim())) {
+                return priority;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Strict lookup for client input. Names match regardless of case, so the
+     * priority is echoed back by its canonical name.
+     *
+     * @throws IllegalArgumentException if the name is missing or unknown
+     */
+    public static Priority of(String name) {
+        Priority priority = parse(name);
+        if (priority == null) {
+            throw new IllegalArgumentException(
+                    "Unknown priority '" + name + "', expected one of " + Arrays.toString(VALUES));
+        }
+        return priority;
+    }
+
+    public static Priority fromOrdinal(int ordinal) {
+        return ordinal < 0 || ordinal >= VALUES.length ? null : VALUES[ordinal];
+    }
+
+    // Severity rank; null ranks below every priority
+    public static int rank(Priority priority) {
+        return priority == null ? -1 : priority.ordinal();
+    }
+
+    public static int rank(String name) {
+        return rank(parse(name));
+    }
+}
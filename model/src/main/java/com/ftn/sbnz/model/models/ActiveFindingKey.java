@@ -0,0 +1,62 @@
+package com.ftn.sbnz.model.models;
+
+import java.util.Objects;
+
+/**
+ * Marks that a finding of the given type is active in the global findings
+ * store for a module. Inserted into request sessions so rules can check for
+ * existing findings with an indexed pattern instead of an eval call.
+ */
+public class ActiveFindingKey {
+  private String moduleId;
+  private String type;
+
+  public ActiveFindingKey() {
+  }
+
+  public ActiveFindingKey(String moduleId, String type) {
+    this.moduleId = moduleId;
+    this.type = type;
+  }
+
+  public String getModuleId() {
+    return moduleId;
+  }
+
+  public void setModuleId(String moduleId) {
+    this.moduleId = moduleId;
+  }
+
+  public String getType() {
+    return type;
+  }
+
+  public void setType(String type) {
+    this.type = type;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof ActiveFindingKey)) {
+      return false;
+    }
+    ActiveFindingKey other = (ActiveFindingKey) o;
+    return Objects.equals(moduleId, other.moduleId) && Objects.equals(type, other.type);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(moduleId, type);
+  }
+
+  @Override
+  public String toString() {
+    return "ActiveFindingKey{" +
+        "moduleId='" + moduleId + '\'' +
+        ", type='" + type + '\'' +
+        '}';
+  }
+}
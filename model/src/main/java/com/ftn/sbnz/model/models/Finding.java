@@ -1,51 +1,98 @@
 package com.ftn.sbnz.model.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.ftn.sbnz.model.enums.Priority;
+import com.ftn.sbnz.model.utils.FindingClock;
+
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 
+/**
+ * A finding raised by the rules. Type and priority are held as catalog
+ * references and times as epoch millis from FindingClock; the String and
+ * LocalDateTime accessors keep the JSON and rule-facing shape unchanged.
+ */
 public class Finding {
-  private String type;
+  // Stands for a missing time
+  public static final long NO_TIME = Long.MIN_VALUE;
+  private static final long DEFAULT_EXPIRY_MILLIS = 30 * 60 * 1000L; // Default 30m expiration
+
+  private FindingType type;
   private String moduleId;
   private String details;
-  private String priority;
-  private LocalDateTime timestamp;
-  private LocalDateTime expiresAt;
+  private Priority priority;
+  private long timestamp;
+  private long expiresAt;
+  private long lastSeenAt;
   private boolean notified;
+  // Times the condition was raised while this finding was active
+  private int occurrences;
 
   public Finding() {
-    this.timestamp = LocalDateTime.now();
-    this.expiresAt = LocalDateTime.now().plusMinutes(30); // Default 30m expiration
+    long now = FindingClock.millis();
+    this.timestamp = now;
+    this.expiresAt = now + DEFAULT_EXPIRY_MILLIS;
+    this.lastSeenAt = now;
     this.notified = false;
+    this.occurrences = 1;
   }
 
   public Finding(String type) {
     this();
-    this.type = type;
+    this.type = FindingType.of(type);
   }
 
   public Finding(String type, String details, String priority) {
     this();
-    this.type = type;
+    this.type = FindingType.of(type);
     this.details = details;
-    this.priority = priority;
+    this.priority = Priority.parse(priority);
   }
 
   public Finding(String type, String moduleId, String details, String priority) {
     this();
-    this.type = type;
+    this.type = FindingType.of(type);
     this.moduleId = moduleId;
     this.details = details;
-    this.priority = priority;
+    this.priority = Priority.parse(priority);
+  }
+
+  /**
+   * Copy of the source, e.g. to merge a repeat into without changing a
+   * finding that was already published.
+   */
+  public Finding(Finding source) {
+    this.type = source.type;
+    this.moduleId = source.moduleId;
+    this.details = source.details;
+    this.priority = source.priority;
+    this.timestamp = source.timestamp;
+    this.expiresAt = source.expiresAt;
+    this.lastSeenAt = source.lastSeenAt;
+    this.notified = source.notified;
+    this.occurrences = source.occurrences;
   }
 
   public boolean isExpired() {
-    return LocalDateTime.now().isAfter(expiresAt);
+    return FindingClock.millis() > expiresAt;
   }
 
   public String getType() {
-    return type;
+    return type == null ? null : type.getName();
   }
 
   public void setType(String type) {
+    this.type = FindingType.of(type);
+  }
+
+  @JsonIgnore
+  public FindingType getFindingType() {
+    return type;
+  }
+
+  @JsonIgnore
+  public void setFindingType(FindingType type) {
     this.type = type;
   }
 
@@ -66,26 +113,56 @@ public class Finding {
   }
 
   public String getPriority() {
-    return priority;
+    return priority == null ? null : priority.name();
   }
 
   public void setPriority(String priority) {
+    this.priority = Priority.parse(priority);
+  }
+
+  @JsonIgnore
+  public Priority getPriorityLevel() {
+    return priority;
+  }
+
+  @JsonIgnore
+  public void setPriorityLevel(Priority priority) {
     this.priority = priority;
   }
 
   public LocalDateTime getTimestamp() {
-    return timestamp;
+    return toDateTime(timestamp);
   }
 
   public void setTimestamp(LocalDateTime timestamp) {
+    this.timestamp = toMillis(timestamp);
+  }
+
+  @JsonIgnore
+  public long getTimestampMillis() {
+    return timestamp;
+  }
+
+  @JsonIgnore
+  public void setTimestampMillis(long timestamp) {
     this.timestamp = timestamp;
   }
 
   public LocalDateTime getExpiresAt() {
-    return expiresAt;
+    return toDateTime(expiresAt);
   }
 
   public void setExpiresAt(LocalDateTime expiresAt) {
+    this.expiresAt = toMillis(expiresAt);
+  }
+
+  @JsonIgnore
+  public long getExpiresAtMillis() {
+    return expiresAt;
+  }
+
+  @JsonIgnore
+  public void setExpiresAtMillis(long expiresAt) {
     this.expiresAt = expiresAt;
   }
 
@@ -97,15 +174,51 @@ public class Finding {
     this.notified = notified;
   }
 
+  public int getOccurrences() {
+    return occurrences;
+  }
+
+  public void setOccurrences(int occurrences) {
+    this.occurrences = occurrences;
+  }
+
+  public LocalDateTime getLastSeenAt() {
+    return toDateTime(lastSeenAt);
+  }
+
+  public void setLastSeenAt(LocalDateTime lastSeenAt) {
+    this.lastSeenAt = toMillis(lastSeenAt);
+  }
+
+  @JsonIgnore
+  public long getLastSeenAtMillis() {
+    return lastSeenAt;
+  }
+
+  @JsonIgnore
+  public void setLastSeenAtMillis(long lastSeenAt) {
+    this.lastSeenAt = lastSeenAt;
+  }
+
+  // Times are exposed in the server's zone, as LocalDateTime.now() used to be
+  private static LocalDateTime toDateTime(long millis) {
+    return millis == NO_TIME ? null : LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+  }
+
+  private static long toMillis(LocalDateTime dateTime) {
+    return dateTime == null ? NO_TIME : dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+  }
+
   @Override
   public String toString() {
     return "Finding{" +
-        "type='" + type + '\'' +
+        "type='" + getType() + '\'' +
         ", moduleId='" + moduleId + '\'' +
         ", details='" + details + '\'' +
-        ", priority='" + priority + '\'' +
-        ", timestamp=" + timestamp +
+        ", priority='" + getPriority() + '\'' +
+        ", timestamp=" + getTimestamp() +
         ", notified=" + notified +
+        ", occurrences=" + occurrences +
         '}';
   }
 }
@@ -0,0 +1,98 @@
+package com.ftn.sbnz.model.models;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Finding type. The types raised by the rules are catalogued up front: each
+ * of those names maps to exactly one instance with a small integer id, so
+ * findings hold a reference instead of their own copy of the name. Any other
+ * name (e.g. a template alarm type sent by a client) gets an uncatalogued
+ * custom instance carrying it, so callers cannot grow the catalog. Types are
+ * equal if their names are.
+ */
+public final class FindingType {
+
+  public static final int CUSTOM_ID = -1;
+
+  private static final Map<String, FindingType> BY_NAME = new ConcurrentHashMap<>();
+  private static volatile FindingType[] byId = new FindingType[0];
+
+  public static final FindingType EPISODIC_AIR_CONTAMINATION = register("Episodic Air Contamination");
+  public static final FindingType CONDENSATION_ON_WALLS = register("Condensation detected on WALLS");
+  public static final FindingType CONDENSATION_ON_PANELS = register("Condensation detected on PANELS");
+  public static final FindingType CONDENSATION_ON_WATER_LINES = register("Condensation detected on WATER_LINES");
+  public static final FindingType INVESTIGATION_REQUIRED = register("Investigation Required");
+  public static final FindingType MOISTURE_SOURCE_FOUND = register("Moisture source found");
+  public static final FindingType INVESTIGATION_COMPLETE_NO_SOURCE = register("Investigation complete - no source");
+  public static final FindingType VENTILATION_SERVICE_REQUIRED = register("Ventilation service required");
+  public static final FindingType AIR_FILTER_REPLACEMENT_REQUIRED = register("Air filter replacement required");
+  public static final FindingType RISK_OF_HYPOXIA = register("Risk of hypoxia");
+  public static final FindingType CHEMICAL_IRRITANTS_PRESENT = register("Chemical irritants present");
+  public static final FindingType HYPOXIA_CONFIRMED = register("Hypoxia confirmed");
+  public static final FindingType HYPOXIA_CAUSE_POOR_VENTILATION = register("Cause of hypoxia: poor ventilation");
+  public static final FindingType DANGEROUS_AIR_QUALITY = register("Dangerous air quality in module");
+
+  private final int id;
+  private final String name;
+
+  private FindingType(int id, String name) {
+    this.id = id;
+    this.name = name;
+  }
+
+  public static FindingType of(String name) {
+    if (name == null) {
+      return null;
+    }
+    FindingType type = BY_NAME.get(name);
+    return type != null ? type : new FindingType(CUSTOM_ID, name);
+  }
+
+  // Only for the constants above, while the class initializes
+  private static FindingType register(String name) {
+    FindingType[] grown = Arrays.copyOf(byId, byId.length + 1);
+    FindingType type = new FindingType(byId.length, name.intern());
+    grown[type.id] = type;
+    byId = grown;
+    BY_NAME.put(type.name, type);
+    return type;
+  }
+
+  public static FindingType byId(int id) {
+    FindingType[] types = byId;
+    return id < 0 || id >= types.length ? null : types[id];
+  }
+
+  public static int count() {
+    return byId.length;
+  }
+
+  public int getId() {
+    return id;
+  }
+
+  public boolean isCustom() {
+    return id == CUSTOM_ID;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return this == o || o instanceof FindingType && name.equals(((FindingType) o).name);
+  }
+
+  @Override
+  public int hashCode() {
+    return name.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return name;
+  }
+}
@@ -0,0 +1,108 @@
+package com.ftn.sbnz.model.models;
+
+/**
+ * Humidity change of a module over the 6-hour condensation window.
+ * Maintained from the module's humidity readings on the Java side and
+ * upserted into the CEP session, so the condensation rules join on one fact
+ * instead of searching the retained HumidityEvents for the window bounds.
+ *
+ * windowComplete is false until a reading 5h55m-6h5m older than the most
+ * recent one exists; oldest values are then meaningless.
+ */
+public class HumidityTrend {
+
+  /** Rise in humidity over the window that counts as a condensation trend */
+  public static final double CONDENSATION_RISE = 10.0;
+
+  private String moduleId;
+  private double recentHumidity;
+  private long recentTimestamp;
+  private double oldestHumidity;
+  private long oldestTimestamp;
+  private boolean windowComplete;
+
+  public HumidityTrend() {
+  }
+
+  public HumidityTrend(String moduleId, double recentHumidity, long recentTimestamp) {
+    this.moduleId = moduleId;
+    this.recentHumidity = recentHumidity;
+    this.recentTimestamp = recentTimestamp;
+  }
+
+  public HumidityTrend(String moduleId, double recentHumidity, long recentTimestamp, double oldestHumidity,
+      long oldestTimestamp) {
+    this(moduleId, recentHumidity, recentTimestamp);
+    this.oldestHumidity = oldestHumidity;
+    this.oldestTimestamp = oldestTimestamp;
+    this.windowComplete = true;
+  }
+
+  public String getModuleId() {
+    return moduleId;
+  }
+
+  public void setModuleId(String moduleId) {
+    this.moduleId = moduleId;
+  }
+
+  public double getRecentHumidity() {
+    return recentHumidity;
+  }
+
+  public void setRecentHumidity(double recentHumidity) {
+    this.recentHumidity = recentHumidity;
+  }
+
+  public long getRecentTimestamp() {
+    return recentTimestamp;
+  }
+
+  public void setRecentTimestamp(long recentTimestamp) {
+    this.recentTimestamp = recentTimestamp;
+  }
+
+  public double getOldestHumidity() {
+    return oldestHumidity;
+  }
+
+  public void setOldestHumidity(double oldestHumidity) {
+    this.oldestHumidity = oldestHumidity;
+  }
+
+  public long getOldestTimestamp() {
+    return oldestTimestamp;
+  }
+
+  public void setOldestTimestamp(long oldestTimestamp) {
+    this.oldestTimestamp = oldestTimestamp;
+  }
+
+  public boolean isWindowComplete() {
+    return windowComplete;
+  }
+
+  public void setWindowComplete(boolean windowComplete) {
+    this.windowComplete = windowComplete;
+  }
+
+  public double getRise() {
+    return windowComplete ? recentHumidity - oldestHumidity : 0.0;
+  }
+
+  public boolean isRising() {
+    return windowComplete && recentHumidity > oldestHumidity + CONDENSATION_RISE;
+  }
+
+  @Override
+  public String toString() {
+    return "HumidityTrend{" +
+        "moduleId='" + moduleId + '\'' +
+        ", recentHumidity=" + recentHumidity +
+        ", recentTimestamp=" + recentTimestamp +
+        ", oldestHumidity=" + oldestHumidity +
+        ", oldestTimestamp=" + oldestTimestamp +
+        ", windowComplete=" + windowComplete +
+        '}';
+  }
+}
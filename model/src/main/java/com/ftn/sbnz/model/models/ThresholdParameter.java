@@ -0,0 +1,31 @@
+package com.ftn.sbnz.model.models;
+
+/**
+ * Threshold value of one row of a parametric threshold rule set, inserted
+ * into a threshold sweep session in place of a literal in the DRL.
+ */
+public class ThresholdParameter {
+  private final int row;
+  private final double value;
+
+  public ThresholdParameter(int row, double value) {
+    this.row = row;
+    this.value = value;
+  }
+
+  public int getRow() {
+    return row;
+  }
+
+  public double getValue() {
+    return value;
+  }
+
+  @Override
+  public String toString() {
+    return "ThresholdParameter{" +
+        "row=" + row +
+        ", value=" + value +
+        '}';
+  }
+}
@@ -0,0 +1,45 @@
+package com.ftn.sbnz.model.utils;
+
+import com.ftn.sbnz.model.events.AirQualityEvent;
+
+/**
+ * Result of the airQualityEpisodes accumulate function: how many episodes
+ * and events are in the window and which event is the latest.
+ */
+public class AirQualityEpisodeStats {
+
+    private final int episodeCount;
+    private final int eventCount;
+    private final AirQualityEvent latestEvent;
+
+    public AirQualityEpisodeStats(int episodeCount, int eventCount, AirQualityEvent latestEvent) {
+        this.episodeCount = episodeCount;
+        this.eventCount = eventCount;
+        this.latestEvent = latestEvent;
+    }
+
+    public int getEpisodeCount() {
+        return episodeCount;
+    }
+
+    public int getEventCount() {
+        return eventCount;
+    }
+
+    public AirQualityEvent getLatestEvent() {
+        return latestEvent;
+    }
+
+    public boolean hasMultipleEpisodes() {
+        return episodeCount >= AirQualityStats.MIN_EPISODES;
+    }
+
+    @Override
+    public String toString() {
+        return "AirQualityEpisodeStats{" +
+                "episodeCount=" + episodeCount +
+                ", eventCount=" + eventCount +
+                ", latestEvent=" + latestEvent +
+                '}';
+    }
+}
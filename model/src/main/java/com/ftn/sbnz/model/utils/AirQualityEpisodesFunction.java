@@ -0,0 +1,97 @@
+package com.ftn.sbnz.model.utils;
+
+import com.ftn.sbnz.model.events.AirQualityEvent;
+import org.kie.api.runtime.rule.AccumulateFunction;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Incremental accumulate function for CEP-2. Counts episodes as events enter
+ * the window and subtracts them as they leave, so the check costs O(1) per
+ * event instead of rescanning a collected list. Events are kept ordered by
+ * timestamp only to answer "latest event" after the latest one is reversed.
+ *
+ * Usage in DRL:
+ * import accumulate com.ftn.sbnz.model.utils.AirQualityEpisodesFunction airQualityEpisodes
+ */
+public class AirQualityEpisodesFunction implements AccumulateFunction<AirQualityEpisodesFunction.EpisodeContext> {
+
+    public static class EpisodeContext implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private int episodeCount;
+        private int eventCount;
+        private final TreeMap<Long, ArrayDeque<AirQualityEvent>> byTimestamp = new TreeMap<>();
+    }
+
+    @Override
+    public EpisodeContext createContext() {
+        return new EpisodeContext();
+    }
+
+    @Override
+    public void init(EpisodeContext context) {
+        context.episodeCount = 0;
+        context.eventCount = 0;
+        context.byTimestamp.clear();
+    }
+
+    @Override
+    public void accumulate(EpisodeContext context, Object value) {
+        AirQualityEvent event = (AirQualityEvent) value;
+        context.eventCount++;
+        if (AirQualityStats.isEpisode(event)) {
+            context.episodeCount++;
+        }
+        context.byTimestamp.computeIfAbsent(event.getTimestamp(), k -> new ArrayDeque<>()).add(event);
+    }
+
+    @Override
+    public void reverse(EpisodeContext context, Object value) {
+        AirQualityEvent event = (AirQualityEvent) value;
+        context.eventCount--;
+        if (AirQualityStats.isEpisode(event)) {
+            context.episodeCount--;
+        }
+        ArrayDeque<AirQualityEvent> sameTime = context.byTimestamp.get(event.getTimestamp());
+        if (sameTime != null) {
+            sameTime.remove(event);
+            if (sameTime.isEmpty()) {
+                context.byTimestamp.remove(event.getTimestamp());
+            }
+        }
+    }
+
+    @Override
+    public Object getResult(EpisodeContext context) {
+        Map.Entry<Long, ArrayDeque<AirQualityEvent>> latest = context.byTimestamp.lastEntry();
+        return new AirQualityEpisodeStats(context.episodeCount, context.eventCount,
+                latest == null ? null : latest.getValue().peekLast());
+    }
+
+    @Override
+    public boolean supportsReverse() {
+        return true;
+    }
+
+    @Override
+    public Class<?> getResultType() {
+        return AirQualityEpisodeStats.class;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        // stateless
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+        // stateless
+    }
+}
@@ -5,6 +5,16 @@ import java.util.List;
 
 public class AirQualityStats {
 
+    // CEP-2 episode thresholds: VOC in ppm, PM in μg/m³
+    public static final double EPISODE_VOC_THRESHOLD = 50.0;
+    public static final double EPISODE_PM_THRESHOLD = 35.0;
+    public static final int MIN_EPISODES = 3;
+
+    // An event is an episode when VOC or PM is at or above its threshold
+    public static boolean isEpisode(AirQualityEvent event) {
+        return event.getVocLevel() >= EPISODE_VOC_THRESHOLD || event.getPmLevel() >= EPISODE_PM_THRESHOLD;
+    }
+
     // CEP-2: Count episodes where VOC/PM spike above threshold in 24h
     public static boolean hasMultipleEpisodes(List<AirQualityEvent> events,
             double vocThreshold,
@@ -0,0 +1,336 @@
+package com.ftn.sbnz.model.utils;
+
+import java.io.PrintStream;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous event log for services and rule consequences.
+ *
+ * A call below the current level returns right away. Otherwise the call
+ * stores the level, time, thread, source, pattern and arguments in a
+ * pre-allocated slot of a bounded lock-free ring buffer and returns. A
+ * single daemon thread drains the buffer, formats the messages and writes
+ * them to stdout in batches. The calling thread never formats, never takes a
+ * lock and never waits on stdout. When the buffer is full the event is
+ * dropped and counted.
+ *
+ * Patterns use {} placeholders: EventLog.info("FindingsService", "Added {} to {}", type, moduleId).
+ * Arguments are formatted later on the writer thread, so pass values that
+ * do not change afterwards (strings, numbers), not mutable facts.
+ *
+ * Configured through system properties astrovital.log.level (default INFO)
+ * and astrovital.log.buffer-size (default 8192, rounded up to a power of two).
+ */
+public final class EventLog {
+
+    public enum Level {
+        TRACE, DEBUG, INFO, WARN, ERROR, OFF;
+
+        public static Level parse(String text) {
+            for (Level level : values()) {
+                if (level.name().equalsIgnoreCase(text)) {
+                    return level;
+                }
+            }
+            throw new IllegalArgumentException("No log level " + text + " found");
+        }
+    }
+
+    private static final int MAX_BATCH = 256;
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ISO_INSTANT;
+
+    private static volatile Level threshold = Level.parse(System.getProperty("astrovital.log.level", "INFO"));
+
+    private static final Slot[] slots;
+    private static final int mask;
+    private static final AtomicLong tail = new AtomicLong();
+    private static final AtomicLong published = new AtomicLong();
+    private static final AtomicLong dropped = new AtomicLong();
+    private static final AtomicLong written = new AtomicLong();
+    // Read and written by the writer thread only
+    private static long head;
+    private static volatile boolean sleeping;
+    private static final Thread writer;
+
+    static {
+        int requested = Integer.getInteger("astrovital.log.buffer-size", 8192);
+        int capacity = requested <= 16 ? 16 : Integer.highestOneBit(requested - 1) << 1;
+        slots = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot(i);
+        }
+        mask = capacity - 1;
+        writer = new Thread(EventLog::drainLoop, "event-log");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(EventLog::flush, "event-log-flush"));
+    }
+
+    private EventLog() {
+    }
+
+    public static Level getLevel() {
+        return threshold;
+    }
+
+    public static void setLevel(Level level) {
+        threshold = level;
+    }
+
+    public static boolean isEnabled(Level level) {
+        return level.compareTo(threshold) >= 0 && level != Level.OFF;
+    }
+
+    public static boolean isDebugEnabled() {
+        return isEnabled(Level.DEBUG);
+    }
+
+    // Fixed-arity overloads keep the common calls free of varargs arrays
+
+    public static void debug(String source, String message) {
+        log(Level.DEBUG, source, message, 0, null, null, null, null);
+    }
+
+    public static void debug(String source, String pattern, Object a) {
+        log(Level.DEBUG, source, pattern, 1, a, null, null, null);
+    }
+
+    public static void debug(String source, String pattern, Object a, Object b) {
+        log(Level.DEBUG, source, pattern, 2, a, b, null, null);
+    }
+
+    public static void debug(String source, String pattern, Object a, Object b, Object c) {
+        log(Level.DEBUG, source, pattern, 3, a, b, c, null);
+    }
+
+    public static void debug(String source, String pattern, Object a, Object b, Object c, Object d) {
+        log(Level.DEBUG, source, pattern, 4, a, b, c, d);
+    }
+
+    public static void info(String source, String message) {
+        log(Level.INFO, source, message, 0, null, null, null, null);
+    }
+
+    public static void info(String source, String pattern, Object a) {
+        log(Level.INFO, source, pattern, 1, a, null, null, null);
+    }
+
+    public static void info(String source, String pattern, Object a, Object b) {
+        log(Level.INFO, source, pattern, 2, a, b, null, null);
+    }
+
+    public static void info(String source, String pattern, Object a, Object b, Object c) {
+        log(Level.INFO, source, pattern, 3, a, b, c, null);
+    }
+
+    public static void info(String source, String pattern, Object a, Object b, Object c, Object d) {
+        log(Level.INFO, source, pattern, 4, a, b, c, d);
+    }
+
+    public static void warn(String source, String message) {
+        log(Level.WARN, source, message, 0, null, null, null, null);
+    }
+
+    public static void warn(String source, String pattern, Object a) {
+        log(Level.WARN, source, pattern, 1, a, null, null, null);
+    }
+
+    public static void warn(String source, String pattern, Object a, Object b) {
+        log(Level.WARN, source, pattern, 2, a, b, null, null);
+    }
+
+    public static void warn(String source, String pattern, Object a, Object b, Object c) {
+        log(Level.WARN, source, pattern, 3, a, b, c, null);
+    }
+
+    public static void error(String source, String message) {
+        log(Level.ERROR, source, message, 0, null, null, null, null);
+    }
+
+    public static void error(String source, String pattern, Object a) {
+        log(Level.ERROR, source, pattern, 1, a, null, null, null);
+    }
+
+    public static void error(String source, String pattern, Object a, Object b) {
+        log(Level.ERROR, source, pattern, 2, a, b, null, null);
+    }
+
+    private static void log(Level level, String source, String pattern, int arity,
+            Object a, Object b, Object c, Object d) {
+        if (!isEnabled(level)) {
+            return;
+        }
+        // Claim a slot (bounded MPSC ring after Vyukov): a slot is free for
+        // position pos once its sequence equals pos
+        long pos = tail.get();
+        Slot slot;
+        while (true) {
+            slot = slots[(int) (pos & mask)];
+            long difference = slot.sequence - pos;
+            if (difference == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    break;
+                }
+                pos = tail.get();
+            } else if (difference < 0) {
+                // Full: the writer has not caught up, drop rather than block
+                dropped.incrementAndGet();
+                return;
+            } else {
+                pos = tail.get();
+            }
+        }
+        slot.level = level;
+        slot.time = System.currentTimeMillis();
+        slot.thread = Thread.currentThread().getName();
+        slot.source = source;
+        slot.pattern = pattern;
+        slot.arity = arity;
+        slot.a = a;
+        slot.b = b;
+        slot.c = c;
+        slot.d = d;
+        // Volatile write publishes the filled slot to the writer
+        slot.sequence = pos + 1;
+        published.incrementAndGet();
+        if (sleeping) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    /**
+     * Waits until every event logged so far has been written, up to a second.
+     */
+    public static void flush() {
+        long target = tail.get();
+        long deadline = System.nanoTime() + 1_000_000_000L;
+        // Dropped events never claim a position, so every claimed one gets written
+        while (written.get() < target && System.nanoTime() < deadline) {
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(100_000);
+        }
+    }
+
+    public static Map<String, Object> snapshotStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("level", threshold.name());
+        stats.put("capacity", slots.length);
+        stats.put("published", published.get());
+        stats.put("written", written.get());
+        stats.put("dropped", dropped.get());
+        stats.put("backlog", Math.max(0, tail.get() - written.get()));
+        return stats;
+    }
+
+    private static void drainLoop() {
+        StringBuilder out = new StringBuilder(8192);
+        while (true) {
+            int count = drain(out);
+            if (count > 0) {
+                PrintStream stream = System.out;
+                stream.print(out);
+                stream.flush();
+                out.setLength(0);
+                written.addAndGet(count);
+                continue;
+            }
+            sleeping = true;
+            // Re-check after announcing the sleep so a concurrent publish is not missed
+            if (slots[(int) (head & mask)].sequence != head + 1) {
+                LockSupport.parkNanos(50_000_000L);
+            }
+            sleeping = false;
+        }
+    }
+
+    private static int drain(StringBuilder out) {
+        int count = 0;
+        while (count < MAX_BATCH) {
+            Slot slot = slots[(int) (head & mask)];
+            if (slot.sequence != head + 1) {
+                break;
+            }
+            try {
+                format(slot, out);
+            } catch (RuntimeException e) {
+                out.append(" [unformattable: ").append(e).append(']').append(System.lineSeparator());
+            }
+            slot.clear();
+            // Hand the slot back to producers for the next lap
+            slot.sequence = head + slots.length;
+            head++;
+            count++;
+        }
+        return count;
+    }
+
+    private static void format(Slot slot, StringBuilder out) {
+        TIME.formatTo(Instant.ofEpochMilli(slot.time), out);
+        out.append(' ').append(slot.level.name());
+        if (slot.level.name().length() == 4) {
+            out.append(' ');
+        }
+        out.append(" [").append(slot.thread).append("] ");
+        out.append(slot.source).append(": ");
+        String pattern = slot.pattern == null ? "null" : slot.pattern;
+        int arg = 0;
+        int from = 0;
+        while (arg < slot.arity) {
+            int at = pattern.indexOf("{}", from);
+            if (at < 0) {
+                break;
+            }
+            out.append(pattern, from, at);
+            out.append(slot.arg(arg++));
+            from = at + 2;
+        }
+        out.append(pattern, from, pattern.length());
+        out.append(System.lineSeparator());
+    }
+
+    private static final class Slot {
+        private volatile long sequence;
+        private Level level;
+        private long time;
+        private String thread;
+        private String source;
+        private String pattern;
+        private int arity;
+        private Object a;
+        private Object b;
+        private Object c;
+        private Object d;
+
+        private Slot(long sequence) {
+            this.sequence = sequence;
+        }
+
+        private Object arg(int index) {
+            switch (index) {
+                case 0:
+                    return a;
+                case 1:
+                    return b;
+                case 2:
+                    return c;
+                default:
+                    return d;
+            }
+        }
+
+        private void clear() {
+            thread = null;
+            source = null;
+            pattern = null;
+            a = null;
+            b = null;
+            c = null;
+            d = null;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.ftn.sbnz.model.utils;
+
+import java.time.Clock;
+import java.util.function.Supplier;
+
+/**
+ * Clock shared by findings for their creation, last seen and expiry times.
+ * Defaults to the system clock; replays and tests can substitute their own,
+ * either for every thread or, while a replay partition runs, for the
+ * current thread only.
+ */
+public final class FindingClock {
+
+    private static volatile Clock clock = Clock.systemUTC();
+    private static final ThreadLocal<Clock> threadClock = new ThreadLocal<>();
+
+    private FindingClock() {
+    }
+
+    public static long millis() {
+        return get().millis();
+    }
+
+    public static Clock get() {
+        Clock local = threadClock.get();
+        return local != null ? local : clock;
+    }
+
+    public static void set(Clock replacement) {
+        clock = replacement == null ? Clock.systemUTC() : replacement;
+    }
+
+    /**
+     * Runs the work with a clock seen only by the current thread, e.g. the
+     * pseudo clock of the session the thread is replaying into.
+     */
+    public static <R> R callWith(Clock local, Supplier<R> work) {
+        Clock previous = threadClock.get();
+        threadClock.set(local);
+        try {
+            return work.get();
+        } finally {
+            if (previous != null) {
+                threadClock.set(previous);
+            } else {
+                threadClock.remove();
+            }
+        }
+    }
+}
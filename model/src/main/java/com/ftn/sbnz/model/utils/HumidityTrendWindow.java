@@ -0,0 +1,110 @@
+package com.ftn.sbnz.model.utils;
+
+import com.ftn.sbnz.model.models.HumidityTrend;
+
+/**
+ * Ring buffer of one module's humidity readings covering the 6-hour
+ * condensation window (6h5m back from the most recent reading).
+ *
+ * Readings are kept in timestamp order. They usually arrive in order and are
+ * appended at the tail; a late reading is moved into place from the tail.
+ * Each add evicts the readings that fell out of the window from the head, so
+ * the head is always the oldest retained reading and the cost per in-order
+ * reading is constant.
+ */
+public class HumidityTrendWindow {
+
+    /** Window bounds of the condensation rules (before[5h55m,6h5m]) */
+    public static final long WINDOW_MIN_MILLIS = (5 * 60 + 55) * 60_000L;
+    public static final long WINDOW_MAX_MILLIS = (6 * 60 + 5) * 60_000L;
+
+    private final String moduleId;
+    private long[] timestamps;
+    private double[] humidity;
+    private int head;
+    private int size;
+
+    public HumidityTrendWindow(String moduleId) {
+        this(moduleId, 64);
+    }
+
+    public HumidityTrendWindow(String moduleId, int initialCapacity) {
+        this.moduleId = moduleId;
+        int capacity = Math.max(2, initialCapacity);
+        this.timestamps = new long[capacity];
+        this.humidity = new double[capacity];
+    }
+
+    /**
+     * Adds a reading. Readings that share a timestamp are kept in arrival
+     * order; a reading already outside the window behind the most recent one
+     * is ignored.
+     *
+     * @return true if the reading was added
+     */
+    public boolean add(long timestamp, double value) {
+        if (size > 0 && timestamp < timestamps[index(size - 1)] - WINDOW_MAX_MILLIS) {
+            return false;
+        }
+        if (size == timestamps.length) {
+            grow();
+        }
+        int position = size;
+        while (position > 0 && timestamps[index(position - 1)] > timestamp) {
+            timestamps[index(position)] = timestamps[index(position - 1)];
+            humidity[index(position)] = humidity[index(position - 1)];
+            position--;
+        }
+        timestamps[index(position)] = timestamp;
+        humidity[index(position)] = value;
+        size++;
+        long cutoff = timestamps[index(size - 1)] - WINDOW_MAX_MILLIS;
+        while (timestamps[head] < cutoff) {
+            head = (head + 1) % timestamps.length;
+            size--;
+        }
+        return true;
+    }
+
+    /**
+     * Current trend, or null if no reading was added yet. The oldest reading
+     * of the window is the head of the buffer if it lies at least 5h55m
+     * before the most recent reading.
+     */
+    public HumidityTrend trend() {
+        if (size == 0) {
+            return null;
+        }
+        int last = index(size - 1);
+        long recentTimestamp = timestamps[last];
+        if (size > 1 && timestamps[head] <= recentTimestamp - WINDOW_MIN_MILLIS) {
+            return new HumidityTrend(moduleId, humidity[last], recentTimestamp, humidity[head], timestamps[head]);
+        }
+        return new HumidityTrend(moduleId, humidity[last], recentTimestamp);
+    }
+
+    public String getModuleId() {
+        return moduleId;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int index(int offset) {
+        return (head + offset) % timestamps.length;
+    }
+
+    private void grow() {
+        int capacity = timestamps.length * 2;
+        long[] newTimestamps = new long[capacity];
+        double[] newHumidity = new double[capacity];
+        for (int i = 0; i < size; i++) {
+            newTimestamps[i] = timestamps[index(i)];
+            newHumidity[i] = humidity[index(i)];
+        }
+        timestamps = newTimestamps;
+        humidity = newHumidity;
+        head = 0;
+    }
+}
@@ -0,0 +1,110 @@
+package com.ftn.sbnz.service.config;
+
+import com.ftn.sbnz.model.utils.EventLog;
+import com.ftn.sbnz.service.engine.KieSessionPool;
+import com.ftn.sbnz.service.engine.RuleProfiler;
+
+import org.kie.api.runtime.KieContainer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+public class EngineConfig {
+
+  @Value("${astrovital.log.level:INFO}")
+  private String logLevel;
+
+  @Value("${astrovital.profiling.mode:off}")
+  private String profilingMode;
+
+  @Value("${astrovital.profiling.sample-every:100}")
+  private int profilingSampleEvery;
+
+  @Value("${astrovital.profiling.exported-rules:20}")
+  private int profilingExportedRules;
+
+  /**
+   * Applies the configured level to the EventLog shared by services and rule
+   * consequences.
+   */
+  @PostConstruct
+  public void configureEventLog() {
+    EventLog.setLevel(EventLog.Level.parse(logLevel));
+  }
+
+  @PostConstruct
+  public void configureRuleProfiler() {
+    RuleProfiler.configure(RuleProfiler.Mode.fromString(profilingMode), profilingSampleEvery);
+    RuleProfiler.setExportedRules(profilingExportedRules);
+  }
+
+  /**
+   * Worker pool that drives CEP shards in parallel. Sized to the number of
+   * cores by default since rule evaluation is CPU bound.
+   */
+  @Bean(destroyMethod = "shutdown")
+  public ExecutorService cepExecutor(@Value("${astrovital.cep.threads:0}") int threads) {
+    int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    AtomicInteger counter = new AtomicInteger();
+    return Executors.newFixedThreadPool(size, runnable -> {
+      Thread thread = new Thread(runnable, "cep-shard-" + counter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Worker pool that replays archived telemetry, one module per task. Kept
+   * apart from the CEP pool so a long replay does not delay live requests.
+   */
+  @Bean(destroyMethod = "shutdown")
+  public ExecutorService replayExecutor(@Value("${astrovital.replay.threads:0}") int threads) {
+    int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    AtomicInteger counter = new AtomicInteger();
+    return Executors.newFixedThreadPool(size, runnable -> {
+      Thread thread = new Thread(runnable, "replay-" + counter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Fork-join pool that evaluates threshold sweep candidates, one session per
+   * candidate.
+   */
+  @Bean(destroyMethod = "shutdown")
+  public ForkJoinPool sweepPool(@Value("${astrovital.sweep.parallelism:0}") int parallelism) {
+    int size = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    return new ForkJoinPool(size, pool -> {
+      ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+      thread.setName("sweep-" + thread.getPoolIndex());
+      return thread;
+    }, null, false);
+  }
+
+  /**
+   * Pool of pre-warmed stateful sessions shared by the request-scoped rule
+   * runs (health metrics, equipment maintenance).
+   */
+  @Bean(destroyMethod = "shutdown")
+  public KieSessionPool kieSessionPool(KieContainer kieContainer,
+      @Value("${astrovital.session-pool.size:8}") int size,
+      @Value("${astrovital.session-pool.borrow-timeout-ms:5000}") long borrowTimeoutMillis) {
+    KieSessionPool pool = new KieSessionPool("KieSessionPool", kieContainer, size, borrowTimeoutMillis);
+    try {
+      pool.prewarm();
+    } catch (Throwable t) {
+      // Sessions are created on demand if pre-warming fails
+      EventLog.warn("KieSessionPool", "Unable to pre-warm sessions: {}", t.toString());
+    }
+    return pool;
+  }
+}
@@ -0,0 +1,66 @@
+package com.ftn.sbnz.service.config;
+
+import com.ftn.sbnz.model.utils.EventLog;
+import com.ftn.sbnz.service.engine.KieSessionPool;
+import com.ftn.sbnz.service.findings.FindingExpiryService;
+import com.ftn.sbnz.service.findings.FindingHistoryStore;
+import com.ftn.sbnz.service.findings.FindingsJournal;
+import com.ftn.sbnz.service.services.EnvironmentalThresholdTemplateService;
+import com.ftn.sbnz.service.services.FindingsService;
+import com.ftn.sbnz.service.services.ThresholdSweepService;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+@Configuration
+public class MetricsConfig {
+
+  /**
+   * Publishes the numeric entries of the existing snapshotStats() maps as
+   * gauges astrovital.stats{component, stat}, so the session pool, KieBase
+   * cache and findings components show up next to the engine meters. Each
+   * scrape takes a fresh snapshot.
+   */
+  @Bean
+  public MeterBinder astrovitalStatsBinder(KieSessionPool kieSessionPool, FindingsService findingsService,
+      FindingExpiryService findingExpiryService, FindingHistoryStore findingHistoryStore,
+      EnvironmentalThresholdTemplateService templateService, ThresholdSweepService thresholdSweepService) {
+    return registry -> {
+      bindStats(registry, "session-pool", kieSessionPool::snapshotStats);
+      bindStats(registry, "kiebase-cache", templateService::getKieBaseCacheStats);
+      bindStats(registry, "sweep-kiebase-cache", thresholdSweepService::getKieBaseCacheStats);
+      bindStats(registry, "findings-coalescer", findingsService.getCoalescer()::snapshotStats);
+      bindStats(registry, "findings-expiry", findingExpiryService::snapshotStats);
+      bindStats(registry, "findings-history", findingHistoryStore::snapshotStats);
+      bindStats(registry, "event-log", EventLog::snapshotStats);
+      FindingsJournal journal = findingsService.getJournal();
+      if (journal != null) {
+        bindStats(registry, "findings-journal", journal::snapshotStats);
+      }
+    };
+  }
+
+  // One gauge per numeric entry present when bound
+  private static void bindStats(MeterRegistry registry, String component, Supplier<Map<String, Object>> stats) {
+    for (Map.Entry<String, Object> entry : stats.get().entrySet()) {
+      if (!(entry.getValue() instanceof Number)) {
+        continue;
+      }
+      String stat = entry.getKey();
+      Gauge.builder("astrovital.stats", stats, s -> {
+        Object value = s.get().get(stat);
+        return value instanceof Number ? ((Number) value).doubleValue() : Double.NaN;
+      })
+          .tag("component", component)
+          .tag("stat", stat)
+          .strongReference(true)
+          .register(registry);
+    }
+  }
+}
@@ -1,27 +1,72 @@
 package com.ftn.sbnz.service.controllers;
 
 import com.ftn.sbnz.model.dto.AirQualityAnalysisResult;
+import com.ftn.sbnz.model.dto.StreamBatchResult;
 import com.ftn.sbnz.model.dtos.AirQualityMonitoringRequest;
+import com.ftn.sbnz.model.dtos.AirQualityStreamRecord;
+import com.ftn.sbnz.model.events.AirQualityEvent;
+import com.ftn.sbnz.model.models.Environment;
+import com.ftn.sbnz.model.utils.EventLog;
 import com.ftn.sbnz.service.services.AirQualityMonitoringService;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
 @RestController
 @RequestMapping("/air-quality-monitoring")
 public class AirQualityMonitoringController {
 
     private final AirQualityMonitoringService airQualityMonitoringService;
+    private final NdjsonBatchStreamer ndjsonBatchStreamer;
 
     @Autowired
-    public AirQualityMonitoringController(AirQualityMonitoringService airQualityMonitoringService) {
+    public AirQualityMonitoringController(AirQualityMonitoringService airQualityMonitoringService,
+            NdjsonBatchStreamer ndjsonBatchStreamer) {
         this.airQualityMonitoringService = airQualityMonitoringService;
+        this.ndjsonBatchStreamer = ndjsonBatchStreamer;
     }
 
     @PostMapping("/process")
     public AirQualityAnalysisResult processAirQualityData(@RequestBody AirQualityMonitoringRequest request) {
-        System.out.println("Received air quality monitoring request: " + request);
+        EventLog.debug("AirQualityMonitoringController", "Received {} environments, {} air quality events",
+                size(request.getEnvironments()), size(request.getAirQualityEvents()));
         return airQualityMonitoringService.processAirQualityData(
                 request.getEnvironments(),
                 request.getAirQualityEvents());
     }
-}
\ No newline at end of file
+
+    /**
+     * Streaming variant of /process for large backlogs: one
+     * AirQualityStreamRecord per line, processed in micro-batches, one
+     * StreamBatchResult line written back per batch.
+     */
+    @PostMapping(value = "/stream", consumes = MediaType.APPLICATION_NDJSON_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void streamAirQualityData(InputStream body, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        ndjsonBatchStreamer.stream(body, response.getOutputStream(), AirQualityStreamRecord.class, batch -> {
+            List<Environment> environments = new ArrayList<>();
+            List<AirQualityEvent> events = new ArrayList<>();
+            for (AirQualityStreamRecord record : batch) {
+                if (record.getEnvironment() != null) {
+                    environments.add(record.getEnvironment());
+                }
+                if (record.getAirQualityEvent() != null) {
+                    events.add(record.getAirQualityEvent());
+                }
+            }
+            AirQualityAnalysisResult result = airQualityMonitoringService.processAirQualityData(environments, events);
+            return new StreamBatchResult(0, batch.size(), result.getRulesFired(), result.getfindings());
+        });
+    }
+
+    private static int size(List<?> list) {
+        return list == null ? 0 : list.size();
+    }
+}
@@ -0,0 +1,51 @@
+package com.ftn.sbnz.service.controllers;
+
+import com.ftn.sbnz.service.engine.JvmStats;
+import com.ftn.sbnz.service.engine.KieSessionPool;
+import com.ftn.sbnz.service.engine.RuleProfiler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/engine")
+public class EngineController {
+
+  private final KieSessionPool kieSessionPool;
+
+  @Autowired
+  public EngineController(KieSessionPool kieSessionPool) {
+    this.kieSessionPool = kieSessionPool;
+  }
+
+  @GetMapping("/session-pool")
+  public Map<String, Object> getSessionPoolStats() {
+    return kieSessionPool.snapshotStats();
+  }
+
+  // Allocation, heap and GC counters, sampled by load tests around a run
+  @GetMapping("/jvm")
+  public Map<String, Object> getJvmStats() {
+    return JvmStats.snapshot();
+  }
+
+  // Rule-level profile collected while astrovital.profiling.mode is not off
+  @GetMapping("/profile")
+  public Map<String, Object> getRuleProfile() {
+    return RuleProfiler.snapshot();
+  }
+
+  @PostMapping("/profile")
+  public Map<String, Object> configureRuleProfiler(@RequestParam String mode,
+      @RequestParam(defaultValue = "100") int sampleEvery) {
+    RuleProfiler.configure(RuleProfiler.Mode.fromString(mode), sampleEvery);
+    return RuleProfiler.snapshot();
+  }
+
+  @DeleteMapping("/profile")
+  public Map<String, Object> resetRuleProfile() {
+    RuleProfiler.reset();
+    return RuleProfiler.snapshot();
+  }
+}
@@ -1,12 +1,24 @@
 package com.ftn.sbnz.service.controllers;
 
 import com.ftn.sbnz.model.models.CondensationData;
+import com.ftn.sbnz.model.models.Environment;
+import com.ftn.sbnz.model.models.VentilationStatus;
+import com.ftn.sbnz.model.models.WaterRecycling;
+import com.ftn.sbnz.model.events.HumidityEvent;
 import com.ftn.sbnz.model.dto.EnvironmentalAnalysisResult;
+import com.ftn.sbnz.model.dto.StreamBatchResult;
 import com.ftn.sbnz.model.dtos.EnvironmentalMonitoringRequest;
+import com.ftn.sbnz.model.dtos.EnvironmentalStreamRecord;
+import com.ftn.sbnz.model.utils.EventLog;
 import com.ftn.sbnz.service.services.EnvironmentalMonitoringService;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.List;
 
 @RestController
@@ -14,15 +26,19 @@ import java.util.List;
 public class EnvironmentalMonitoringController {
 
   private final EnvironmentalMonitoringService environmentalMonitoringService;
+  private final NdjsonBatchStreamer ndjsonBatchStreamer;
 
   @Autowired
-  public EnvironmentalMonitoringController(EnvironmentalMonitoringService environmentalMonitoringService) {
+  public EnvironmentalMonitoringController(EnvironmentalMonitoringService environmentalMonitoringService,
+      NdjsonBatchStreamer ndjsonBatchStreamer) {
     this.environmentalMonitoringService = environmentalMonitoringService;
+    this.ndjsonBatchStreamer = ndjsonBatchStreamer;
   }
 
   @PostMapping("/process")
   public EnvironmentalAnalysisResult processEnvironmentalData(@RequestBody EnvironmentalMonitoringRequest request) {
-    System.out.println("Received health metrics check request: " + request);
+    EventLog.debug("EnvironmentalMonitoringController", "Received {} environments, {} humidity events",
+        size(request.getEnvironments()), size(request.getHumidityEvents()));
     return environmentalMonitoringService.processEnvironmentalData(
         request.getEnvironments(),
         request.getCondensationDataList(),
@@ -31,8 +47,50 @@ public class EnvironmentalMonitoringController {
         request.getVentilationStatuses());
   }
 
+  /**
+   * Streaming variant of /process for large backlogs: one
+   * EnvironmentalStreamRecord per line, processed in micro-batches, one
+   * StreamBatchResult line written back per batch.
+   */
+  @PostMapping(value = "/stream", consumes = MediaType.APPLICATION_NDJSON_VALUE,
+      produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public void streamEnvironmentalData(InputStream body, HttpServletResponse response) throws IOException {
+    response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+    ndjsonBatchStreamer.stream(body, response.getOutputStream(), EnvironmentalStreamRecord.class, batch -> {
+      List<Environment> environments = new ArrayList<>();
+      List<CondensationData> condensations = new ArrayList<>();
+      List<HumidityEvent> humidityEvents = new ArrayList<>();
+      List<WaterRecycling> waterRecyclings = new ArrayList<>();
+      List<VentilationStatus> ventilationStatuses = new ArrayList<>();
+      for (EnvironmentalStreamRecord record : batch) {
+        if (record.getEnvironment() != null) {
+          environments.add(record.getEnvironment());
+        }
+        if (record.getCondensationData() != null) {
+          condensations.add(record.getCondensationData());
+        }
+        if (record.getHumidityEvent() != null) {
+          humidityEvents.add(record.getHumidityEvent());
+        }
+        if (record.getWaterRecycling() != null) {
+          waterRecyclings.add(record.getWaterRecycling());
+        }
+        if (record.getVentilationStatus() != null) {
+          ventilationStatuses.add(record.getVentilationStatus());
+        }
+      }
+      EnvironmentalAnalysisResult result = environmentalMonitoringService.processEnvironmentalData(
+          environments, condensations, humidityEvents, waterRecyclings, ventilationStatuses);
+      return new StreamBatchResult(0, batch.size(), result.getRulesFired(), result.getFindings());
+    });
+  }
+
   @GetMapping("/condensation/{moduleId}")
   public List<CondensationData> getCondensationData(@PathVariable String moduleId) {
     return environmentalMonitoringService.getCondensationData(moduleId);
   }
-}
\ No newline at end of file
+
+  private static int size(List<?> list) {
+    return list == null ? 0 : list.size();
+  }
+}
@@ -4,12 +4,16 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import com.ftn.sbnz.model.dto.ThresholdSweepResult;
+import com.ftn.sbnz.model.dtos.ThresholdSweepRequest;
 import com.ftn.sbnz.model.models.Environment;
 import com.ftn.sbnz.model.models.EnvironmentalThresholdTemplateModel;
 import com.ftn.sbnz.model.models.Finding;
 import com.ftn.sbnz.service.services.EnvironmentalThresholdTemplateService;
+import com.ftn.sbnz.service.services.ThresholdSweepService;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/environmental-templates")
@@ -19,6 +23,9 @@ public class EnvironmentalThresholdTemplateController {
     @Autowired
     private EnvironmentalThresholdTemplateService templateService;
 
+    @Autowired
+    private ThresholdSweepService thresholdSweepService;
+
     /**
      * Generate DRL rules from CSV template data.
      */
@@ -42,6 +49,8 @@ public class EnvironmentalThresholdTemplateController {
         try {
             String drl = templateService.generateDrlFromObjects(thresholds);
             return ResponseEntity.ok(drl);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Invalid thresholds: " + e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.internalServerError()
                     .body("Error generating DRL: " + e.getMessage());
@@ -73,6 +82,22 @@ public class EnvironmentalThresholdTemplateController {
                     request.getEnvironments(),
                     request.getThresholds());
             return ResponseEntity.ok(findings);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * Evaluate many candidate threshold sets against historical samples.
+     */
+    @PostMapping("/sweep")
+    public ResponseEntity<ThresholdSweepResult> sweepThresholds(@RequestBody ThresholdSweepRequest request) {
+        try {
+            return ResponseEntity.ok(thresholdSweepService.sweep(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
         }
@@ -87,6 +112,23 @@ public class EnvironmentalThresholdTemplateController {
         return ResponseEntity.ok(thresholds);
     }
 
+    /**
+     * Hit/miss statistics of the compiled threshold KieBase cache.
+     */
+    @GetMapping("/cache-stats")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        return ResponseEntity.ok(templateService.getKieBaseCacheStats());
+    }
+
+    /**
+     * Drop all cached custom threshold KieBases.
+     */
+    @DeleteMapping("/cache")
+    public ResponseEntity<Map<String, Object>> clearCache() {
+        templateService.clearKieBaseCache();
+        return ResponseEntity.ok(templateService.getKieBaseCacheStats());
+    }
+
     /**
      * Create sample environment data for testing.
      */
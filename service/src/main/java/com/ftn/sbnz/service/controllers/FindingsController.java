@@ -1,10 +1,24 @@
 package com.ftn.sbnz.service.controllers;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ftn.sbnz.model.dto.FindingChanges;
+import com.ftn.sbnz.model.dto.FindingsSummary;
+import com.ftn.sbnz.model.enums.Priority;
 import com.ftn.sbnz.model.models.Finding;
+import com.ftn.sbnz.service.findings.FindingHistoryStore;
+import com.ftn.sbnz.service.findings.FindingsPushService;
 import com.ftn.sbnz.service.services.FindingsService;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Map;
 
@@ -13,10 +27,17 @@ import java.util.Map;
 public class FindingsController {
 
   private final FindingsService findingsService;
+  private final FindingsPushService findingsPushService;
+  private final FindingHistoryStore findingHistoryStore;
+  private final ObjectMapper objectMapper;
 
   @Autowired
-  public FindingsController(FindingsService findingsService) {
+  public FindingsController(FindingsService findingsService, FindingsPushService findingsPushService,
+      FindingHistoryStore findingHistoryStore, ObjectMapper objectMapper) {
     this.findingsService = findingsService;
+    this.findingsPushService = findingsPushService;
+    this.findingHistoryStore = findingHistoryStore;
+    this.objectMapper = objectMapper;
   }
 
   @GetMapping
@@ -24,6 +45,83 @@ public class FindingsController {
     return findingsService.getAllFindings();
   }
 
+  // Server-Sent Events stream of finding changes. Resumes after the sequence in
+  // Last-Event-ID (sent by EventSource on reconnect) or the since parameter.
+  @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter streamFindings(@RequestParam(required = false) String moduleId,
+      @RequestParam(required = false) Long since,
+      @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+    Long cursor = since;
+    if (lastEventId != null && !lastEventId.isBlank()) {
+      try {
+        cursor = Long.parseLong(lastEventId.trim());
+      } catch (NumberFormatException e) {
+        // Unknown cursor; the client gets a snapshot
+        cursor = -1L;
+      }
+    }
+    return findingsPushService.subscribe(moduleId, cursor);
+  }
+
+  // Delta sync: changes after the client's sequence, or a full snapshot when
+  // the client is too far behind. Send the returned sequence on the next call.
+  @GetMapping("/changes")
+  public FindingChanges getChanges(@RequestParam(defaultValue = "0") long since,
+      @RequestParam(required = false) String moduleId) {
+    return findingsService.getChangesSince(since, moduleId);
+  }
+
+  // Retired findings, newest first. from/to are epoch millis of retirement;
+  // pass the returned nextCursor as cursor to get the next page. Entries are
+  // written to the response as they are found. An unknown priority is a 400.
+  @GetMapping(value = "/history", produces = MediaType.APPLICATION_JSON_VALUE)
+  public void getFindingHistory(@RequestParam(required = false) Long from,
+      @RequestParam(required = false) Long to,
+      @RequestParam(required = false) String moduleId,
+      @RequestParam(required = false) String type,
+      @RequestParam(required = false) String priority,
+      @RequestParam(required = false) Long cursor,
+      @RequestParam(defaultValue = "100") int limit,
+      HttpServletResponse response) throws IOException {
+    if (priority != null && Priority.parse(priority) == null) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Unknown priority '" + priority + "'");
+      return;
+    }
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    try (JsonGenerator json = objectMapper.createGenerator(response.getOutputStream())) {
+      json.writeStartObject();
+      json.writeArrayFieldStart("items");
+      long next = findingHistoryStore.query(from, to, moduleId, type,
+          priority == null ? null : Priority.parse(priority).name(),
+          cursor == null ? Long.MAX_VALUE : cursor, limit, entry -> {
+            try {
+              json.writeObject(entry);
+            } catch (IOException e) {
+              throw new UncheckedIOException(e);
+            }
+          });
+      json.writeEndArray();
+      if (next < 0) {
+        json.writeNullField("nextCursor");
+      } else {
+        json.writeNumberField("nextCursor", next);
+      }
+      json.writeEndObject();
+    }
+  }
+
+  // Precomputed counts per module and priority. Pollers send the ETag back in
+  // If-None-Match and get 304 Not Modified until a count changes.
+  @GetMapping("/summary")
+  public ResponseEntity<FindingsSummary> getSummary(WebRequest request) {
+    FindingsSummary summary = findingsService.getSummary();
+    String etag = "\"" + findingsService.getInstanceId() + "-" + summary.getVersion() + "\"";
+    if (request.checkNotModified(etag)) {
+      return null;
+    }
+    return ResponseEntity.ok().eTag(etag).body(summary);
+  }
+
   @GetMapping("/{moduleId}")
   public List<Finding> getModuleFindings(@PathVariable String moduleId) {
     return findingsService.getFindings(moduleId);
@@ -0,0 +1,105 @@
+package com.ftn.sbnz.service.controllers;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ftn.sbnz.model.dto.StreamBatchResult;
+import com.ftn.sbnz.model.models.Finding;
+import com.ftn.sbnz.model.utils.EventLog;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Reads newline-delimited JSON records from a request body and hands them to
+ * the rule engine in micro-batches as they are parsed, writing one
+ * StreamBatchResult line per batch back to the response.
+ *
+ * Only one batch of records is held in memory at a time, so memory use does
+ * not depend on the size of the upload. Findings already written earlier in
+ * the same stream are not repeated.
+ */
+@Component
+public class NdjsonBatchStreamer {
+
+  private final ObjectMapper objectMapper;
+  private final int batchSize;
+
+  @Autowired
+  public NdjsonBatchStreamer(ObjectMapper objectMapper,
+      @Value("${astrovital.stream.batch-size:500}") int batchSize) {
+    this.objectMapper = objectMapper;
+    this.batchSize = Math.max(1, batchSize);
+  }
+
+  public <T> void stream(InputStream in, OutputStream out, Class<T> recordType,
+      Function<List<T>, StreamBatchResult> processor) throws IOException {
+    Set<String> reported = new HashSet<>();
+    List<T> batch = new ArrayList<>(batchSize);
+    int batchNumber = 0;
+    String error = null;
+
+    try (MappingIterator<T> records = objectMapper.readerFor(recordType).readValues(in)) {
+      while (true) {
+        T record;
+        try {
+          if (!records.hasNextValue()) {
+            break;
+          }
+          record = records.nextValue();
+        } catch (IOException | RuntimeException e) {
+          // Records read before a malformed line are still processed below;
+          // failures of the processor or the response are not parse errors
+          // and propagate
+          error = e.getMessage();
+          EventLog.warn("NdjsonBatchStreamer", "Stream aborted after {} batch(es): {}", batchNumber, error);
+          break;
+        }
+        batch.add(record);
+        if (batch.size() >= batchSize) {
+          List<T> full = batch;
+          batch = new ArrayList<>(batchSize);
+          write(out, process(++batchNumber, full, processor, reported));
+        }
+      }
+    }
+
+    StreamBatchResult last = batch.isEmpty()
+        ? new StreamBatchResult(++batchNumber, 0, 0, new ArrayList<>())
+        : process(++batchNumber, batch, processor, reported);
+    last.setLast(true);
+    last.setError(error);
+    write(out, last);
+  }
+
+  private <T> StreamBatchResult process(int batchNumber, List<T> batch,
+      Function<List<T>, StreamBatchResult> processor, Set<String> reported) {
+    StreamBatchResult result = processor.apply(batch);
+    List<Finding> fresh = new ArrayList<>();
+    if (result.getFindings() != null) {
+      for (Finding finding : result.getFindings()) {
+        if (reported.add(finding.getType() + "|" + finding.getModuleId() + "|" + finding.getDetails())) {
+          fresh.add(finding);
+        }
+      }
+    }
+    result.setBatch(batchNumber);
+    result.setRecords(batch.size());
+    result.setFindings(fresh);
+    return result;
+  }
+
+  private void write(OutputStream out, StreamBatchResult result) throws IOException {
+    out.write(objectMapper.writeValueAsBytes(result));
+    out.write('\n');
+    out.flush();
+  }
+}
@@ -0,0 +1,45 @@
+package com.ftn.sbnz.service.controllers;
+
+import com.ftn.sbnz.model.dto.ReplayResult;
+import com.ftn.sbnz.service.services.TelemetryReplayService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+@RestController
+@RequestMapping("/replay")
+public class ReplayController {
+
+  private final TelemetryReplayService replayService;
+
+  @Autowired
+  public ReplayController(TelemetryReplayService replayService) {
+    this.replayService = replayService;
+  }
+
+  /**
+   * Replays an uploaded archive, one ReplayRecord per line, and returns the
+   * findings timeline.
+   */
+  @PostMapping(consumes = MediaType.APPLICATION_NDJSON_VALUE)
+  public ReplayResult replay(InputStream body) throws IOException {
+    return replayService.replay(body);
+  }
+
+  /**
+   * Replays archived files from astrovital.replay.directory as one dataset.
+   */
+  @PostMapping("/files")
+  public ResponseEntity<ReplayResult> replayFiles(@RequestParam("file") List<String> files) throws IOException {
+    try {
+      return ResponseEntity.ok(replayService.replayFiles(files));
+    } catch (IllegalArgumentException | IllegalStateException e) {
+      return ResponseEntity.badRequest().build();
+    }
+  }
+}
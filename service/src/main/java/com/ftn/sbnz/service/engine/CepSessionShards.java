@@ -0,0 +1,198 @@
+package com.ftn.sbnz.service.engine;
+
+import com.ftn.sbnz.model.utils.EventLog;
+
+import org.kie.api.runtime.KieSession;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+/**
+ * Partitions a CEP workload into independent KieSessions keyed by module.
+ * All CEP rules join on moduleId, so a module's facts never need to meet
+ * another module's facts and each shard can be driven by its own lock.
+ *
+ * Modes:
+ * - module: one session per moduleId (default)
+ * - hash: moduleIds hashed into a fixed number of partitions
+ * - single: one session for everything (previous behaviour)
+ */
+public class CepSessionShards {
+
+  public enum Mode {
+    SINGLE, MODULE, HASH;
+
+    public static Mode fromString(String text) {
+      for (Mode mode : values()) {
+        if (mode.name().equalsIgnoreCase(text)) {
+          return mode;
+        }
+      }
+      throw new IllegalArgumentException("Unknown CEP sharding mode " + text);
+    }
+  }
+
+  private static final String GLOBAL_KEY = "global";
+
+  private final String owner;
+  private final Supplier<KieSession> sessionFactory;
+  private final Mode mode;
+  private final int partitions;
+  private final Executor executor;
+  private final Map<String, CepShard> shards = new ConcurrentHashMap<>();
+
+  public CepSessionShards(String owner, Supplier<KieSession> sessionFactory, Mode mode, int partitions,
+      Executor executor) {
+    this.owner = owner;
+    this.sessionFactory = sessionFactory;
+    this.mode = mode;
+    this.partitions = Math.max(1, partitions);
+    this.executor = executor;
+  }
+
+  public Mode getMode() {
+    return mode;
+  }
+
+  public String shardKey(String moduleId) {
+    switch (mode) {
+      case SINGLE:
+        return GLOBAL_KEY;
+      case HASH:
+        return "p" + Math.floorMod(moduleId == null ? 0 : moduleId.hashCode(), partitions);
+      case MODULE:
+      default:
+        return moduleId == null ? GLOBAL_KEY : moduleId;
+    }
+  }
+
+  /**
+   * Returns the shard owning the module, creating its session on first use.
+   * Returns null if no session can be created (e.g. Drools unavailable).
+   */
+  public CepShard shardFor(String moduleId) {
+    String key = shardKey(moduleId);
+    CepShard shard = shards.get(key);
+    if (shard != null) {
+      return shard;
+    }
+    synchronized (shards) {
+      shard = shards.get(key);
+      if (shard != null) {
+        return shard;
+      }
+      try {
+        KieSession session = sessionFactory.get();
+        if (session == null) {
+          EventLog.warn(owner, "KieContainer.newKieSession() returned null for shard {}", key);
+          return null;
+        }
+        shard = new CepShard(key, session);
+        shards.put(key, shard);
+        EngineMetrics.sessionCreated(owner);
+        EngineMetrics.trackFacts(owner, key, session);
+        EventLog.info(owner, "Created CEP session for shard {}", key);
+        return shard;
+      } catch (Throwable t) {
+        // Catch Throwable to avoid NoClassDefFoundError / ClassNotFoundException
+        // from Drools/MVEL taking the service down.
+        EventLog.error(owner, "Unable to create KieSession for shard {}: {}", key, t.toString());
+        return null;
+      }
+    }
+  }
+
+  /**
+   * Returns the existing shard for the module without creating one.
+   */
+  public CepShard existingShard(String moduleId) {
+    return shards.get(shardKey(moduleId));
+  }
+
+  public Collection<CepShard> shards() {
+    return shards.values();
+  }
+
+  /**
+   * Groups per-module batches by shard and runs the task once per shard under
+   * that shard's lock. Shards run in parallel on the executor; a single shard
+   * runs inline on the calling thread. Shards whose session cannot be created
+   * are skipped.
+   */
+  public <B, R> List<R> process(Map<String, B> batchesByModule, BiFunction<CepShard, Map<String, B>, R> task) {
+    Map<CepShard, Map<String, B>> byShard = new LinkedHashMap<>();
+    for (Map.Entry<String, B> entry : batchesByModule.entrySet()) {
+      CepShard shard = shardFor(entry.getKey());
+      if (shard != null) {
+        byShard.computeIfAbsent(shard, s -> new LinkedHashMap<>()).put(entry.getKey(), entry.getValue());
+      }
+    }
+
+    List<R> results = new ArrayList<>();
+    if (byShard.size() == 1) {
+      Map.Entry<CepShard, Map<String, B>> only = byShard.entrySet().iterator().next();
+      runLocked(only.getKey(), only.getValue(), task, results);
+      return results;
+    }
+
+    List<CompletableFuture<List<R>>> futures = new ArrayList<>();
+    for (Map.Entry<CepShard, Map<String, B>> entry : byShard.entrySet()) {
+      CepShard shard = entry.getKey();
+      Map<String, B> batches = entry.getValue();
+      futures.add(CompletableFuture.supplyAsync(
+          () -> runLocked(shard, batches, task, new ArrayList<>(1)), executor));
+    }
+    for (CompletableFuture<List<R>> future : futures) {
+      try {
+        results.addAll(future.join());
+      } catch (CompletionException e) {
+        if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
+        }
+        throw e;
+      }
+    }
+    return results;
+  }
+
+  // Runs the task under the shard lock and adds its result. A concurrent reset
+  // may dispose the shard between routing and locking; the batches are then
+  // routed again, to the shard that replaced it under the same key.
+  private <B, R> List<R> runLocked(CepShard shard, Map<String, B> batches,
+      BiFunction<CepShard, Map<String, B>, R> task, List<R> results) {
+    String moduleId = batches.keySet().iterator().next();
+    while (shard != null && !shard.withLiveLock(locked -> results.add(profiled(locked, task, batches)))) {
+      shard = shardFor(moduleId);
+    }
+    return results;
+  }
+
+  private static <B, R> R profiled(CepShard shard, BiFunction<CepShard, Map<String, B>, R> task,
+      Map<String, B> batches) {
+    return RuleProfiler.profile(shard.getSession(), () -> task.apply(shard, batches));
+  }
+
+  public void disposeAll() {
+    synchronized (shards) {
+      // Unmapped before disposal, so routing never hands out a disposed shard
+      for (CepShard shard : new ArrayList<>(shards.values())) {
+        shards.remove(shard.getKey());
+        try {
+          shard.dispose();
+          EngineMetrics.sessionDisposed(owner);
+        } catch (Exception e) {
+          EventLog.warn(owner, "Failed to dispose shard {}: {}", shard.getKey(), e.getMessage());
+        }
+      }
+    }
+  }
+}
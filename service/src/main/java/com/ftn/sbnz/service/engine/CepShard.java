@@ -0,0 +1,124 @@
+package com.ftn.sbnz.service.engine;
+
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.rule.FactHandle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * One partition of a sharded CEP engine: a long-lived KieSession plus the lock
+ * that serializes access to it. Shards never share facts, so work on different
+ * shards runs in parallel.
+ */
+public class CepShard {
+
+  private final String key;
+  private final KieSession session;
+  private final FactIndex facts;
+  private final ReentrantLock lock = new ReentrantLock();
+  // Set under the lock; work routed here before a reset finds it set
+  private boolean disposed;
+
+  public CepShard(String key, KieSession session) {
+    this.key = key;
+    this.session = session;
+    this.facts = new FactIndex(session);
+  }
+
+  public String getKey() {
+    return key;
+  }
+
+  /**
+   * The shard's session. Only touch it while holding the shard lock.
+   */
+  public KieSession getSession() {
+    return session;
+  }
+
+  /**
+   * FactHandle index of the shard's session. Only touch it while holding the
+   * shard lock.
+   */
+  public FactIndex getFacts() {
+    return facts;
+  }
+
+  /**
+   * Runs the work against this shard while holding the shard lock.
+   */
+  public <R> R withLock(Function<CepShard, R> work) {
+    lock.lock();
+    try {
+      return work.apply(this);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Runs the work against this shard while holding the shard lock, unless the
+   * shard was disposed before the lock was acquired.
+   *
+   * @return false if the shard was disposed and the work did not run
+   */
+  public boolean withLiveLock(Consumer<CepShard> work) {
+    lock.lock();
+    try {
+      if (disposed) {
+        return false;
+      }
+      work.accept(this);
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Whether the session was disposed. Only meaningful while holding the shard
+   * lock.
+   */
+  public boolean isDisposed() {
+    return disposed;
+  }
+
+  /**
+   * Runs the work against this shard's session while holding the shard lock.
+   */
+  public <R> R withSession(Function<KieSession, R> work) {
+    return withLock(shard -> work.apply(shard.session));
+  }
+
+  public void dispose() {
+    lock.lock();
+    try {
+      if (!disposed) {
+        disposed = true;
+        EngineMetrics.untrackFacts(session);
+        session.dispose();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Deletes every fact in the session accepted by the filter.
+   *
+   * @return number of deleted facts
+   */
+  public static int deleteMatching(KieSession session, Predicate<Object> filter) {
+    // Copy first: the returned collection is a live view of working memory
+    List<FactHandle> handles = new ArrayList<>(session.getFactHandles(filter::test));
+    for (FactHandle fh : handles) {
+      session.delete(fh);
+    }
+    return handles.size();
+  }
+}
@@ -0,0 +1,192 @@
+package com.ftn.sbnz.service.engine;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+import org.kie.api.runtime.KieSession;
+
+/**
+ * Java Flight Recorder events of the rule engine, so a recording taken during
+ * an incident shows engine stalls next to GC pauses and lock contention.
+ *
+ * The events are always compiled in and cost next to nothing while no
+ * recording is running: shouldCommit() is false and the fields are never
+ * filled. Start a recording with -XX:StartFlightRecording or
+ * jcmd <pid> JFR.start; the events are under "AstroVital".
+ *
+ * Duration events are used as
+ *
+ * <pre>
+ * RulesFired event = new RulesFired();
+ * event.begin();
+ * ... work ...
+ * event.complete(...);
+ * </pre>
+ */
+public final class EngineEvents {
+
+  private EngineEvents() {
+  }
+
+  public static void sessionCreated(String owner) {
+    SessionCreated event = new SessionCreated();
+    if (event.shouldCommit()) {
+      event.owner = owner;
+      event.commit();
+    }
+  }
+
+  public static void sessionDisposed(String owner) {
+    SessionDisposed event = new SessionDisposed();
+    if (event.shouldCommit()) {
+      event.owner = owner;
+      event.commit();
+    }
+  }
+
+  @Name("astrovital.SessionCreated")
+  @Label("Session Created")
+  @Category({ "AstroVital", "Rule Engine" })
+  @Description("KieSession created, or checked out of the session pool")
+  @StackTrace(false)
+  public static final class SessionCreated extends Event {
+    @Label("Owner")
+    String owner;
+  }
+
+  @Name("astrovital.SessionDisposed")
+  @Label("Session Disposed")
+  @Category({ "AstroVital", "Rule Engine" })
+  @Description("KieSession disposed, or reset and returned to the session pool")
+  @StackTrace(false)
+  public static final class SessionDisposed extends Event {
+    @Label("Owner")
+    String owner;
+  }
+
+  @Name("astrovital.RulesFired")
+  @Label("Rules Fired")
+  @Category({ "AstroVital", "Rule Engine" })
+  @Description("One fireAllRules call of an agenda group")
+  @StackTrace(false)
+  public static final class RulesFired extends Event {
+    @Label("Owner")
+    String owner;
+
+    @Label("Agenda Group")
+    String agendaGroup;
+
+    @Label("Rules Fired")
+    int rulesFired;
+
+    @Label("Facts")
+    @Description("Facts in working memory after the call")
+    long factCount;
+
+    public void complete(String owner, String agendaGroup, int rulesFired, KieSession session) {
+      end();
+      if (shouldCommit()) {
+        this.owner = owner;
+        this.agendaGroup = agendaGroup;
+        this.rulesFired = rulesFired;
+        this.factCount = session.getFactCount();
+        commit();
+      }
+    }
+  }
+
+  @Name("astrovital.FactRefresh")
+  @Label("CEP Fact Refresh")
+  @Category({ "AstroVital", "Rule Engine" })
+  @Description("Retraction of stale findings and upsert of a batch's facts into a CEP shard, before its rules fire")
+  @StackTrace(false)
+  public static final class FactRefresh extends Event {
+    @Label("Owner")
+    String owner;
+
+    @Label("Shard")
+    String shard;
+
+    @Label("Modules")
+    int modules;
+
+    @Label("Findings Retracted")
+    int findingsRetracted;
+
+    @Label("Events Dropped")
+    @Description("Events dropped as redeliveries or as older than their @Expires window")
+    int eventsDropped;
+
+    @Label("Facts")
+    @Description("Facts in the shard session after the refresh")
+    long factCount;
+
+    public void complete(String owner, CepShard shard, int modules, int findingsRetracted, int eventsDropped) {
+      end();
+      if (shouldCommit()) {
+        this.owner = owner;
+        this.shard = shard.getKey();
+        this.modules = modules;
+        this.findingsRetracted = findingsRetracted;
+        this.eventsDropped = eventsDropped;
+        this.factCount = shard.getSession().getFactCount();
+        commit();
+      }
+    }
+  }
+
+  // Hold times below the threshold are the normal case and not recorded; set
+  // astrovital.FindingsLockHeld#threshold in the recording settings to lower it
+  @Name("astrovital.FindingsLockHeld")
+  @Label("Findings Lock Held")
+  @Category({ "AstroVital", "Findings" })
+  @Description("Time a FindingsService module lock was held")
+  @Threshold("1 ms")
+  public static final class FindingsLockHeld extends Event {
+    @Label("Module")
+    String module;
+
+    @Label("Operation")
+    String operation;
+
+    public void complete(String module, String operation) {
+      end();
+      if (shouldCommit()) {
+        this.module = module;
+        this.operation = operation;
+        commit();
+      }
+    }
+  }
+
+  @Name("astrovital.DrlCompiled")
+  @Label("DRL Compiled")
+  @Category({ "AstroVital", "Rule Engine" })
+  @Description("Compilation of generated template DRL into a KieBase")
+  @StackTrace(false)
+  public static final class DrlCompiled extends Event {
+    @Label("Owner")
+    String owner;
+
+    @Label("DRL Length")
+    int drlLength;
+
+    @Label("Succeeded")
+    boolean succeeded;
+
+    public void complete(String owner, int drlLength, boolean succeeded) {
+      end();
+      if (shouldCommit()) {
+        this.owner = owner;
+        this.drlLength = drlLength;
+        this.succeeded = succeeded;
+        commit();
+      }
+    }
+  }
+}
@@ -0,0 +1,161 @@
+package com.ftn.sbnz.service.engine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+import org.kie.api.event.rule.RuleRuntimeEventListener;
+import org.kie.api.runtime.KieSession;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Micrometer instrumentation of the rule engine.
+ *
+ * Meters go to Micrometer's global registry. Spring Boot adds its own
+ * registry there (management.metrics.use-global-registry), so everything
+ * shows up on /actuator/prometheus, while services built outside Spring
+ * (tests, benchmarks) need no wiring: with no registry attached the meters
+ * are no-ops. Meters are looked up once per tag combination and cached.
+ * Session lifecycle and fireAllRules calls are also emitted as JFR events
+ * (see EngineEvents).
+ */
+public final class EngineMetrics {
+
+  private static final Map<String, Timer> serviceTimers = new ConcurrentHashMap<>();
+  private static final Map<String, Timer> fireTimers = new ConcurrentHashMap<>();
+  private static final Map<String, Counter> rulesFired = new ConcurrentHashMap<>();
+  private static final Map<String, Counter> sessionsCreated = new ConcurrentHashMap<>();
+  private static final Map<String, Counter> sessionsDisposed = new ConcurrentHashMap<>();
+  private static final Map<String, DistributionSummary> requestFacts = new ConcurrentHashMap<>();
+  private static final Map<String, Counter> eventsDropped = new ConcurrentHashMap<>();
+
+  private EngineMetrics() {
+  }
+
+  public static MeterRegistry registry() {
+    return Metrics.globalRegistry;
+  }
+
+  /**
+   * Runs a service method and records its latency, also when it throws.
+   */
+  public static <R> R timeService(String service, String method, Supplier<R> work) {
+    Timer timer = serviceTimers.computeIfAbsent(service + '|' + method, k -> Timer
+        .builder("astrovital.service.latency")
+        .description("Latency of rule engine service methods")
+        .tag("service", service)
+        .tag("method", method)
+        .publishPercentileHistogram()
+        .register(registry()));
+    long start = System.nanoTime();
+    try {
+      return work.get();
+    } finally {
+      timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  /**
+   * Focuses the agenda group and fires all rules, recording the duration and
+   * the number of rules fired.
+   *
+   * @return number of rules fired
+   */
+  public static int fire(KieSession session, String owner, String agendaGroup) {
+    String key = owner + '|' + agendaGroup;
+    Timer timer = fireTimers.computeIfAbsent(key, k -> Timer
+        .builder("astrovital.rules.fire")
+        .description("Duration of fireAllRules per agenda group")
+        .tag("owner", owner)
+        .tag("agenda.group", agendaGroup)
+        .publishPercentileHistogram()
+        .register(registry()));
+    Counter fired = rulesFired.computeIfAbsent(key, k -> Counter
+        .builder("astrovital.rules.fired")
+        .description("Rules fired per agenda group")
+        .tag("owner", owner)
+        .tag("agenda.group", agendaGroup)
+        .register(registry()));
+
+    session.getAgenda().getAgendaGroup(agendaGroup).setFocus();
+    EngineEvents.RulesFired event = new EngineEvents.RulesFired();
+    event.begin();
+    long start = System.nanoTime();
+    int count = session.fireAllRules();
+    long elapsed = System.nanoTime() - start;
+    event.complete(owner, agendaGroup, count, session);
+    timer.record(elapsed, TimeUnit.NANOSECONDS);
+    fired.increment(count);
+    RuleProfiler.recordFire(agendaGroup, elapsed, count);
+    return count;
+  }
+
+  public static void sessionCreated(String owner) {
+    sessionsCreated.computeIfAbsent(owner, k -> Counter
+        .builder("astrovital.sessions.created")
+        .description("KieSessions created (for pooled sessions: checked out of the pool)")
+        .tag("owner", owner)
+        .register(registry())).increment();
+    EngineEvents.sessionCreated(owner);
+  }
+
+  public static void sessionDisposed(String owner) {
+    sessionsDisposed.computeIfAbsent(owner, k -> Counter
+        .builder("astrovital.sessions.disposed")
+        .description("KieSessions disposed (for pooled sessions: reset and returned)")
+        .tag("owner", owner)
+        .register(registry())).increment();
+    EngineEvents.sessionDisposed(owner);
+  }
+
+  /**
+   * Records the working-memory size of a request-scoped session, taken after
+   * its rules ran.
+   */
+  public static void recordFactCount(String owner, KieSession session) {
+    requestFacts.computeIfAbsent(owner, k -> DistributionSummary
+        .builder("astrovital.session.request.facts")
+        .description("Facts in a request-scoped session after its rules ran")
+        .tag("owner", owner)
+        .register(registry())).record(session.getFactCount());
+  }
+
+  /**
+   * Counts CEP events dropped on insert as redeliveries or as older than
+   * their @Expires window.
+   */
+  public static void eventsDropped(String owner, int count) {
+    if (count == 0) {
+      return;
+    }
+    eventsDropped.computeIfAbsent(owner, k -> Counter
+        .builder("astrovital.cep.events.dropped")
+        .description("CEP events dropped as redeliveries or as older than their @Expires window")
+        .tag("owner", owner)
+        .register(registry())).increment(count);
+  }
+
+  /**
+   * Keeps live per-type fact counts of a long-lived session as gauges.
+   */
+  public static void trackFacts(String owner, String shard, KieSession session) {
+    session.addEventListener(new FactCountListener(registry(), owner, shard));
+  }
+
+  /**
+   * Removes the fact count gauges of a session about to be disposed.
+   */
+  public static void untrackFacts(KieSession session) {
+    for (RuleRuntimeEventListener listener : session.getRuleRuntimeEventListeners()) {
+      if (listener instanceof FactCountListener) {
+        ((FactCountListener) listener).close();
+      }
+    }
+  }
+}
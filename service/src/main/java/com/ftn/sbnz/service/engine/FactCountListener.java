@@ -0,0 +1,96 @@
+package com.ftn.sbnz.service.engine;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.kie.api.event.rule.ObjectDeletedEvent;
+import org.kie.api.event.rule.ObjectInsertedEvent;
+import org.kie.api.event.rule.ObjectUpdatedEvent;
+import org.kie.api.event.rule.RuleRuntimeEventListener;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the facts of one session by type as they are inserted and deleted
+ * (including expired events), and exposes each count as the gauge
+ * astrovital.session.facts{owner, shard, type}. A scrape reads the counters
+ * and never touches working memory, so it needs no shard lock.
+ *
+ * The gauges are removed when the session is disposed. Micrometer hands back
+ * the registered gauge for the same name and tags, so a session created in
+ * place of a disposed one would otherwise report the old counters forever.
+ */
+public class FactCountListener implements RuleRuntimeEventListener {
+
+  private final MeterRegistry registry;
+  private final String owner;
+  private final String shard;
+  private final Map<Class<?>, AtomicLong> counts = new ConcurrentHashMap<>();
+  private final List<Gauge> gauges = new CopyOnWriteArrayList<>();
+  private volatile boolean closed;
+
+  public FactCountListener(MeterRegistry registry, String owner, String shard) {
+    this.registry = registry;
+    this.owner = owner;
+    this.shard = shard;
+  }
+
+  @Override
+  public void objectInserted(ObjectInsertedEvent event) {
+    count(event.getObject()).incrementAndGet();
+  }
+
+  @Override
+  public void objectUpdated(ObjectUpdatedEvent event) {
+    Object oldObject = event.getOldObject();
+    Object newObject = event.getObject();
+    if (oldObject != null && newObject != null && oldObject.getClass() != newObject.getClass()) {
+      count(oldObject).decrementAndGet();
+      count(newObject).incrementAndGet();
+    }
+  }
+
+  @Override
+  public void objectDeleted(ObjectDeletedEvent event) {
+    if (event.getOldObject() != null) {
+      count(event.getOldObject()).decrementAndGet();
+    }
+  }
+
+  public long getCount(Class<?> type) {
+    AtomicLong count = counts.get(type);
+    return count == null ? 0 : count.get();
+  }
+
+  /**
+   * Removes the gauges of this session from the registry; called before the
+   * session is disposed. Counting goes on without gauges.
+   */
+  public void close() {
+    closed = true;
+    for (Gauge gauge : gauges) {
+      registry.remove(gauge);
+    }
+    gauges.clear();
+  }
+
+  private AtomicLong count(Object fact) {
+    return counts.computeIfAbsent(fact.getClass(), type -> {
+      AtomicLong count = new AtomicLong();
+      if (!closed) {
+        // The map keeps the counter strongly reachable for the gauge
+        gauges.add(Gauge.builder("astrovital.session.facts", count, AtomicLong::get)
+            .description("Facts in working memory of a long-lived session, by type")
+            .tag("owner", owner)
+            .tag("shard", shard)
+            .tag("type", type.getSimpleName())
+            .register(registry));
+      }
+      return count;
+    });
+  }
+}
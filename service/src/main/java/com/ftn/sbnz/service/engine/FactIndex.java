@@ -0,0 +1,270 @@
+package com.ftn.sbnz.service.engine;
+
+import com.ftn.sbnz.model.models.Finding;
+
+import org.drools.core.time.TimeUtils;
+import org.kie.api.definition.type.Expires;
+import org.kie.api.event.rule.DefaultRuleRuntimeEventListener;
+import org.kie.api.event.rule.ObjectDeletedEvent;
+import org.kie.api.event.rule.ObjectInsertedEvent;
+import org.kie.api.event.rule.ObjectUpdatedEvent;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.rule.FactHandle;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * FactHandle index for a long-lived CEP session.
+ *
+ * State facts (one per module, or per module and discriminator such as a
+ * condensation location) are upserted: a new value updates the existing
+ * handle instead of delete + insert, so the session keeps its Rete memory
+ * and only the changed fact is re-propagated.
+ *
+ * Events are inserted once and left to expire through their @Expires
+ * policy. The identities of a module's delivered events are kept for that
+ * same window, so a redelivered event is dropped while events that share a
+ * timestamp or arrive out of order are not. Events older than the window
+ * behind the newest one are dropped as well; they would expire on insert.
+ * Dropped events are counted for the caller to report.
+ *
+ * Findings are tracked through a session listener, so whatever rules insert
+ * or retract is visible here without scanning working memory.
+ */
+public class FactIndex {
+
+  private final KieSession session;
+  private final Map<FactKey, FactHandle> stateHandles = new HashMap<>();
+  private final Map<FactKey, DeliveredEvents> deliveredEvents = new HashMap<>();
+  private final Map<FactHandle, Finding> findings = new LinkedHashMap<>();
+  private int droppedEvents;
+
+  // For event types without @Expires
+  private static final long DEFAULT_RETENTION_MILLIS = TimeUnit.HOURS.toMillis(1);
+  private static final Map<Class<?>, Long> retentions = new ConcurrentHashMap<>();
+
+  public FactIndex(KieSession session) {
+    this.session = session;
+    session.addEventListener(new DefaultRuleRuntimeEventListener() {
+      @Override
+      public void objectInserted(ObjectInsertedEvent event) {
+        if (event.getObject() instanceof Finding) {
+          findings.put(event.getFactHandle(), (Finding) event.getObject());
+        }
+      }
+
+      @Override
+      public void objectUpdated(ObjectUpdatedEvent event) {
+        if (event.getObject() instanceof Finding) {
+          findings.put(event.getFactHandle(), (Finding) event.getObject());
+        }
+      }
+
+      @Override
+      public void objectDeleted(ObjectDeletedEvent event) {
+        findings.remove(event.getFactHandle());
+      }
+    });
+  }
+
+  /**
+   * Inserts the state fact, or updates the handle already holding the fact of
+   * the same type for the module.
+   */
+  public FactHandle upsert(String moduleId, Object fact) {
+    return upsert(moduleId, null, fact);
+  }
+
+  /**
+   * Inserts the state fact, or updates the handle already holding the fact of
+   * the same type, module and discriminator.
+   */
+  public FactHandle upsert(String moduleId, Object discriminator, Object fact) {
+    FactKey key = new FactKey(fact.getClass(), moduleId, discriminator);
+    FactHandle handle = stateHandles.get(key);
+    if (handle != null && session.getObject(handle) != null) {
+      session.update(handle, fact);
+      return handle;
+    }
+    handle = session.insert(fact);
+    stateHandles.put(key, handle);
+    return handle;
+  }
+
+  /**
+   * Returns the state fact currently held for the key, or null.
+   */
+  public Object get(Class<?> type, String moduleId, Object discriminator) {
+    FactHandle handle = stateHandles.get(new FactKey(type, moduleId, discriminator));
+    return handle == null ? null : session.getObject(handle);
+  }
+
+  /**
+   * Inserts an event unless it was delivered before or is older than its
+   * @Expires window reaches back from the module's newest event of the type.
+   *
+   * @param identity tells events of the same type, module and timestamp
+   *                 apart, e.g. the readings they carry
+   * @return true if the event was inserted
+   */
+  public boolean insertEvent(String moduleId, long timestamp, Object identity, Object event) {
+    if (!markDelivered(event.getClass(), moduleId, timestamp, identity)) {
+      return false;
+    }
+    session.insert(event);
+    return true;
+  }
+
+  /**
+   * Records the delivery of an event, for events that are folded into a
+   * state fact instead of being inserted.
+   *
+   * @return false if the event was delivered before or lies outside the
+   *         window, and is dropped
+   */
+  public boolean markDelivered(Class<?> type, String moduleId, long timestamp, Object identity) {
+    DeliveredEvents delivered = deliveredEvents.computeIfAbsent(new FactKey(type, moduleId, null),
+        key -> new DeliveredEvents(retention(type)));
+    if (delivered.add(timestamp, identity)) {
+      return true;
+    }
+    droppedEvents++;
+    return false;
+  }
+
+  /**
+   * Number of events dropped since the previous call.
+   */
+  public int takeDroppedEvents() {
+    int dropped = droppedEvents;
+    droppedEvents = 0;
+    return dropped;
+  }
+
+  /**
+   * Findings currently in working memory, in insertion order.
+   */
+  public List<Finding> findings() {
+    return new ArrayList<>(findings.values());
+  }
+
+  /**
+   * Retracts the findings accepted by the filter.
+   *
+   * @return number of retracted findings
+   */
+  public int retractFindings(Predicate<Finding> filter) {
+    List<FactHandle> toDelete = new ArrayList<>();
+    for (Map.Entry<FactHandle, Finding> entry : findings.entrySet()) {
+      if (filter.test(entry.getValue())) {
+        toDelete.add(entry.getKey());
+      }
+    }
+    // the listener drops each handle from the index
+    toDelete.forEach(session::delete);
+    return toDelete.size();
+  }
+
+  /**
+   * Deletes every indexed state fact of the given module.
+   */
+  public int retractModule(String moduleId) {
+    List<FactKey> keys = new ArrayList<>();
+    for (FactKey key : stateHandles.keySet()) {
+      if (Objects.equals(key.moduleId, moduleId)) {
+        keys.add(key);
+      }
+    }
+    for (FactKey key : keys) {
+      FactHandle handle = stateHandles.remove(key);
+      if (session.getObject(handle) != null) {
+        session.delete(handle);
+      }
+    }
+    return keys.size();
+  }
+
+  public int stateFactCount() {
+    return stateHandles.size();
+  }
+
+  public int findingCount() {
+    return findings.size();
+  }
+
+  private static long retention(Class<?> type) {
+    return retentions.computeIfAbsent(type, t -> {
+      Expires expires = t.getAnnotation(Expires.class);
+      return expires == null ? DEFAULT_RETENTION_MILLIS : TimeUtils.parseTimeString(expires.value());
+    });
+  }
+
+  /**
+   * Identities of a module's delivered events of one type by timestamp,
+   * pruned to the retention window behind the newest timestamp.
+   */
+  private static final class DeliveredEvents {
+    private final long retentionMillis;
+    private final TreeMap<Long, Set<Object>> byTimestamp = new TreeMap<>();
+    private long newest = Long.MIN_VALUE;
+
+    private DeliveredEvents(long retentionMillis) {
+      this.retentionMillis = retentionMillis;
+    }
+
+    private boolean add(long timestamp, Object identity) {
+      if (!byTimestamp.isEmpty() && timestamp < newest - retentionMillis) {
+        return false;
+      }
+      if (!byTimestamp.computeIfAbsent(timestamp, t -> new HashSet<>(2)).add(identity)) {
+        return false;
+      }
+      if (timestamp > newest) {
+        newest = timestamp;
+        byTimestamp.headMap(newest - retentionMillis).clear();
+      }
+      return true;
+    }
+  }
+
+  private static final class FactKey {
+    private final Class<?> type;
+    private final String moduleId;
+    private final Object discriminator;
+
+    private FactKey(Class<?> type, String moduleId, Object discriminator) {
+      this.type = type;
+      this.moduleId = moduleId;
+      this.discriminator = discriminator;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof FactKey)) {
+        return false;
+      }
+      FactKey other = (FactKey) o;
+      return type == other.type && Objects.equals(moduleId, other.moduleId)
+          && Objects.equals(discriminator, other.discriminator);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(type, moduleId, discriminator);
+    }
+  }
+}
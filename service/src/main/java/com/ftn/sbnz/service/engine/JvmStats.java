@@ -0,0 +1,57 @@
+package com.ftn.sbnz.service.engine;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadMXBean;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Process-wide JVM counters for load tests: bytes allocated by live threads,
+ * heap use and GC totals. Load generators sample it before and after a run
+ * and report the difference per request.
+ */
+public final class JvmStats {
+
+  private JvmStats() {
+  }
+
+  public static Map<String, Object> snapshot() {
+    Map<String, Object> stats = new LinkedHashMap<>();
+    stats.put("allocatedBytes", allocatedBytes());
+    MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+    stats.put("heapUsedBytes", heap.getUsed());
+    stats.put("heapCommittedBytes", heap.getCommitted());
+    long gcCount = 0;
+    long gcMillis = 0;
+    for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+      gcCount += Math.max(0, gc.getCollectionCount());
+      gcMillis += Math.max(0, gc.getCollectionTime());
+    }
+    stats.put("gcCount", gcCount);
+    stats.put("gcTimeMillis", gcMillis);
+    stats.put("threads", ManagementFactory.getThreadMXBean().getThreadCount());
+    return stats;
+  }
+
+  // Sum over live threads, so bytes allocated by threads that already
+  // ended are missing; -1 if the JVM does not track allocation
+  private static long allocatedBytes() {
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+      return -1;
+    }
+    com.sun.management.ThreadMXBean allocation = (com.sun.management.ThreadMXBean) threads;
+    if (!allocation.isThreadAllocatedMemorySupported() || !allocation.isThreadAllocatedMemoryEnabled()) {
+      return -1;
+    }
+    long total = 0;
+    for (long bytes : allocation.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+      if (bytes > 0) {
+        total += bytes;
+      }
+    }
+    return total;
+  }
+}
@@ -0,0 +1,167 @@
+package com.ftn.sbnz.service.engine;
+
+import org.kie.api.KieBase;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * LRU cache of compiled KieBases keyed by a content hash of the rule source
+ * (e.g. a threshold set). Concurrent misses on the same key share a single
+ * compilation; the KieBase itself is thread-safe, so callers draw their own
+ * sessions from the cached base. Callers that wait for another's compilation
+ * are counted as joined, not as hits.
+ */
+public class KieBaseCache {
+
+  private final int capacity;
+  private final LinkedHashMap<String, KieBase> entries;
+  private final Map<String, CompletableFuture<KieBase>> inFlight = new ConcurrentHashMap<>();
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong joined = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+  private final AtomicLong compileNanos = new AtomicLong();
+
+  public KieBaseCache(int capacity) {
+    this.capacity = Math.max(1, capacity);
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, KieBase> eldest) {
+        if (size() > KieBaseCache.this.capacity) {
+          evictions.incrementAndGet();
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /**
+   * Returns the cached KieBase for the key, compiling it with the supplied
+   * compiler on a miss.
+   */
+  public KieBase get(String key, Supplier<KieBase> compiler) {
+    synchronized (entries) {
+      KieBase cached = entries.get(key);
+      if (cached != null) {
+        hits.incrementAndGet();
+        return cached;
+      }
+    }
+
+    CompletableFuture<KieBase> own = new CompletableFuture<>();
+    CompletableFuture<KieBase> pending = inFlight.putIfAbsent(key, own);
+    if (pending != null) {
+      // Another request is already compiling the same rule set
+      joined.incrementAndGet();
+      try {
+        return pending.join();
+      } catch (CompletionException e) {
+        if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
+        }
+        throw e;
+      }
+    }
+
+    misses.incrementAndGet();
+    long start = System.nanoTime();
+    try {
+      KieBase compiled = compiler.get();
+      synchronized (entries) {
+        entries.put(key, compiled);
+      }
+      own.complete(compiled);
+      return compiled;
+    } catch (RuntimeException e) {
+      own.completeExceptionally(e);
+      throw e;
+    } finally {
+      compileNanos.addAndGet(System.nanoTime() - start);
+      inFlight.remove(key, own);
+    }
+  }
+
+  public void invalidateAll() {
+    synchronized (entries) {
+      entries.clear();
+    }
+  }
+
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  public long getJoined() {
+    return joined.get();
+  }
+
+  public long getEvictions() {
+    return evictions.get();
+  }
+
+  public long getCompileNanos() {
+    return compileNanos.get();
+  }
+
+  public Map<String, Object> snapshotStats() {
+    long h = hits.get();
+    long m = misses.get();
+    long j = joined.get();
+    Map<String, Object> stats = new LinkedHashMap<>();
+    stats.put("size", size());
+    stats.put("capacity", capacity);
+    stats.put("hits", h);
+    stats.put("misses", m);
+    stats.put("joined", j);
+    stats.put("evictions", evictions.get());
+    stats.put("hitRatio", h + m + j == 0 ? 0.0 : (double) h / (h + m + j));
+    stats.put("totalCompileMillis", compileNanos.get() / 1_000_000);
+    return stats;
+  }
+
+  /**
+   * SHA-256 over the given parts, separated so that ("ab","c") and ("a","bc")
+   * hash differently.
+   */
+  public static String contentHash(Iterable<String> parts) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      for (String part : parts) {
+        digest.update((part == null ? "\u0000" : part).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0x1f);
+      }
+      StringBuilder hex = new StringBuilder();
+      for (byte b : digest.digest()) {
+        hex.append(String.format("%02x", b));
+      }
+      return hex.toString();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 not available", e);
+    }
+  }
+}
@@ -0,0 +1,168 @@
+package com.ftn.sbnz.service.engine;
+
+import com.ftn.sbnz.model.utils.EventLog;
+
+import org.kie.api.runtime.KieContainer;
+import org.kie.api.runtime.KieContainerSessionsPool;
+import org.kie.api.runtime.KieSession;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Bounded pool of stateful KieSessions for request-scoped rule runs.
+ *
+ * Sessions come from Drools' own KieContainerSessionsPool, where dispose()
+ * resets the session and hands it back instead of destroying it. A semaphore
+ * caps how many sessions are in use at once, so a burst of requests waits
+ * for a free session rather than building new ones without limit.
+ */
+public class KieSessionPool {
+
+  private final String name;
+  private final KieContainerSessionsPool pool;
+  private final int size;
+  private final long borrowTimeoutMillis;
+  private final Semaphore permits;
+
+  private final AtomicLong borrows = new AtomicLong();
+  private final AtomicLong timeouts = new AtomicLong();
+  private final AtomicLong totalWaitNanos = new AtomicLong();
+  private final AtomicLong maxWaitNanos = new AtomicLong();
+  private final AtomicLong totalResetNanos = new AtomicLong();
+  private final AtomicLong maxResetNanos = new AtomicLong();
+
+  public KieSessionPool(String name, KieContainer kieContainer, int size, long borrowTimeoutMillis) {
+    this.name = name;
+    this.size = Math.max(1, size);
+    this.borrowTimeoutMillis = borrowTimeoutMillis;
+    this.permits = new Semaphore(this.size, true);
+    this.pool = kieContainer.newKieSessionsPool(this.size);
+  }
+
+  /**
+   * Creates every session up front so the first requests do not pay for
+   * session construction.
+   */
+  public void prewarm() {
+    List<KieSession> sessions = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      sessions.add(pool.newKieSession());
+    }
+    sessions.forEach(KieSession::dispose);
+    EventLog.info(name, "Pre-warmed {} pooled KieSessions", size);
+  }
+
+  /**
+   * Borrows a session, runs the work and returns the session to the pool
+   * reset, also when the work throws. The run is profiled if RuleProfiler
+   * samples it.
+   */
+  public <R> R execute(Function<KieSession, R> work) {
+    KieSession session = borrow();
+    try {
+      return RuleProfiler.profile(session, () -> work.apply(session));
+    } finally {
+      release(session);
+    }
+  }
+
+  public KieSession borrow() {
+    long start = System.nanoTime();
+    try {
+      if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+        timeouts.incrementAndGet();
+        throw new IllegalStateException(
+            name + ": no KieSession available within " + borrowTimeoutMillis + " ms (pool size " + size + ")");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(name + ": interrupted while waiting for a KieSession", e);
+    }
+    long waited = System.nanoTime() - start;
+    borrows.incrementAndGet();
+    totalWaitNanos.addAndGet(waited);
+    maxWaitNanos.accumulateAndGet(waited, Math::max);
+
+    try {
+      KieSession session = pool.newKieSession();
+      EngineMetrics.sessionCreated(name);
+      return session;
+    } catch (RuntimeException e) {
+      permits.release();
+      throw e;
+    }
+  }
+
+  public void release(KieSession session) {
+    long start = System.nanoTime();
+    try {
+      // On a pooled session dispose() resets it and returns it to the pool
+      session.dispose();
+      EngineMetrics.sessionDisposed(name);
+    } finally {
+      long reset = System.nanoTime() - start;
+      totalResetNanos.addAndGet(reset);
+      maxResetNanos.accumulateAndGet(reset, Math::max);
+      permits.release();
+    }
+  }
+
+  public void shutdown() {
+    pool.shutdown();
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public int getSize() {
+    return size;
+  }
+
+  public int getInUse() {
+    return size - permits.availablePermits();
+  }
+
+  public int getWaiting() {
+    return permits.getQueueLength();
+  }
+
+  public long getBorrows() {
+    return borrows.get();
+  }
+
+  public long getTimeouts() {
+    return timeouts.get();
+  }
+
+  public long getTotalWaitNanos() {
+    return totalWaitNanos.get();
+  }
+
+  public long getTotalResetNanos() {
+    return totalResetNanos.get();
+  }
+
+  public Map<String, Object> snapshotStats() {
+    long n = borrows.get();
+    Map<String, Object> stats = new LinkedHashMap<>();
+    stats.put("name", name);
+    stats.put("size", size);
+    stats.put("inUse", getInUse());
+    stats.put("waiting", getWaiting());
+    stats.put("borrows", n);
+    stats.put("timeouts", timeouts.get());
+    stats.put("avgWaitMicros", n == 0 ? 0 : totalWaitNanos.get() / n / 1_000);
+    stats.put("maxWaitMicros", maxWaitNanos.get() / 1_000);
+    stats.put("avgResetMicros", n == 0 ? 0 : totalResetNanos.get() / n / 1_000);
+    stats.put("maxResetMicros", maxResetNanos.get() / 1_000);
+    return stats;
+  }
+}
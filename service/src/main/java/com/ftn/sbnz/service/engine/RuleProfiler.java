@@ -0,0 +1,402 @@
+package com.ftn.sbnz.service.engine;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+
+import org.kie.api.definition.rule.Rule;
+import org.kie.api.event.rule.AfterMatchFiredEvent;
+import org.kie.api.event.rule.AgendaEventListener;
+import org.kie.api.event.rule.BeforeMatchFiredEvent;
+import org.kie.api.event.rule.DefaultAgendaEventListener;
+import org.kie.api.event.rule.MatchCancelledEvent;
+import org.kie.api.event.rule.MatchCreatedEvent;
+import org.kie.api.event.rule.ObjectDeletedEvent;
+import org.kie.api.event.rule.ObjectInsertedEvent;
+import org.kie.api.event.rule.ObjectUpdatedEvent;
+import org.kie.api.event.rule.RuleRuntimeEventListener;
+import org.kie.api.runtime.KieSession;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Opt-in rule-level profiler for every session the services run.
+ *
+ * Profiling works per unit of work: one pooled-session run, one pass over a
+ * CEP shard or one template evaluation. For a sampled run a listener is
+ * attached to the session for the duration of the run and records, per rule,
+ * matches created and cancelled, firings, RHS time and the facts the RHS
+ * inserted, updated and deleted. Runs that are not sampled have no listener
+ * attached, and Drools does not even build event objects for them.
+ *
+ * Modes:
+ * - off: nothing is recorded (default)
+ * - sampled: every sampleEvery-th run is profiled; counts are of sampled
+ * runs only, scale them by sampleEvery for estimates
+ * - full: every run is profiled
+ *
+ * Agenda-group fire times are recorded for every fireAllRules call while
+ * the profiler is on, because they come from EngineMetrics.fire, which times
+ * each call anyway.
+ *
+ * Rules are told apart by package and name. Template-generated rule names
+ * are unbounded, so at most MAX_TRACKED_RULES rules are tracked (later ones
+ * share one "(other rules)" entry), and only the exportedRules busiest rules
+ * by consequence time have meters, tagged with package and rule. The
+ * exported set is refreshed after profiled runs, at most every few seconds.
+ */
+public final class RuleProfiler {
+
+  public enum Mode {
+    OFF, SAMPLED, FULL;
+
+    public static Mode fromString(String text) {
+      for (Mode mode : values()) {
+        if (mode.name().equalsIgnoreCase(text)) {
+          return mode;
+        }
+      }
+      throw new IllegalArgumentException("Unknown profiling mode " + text);
+    }
+  }
+
+  private static volatile Mode mode = Mode.OFF;
+  private static volatile int sampleEvery = 100;
+
+  private static final AtomicLong runs = new AtomicLong();
+  private static final AtomicLong sampledRuns = new AtomicLong();
+  private static final Map<String, RuleStats> rules = new ConcurrentHashMap<>();
+  private static final Map<String, GroupStats> groups = new ConcurrentHashMap<>();
+
+  static final int MAX_TRACKED_RULES = 1000;
+  private static final String OVERFLOW_RULE = "(other rules)";
+  private static final long EXPORT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+  private static volatile int exportedRules = 20;
+  private static final AtomicLong lastExport = new AtomicLong(System.nanoTime() - EXPORT_INTERVAL_NANOS);
+  private static final Object exportLock = new Object();
+
+  static {
+    Gauge.builder("astrovital.rule.profiler.sample.every", () -> mode == Mode.OFF ? 0 : effectiveSampleEvery())
+        .description("Runs per profiled run (0 = profiler off); multiply sampled rule counts by it")
+        .register(EngineMetrics.registry());
+  }
+
+  private RuleProfiler() {
+  }
+
+  public static void configure(Mode newMode, int newSampleEvery) {
+    sampleEvery = Math.max(1, newSampleEvery);
+    mode = newMode;
+  }
+
+  /**
+   * Number of rules exported as meters; 0 exports none.
+   */
+  public static void setExportedRules(int count) {
+    exportedRules = Math.max(0, count);
+    lastExport.set(System.nanoTime() - EXPORT_INTERVAL_NANOS);
+  }
+
+  public static Mode getMode() {
+    return mode;
+  }
+
+  /**
+   * Clears the collected statistics and forgets the rules seen so far,
+   * removing their meters. Scrapers see it as a counter reset.
+   */
+  public static void reset() {
+    runs.set(0);
+    sampledRuns.set(0);
+    synchronized (exportLock) {
+      rules.values().forEach(RuleStats::unexport);
+      rules.clear();
+    }
+    groups.values().forEach(GroupStats::reset);
+  }
+
+  /**
+   * Runs a unit of work against the session, profiling it if it is sampled.
+   * The caller must own the session for the duration (shard lock or pool
+   * checkout).
+   */
+  public static <R> R profile(KieSession session, Supplier<R> work) {
+    if (!sample()) {
+      return work.get();
+    }
+    Listener listener = new Listener();
+    session.addEventListener((AgendaEventListener) listener);
+    session.addEventListener((RuleRuntimeEventListener) listener);
+    try {
+      return work.get();
+    } finally {
+      session.removeEventListener((AgendaEventListener) listener);
+      session.removeEventListener((RuleRuntimeEventListener) listener);
+      exportTopRules();
+    }
+  }
+
+  private static boolean sample() {
+    Mode current = mode;
+    if (current == Mode.OFF) {
+      return false;
+    }
+    long run = runs.incrementAndGet();
+    if (current == Mode.FULL || run % sampleEvery == 0) {
+      sampledRuns.incrementAndGet();
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Records one fireAllRules call of an agenda group.
+   */
+  static void recordFire(String agendaGroup, long nanos, int fired) {
+    if (mode == Mode.OFF) {
+      return;
+    }
+    groups.computeIfAbsent(agendaGroup, GroupStats::new).record(nanos, fired);
+  }
+
+  public static Map<String, Object> snapshot() {
+    Map<String, Object> profile = new LinkedHashMap<>();
+    profile.put("mode", mode.name().toLowerCase());
+    profile.put("sampleEvery", effectiveSampleEvery());
+    profile.put("exportedRules", exportedRules);
+    profile.put("runs", runs.get());
+    profile.put("sampledRuns", sampledRuns.get());
+
+    Map<String, Object> groupStats = new LinkedHashMap<>();
+    groups.values().stream()
+        .sorted(Comparator.comparingLong((GroupStats g) -> g.nanos.sum()).reversed())
+        .forEach(g -> groupStats.put(g.name, g.toMap()));
+    profile.put("agendaGroups", groupStats);
+
+    List<Map<String, Object>> ruleStats = new ArrayList<>();
+    busiest(Integer.MAX_VALUE).forEach(r -> ruleStats.add(r.toMap()));
+    profile.put("rules", ruleStats);
+    return profile;
+  }
+
+  private static int effectiveSampleEvery() {
+    return mode == Mode.FULL ? 1 : sampleEvery;
+  }
+
+  private static RuleStats stats(Rule rule) {
+    String name = rule.getPackageName() + "." + rule.getName();
+    RuleStats stats = rules.get(name);
+    if (stats != null) {
+      return stats;
+    }
+    if (rules.size() >= MAX_TRACKED_RULES) {
+      return rules.computeIfAbsent(OVERFLOW_RULE, k -> new RuleStats("", OVERFLOW_RULE));
+    }
+    return rules.computeIfAbsent(name, k -> new RuleStats(rule.getPackageName(), rule.getName()));
+  }
+
+  // Rules that matched or fired, most consequence time first
+  private static List<RuleStats> busiest(int limit) {
+    return rules.values().stream()
+        .filter(r -> r.created.sum() + r.fired.sum() > 0)
+        .sorted(Comparator.comparingLong((RuleStats r) -> r.rhsNanos.sum()).reversed())
+        .limit(limit)
+        .collect(Collectors.toList());
+  }
+
+  // Gives the busiest rules meters and removes those of the rules that
+  // dropped out; one caller at a time, at most every EXPORT_INTERVAL_NANOS
+  private static void exportTopRules() {
+    long now = System.nanoTime();
+    long last = lastExport.get();
+    if (now - last < EXPORT_INTERVAL_NANOS || !lastExport.compareAndSet(last, now)) {
+      return;
+    }
+    synchronized (exportLock) {
+      Set<RuleStats> top = new HashSet<>(busiest(exportedRules));
+      for (RuleStats stats : rules.values()) {
+        if (top.contains(stats)) {
+          stats.export();
+        } else {
+          stats.unexport();
+        }
+      }
+    }
+  }
+
+  /**
+   * Per-session listener for one sampled run. The session is driven by one
+   * thread at a time, so the start time needs no synchronization.
+   */
+  private static final class Listener extends DefaultAgendaEventListener implements RuleRuntimeEventListener {
+
+    private long firingSince;
+
+    @Override
+    public void matchCreated(MatchCreatedEvent event) {
+      stats(event.getMatch().getRule()).created.increment();
+    }
+
+    @Override
+    public void matchCancelled(MatchCancelledEvent event) {
+      stats(event.getMatch().getRule()).cancelled.increment();
+    }
+
+    @Override
+    public void beforeMatchFired(BeforeMatchFiredEvent event) {
+      firingSince = System.nanoTime();
+    }
+
+    @Override
+    public void afterMatchFired(AfterMatchFiredEvent event) {
+      stats(event.getMatch().getRule()).fired(System.nanoTime() - firingSince);
+    }
+
+    // Only changes made by a rule consequence carry the rule
+
+    @Override
+    public void objectInserted(ObjectInsertedEvent event) {
+      if (event.getRule() != null) {
+        stats(event.getRule()).inserts.increment();
+      }
+    }
+
+    @Override
+    public void objectUpdated(ObjectUpdatedEvent event) {
+      if (event.getRule() != null) {
+        stats(event.getRule()).updates.increment();
+      }
+    }
+
+    @Override
+    public void objectDeleted(ObjectDeletedEvent event) {
+      if (event.getRule() != null) {
+        stats(event.getRule()).deletes.increment();
+      }
+    }
+  }
+
+  private static final class RuleStats {
+    private final String packageName;
+    private final String name;
+    private final LongAdder created = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final LongAdder fired = new LongAdder();
+    private final LongAdder rhsNanos = new LongAdder();
+    private final AtomicLong maxRhsNanos = new AtomicLong();
+    private final LongAdder inserts = new LongAdder();
+    private final LongAdder updates = new LongAdder();
+    private final LongAdder deletes = new LongAdder();
+    // Registered while the rule is among the exported ones; guarded by exportLock
+    private List<Meter> meters;
+
+    private RuleStats(String packageName, String name) {
+      this.packageName = packageName;
+      this.name = name;
+    }
+
+    private void export() {
+      if (meters != null) {
+        return;
+      }
+      meters = List.of(
+          FunctionCounter.builder("astrovital.rule.activations", created, LongAdder::sum)
+              .description("Matches created per rule in profiled runs")
+              .tag("package", packageName)
+              .tag("rule", name)
+              .register(EngineMetrics.registry()),
+          FunctionCounter.builder("astrovital.rule.fired", fired, LongAdder::sum)
+              .description("Firings per rule in profiled runs")
+              .tag("package", packageName)
+              .tag("rule", name)
+              .register(EngineMetrics.registry()),
+          FunctionCounter.builder("astrovital.rule.rhs.time", rhsNanos, n -> n.sum() / 1e9)
+              .description("Cumulative consequence time per rule in profiled runs")
+              .baseUnit("seconds")
+              .tag("package", packageName)
+              .tag("rule", name)
+              .register(EngineMetrics.registry()));
+    }
+
+    private void unexport() {
+      if (meters == null) {
+        return;
+      }
+      meters.forEach(EngineMetrics.registry()::remove);
+      meters = null;
+    }
+
+    private void fired(long nanos) {
+      fired.increment();
+      rhsNanos.add(nanos);
+      maxRhsNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    private Map<String, Object> toMap() {
+      long n = fired.sum();
+      long rhs = rhsNanos.sum();
+      Map<String, Object> map = new LinkedHashMap<>();
+      map.put("rule", name);
+      map.put("package", packageName);
+      map.put("activations", created.sum());
+      map.put("cancelled", cancelled.sum());
+      map.put("fired", n);
+      map.put("rhsMillis", TimeUnit.NANOSECONDS.toMillis(rhs));
+      map.put("avgRhsMicros", n == 0 ? 0 : rhs / n / 1_000);
+      map.put("maxRhsMicros", maxRhsNanos.get() / 1_000);
+      map.put("inserts", inserts.sum());
+      map.put("updates", updates.sum());
+      map.put("deletes", deletes.sum());
+      return map;
+    }
+  }
+
+  private static final class GroupStats {
+    private final String name;
+    private final LongAdder fires = new LongAdder();
+    private final LongAdder rulesFired = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    private GroupStats(String name) {
+      this.name = name;
+    }
+
+    private void record(long elapsed, int fired) {
+      fires.increment();
+      rulesFired.add(fired);
+      nanos.add(elapsed);
+      maxNanos.accumulateAndGet(elapsed, Math::max);
+    }
+
+    private void reset() {
+      fires.reset();
+      rulesFired.reset();
+      nanos.reset();
+      maxNanos.set(0);
+    }
+
+    private Map<String, Object> toMap() {
+      long n = fires.sum();
+      Map<String, Object> map = new LinkedHashMap<>();
+      map.put("fires", n);
+      map.put("rulesFired", rulesFired.sum());
+      map.put("totalMillis", TimeUnit.NANOSECONDS.toMillis(nanos.sum()));
+      map.put("avgMicros", n == 0 ? 0 : nanos.sum() / n / 1_000);
+      map.put("maxMicros", maxNanos.get() / 1_000);
+      return map;
+    }
+  }
+}
@@ -0,0 +1,16 @@
+package com.ftn.sbnz.service.findings;
+
+import com.ftn.sbnz.model.dto.FindingChange;
+
+/**
+ * Receives changes to the active findings store. Called in sequence order
+ * across all modules, by one thread at a time: usually the one that made the
+ * change, otherwise the one delivering earlier changes then. No store lock is
+ * held, but later changes wait for the call, so implementations must not
+ * block.
+ */
+@FunctionalInterface
+public interface FindingChangeListener {
+
+  void onChange(FindingChange change);
+}
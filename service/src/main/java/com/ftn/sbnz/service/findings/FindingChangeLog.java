@@ -0,0 +1,78 @@
+package com.ftn.sbnz.service.findings;
+
+import com.ftn.sbnz.model.dto.FindingChange;
+import com.ftn.sbnz.model.models.Finding;
+import com.ftn.sbnz.model.utils.FindingClock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Bounded ring buffer of the most recent findings store changes. Assigns the
+ * sequence numbers, so appends happen in the order the store applied them,
+ * and stamps changes with FindingClock, like the findings themselves.
+ * Clients that fall further behind than the buffer holds must resync from a
+ * snapshot.
+ */
+public class FindingChangeLog {
+
+  private final FindingChange[] ring;
+  private long firstSequence = 1;
+  private long lastSequence;
+
+  public FindingChangeLog(int capacity) {
+    this.ring = new FindingChange[Math.max(1, capacity)];
+  }
+
+  public synchronized FindingChange append(FindingChange.Kind kind, String moduleId, Finding finding) {
+    FindingChange change = new FindingChange(++lastSequence, kind, moduleId, finding, FindingClock.millis());
+    ring[slot(change.getSequence())] = change;
+    return change;
+  }
+
+  /**
+   * Continues numbering after the given sequence, e.g. the last sequence
+   * recovered from the journal. Changes before it are not held.
+   */
+  public synchronized void startAfter(long sequence) {
+    lastSequence = sequence;
+    firstSequence = sequence + 1;
+    Arrays.fill(ring, null);
+  }
+
+  public synchronized long getLastSequence() {
+    return lastSequence;
+  }
+
+  /**
+   * Sequence of the oldest change still held, or lastSequence + 1 when empty.
+   */
+  public synchronized long getOldestSequence() {
+    return Math.max(firstSequence, lastSequence - ring.length + 1);
+  }
+
+  /**
+   * Changes with a sequence greater than the given one, oldest first. Returns
+   * null if some of them were already overwritten, or if the cursor is ahead
+   * of this log (e.g. issued before a restart).
+   */
+  public synchronized List<FindingChange> since(long sequence) {
+    if (sequence > lastSequence || sequence + 1 < getOldestSequence()) {
+      return null;
+    }
+    List<FindingChange> changes = new ArrayList<>((int) (lastSequence - sequence));
+    for (long s = sequence + 1; s <= lastSequence; s++) {
+      changes.add(ring[slot(s)]);
+    }
+    return changes;
+  }
+
+  public int getCapacity() {
+    return ring.length;
+  }
+
+  private int slot(long sequence) {
+    return (int) Math.floorMod(sequence, (long) ring.length);
+  }
+}
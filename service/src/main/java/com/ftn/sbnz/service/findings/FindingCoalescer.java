@@ -0,0 +1,110 @@
+package com.ftn.sbnz.service.findings;
+
+import com.ftn.sbnz.model.enums.Priority;
+import com.ftn.sbnz.model.models.Finding;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalescing state in front of the findings store, per (module, type):
+ *
+ * - Rate limit: while a finding is active, repeats are merged into it and
+ * an UPDATED change is published at most once per updateIntervalMillis. A
+ * merge that falls inside the interval is not published on its own; the
+ * next published change of the finding carries it.
+ * - Hysteresis: for hysteresisMillis after a finding was retired (expired or
+ * deleted), raising it again at the same or a lower priority is suppressed.
+ * Suppressed raises are added to the occurrences of the next finding that
+ * gets through. A higher priority always gets through.
+ *
+ * A flapping condition therefore adds at most one finding per hysteresis
+ * window and one update per interval. Callers hold the module's lock, so the
+ * state of one key is never touched concurrently.
+ */
+public class FindingCoalescer {
+
+  private final long hysteresisMillis;
+  private final long updateIntervalMillis;
+  private final Map<String, KeyState> states = new ConcurrentHashMap<>();
+  private final AtomicLong merged = new AtomicLong();
+  private final AtomicLong suppressed = new AtomicLong();
+  private final AtomicLong throttledUpdates = new AtomicLong();
+
+  public FindingCoalescer(long hysteresisMillis, long updateIntervalMillis) {
+    this.hysteresisMillis = Math.max(0, hysteresisMillis);
+    this.updateIntervalMillis = Math.max(0, updateIntervalMillis);
+  }
+
+  /**
+   * Whether a new finding for the key falls inside the hysteresis window of
+   * a retired one. If it gets through, it inherits the suppressed count.
+   */
+  public boolean suppress(String moduleId, Finding finding, long now) {
+    String key = key(moduleId, finding.getType());
+    KeyState state = states.get(key);
+    if (state == null || state.retiredAt == 0) {
+      return false;
+    }
+    if (now - state.retiredAt < hysteresisMillis
+        && Priority.rank(finding.getPriorityLevel()) <= state.retiredRank) {
+      state.suppressed += finding.getOccurrences();
+      suppressed.incrementAndGet();
+      return true;
+    }
+    finding.setOccurrences(finding.getOccurrences() + state.suppressed);
+    states.remove(key);
+    return false;
+  }
+
+  /**
+   * Records a repeat merged into the active finding and tells whether the
+   * resulting UPDATED change is due.
+   */
+  public boolean mergeDue(String moduleId, String type, long now) {
+    merged.incrementAndGet();
+    KeyState state = states.computeIfAbsent(key(moduleId, type), k -> new KeyState());
+    if (now - state.lastUpdateAt >= updateIntervalMillis) {
+      state.lastUpdateAt = now;
+      return true;
+    }
+    throttledUpdates.incrementAndGet();
+    return false;
+  }
+
+  public void retired(String moduleId, Finding finding, long now) {
+    String key = key(moduleId, finding.getType());
+    if (hysteresisMillis == 0) {
+      states.remove(key);
+      return;
+    }
+    KeyState state = new KeyState();
+    state.retiredAt = now;
+    state.retiredRank = Priority.rank(finding.getPriorityLevel());
+    states.put(key, state);
+  }
+
+  public Map<String, Object> snapshotStats() {
+    Map<String, Object> stats = new LinkedHashMap<>();
+    stats.put("hysteresisMillis", hysteresisMillis);
+    stats.put("updateIntervalMillis", updateIntervalMillis);
+    stats.put("trackedKeys", states.size());
+    stats.put("merged", merged.get());
+    stats.put("suppressed", suppressed.get());
+    stats.put("throttledUpdates", throttledUpdates.get());
+    return stats;
+  }
+
+  private static String key(String moduleId, String type) {
+    return moduleId + '\u001f' + type;
+  }
+
+  private static final class KeyState {
+    private long lastUpdateAt = Long.MIN_VALUE / 2;
+    private long retiredAt;
+    private int retiredRank;
+    private int suppressed;
+  }
+}
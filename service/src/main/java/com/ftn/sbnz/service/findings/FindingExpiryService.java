@@ -0,0 +1,155 @@
+package com.ftn.sbnz.service.findings;
+
+import com.ftn.sbnz.model.dto.FindingChange;
+import com.ftn.sbnz.model.models.Finding;
+import com.ftn.sbnz.model.utils.EventLog;
+import com.ftn.sbnz.model.utils.FindingClock;
+import com.ftn.sbnz.service.services.FindingsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Expires findings in the background when their expiresAt passes.
+ *
+ * Every added finding is put on a DelayQueue ordered by expiry time, and a
+ * single thread takes each one as it falls due and removes it through
+ * FindingsService.expireFinding, which publishes the EXPIRED change. Request
+ * paths no longer scan the whole store for expired findings.
+ *
+ * A finding has one queue entry, which the copies a merge replaces it with
+ * share: when it falls due and the current copy expires later, it is queued
+ * again for the new time. A finding that is deleted, or expired some other
+ * way, has its entry removed right away, so the queue holds the active
+ * findings rather than growing with churn.
+ * Delays are measured on FindingClock, the clock expiresAt is set from, so a
+ * substituted clock moves the queue along with the findings.
+ */
+@Service
+public class FindingExpiryService implements FindingChangeListener {
+
+  private final FindingsService findingsService;
+  private final DelayQueue<Expiry> queue = new DelayQueue<>();
+  // The queued entry of each finding, by the identity the store matches on
+  private final Map<String, Expiry> entries = new ConcurrentHashMap<>();
+  private final AtomicLong expired = new AtomicLong();
+  private final AtomicLong rescheduled = new AtomicLong();
+  private final Thread worker;
+
+  @Autowired
+  public FindingExpiryService(FindingsService findingsService) {
+    this.findingsService = findingsService;
+    findingsService.addListener(this);
+    // Findings added before this service was listening
+    for (Map.Entry<String, List<Finding>> entry : findingsService.getAllFindings().entrySet()) {
+      entry.getValue().forEach(f -> schedule(entry.getKey(), f));
+    }
+    this.worker = new Thread(this::run, "findings-expiry");
+    this.worker.setDaemon(true);
+    this.worker.start();
+  }
+
+  @PreDestroy
+  public void destroy() {
+    findingsService.removeListener(this);
+    worker.interrupt();
+  }
+
+  @Override
+  public void onChange(FindingChange change) {
+    if (change.getKind() == FindingChange.Kind.ADDED) {
+      schedule(change.getModuleId(), change.getFinding());
+    } else if (change.getKind() == FindingChange.Kind.DELETED || change.getKind() == FindingChange.Kind.EXPIRED) {
+      Expiry entry = entries.remove(key(change.getModuleId(), change.getFinding()));
+      if (entry != null) {
+        queue.remove(entry);
+      }
+    }
+  }
+
+  private void schedule(String moduleId, Finding finding) {
+    if (finding.getExpiresAtMillis() == Finding.NO_TIME) {
+      return;
+    }
+    Expiry entry = new Expiry(moduleId, finding, finding.getExpiresAtMillis());
+    Expiry previous = entries.put(key(moduleId, finding), entry);
+    if (previous != null) {
+      queue.remove(previous);
+    }
+    queue.put(entry);
+  }
+
+  private static String key(String moduleId, Finding finding) {
+    return moduleId + '\u001f' + finding.getType() + '\u001f' + finding.getTimestampMillis() + '\u001f'
+        + finding.getDetails();
+  }
+
+  private void run() {
+    while (!Thread.currentThread().isInterrupted()) {
+      try {
+        Expiry due = queue.take();
+        if (findingsService.expireFinding(due.moduleId, due.finding)) {
+          expired.incrementAndGet();
+          continue;
+        }
+        Finding current = findingsService.currentVersion(due.moduleId, due.finding);
+        if (current != null && !current.isExpired()) {
+          // a merge replaced it with a copy that expires later (or the clocks
+          // agree only to the millisecond)
+          long deadline = Math.max(current.getExpiresAtMillis(), FindingClock.millis() + 1);
+          Expiry next = new Expiry(due.moduleId, current, deadline);
+          // unless it was deleted or queued again meanwhile
+          if (entries.replace(key(due.moduleId, current), due, next)) {
+            rescheduled.incrementAndGet();
+            queue.put(next);
+          }
+        } else {
+          entries.remove(key(due.moduleId, due.finding), due);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (RuntimeException e) {
+        EventLog.warn("FindingExpiryService", "Failed to expire finding: {}", e.getMessage());
+      }
+    }
+  }
+
+  public Map<String, Object> snapshotStats() {
+    Map<String, Object> stats = new LinkedHashMap<>();
+    stats.put("pending", queue.size());
+    stats.put("expired", expired.get());
+    stats.put("rescheduled", rescheduled.get());
+    return stats;
+  }
+
+  private static final class Expiry implements Delayed {
+    private final String moduleId;
+    private final Finding finding;
+    private final long deadlineMillis;
+
+    private Expiry(String moduleId, Finding finding, long deadlineMillis) {
+      this.moduleId = moduleId;
+      this.finding = finding;
+      this.deadlineMillis = deadlineMillis;
+    }
+
+    @Override
+    public long getDelay(TimeUnit unit) {
+      return unit.convert(deadlineMillis - FindingClock.millis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public int compareTo(Delayed other) {
+      return Long.compare(deadlineMillis, ((Expiry) other).deadlineMillis);
+    }
+  }
+}
@@ -0,0 +1,291 @@
+package com.ftn.sbnz.service.findings;
+
+import com.ftn.sbnz.model.dto.FindingChange;
+import com.ftn.sbnz.model.dto.FindingHistoryEntry;
+import com.ftn.sbnz.model.models.Finding;
+import com.ftn.sbnz.service.services.FindingsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * History of retired (expired or deleted) findings.
+ *
+ * Rows are appended in retirement order to fixed-size columnar chunks:
+ * times as longs, module / type / priority as dictionary codes, so a row
+ * costs about 33 bytes. Details are dictionary-encoded per chunk: repeats of
+ * a condition usually carry the same text, so a chunk holds each distinct
+ * details string once and drops them together with its rows. Each chunk keeps a zone
+ * map (time bounds and the set of module, type and priority codes it
+ * contains), so a query binary-searches the time range and skips whole
+ * chunks that cannot match a filter. When maxRows is reached the oldest
+ * chunk is dropped.
+ *
+ * One writer appends at a time; readers take no lock. A chunk's size is
+ * volatile and written after the row, so a reader never sees a partial row.
+ */
+@Service
+public class FindingHistoryStore implements FindingChangeListener {
+
+  public static final int MAX_PAGE_SIZE = 10_000;
+  private static final int CHUNK_ROWS = 1 << 16;
+
+  private final FindingsService findingsService;
+  private final int maxChunks;
+  private final SymbolTable symbols = new SymbolTable();
+  private volatile Chunk[] chunks = new Chunk[0];
+  private long nextId = 1;
+  private long lastRetiredAt;
+
+  @Autowired
+  public FindingHistoryStore(FindingsService findingsService,
+      @Value("${astrovital.findings.history.max-rows:1000000}") long maxRows) {
+    this.findingsService = findingsService;
+    this.maxChunks = (int) Math.max(1, (maxRows + CHUNK_ROWS - 1) / CHUNK_ROWS);
+    findingsService.addListener(this);
+  }
+
+  @PreDestroy
+  public void destroy() {
+    findingsService.removeListener(this);
+  }
+
+  @Override
+  public void onChange(FindingChange change) {
+    if (change.getKind() == FindingChange.Kind.EXPIRED || change.getKind() == FindingChange.Kind.DELETED) {
+      append(change.getKind(), change.getModuleId(), change.getFinding(), change.getChangedAt());
+    }
+  }
+
+  public synchronized void append(FindingChange.Kind kind, String moduleId, Finding finding, long retiredAt) {
+    // Keep the time column sorted even if the wall clock steps back
+    lastRetiredAt = Math.max(lastRetiredAt, retiredAt);
+
+    Chunk[] current = chunks;
+    Chunk chunk = current.length == 0 ? null : current[current.length - 1];
+    if (chunk == null || chunk.size == CHUNK_ROWS) {
+      chunk = new Chunk(nextId);
+      Chunk[] grown;
+      if (current.length >= maxChunks) {
+        grown = Arrays.copyOfRange(current, 1, current.length + 1);
+      } else {
+        grown = Arrays.copyOf(current, current.length + 1);
+      }
+      grown[grown.length - 1] = chunk;
+      chunks = grown;
+    }
+
+    int row = chunk.size;
+    chunk.retiredAt[row] = lastRetiredAt;
+    chunk.createdAt[row] = finding.getTimestampMillis();
+    chunk.module[row] = symbols.code(moduleId);
+    chunk.type[row] = symbols.code(finding.getType());
+    chunk.priority[row] = symbols.code(finding.getPriority());
+    chunk.kind[row] = (byte) kind.ordinal();
+    chunk.details[row] = chunk.detailCode(finding.getDetails());
+    chunk.modules.set(chunk.module[row]);
+    chunk.types.set(chunk.type[row]);
+    chunk.priorities.set(chunk.priority[row]);
+    nextId++;
+    // publishes the row to readers
+    chunk.size = row + 1;
+    if (chunk.size == CHUNK_ROWS) {
+      chunk.seal();
+    }
+  }
+
+  /**
+   * Streams matching entries newest first to the sink.
+   *
+   * @param from   earliest retirement time (epoch millis), or null
+   * @param to     latest retirement time (epoch millis), or null
+   * @param cursor only entries with a smaller id are returned
+   * @return cursor for the next page, or -1 if there are no more entries
+   */
+  public long query(Long from, Long to, String moduleId, String type, String priority, long cursor, int limit,
+      Consumer<FindingHistoryEntry> sink) {
+    int moduleCode = moduleId == null ? -1 : symbols.find(moduleId);
+    int typeCode = type == null ? -1 : symbols.find(type);
+    int priorityCode = priority == null ? -1 : symbols.find(priority);
+    if ((moduleId != null && moduleCode < 0) || (type != null && typeCode < 0)
+        || (priority != null && priorityCode < 0)) {
+      return -1;
+    }
+    int remaining = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+    Chunk[] snapshot = chunks;
+    for (int c = snapshot.length - 1; c >= 0; c--) {
+      Chunk chunk = snapshot[c];
+      int size = chunk.size;
+      if (size == 0 || chunk.firstId >= cursor) {
+        continue;
+      }
+      if (from != null && chunk.retiredAt[size - 1] < from) {
+        // every older chunk ends even earlier
+        return -1;
+      }
+      if ((to != null && chunk.retiredAt[0] > to)
+          || (moduleCode >= 0 && !chunk.modules.get(moduleCode))
+          || (typeCode >= 0 && !chunk.types.get(typeCode))
+          || (priorityCode >= 0 && !chunk.priorities.get(priorityCode))) {
+        continue;
+      }
+
+      int end = (int) Math.min(size, cursor - chunk.firstId);
+      if (to != null) {
+        end = Math.min(end, upperBound(chunk.retiredAt, end, to));
+      }
+      for (int row = end - 1; row >= 0; row--) {
+        if (from != null && chunk.retiredAt[row] < from) {
+          return -1;
+        }
+        if ((moduleCode >= 0 && chunk.module[row] != moduleCode)
+            || (typeCode >= 0 && chunk.type[row] != typeCode)
+            || (priorityCode >= 0 && chunk.priority[row] != priorityCode)) {
+          continue;
+        }
+        long id = chunk.firstId + row;
+        sink.accept(entry(chunk, row, id));
+        if (--remaining == 0) {
+          return id;
+        }
+      }
+    }
+    return -1;
+  }
+
+  public Map<String, Object> snapshotStats() {
+    Chunk[] snapshot = chunks;
+    long rows = 0;
+    long details = 0;
+    for (Chunk chunk : snapshot) {
+      rows += chunk.size;
+      details += chunk.detailCount;
+    }
+    Map<String, Object> stats = new LinkedHashMap<>();
+    stats.put("rows", rows);
+    stats.put("distinctDetails", details);
+    stats.put("chunks", snapshot.length);
+    stats.put("maxChunks", maxChunks);
+    stats.put("symbols", symbols.size());
+    return stats;
+  }
+
+  private FindingHistoryEntry entry(Chunk chunk, int row, long id) {
+    long created = chunk.createdAt[row];
+    LocalDateTime timestamp = created == Finding.NO_TIME ? null
+        : LocalDateTime.ofInstant(Instant.ofEpochMilli(created), ZoneId.systemDefault());
+    return new FindingHistoryEntry(id, symbols.name(chunk.type[row]), symbols.name(chunk.module[row]),
+        chunk.detailNames[chunk.details[row]], symbols.name(chunk.priority[row]), timestamp, chunk.retiredAt[row],
+        FindingChange.Kind.values()[chunk.kind[row]].name());
+  }
+
+  // First index in [0, end) whose value is greater than the key
+  private static int upperBound(long[] values, int end, long key) {
+    int low = 0;
+    int high = end;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (values[mid] <= key) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  private static final class Chunk {
+    private final long firstId;
+    private final long[] retiredAt = new long[CHUNK_ROWS];
+    private final long[] createdAt = new long[CHUNK_ROWS];
+    private final int[] module = new int[CHUNK_ROWS];
+    private final int[] type = new int[CHUNK_ROWS];
+    private final int[] priority = new int[CHUNK_ROWS];
+    private final byte[] kind = new byte[CHUNK_ROWS];
+    private final int[] details = new int[CHUNK_ROWS];
+    // Grown and trimmed by copying, so whichever array a reader gets holds
+    // every code of the rows it can see; volatile publishes the copies
+    private volatile String[] detailNames = new String[64];
+    // Writer only; released once the chunk is full
+    private Map<String, Integer> detailCodes = new HashMap<>();
+    private int detailCount;
+    // Presized so bits for the first symbols never reallocate under readers
+    private final BitSet modules = new BitSet(1024);
+    private final BitSet types = new BitSet(1024);
+    private final BitSet priorities = new BitSet(1024);
+    private volatile int size;
+
+    private Chunk(long firstId) {
+      this.firstId = firstId;
+    }
+
+    private int detailCode(String detail) {
+      Integer code = detailCodes.get(detail);
+      if (code != null) {
+        return code;
+      }
+      String[] names = detailNames;
+      if (detailCount == names.length) {
+        names = Arrays.copyOf(names, detailCount * 2);
+      }
+      names[detailCount] = detail;
+      detailNames = names;
+      detailCodes.put(detail, detailCount);
+      return detailCount++;
+    }
+
+    private void seal() {
+      detailCodes = null;
+      detailNames = Arrays.copyOf(detailNames, detailCount);
+    }
+  }
+
+  /**
+   * Dictionary of module ids, types and priorities. Code 0 stands for null.
+   */
+  private static final class SymbolTable {
+    private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+    private volatile String[] names = new String[] { null };
+
+    private int find(String name) {
+      return codes.getOrDefault(name, -1);
+    }
+
+    // Called by the single writer only
+    private int code(String name) {
+      if (name == null) {
+        return 0;
+      }
+      Integer code = codes.get(name);
+      if (code != null) {
+        return code;
+      }
+      String[] grown = Arrays.copyOf(names, names.length + 1);
+      grown[names.length] = name;
+      names = grown;
+      codes.put(name, names.length - 1);
+      return names.length - 1;
+    }
+
+    private String name(int code) {
+      return names[code];
+    }
+
+    private int size() {
+      return names.length - 1;
+    }
+  }
+}
@@ -0,0 +1,80 @@
+package com.ftn.sbnz.service.findings;
+
+import com.ftn.sbnz.model.dto.FindingChange;
+import com.ftn.sbnz.model.dto.ModuleFindingsSummary;
+import com.ftn.sbnz.model.models.FindingType;
+import com.ftn.sbnz.service.services.FindingsService;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Findings metrics fed by the change stream:
+ *
+ * - astrovital.findings.changes{module, type, change}: findings added,
+ * updated, expired and deleted. Types outside the FindingType catalog (e.g.
+ * client template alarm types) are tagged "custom", so callers cannot grow
+ * the number of series
+ * - astrovital.findings.active{module}: active findings, read from the
+ * precomputed summary
+ */
+@Service
+public class FindingMetrics implements FindingChangeListener {
+
+  private final FindingsService findingsService;
+  private final MeterRegistry registry;
+  private final Map<String, Counter> changes = new ConcurrentHashMap<>();
+  private final Map<String, Boolean> modules = new ConcurrentHashMap<>();
+
+  @Autowired
+  public FindingMetrics(FindingsService findingsService, MeterRegistry registry) {
+    this.findingsService = findingsService;
+    this.registry = registry;
+    findingsService.getAllFindings().keySet().forEach(this::registerModule);
+    findingsService.addListener(this);
+  }
+
+  @PreDestroy
+  public void destroy() {
+    findingsService.removeListener(this);
+  }
+
+  @Override
+  public void onChange(FindingChange change) {
+    String moduleId = change.getModuleId() == null ? "unknown" : change.getModuleId();
+    FindingType findingType = change.getFinding() == null ? null : change.getFinding().getFindingType();
+    String type = findingType == null ? "unknown" : findingType.isCustom() ? "custom" : findingType.getName();
+    changes.computeIfAbsent(moduleId + '\u001f' + type + '\u001f' + change.getKind(), k -> Counter
+        .builder("astrovital.findings.changes")
+        .description("Changes to the active findings store")
+        .tag("module", moduleId)
+        .tag("type", type)
+        .tag("change", change.getKind().name())
+        .register(registry)).increment();
+    if (!modules.containsKey(moduleId)) {
+      registerModule(moduleId);
+    }
+  }
+
+  private void registerModule(String moduleId) {
+    if (modules.putIfAbsent(moduleId, Boolean.TRUE) != null) {
+      return;
+    }
+    Gauge.builder("astrovital.findings.active", findingsService, service -> activeFindings(service, moduleId))
+        .description("Active findings per module")
+        .tag("module", moduleId)
+        .register(registry);
+  }
+
+  private static double activeFindings(FindingsService service, String moduleId) {
+    ModuleFindingsSummary module = service.getSummary().getModules().get(moduleId);
+    return module == null ? 0 : module.getTotal();
+  }
+}
@@ -0,0 +1,530 @@
+package com.ftn.sbnz.service.findings;
+
+import com.ftn.sbnz.model.dto.FindingChange;
+import com.ftn.sbnz.model.enums.Priority;
+import com.ftn.sbnz.model.models.Finding;
+import com.ftn.sbnz.model.utils.EventLog;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Append-only journal of findings store changes, so active findings and their
+ * expiry survive a restart.
+ *
+ * Changes are appended to memory-mapped segment files (journal-N.log) as
+ * length + CRC32 + body records; a torn or corrupt record marks the end of a
+ * segment. Every snapshotEvery records a compacted snapshot of the active
+ * findings (snapshot-S.bin, S = last change sequence it covers) is written
+ * in the background and older segments are deleted.
+ *
+ * Taking a snapshot first rolls to a new segment and only then reads the
+ * sequence and the store, so every change after S is in a kept segment. The
+ * store may already contain some changes after S; replay is idempotent
+ * (adds are keyed, removals of absent findings are ignored), so applying
+ * them again is harmless.
+ *
+ * Records live in the OS page cache once written, so they survive a process
+ * crash; segments are forced to disk when rolled and on close.
+ */
+public class FindingsJournal implements FindingChangeListener, Closeable {
+
+  private static final String SEGMENT_PREFIX = "journal-";
+  private static final String SEGMENT_SUFFIX = ".log";
+  private static final String SNAPSHOT_PREFIX = "snapshot-";
+  private static final String SNAPSHOT_SUFFIX = ".bin";
+  private static final int SNAPSHOT_MAGIC = 0x46534e52;
+  private static final int RECORD_HEADER_BYTES = 8;
+  private static final FindingChange.Kind[] KINDS = FindingChange.Kind.values();
+
+  private final Path directory;
+  private final int segmentBytes;
+  private final long snapshotEvery;
+  private final ExecutorService snapshotter = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "findings-journal-snapshot");
+    thread.setDaemon(true);
+    return thread;
+  });
+  private final AtomicBoolean snapshotPending = new AtomicBoolean();
+  private final Object snapshotLock = new Object();
+
+  private FileChannel channel;
+  private MappedByteBuffer buffer;
+  private long segmentIndex;
+  private long appendsSinceSnapshot;
+  private long appended;
+  private long snapshots;
+  private long lastSnapshotSequence;
+
+  private LongSupplier sequenceSource;
+  private Supplier<Map<String, List<Finding>>> stateSource;
+
+  public FindingsJournal(Path directory, int segmentBytes, long snapshotEvery) {
+    this.directory = directory;
+    this.segmentBytes = Math.max(4096, segmentBytes);
+    this.snapshotEvery = Math.max(1, snapshotEvery);
+  }
+
+  /**
+   * Where snapshots read the current sequence and store contents from.
+   * Snapshots are only taken once this is set.
+   */
+  public void setSnapshotSource(LongSupplier sequenceSource, Supplier<Map<String, List<Finding>>> stateSource) {
+    this.sequenceSource = sequenceSource;
+    this.stateSource = stateSource;
+  }
+
+  /**
+   * Loads the latest readable snapshot, replays the segments after it and
+   * opens a fresh segment for appends.
+   */
+  public synchronized Recovery recover() throws IOException {
+    Files.createDirectories(directory);
+    long start = System.nanoTime();
+
+    Map<String, Map<String, Finding>> state = new LinkedHashMap<>();
+    long snapshotSequence = 0;
+    for (Path snapshot : listFiles(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX, true)) {
+      try {
+        state.clear();
+        snapshotSequence = readSnapshot(snapshot, state);
+        break;
+      } catch (IOException | RuntimeException e) {
+        EventLog.warn("FindingsJournal", "Skipping unreadable snapshot {}: {}", snapshot.getFileName(), e);
+        state.clear();
+        snapshotSequence = 0;
+      }
+    }
+
+    long[] lastSequence = { snapshotSequence };
+    long replayed = 0;
+    List<Path> segments = listFiles(SEGMENT_PREFIX, SEGMENT_SUFFIX, false);
+    for (Path segment : segments) {
+      replayed += replaySegment(segment, snapshotSequence, state, lastSequence);
+    }
+
+    segmentIndex = segments.isEmpty() ? 0 : indexOf(segments.get(segments.size() - 1), SEGMENT_PREFIX,
+        SEGMENT_SUFFIX);
+    openSegment(segmentIndex + 1, segmentBytes);
+    lastSnapshotSequence = snapshotSequence;
+
+    Map<String, List<Finding>> findings = new LinkedHashMap<>();
+    state.forEach((moduleId, byKey) -> findings.put(moduleId, new ArrayList<>(byKey.values())));
+    long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    return new Recovery(findings, snapshotSequence, lastSequence[0], replayed, millis);
+  }
+
+  @Override
+  public void onChange(FindingChange change) {
+    byte[] body;
+    try {
+      body = encode(change);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    boolean snapshotDue;
+    synchronized (this) {
+      if (buffer == null) {
+        return;
+      }
+      try {
+        if (buffer.remaining() < body.length + RECORD_HEADER_BYTES) {
+          roll(body.length + RECORD_HEADER_BYTES);
+        }
+      } catch (IOException e) {
+        EventLog.error("FindingsJournal", "Unable to roll segment, journal disabled: {}", e);
+        buffer = null;
+        return;
+      }
+      buffer.putInt(body.length);
+      buffer.putInt(crc(body));
+      buffer.put(body);
+      appended++;
+      snapshotDue = ++appendsSinceSnapshot >= snapshotEvery;
+    }
+    if (snapshotDue && stateSource != null && snapshotPending.compareAndSet(false, true)) {
+      snapshotter.execute(() -> {
+        try {
+          snapshot();
+        } catch (IOException | RuntimeException e) {
+          EventLog.error("FindingsJournal", "Snapshot failed: {}", e);
+        } finally {
+          snapshotPending.set(false);
+        }
+      });
+    }
+  }
+
+  /**
+   * Writes a snapshot of the current store and deletes the segments and
+   * snapshots it supersedes.
+   */
+  public void snapshot() throws IOException {
+    if (stateSource == null) {
+      return;
+    }
+    synchronized (snapshotLock) {
+      long keepFrom;
+      synchronized (this) {
+        if (buffer == null) {
+          return;
+        }
+        roll(0);
+        keepFrom = segmentIndex;
+        appendsSinceSnapshot = 0;
+      }
+      long sequence = sequenceSource.getAsLong();
+      Map<String, List<Finding>> state = stateSource.get();
+
+      Path target = directory.resolve(String.format("%s%020d%s", SNAPSHOT_PREFIX, sequence, SNAPSHOT_SUFFIX));
+      Path temp = directory.resolve(target.getFileName() + ".tmp");
+      writeSnapshot(temp, sequence, state);
+      try {
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+      }
+
+      for (Path segment : listFiles(SEGMENT_PREFIX, SEGMENT_SUFFIX, false)) {
+        if (indexOf(segment, SEGMENT_PREFIX, SEGMENT_SUFFIX) < keepFrom) {
+          Files.deleteIfExists(segment);
+        }
+      }
+      for (Path snapshot : listFiles(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX, false)) {
+        if (!snapshot.equals(target)) {
+          Files.deleteIfExists(snapshot);
+        }
+      }
+      synchronized (this) {
+        snapshots++;
+        lastSnapshotSequence = sequence;
+      }
+    }
+  }
+
+  /**
+   * Takes a final snapshot, so the next start has no tail to replay, and
+   * closes the current segment.
+   */
+  @Override
+  public void close() throws IOException {
+    snapshotter.shutdown();
+    try {
+      snapshotter.awaitTermination(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    try {
+      snapshot();
+    } finally {
+      synchronized (this) {
+        closeSegment();
+        buffer = null;
+      }
+    }
+  }
+
+  public synchronized Map<String, Object> snapshotStats() {
+    Map<String, Object> stats = new LinkedHashMap<>();
+    stats.put("directory", directory.toString());
+    stats.put("segment", segmentIndex);
+    stats.put("appended", appended);
+    stats.put("appendsSinceSnapshot", appendsSinceSnapshot);
+    stats.put("snapshots", snapshots);
+    stats.put("lastSnapshotSequence", lastSnapshotSequence);
+    return stats;
+  }
+
+  // Called with the instance lock held
+  private void roll(int minBytes) throws IOException {
+    closeSegment();
+    openSegment(segmentIndex + 1, Math.max(segmentBytes, minBytes));
+  }
+
+  private void openSegment(long index, int size) throws IOException {
+    Path path = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+    channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+    buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    segmentIndex = index;
+  }
+
+  private void closeSegment() throws IOException {
+    if (buffer != null) {
+      buffer.force();
+    }
+    if (channel != null) {
+      channel.close();
+      channel = null;
+    }
+  }
+
+  private long replaySegment(Path segment, long afterSequence, Map<String, Map<String, Finding>> state,
+      long[] lastSequence) throws IOException {
+    long replayed = 0;
+    try (FileChannel in = FileChannel.open(segment, StandardOpenOption.READ)) {
+      MappedByteBuffer data = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+      while (data.remaining() >= RECORD_HEADER_BYTES) {
+        int length = data.getInt();
+        int crc = data.getInt();
+        if (length <= 0 || length > data.remaining()) {
+          break;
+        }
+        byte[] body = new byte[length];
+        data.get(body);
+        if (crc(body) != crc) {
+          EventLog.warn("FindingsJournal", "Corrupt record in {}, ignoring the rest", segment.getFileName());
+          break;
+        }
+        DataInputStream record = new DataInputStream(new ByteArrayInputStream(body));
+        int kind = record.readByte();
+        if (kind < 0 || kind >= KINDS.length) {
+          EventLog.warn("FindingsJournal", "Unknown record in {}, ignoring the rest", segment.getFileName());
+          break;
+        }
+        long sequence = record.readLong();
+        String moduleId = readString(record);
+        Finding finding = readFinding(record);
+        lastSequence[0] = Math.max(lastSequence[0], sequence);
+        if (sequence > afterSequence) {
+          apply(state, KINDS[kind], moduleId, finding);
+          replayed++;
+        }
+      }
+    }
+    return replayed;
+  }
+
+  private static void apply(Map<String, Map<String, Finding>> state, FindingChange.Kind kind, String moduleId,
+      Finding finding) {
+    String key = identity(finding);
+    if (kind == FindingChange.Kind.ADDED) {
+      state.computeIfAbsent(moduleId, k -> new LinkedHashMap<>()).putIfAbsent(key, finding);
+      return;
+    }
+    if (kind == FindingChange.Kind.UPDATED) {
+      state.computeIfAbsent(moduleId, k -> new LinkedHashMap<>()).put(key, finding);
+      return;
+    }
+    Map<String, Finding> module = state.get(moduleId);
+    if (module != null) {
+      module.remove(key);
+      if (module.isEmpty()) {
+        state.remove(moduleId);
+      }
+    }
+  }
+
+  // Findings have no id; type, details and creation time tell them apart
+  private static String identity(Finding finding) {
+    return finding.getType() + '\u001f' + finding.getDetails() + '\u001f' + finding.getTimestampMillis();
+  }
+
+  private static void writeSnapshot(Path path, long sequence, Map<String, List<Finding>> state)
+      throws IOException {
+    CRC32 crc = new CRC32();
+    try (DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+        new BufferedOutputStream(Files.newOutputStream(path)), crc))) {
+      out.writeInt(SNAPSHOT_MAGIC);
+      out.writeLong(sequence);
+      int count = 0;
+      for (List<Finding> findings : state.values()) {
+        count += findings.size();
+      }
+      out.writeInt(count);
+      for (Map.Entry<String, List<Finding>> entry : state.entrySet()) {
+        for (Finding finding : entry.getValue()) {
+          writeString(out, entry.getKey());
+          writeFinding(out, finding);
+        }
+      }
+      out.flush();
+      // the checksum covers everything written before it
+      long checksum = crc.getValue();
+      out.writeLong(checksum);
+    }
+  }
+
+  private static long readSnapshot(Path path, Map<String, Map<String, Finding>> state) throws IOException {
+    CRC32 crc = new CRC32();
+    try (DataInputStream in = new DataInputStream(new CheckedInputStream(
+        new BufferedInputStream(Files.newInputStream(path)), crc))) {
+      if (in.readInt() != SNAPSHOT_MAGIC) {
+        throw new IOException("not a findings snapshot");
+      }
+      long sequence = in.readLong();
+      int count = in.readInt();
+      for (int i = 0; i < count; i++) {
+        String moduleId = readString(in);
+        Finding finding = readFinding(in);
+        state.computeIfAbsent(moduleId, k -> new LinkedHashMap<>()).putIfAbsent(identity(finding), finding);
+      }
+      long expected = crc.getValue();
+      if (in.readLong() != expected) {
+        throw new IOException("checksum mismatch");
+      }
+      return sequence;
+    }
+  }
+
+  private static byte[] encode(FindingChange change) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeByte(change.getKind().ordinal());
+    out.writeLong(change.getSequence());
+    writeString(out, change.getModuleId());
+    writeFinding(out, change.getFinding());
+    out.flush();
+    return bytes.toByteArray();
+  }
+
+  // Names as strings (catalog ids are not stable across restarts), priority
+  // as its ordinal, times as epoch millis
+  private static void writeFinding(DataOutput out, Finding finding) throws IOException {
+    writeString(out, finding.getType());
+    writeString(out, finding.getModuleId());
+    writeString(out, finding.getDetails());
+    Priority priority = finding.getPriorityLevel();
+    out.writeByte(priority == null ? -1 : priority.ordinal());
+    out.writeLong(finding.getTimestampMillis());
+    out.writeLong(finding.getExpiresAtMillis());
+    out.writeLong(finding.getLastSeenAtMillis());
+    out.writeInt(finding.getOccurrences());
+    out.writeBoolean(finding.isNotified());
+  }
+
+  private static Finding readFinding(DataInput in) throws IOException {
+    Finding finding = new Finding();
+    finding.setType(readString(in));
+    finding.setModuleId(readString(in));
+    finding.setDetails(readString(in));
+    finding.setPriorityLevel(Priority.fromOrdinal(in.readByte()));
+    finding.setTimestampMillis(in.readLong());
+    finding.setExpiresAtMillis(in.readLong());
+    finding.setLastSeenAtMillis(in.readLong());
+    finding.setOccurrences(in.readInt());
+    finding.setNotified(in.readBoolean());
+    return finding;
+  }
+
+  private static void writeString(DataOutput out, String value) throws IOException {
+    out.writeBoolean(value != null);
+    if (value != null) {
+      out.writeUTF(value);
+    }
+  }
+
+  private static String readString(DataInput in) throws IOException {
+    return in.readBoolean() ? in.readUTF() : null;
+  }
+
+  private static int crc(byte[] body) {
+    CRC32 crc = new CRC32();
+    crc.update(body);
+    return (int) crc.getValue();
+  }
+
+  private List<Path> listFiles(String prefix, String suffix, boolean newestFirst) throws IOException {
+    if (!Files.isDirectory(directory)) {
+      return new ArrayList<>();
+    }
+    try (Stream<Path> files = Files.list(directory)) {
+      List<Path> matching = files
+          .filter(p -> {
+            String name = p.getFileName().toString();
+            return name.startsWith(prefix) && name.endsWith(suffix);
+          })
+          .sorted((a, b) -> Long.compare(indexOf(a, prefix, suffix), indexOf(b, prefix, suffix)))
+          .collect(Collectors.toList());
+      if (newestFirst) {
+        Collections.reverse(matching);
+      }
+      return matching;
+    }
+  }
+
+  private static long indexOf(Path path, String prefix, String suffix) {
+    String name = path.getFileName().toString();
+    return Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length()));
+  }
+
+  /**
+   * Store contents rebuilt by recover().
+   */
+  public static final class Recovery {
+    private final Map<String, List<Finding>> findings;
+    private final long snapshotSequence;
+    private final long lastSequence;
+    private final long replayedRecords;
+    private final long durationMillis;
+
+    private Recovery(Map<String, List<Finding>> findings, long snapshotSequence, long lastSequence,
+        long replayedRecords, long durationMillis) {
+      this.findings = findings;
+      this.snapshotSequence = snapshotSequence;
+      this.lastSequence = lastSequence;
+      this.replayedRecords = replayedRecords;
+      this.durationMillis = durationMillis;
+    }
+
+    public Map<String, List<Finding>> getFindings() {
+      return findings;
+    }
+
+    public long getSnapshotSequence() {
+      return snapshotSequence;
+    }
+
+    public long getLastSequence() {
+      return lastSequence;
+    }
+
+    public long getReplayedRecords() {
+      return replayedRecords;
+    }
+
+    public long getDurationMillis() {
+      return durationMillis;
+    }
+
+    public int getFindingCount() {
+      int count = 0;
+      for (List<Finding> list : findings.values()) {
+        count += list.size();
+      }
+      return count;
+    }
+  }
+}
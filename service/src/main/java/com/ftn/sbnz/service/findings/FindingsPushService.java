@@ -0,0 +1,155 @@
+package com.ftn.sbnz.service.findings;
+
+import com.ftn.sbnz.model.dto.FindingChange;
+import com.ftn.sbnz.model.models.Finding;
+import com.ftn.sbnz.service.services.FindingsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Pushes findings store changes to Server-Sent Events subscribers.
+ *
+ * Changes are handed to a single dispatcher thread, so the thread that
+ * changed the store never waits on a slow client, and every subscriber sees
+ * changes in sequence order. Subscribing (catch-up from the change log and
+ * registration) runs on the same thread; a subscriber skips changes at or
+ * below the last sequence it was sent, so a change is not delivered twice.
+ *
+ * Event ids are change sequence numbers. A reconnecting client passes the
+ * last one as Last-Event-ID and only receives what it missed, or a
+ * "snapshot" event with the current findings if the log no longer reaches
+ * back that far. The snapshot is read live, so changes following it may
+ * already be reflected in it.
+ */
+@Service
+public class FindingsPushService implements FindingChangeListener {
+
+  private final FindingsService findingsService;
+  private final long timeoutMillis;
+  private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+  private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "findings-push");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  @Autowired
+  public FindingsPushService(FindingsService findingsService,
+      @Value("${astrovital.findings.sse-timeout-ms:1800000}") long timeoutMillis) {
+    this.findingsService = findingsService;
+    this.timeoutMillis = timeoutMillis;
+    findingsService.addListener(this);
+  }
+
+  @PreDestroy
+  public void destroy() {
+    findingsService.removeListener(this);
+    dispatcher.shutdownNow();
+  }
+
+  @Override
+  public void onChange(FindingChange change) {
+    dispatcher.execute(() -> {
+      for (Subscriber subscriber : subscribers) {
+        subscriber.send(change);
+      }
+    });
+  }
+
+  /**
+   * Opens a stream of changes for one module, or all modules if moduleId is
+   * null, starting after the given sequence (null = live changes only).
+   */
+  public SseEmitter subscribe(String moduleId, Long lastSequence) {
+    SseEmitter emitter = new SseEmitter(timeoutMillis);
+    Subscriber subscriber = new Subscriber(emitter, moduleId);
+    emitter.onCompletion(() -> dispatcher.execute(() -> subscribers.remove(subscriber)));
+    emitter.onTimeout(emitter::complete);
+    emitter.onError(e -> emitter.complete());
+
+    dispatcher.execute(() -> {
+      FindingChangeLog log = findingsService.getChangeLog();
+      long cursor = log.getLastSequence();
+      if (lastSequence != null) {
+        List<FindingChange> missed = log.since(lastSequence);
+        if (missed == null) {
+          subscriber.sendSnapshot(cursor);
+        } else {
+          subscriber.lastSent = lastSequence;
+          missed.forEach(subscriber::send);
+        }
+      }
+      subscriber.lastSent = Math.max(subscriber.lastSent, cursor);
+      if (!subscriber.closed) {
+        subscribers.add(subscriber);
+      }
+    });
+    return emitter;
+  }
+
+  public int getSubscriberCount() {
+    return subscribers.size();
+  }
+
+  private final class Subscriber {
+    private final SseEmitter emitter;
+    private final String moduleId;
+    private long lastSent;
+    private boolean closed;
+
+    private Subscriber(SseEmitter emitter, String moduleId) {
+      this.emitter = emitter;
+      this.moduleId = moduleId;
+    }
+
+    private void send(FindingChange change) {
+      if (closed || change.getSequence() <= lastSent) {
+        return;
+      }
+      lastSent = change.getSequence();
+      if (moduleId != null && !moduleId.equals(change.getModuleId())) {
+        return;
+      }
+      emit(SseEmitter.event()
+          .id(Long.toString(change.getSequence()))
+          .name(change.getKind().name().toLowerCase())
+          .data(change));
+    }
+
+    private void sendSnapshot(long sequence) {
+      Map<String, List<Finding>> snapshot = new LinkedHashMap<>();
+      if (moduleId == null) {
+        snapshot.putAll(findingsService.getAllFindings());
+      } else {
+        snapshot.put(moduleId, findingsService.getFindings(moduleId));
+      }
+      lastSent = sequence;
+      emit(SseEmitter.event()
+          .id(Long.toString(sequence))
+          .name("snapshot")
+          .data(snapshot));
+    }
+
+    private void emit(SseEmitter.SseEventBuilder event) {
+      try {
+        emitter.send(event);
+      } catch (IOException | IllegalStateException e) {
+        // Client went away; drop it
+        closed = true;
+        subscribers.remove(this);
+        emitter.completeWithError(e);
+      }
+    }
+  }
+}
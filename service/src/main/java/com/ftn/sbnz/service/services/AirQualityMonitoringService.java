@@ -2,157 +2,111 @@ package com.ftn.sbnz.service.services;
 
 import com.ftn.sbnz.model.models.Environment;
 import com.ftn.sbnz.model.models.Finding;
+import com.ftn.sbnz.model.models.FindingType;
 import com.ftn.sbnz.model.events.AirQualityEvent;
 import com.ftn.sbnz.model.dto.AirQualityAnalysisResult;
+import com.ftn.sbnz.model.utils.AirQualityStats;
+import com.ftn.sbnz.model.utils.EventLog;
+import com.ftn.sbnz.service.engine.CepSessionShards;
+import com.ftn.sbnz.service.engine.CepShard;
+import com.ftn.sbnz.service.engine.EngineEvents;
+import com.ftn.sbnz.service.engine.EngineMetrics;
+import com.ftn.sbnz.service.engine.FactIndex;
 
 import org.kie.api.runtime.KieContainer;
 import org.kie.api.runtime.KieSession;
-import org.kie.api.runtime.rule.FactHandle;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.PreDestroy;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 @Service
 public class AirQualityMonitoringService {
 
     private final KieContainer kieContainer;
     private final FindingsService findingsService;
-    private KieSession cepSession;
+    private final CepSessionShards shards;
 
     @Autowired
     public AirQualityMonitoringService(KieContainer kieContainer,
-            FindingsService findingsService) {
+            FindingsService findingsService,
+            @Qualifier("cepExecutor") ExecutorService cepExecutor,
+            @Value("${astrovital.cep.sharding:module}") String shardingMode,
+            @Value("${astrovital.cep.partitions:4}") int partitions) {
         this.kieContainer = kieContainer;
         this.findingsService = findingsService;
+        this.shards = new CepSessionShards("AirQualityMonitoringService", this::createSession,
+                CepSessionShards.Mode.fromString(shardingMode), partitions, cepExecutor);
     }
 
     @PreDestroy
     public void destroy() {
-        if (cepSession != null) {
-            cepSession.dispose();
-            System.out.println("AirQualityMonitoringService: CEP session disposed");
-        }
+        shards.disposeAll();
+        EventLog.info("AirQualityMonitoringService", "CEP sessions disposed");
     }
 
-    private synchronized boolean ensureSession() {
-        if (this.cepSession != null) {
-            return true;
-        }
-
+    private KieSession createSession() {
         if (kieContainer == null) {
-            return false;
+            return null;
         }
-
-        try {
-            this.cepSession = kieContainer.newKieSession();
-            if (this.cepSession != null) {
-                this.cepSession.setGlobal("findingsService", findingsService);
-                System.out.println("AirQualityMonitoringService: Created lazy default KieSession");
-                return true;
-            } else {
-                System.out.println("AirQualityMonitoringService: KieContainer.newKieSession() returned null");
-                return false;
-            }
-        } catch (Throwable t) {
-            // Catch Throwable to avoid NoClassDefFoundError / ClassNotFoundException
-            // from Drools/MVEL causing application startup to fail.
-            System.out
-                    .println(
-                            "AirQualityMonitoringService: Unable to create KieSession (Drools missing or incompatible): "
-                                    + t.toString());
-            this.cepSession = null;
-            return false;
+        KieSession session = kieContainer.newKieSession();
+        if (session != null) {
+            session.setGlobal("findingsService", findingsService);
         }
+        return session;
     }
 
-    public synchronized AirQualityAnalysisResult processAirQualityData(List<Environment> environments,
+    public AirQualityAnalysisResult processAirQualityData(List<Environment> environments,
             List<AirQualityEvent> airQualityEvents) {
-        List<Finding> allFindings = new ArrayList<>();
-
-        // Clean up expired findings for all modules before processing
-        findingsService.cleanupAllExpiredFindings();
-
-        // Try to ensure a CEP session is available. If not, skip CEP processing
-        // and return findings collected so far (the system can still function in
-        // environments without Drools available).
-        int rulesFired = 0;
-        if (ensureSession()) {
-            // Clean out previous input facts from the persistent CEP session so
-            // repeated API calls don't accumulate facts across runs. This removes
-            // Environment, AirQualityEvent and Finding facts.
-            try {
-                // Remove Findings
-                Collection<?> findingsToRemove = cepSession.getObjects(o -> o instanceof Finding);
-                for (Object f : findingsToRemove) {
-                    FactHandle fh = cepSession.getFactHandle(f);
-                    if (fh != null)
-                        cepSession.delete(fh);
-                }
+        return EngineMetrics.timeService("AirQualityMonitoringService", "processAirQualityData",
+                () -> analyze(environments, airQualityEvents));
+    }
 
-                // Remove Environment facts
-                Collection<?> envs = cepSession.getObjects(o -> o instanceof Environment);
-                for (Object e : envs) {
-                    FactHandle fh = cepSession.getFactHandle(e);
-                    if (fh != null)
-                        cepSession.delete(fh);
-                }
+    private AirQualityAnalysisResult analyze(List<Environment> environments,
+            List<AirQualityEvent> airQualityEvents) {
+        List<Finding> allFindings = new ArrayList<>();
 
-                // Remove AirQualityEvent facts
-                Collection<?> airEvents = cepSession.getObjects(o -> o instanceof AirQualityEvent);
-                for (Object ae : airEvents) {
-                    FactHandle fh = cepSession.getFactHandle(ae);
-                    if (fh != null)
-                        cepSession.delete(fh);
-                }
-            } catch (Exception e) {
-                System.out.println("Warning: failed to fully clear previous CEP facts: " + e.getMessage());
+        // Split the request by module; each module is processed on its own shard
+        Map<String, ModuleInput> inputs = new LinkedHashMap<>();
+        if (environments != null) {
+            for (Environment env : environments) {
+                inputs.computeIfAbsent(env.getModuleID(), k -> new ModuleInput()).environments.add(env);
             }
+        }
+        if (airQualityEvents != null) {
+            for (AirQualityEvent event : airQualityEvents) {
+                inputs.computeIfAbsent(event.getModuleId(), k -> new ModuleInput()).events.add(event);
+            }
+        }
 
-            // Insert all facts for this run into the single CEP session
-            environments.forEach(cepSession::insert);
-            airQualityEvents.forEach(cepSession::insert);
-
-            // Run CEP agenda group
-            cepSession.getAgenda().getAgendaGroup("cep.air-quality").setFocus();
-            rulesFired = cepSession.fireAllRules();
-            System.out.println("Air Quality CEP: Fired " + rulesFired + " rules across all modules");
-        } else {
-            System.out.println("AirQualityMonitoringService: No CEP session available; skipping CEP processing");
+        // Shards whose session cannot be created are skipped, so the system can
+        // still function in environments without Drools available.
+        List<ShardOutcome> outcomes = shards.process(inputs, this::processShard);
+        if (outcomes.isEmpty() && !inputs.isEmpty()) {
+            EventLog.warn("AirQualityMonitoringService", "No CEP session available; skipping CEP processing");
         }
 
-        // AFTER rules fired, collect all findings
-        Collection<?> findingObjects = ensureSession() ? cepSession.getObjects(o -> o instanceof Finding) : List.of();
-        for (Object obj : findingObjects) {
-            Finding finding = (Finding) obj;
-            if (!finding.isExpired()) {
-                allFindings.add(finding);
-            }
+        int rulesFired = 0;
+        for (ShardOutcome outcome : outcomes) {
+            rulesFired += outcome.rulesFired;
+            allFindings.addAll(outcome.findings);
         }
+        EventLog.debug("AirQualityMonitoringService", "Fired {} rules across {} shard(s)", rulesFired, outcomes.size());
 
         // Persist findings into FindingsService if not already present
         for (Finding f : allFindings) {
             try {
-                if (!findingsService.hasActiveFinding(f.getModuleId(), f.getType())) {
-                    findingsService.addFindings(f.getModuleId(), Collections.singletonList(f));
-                }
+                findingsService.addFindingIfAbsent(f.getModuleId(), f);
             } catch (Exception ex) {
-                System.out.println("AirQualityMonitoringService: Failed to persist finding: " + ex.getMessage());
-            }
-        }
-
-        if (ensureSession()) {
-            // Remove all Finding facts currently in working memory
-            Collection<?> findingsInSession = cepSession.getObjects(o -> o instanceof Finding);
-            for (Object fObj : findingsInSession) {
-                FactHandle fh = cepSession.getFactHandle(fObj);
-                if (fh != null) {
-                    cepSession.delete(fh);
-                }
+                EventLog.warn("AirQualityMonitoringService", "Failed to persist finding: {}", ex.getMessage());
             }
         }
 
@@ -163,13 +117,60 @@ public class AirQualityMonitoringService {
         return new AirQualityAnalysisResult(allFindings, totalEpisodes, rulesFired, status);
     }
 
+    /**
+     * Runs the CEP agenda for the given modules on one shard session. Called with
+     * the shard lock held.
+     *
+     * The session is long-lived: Environment facts are upserted through the
+     * shard's FactHandle index, events are inserted once (redeliveries are
+     * dropped) and expire through their own @Expires policy, and findings
+     * stay in working memory while they are active so the rules do not have
+     * to re-derive them on every call.
+     */
+    private ShardOutcome processShard(CepShard shard, Map<String, ModuleInput> inputs) {
+        ShardOutcome outcome = new ShardOutcome();
+        KieSession cepSession = shard.getSession();
+        FactIndex facts = shard.getFacts();
+
+        EngineEvents.FactRefresh refresh = new EngineEvents.FactRefresh();
+        refresh.begin();
+
+        // Drop findings that expired or were resolved in the global store, so the
+        // rules can raise them again
+        int retracted = facts.retractFindings(f -> inputs.containsKey(f.getModuleId())
+                && (f.isExpired() || !findingsService.hasActiveFinding(f.getModuleId(), f.getType())));
+
+        for (Map.Entry<String, ModuleInput> entry : inputs.entrySet()) {
+            String moduleId = entry.getKey();
+            ModuleInput input = entry.getValue();
+            input.environments.forEach(env -> facts.upsert(moduleId, env));
+            input.events.sort(Comparator.comparingLong(AirQualityEvent::getTimestamp));
+            input.events.forEach(event -> facts.insertEvent(moduleId, event.getTimestamp(),
+                    List.of(event.getVocLevel(), event.getPmLevel()), event));
+        }
+        int dropped = facts.takeDroppedEvents();
+        refresh.complete("AirQualityMonitoringService", shard, inputs.size(), retracted, dropped);
+        EngineMetrics.eventsDropped("AirQualityMonitoringService", dropped);
+
+        // Run CEP agenda group
+        outcome.rulesFired = EngineMetrics.fire(cepSession, "AirQualityMonitoringService", "cep.air-quality");
+
+        // AFTER rules fired, collect the active findings of these modules
+        for (Finding finding : facts.findings()) {
+            if (inputs.containsKey(finding.getModuleId()) && !finding.isExpired()) {
+                outcome.findings.add(finding);
+            }
+        }
+        return outcome;
+    }
+
     private int countTotalEpisodes(List<AirQualityEvent> events) {
         if (events == null || events.isEmpty())
             return 0;
 
         int count = 0;
         for (AirQualityEvent event : events) {
-            if (event.getVocLevel() >= 50.0 || event.getPmLevel() >= 35.0) {
+            if (AirQualityStats.isEpisode(event)) {
                 count++;
             }
         }
@@ -177,46 +178,37 @@ public class AirQualityMonitoringService {
     }
 
     public List<Finding> getEpisodicContaminationFindings(String moduleId) {
-        if (cepSession == null) {
+        CepShard shard = shards.existingShard(moduleId);
+        if (shard == null) {
             return new ArrayList<>();
         }
 
+        // A shard disposed by a concurrent reset holds no findings any more
         List<Finding> contaminations = new ArrayList<>();
-        Collection<?> objects = cepSession.getObjects(o -> o instanceof Finding &&
-                "Episodic Air Contamination".equals(((Finding) o).getType()) &&
-                ((Finding) o).getModuleId().equals(moduleId));
-
-        for (Object obj : objects) {
-            Finding finding = (Finding) obj;
-            if (!finding.isExpired()) {
-                contaminations.add(finding);
+        shard.withLiveLock(locked -> {
+            for (Finding finding : locked.getFacts().findings()) {
+                if (finding.getFindingType() == FindingType.EPISODIC_AIR_CONTAMINATION &&
+                        moduleId.equals(finding.getModuleId()) && !finding.isExpired()) {
+                    contaminations.add(finding);
+                }
             }
-        }
-
+        });
         return contaminations;
     }
 
     public void resetSession() {
-        try {
-            if (cepSession != null) {
-                cepSession.dispose();
-            }
-            if (kieContainer != null) {
-                cepSession = kieContainer.newKieSession();
-                if (cepSession != null) {
-                    cepSession.setGlobal("findingsService", findingsService);
-                    System.out.println("AirQualityMonitoringService: CEP session reset (default session)");
-                } else {
-                    System.out
-                            .println(
-                                    "AirQualityMonitoringService: Default KieSession creation returned null during reset");
-                }
-            } else {
-                System.out.println("AirQualityMonitoringService: KieContainer is null; cannot reset CEP session");
-            }
-        } catch (Exception e) {
-            System.out.println("AirQualityMonitoringService: Failed to reset CEP session: " + e.getMessage());
-            cepSession = null;
-        }
+        // Sessions are recreated lazily per shard on the next request
+        shards.disposeAll();
+        EventLog.info("AirQualityMonitoringService", "CEP sessions reset");
+    }
+
+    private static class ModuleInput {
+        private final List<Environment> environments = new ArrayList<>();
+        private final List<AirQualityEvent> events = new ArrayList<>();
+    }
+
+    private static class ShardOutcome {
+        private final List<Finding> findings = new ArrayList<>();
+        private int rulesFired;
     }
-}
\ No newline at end of file
+}
@@ -9,329 +9,408 @@ import org.kie.api.runtime.rule.QueryResultsRow;
 import com.ftn.sbnz.model.models.WaterRecycling;
 import com.ftn.sbnz.model.models.VentilationStatus;
 import com.ftn.sbnz.model.models.Finding;
+import com.ftn.sbnz.model.models.FindingType;
+import com.ftn.sbnz.model.models.HumidityTrend;
 import com.ftn.sbnz.model.events.HumidityEvent;
+import com.ftn.sbnz.model.enums.CondensationLocation;
 import com.ftn.sbnz.model.dto.EnvironmentalAnalysisResult;
-
+import com.ftn.sbnz.model.utils.EventLog;
+import com.ftn.sbnz.model.utils.HumidityTrendWindow;
+import com.ftn.sbnz.service.engine.CepSessionShards;
+import com.ftn.sbnz.service.engine.CepShard;
+import com.ftn.sbnz.service.engine.EngineEvents;
+import com.ftn.sbnz.service.engine.EngineMetrics;
+import com.ftn.sbnz.service.engine.FactIndex;
+import com.ftn.sbnz.service.engine.RuleProfiler;
+
+import org.kie.api.runtime.ClassObjectFilter;
 import org.kie.api.runtime.KieContainer;
 import org.kie.api.runtime.KieSession;
 import org.kie.api.runtime.rule.FactHandle;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.PreDestroy;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 
 @Service
 public class EnvironmentalMonitoringService {
 
   private final KieContainer kieContainer;
   private final FindingsService findingsService;
-  private KieSession cepSession;
+  private final CepSessionShards shards;
+
+  // Humidity readings of the 6-hour condensation window per module. A module
+  // always maps to the same shard, so its window is only touched under that
+  // shard's lock.
+  private final Map<String, HumidityTrendWindow> humidityWindows = new ConcurrentHashMap<>();
+
+  // The moisture-source query walks ModuleLink facts across modules, so it
+  // cannot run on a per-module shard. It runs on a shared topology session that
+  // mirrors the latest state facts and findings of every module.
+  private CepShard topology;
 
   @Autowired
   public EnvironmentalMonitoringService(KieContainer kieContainer,
-      FindingsService findingsService) {
+      FindingsService findingsService,
+      @Qualifier("cepExecutor") ExecutorService cepExecutor,
+      @Value("${astrovital.cep.sharding:module}") String shardingMode,
+      @Value("${astrovital.cep.partitions:4}") int partitions) {
     this.kieContainer = kieContainer;
     this.findingsService = findingsService;
+    this.shards = new CepSessionShards("EnvironmentalMonitoringService", this::createSession,
+        CepSessionShards.Mode.fromString(shardingMode), partitions, cepExecutor);
   }
 
   @PreDestroy
   public void destroy() {
-    if (cepSession != null) {
-      cepSession.dispose();
-      System.out.println("EnvironmentalMonitoringService: CEP session disposed");
-    }
+    shards.disposeAll();
+    disposeTopology();
+    EventLog.info("EnvironmentalMonitoringService", "CEP sessions disposed");
   }
 
-  private synchronized boolean ensureSession() {
-    if (this.cepSession != null) {
-      return true;
+  private KieSession createSession() {
+    if (kieContainer == null) {
+      return null;
     }
+    KieSession session = kieContainer.newKieSession();
+    if (session != null) {
+      session.setGlobal("findingsService", findingsService);
+    }
+    return session;
+  }
 
-    if (kieContainer == null) {
-      return false;
+  private synchronized CepShard ensureTopology() {
+    if (this.topology != null) {
+      return topology;
     }
 
     try {
-      this.cepSession = kieContainer.newKieSession();
-      if (this.cepSession != null) {
-        this.cepSession.setGlobal("findingsService", findingsService);
-        // Seed module connectivity graph for recursive query (acyclic upstream chain
-        // COMM -> LAB -> CMD)
-        // Direction: ModuleLink(prev, next). Query walks upstream via ModuleLink($prev,
-        // mod;)
-        this.cepSession.insert(new ModuleLink("COMM", "LAB"));
-        this.cepSession.insert(new ModuleLink("LAB", "CMD"));
-        System.out.println("EnvironmentalMonitoringService: Created lazy default KieSession");
-        return true;
-      } else {
-        System.out.println("EnvironmentalMonitoringService: KieContainer.newKieSession() returned null");
-        return false;
+      KieSession session = createSession();
+      if (session == null) {
+        EventLog.warn("EnvironmentalMonitoringService", "KieContainer.newKieSession() returned null");
+        return null;
       }
+      // Seed module connectivity graph for recursive query (acyclic upstream chain
+      // COMM -> LAB -> CMD)
+      // Direction: ModuleLink(prev, next). Query walks upstream via ModuleLink($prev,
+      // mod;)
+      session.insert(new ModuleLink("COMM", "LAB"));
+      session.insert(new ModuleLink("LAB", "CMD"));
+      this.topology = new CepShard("topology", session);
+      EngineMetrics.sessionCreated("EnvironmentalMonitoringService");
+      EngineMetrics.trackFacts("EnvironmentalMonitoringService", "topology", session);
+      EventLog.info("EnvironmentalMonitoringService", "Created topology KieSession");
+      return topology;
     } catch (Throwable t) {
       // Catch Throwable to avoid NoClassDefFoundError / ClassNotFoundException
       // from Drools/MVEL causing application startup to fail.
-      System.out
-          .println("EnvironmentalMonitoringService: Unable to create KieSession (Drools missing or incompatible): "
-              + t.toString());
-      this.cepSession = null;
-      return false;
+      EventLog.error("EnvironmentalMonitoringService", "Unable to create KieSession (Drools missing or incompatible): {}",
+          t.toString());
+      return null;
+    }
+  }
+
+  private synchronized void disposeTopology() {
+    if (topology != null) {
+      topology.dispose();
+      topology = null;
+      EngineMetrics.sessionDisposed("EnvironmentalMonitoringService");
     }
   }
 
-  public synchronized EnvironmentalAnalysisResult processEnvironmentalData(List<Environment> environments,
+  public EnvironmentalAnalysisResult processEnvironmentalData(List<Environment> environments,
+      List<CondensationData> condensationDataList, List<HumidityEvent> humidityEvents,
+      List<WaterRecycling> waterRecyclings, List<VentilationStatus> ventilationStatuses) {
+    return EngineMetrics.timeService("EnvironmentalMonitoringService", "processEnvironmentalData",
+        () -> analyze(environments, condensationDataList, humidityEvents, waterRecyclings, ventilationStatuses));
+  }
+
+  private EnvironmentalAnalysisResult analyze(List<Environment> environments,
       List<CondensationData> condensationDataList, List<HumidityEvent> humidityEvents,
       List<WaterRecycling> waterRecyclings, List<VentilationStatus> ventilationStatuses) {
     List<Finding> allFindings = new ArrayList<>();
     MoistureInvestigation investigation = null;
 
-    findingsService.cleanupAllExpiredFindings();
+    // Split the request by module; each module is processed on its own shard
+    Map<String, ModuleInput> inputs = new LinkedHashMap<>();
+    if (environments != null) {
+      environments.forEach(e -> inputs.computeIfAbsent(e.getModuleID(), k -> new ModuleInput()).environments.add(e));
+    }
+    if (condensationDataList != null) {
+      condensationDataList
+          .forEach(c -> inputs.computeIfAbsent(c.getModuleID(), k -> new ModuleInput()).condensations.add(c));
+    }
+    if (humidityEvents != null) {
+      humidityEvents.forEach(h -> inputs.computeIfAbsent(h.getModuleId(), k -> new ModuleInput()).humidity.add(h));
+    }
+    if (waterRecyclings != null) {
+      waterRecyclings
+          .forEach(w -> inputs.computeIfAbsent(w.getModuleID(), k -> new ModuleInput()).waterRecyclings.add(w));
+    }
+    if (ventilationStatuses != null) {
+      ventilationStatuses
+          .forEach(v -> inputs.computeIfAbsent(v.getModuleID(), k -> new ModuleInput()).ventilations.add(v));
+    }
 
-    int rulesFired = 0;
-    if (ensureSession()) {
-
-      try {
-        // Remove MoistureInvestigation if present
-        Collection<?> invs = cepSession.getObjects(o -> o instanceof MoistureInvestigation);
-        for (Object inv : invs) {
-          FactHandle fh = cepSession.getFactHandle(inv);
-          if (fh != null)
-            cepSession.delete(fh);
-        }
+    List<ShardOutcome> outcomes = shards.process(inputs, this::processShard);
+    if (outcomes.isEmpty() && !inputs.isEmpty()) {
+      EventLog.warn("EnvironmentalMonitoringService", "No CEP session available; skipping CEP processing");
+    }
 
-        // Remove Findings
-        Collection<?> findingsToRemove = cepSession.getObjects(o -> o instanceof Finding);
-        for (Object f : findingsToRemove) {
-          FactHandle fh = cepSession.getFactHandle(f);
-          if (fh != null)
-            cepSession.delete(fh);
-        }
+    int rulesFired = 0;
+    for (ShardOutcome outcome : outcomes) {
+      rulesFired += outcome.rulesFired;
+      allFindings.addAll(outcome.findings);
+      if (investigation == null) {
+        investigation = outcome.investigation;
+      }
+    }
+    EventLog.debug("EnvironmentalMonitoringService", "Fired {} rules across {} shard(s)", rulesFired, outcomes.size());
 
-        // Remove Environment facts
-        Collection<?> envs = cepSession.getObjects(o -> o instanceof Environment);
-        for (Object e : envs) {
-          FactHandle fh = cepSession.getFactHandle(e);
-          if (fh != null)
-            cepSession.delete(fh);
+    // AFTER rules fired, check for "Investigation Required" findings and handle
+    // investigation on the topology session
+    CepShard topologyShard = outcomes.isEmpty() ? null : ensureTopology();
+    if (topologyShard != null) {
+      List<Finding> shardFindings = new ArrayList<>(allFindings);
+      topologyShard.withLock(topo -> RuleProfiler.profile(topo.getSession(), () -> {
+        mirrorState(topo, inputs, shardFindings);
+        for (Finding finding : shardFindings) {
+          if (finding.getFindingType() == FindingType.INVESTIGATION_REQUIRED) {
+            investigate(topo.getSession(), finding.getModuleId(), allFindings);
+          }
         }
+        return null;
+      }));
+    }
 
-        // Remove CondensationData facts
-        Collection<?> conds = cepSession.getObjects(o -> o instanceof CondensationData);
-        for (Object c : conds) {
-          FactHandle fh = cepSession.getFactHandle(c);
-          if (fh != null)
-            cepSession.delete(fh);
-        }
+    return new EnvironmentalAnalysisResult(investigation, allFindings, rulesFired);
+  }
 
-        // Remove HumidityEvent facts
-        Collection<?> hums = cepSession.getObjects(o -> o instanceof HumidityEvent);
-        for (Object h : hums) {
-          FactHandle fh = cepSession.getFactHandle(h);
-          if (fh != null)
-            cepSession.delete(fh);
-        }
+  /**
+   * Runs the CEP agenda for the given modules on one shard session. Called with
+   * the shard lock held.
+   *
+   * The session is long-lived: state facts are upserted through the shard's
+   * FactHandle index (condensation data per location) and humidity readings
+   * are folded into the module's HumidityTrend fact. Findings describe the
+   * current state rather than a window of events, so a module's findings are
+   * retracted whenever its state is upserted and the rules re-derive the ones
+   * that still hold; a condition that cleared is no longer reported.
+   */
+  private ShardOutcome processShard(CepShard shard, Map<String, ModuleInput> inputs) {
+    ShardOutcome outcome = new ShardOutcome();
+    KieSession cepSession = shard.getSession();
+    FactIndex facts = shard.getFacts();
+
+    EngineEvents.FactRefresh refresh = new EngineEvents.FactRefresh();
+    refresh.begin();
+    int retracted = facts.retractFindings(f -> inputs.containsKey(f.getModuleId()));
+
+    for (Map.Entry<String, ModuleInput> entry : inputs.entrySet()) {
+      upsertState(facts, entry.getKey(), entry.getValue());
+      updateHumidityTrend(facts, entry.getKey(), entry.getValue().humidity);
+    }
+    int dropped = facts.takeDroppedEvents();
+    refresh.complete("EnvironmentalMonitoringService", shard, inputs.size(), retracted, dropped);
+    EngineMetrics.eventsDropped("EnvironmentalMonitoringService", dropped);
 
-        // Remove WaterRecycling facts
-        Collection<?> wrs = cepSession.getObjects(o -> o instanceof WaterRecycling);
-        for (Object w : wrs) {
-          FactHandle fh = cepSession.getFactHandle(w);
-          if (fh != null)
-            cepSession.delete(fh);
-        }
+    outcome.rulesFired = EngineMetrics.fire(cepSession, "EnvironmentalMonitoringService", "cep.environment");
 
-        // Remove VentilationStatus facts
-        Collection<?> vs = cepSession.getObjects(o -> o instanceof VentilationStatus);
-        for (Object v : vs) {
-          FactHandle fh = cepSession.getFactHandle(v);
-          if (fh != null)
-            cepSession.delete(fh);
-        }
-      } catch (Exception e) {
-        System.out.println("Warning: failed to fully clear previous CEP facts: " + e.getMessage());
+    for (Finding f : facts.findings()) {
+      if (inputs.containsKey(f.getModuleId())) {
+        outcome.findings.add(f);
       }
-
-      // Insert all facts for this run into the single CEP session
-      environments.forEach(cepSession::insert);
-      condensationDataList.forEach(cepSession::insert);
-      humidityEvents.forEach(cepSession::insert);
-      waterRecyclings.forEach(cepSession::insert);
-      ventilationStatuses.forEach(cepSession::insert);
-
-      // Run CEP agenda group then investigation agenda in same session
-      cepSession.getAgenda().getAgendaGroup("cep.environment").setFocus();
-      rulesFired = cepSession.fireAllRules();
-      System.out.println("Environmental CEP: Fired " + rulesFired + " rules across all modules");
-    } else {
-      System.out.println("EnvironmentalMonitoringService: No CEP session available; skipping CEP processing");
     }
 
-    // AFTER rules fired, check for "Investigation Required" findings and handle
-    // investigation
-    Collection<?> findingObjects = ensureSession() ? cepSession.getObjects(o -> o instanceof Finding) : List.of();
-    for (Object obj : findingObjects) {
-      Finding finding = (Finding) obj;
-      if (!finding.isExpired()) {
-        allFindings.add(finding);
-
-        // Check if this is an investigation request finding
-        if ("Investigation Required".equals(finding.getType())) {
-          // Use moduleId directly from Finding object
-          String moduleId = finding.getModuleId();
-
-          // Use the recursive query with visited list (pass null to start)
-          try {
-            String[] hypotheses = { "H1", "H2", "H3" };
-            boolean sourceFound = false;
-
-            for (String hypothesis : hypotheses) {
-              System.out.println("[MoistureQuery] Query start: hypothesis=" + hypothesis + ", start=" + moduleId);
-              QueryResults results = cepSession.getQueryResults("findMoistureSource", hypothesis, moduleId);
-              int size = results.size();
-              System.out.println("[MoistureQuery] Result count=" + size + " (single traversal)");
-              if (size > 0) {
-                String matchedModule = moduleId; // default
-                for (QueryResultsRow row : results) { // grab first row's bound 'mod'
-                  try {
-                    Object bound = row.get("mod");
-                    if (bound instanceof String) {
-                      matchedModule = (String) bound;
-                    }
-                  } catch (Exception ignore) {
-                  }
-                  break;
-                }
-                // Derive traversal path & depth using auxiliary path query
-                try {
-                  QueryResults pathResults = cepSession.getQueryResults("findMoistureSourcePath", hypothesis, moduleId, null);
-                  if (pathResults.size() > 0) {
-                    QueryResultsRow prow = pathResults.iterator().next();
-                    Object pathObj = prow.get("path");
-                    if (pathObj instanceof java.util.List) {
-                      @SuppressWarnings("unchecked")
-                      java.util.List<String> path = (java.util.List<String>) pathObj;
-                      System.out.println("[MoistureQuery] Traversal path=" + path + " depth=" + (path.size() - 1));
-                    } else {
-                      System.out.println("[MoistureQuery] Path binding not a List: " + pathObj);
-                    }
-                  } else {
-                    System.out.println("[MoistureQuery] Path query returned no rows despite primary match");
-                  }
-                } catch (Exception px) {
-                  System.out.println("[MoistureQuery] Path query error: " + px.getMessage());
-                }
-                Finding moistureFinding = new Finding("Moisture source found", matchedModule,
-                    "Hypothesis " + hypothesis + " satisfied at module " + matchedModule, "HIGH");
-                cepSession.insert(moistureFinding);
-                allFindings.add(moistureFinding);
-                sourceFound = true;
-                System.out.println("[MoistureQuery] MATCH: hypothesis=" + hypothesis + " module=" + matchedModule);
-                break; // only first matching hypothesis reported
-              } else {
-                System.out
-                    .println("[MoistureQuery] No match for hypothesis=" + hypothesis + " starting at " + moduleId);
-              }
-            }
-
-            if (!sourceFound) {
-              Finding noSourceFinding = new Finding("Investigation complete - no source", moduleId,
-                  "No moisture source found after checking all hypotheses", "LOW");
-              cepSession.insert(noSourceFinding);
-              allFindings.add(noSourceFinding);
-              System.out.println("[MoistureQuery] NO MATCH for module=" + moduleId);
-            }
-          } catch (Exception e) {
-            System.out.println("Error during moisture investigation query: " + e.getMessage());
-          }
-        }
+    // Get current investigation status from CEP session (if one was inserted
+    // there); removed again so repeated tests start clean
+    Collection<FactHandle> investigations = cepSession
+        .getFactHandles(new ClassObjectFilter(MoistureInvestigation.class));
+    for (FactHandle fh : new ArrayList<>(investigations)) {
+      if (outcome.investigation == null) {
+        outcome.investigation = (MoistureInvestigation) cepSession.getObject(fh);
       }
+      cepSession.delete(fh);
     }
+    return outcome;
+  }
 
-    // Get current investigation status from CEP session (if one was inserted there)
-    if (ensureSession()) {
-      investigation = (MoistureInvestigation) cepSession.getObjects()
-          .stream()
-          .filter(o -> o instanceof MoistureInvestigation)
-          .findFirst()
-          .orElse(null);
-    } else {
-      investigation = null;
+  /**
+   * Adds the new readings to the module's window and upserts the resulting
+   * trend once per batch; the rules only look at the latest state after the
+   * whole batch is in.
+   */
+  private void updateHumidityTrend(FactIndex facts, String moduleId, List<HumidityEvent> humidity) {
+    if (humidity.isEmpty()) {
+      return;
+    }
+    humidity.sort(Comparator.comparingLong(HumidityEvent::getTimestamp));
+    HumidityTrendWindow window = humidityWindows.computeIfAbsent(moduleId, HumidityTrendWindow::new);
+    boolean changed = false;
+    for (HumidityEvent h : humidity) {
+      if (facts.markDelivered(HumidityEvent.class, moduleId, h.getTimestamp(), h.getHumidity())) {
+        changed |= window.add(h.getTimestamp(), h.getHumidity());
+      }
+    }
+    HumidityTrend trend = window.trend();
+    if (changed && trend != null) {
+      facts.upsert(moduleId, trend);
     }
+  }
 
-    // Collect any findings that may have been inserted during the investigation
-    if (ensureSession()) {
-      Collection<?> findingsDuringInvest = cepSession.getObjects(o -> o instanceof Finding);
-      for (Object obj : findingsDuringInvest) {
-        Finding f = (Finding) obj;
-        if (!f.isExpired()) {
-          // avoid duplicates: check same title + moduleId
-          boolean exists = allFindings.stream()
-              .anyMatch(af -> af.getType().equals(f.getType()) && af.getModuleId().equals(f.getModuleId()));
-          if (!exists) {
-            allFindings.add(f);
-          }
-        }
+  private static void upsertState(FactIndex facts, String moduleId, ModuleInput input) {
+    input.environments.forEach(e -> facts.upsert(moduleId, e));
+    input.condensations.forEach(c -> facts.upsert(moduleId, c.getLocationEnum(), c));
+    input.waterRecyclings.forEach(w -> facts.upsert(moduleId, w));
+    input.ventilations.forEach(v -> facts.upsert(moduleId, v));
+  }
+
+  /**
+   * Brings the topology session's copy of the given modules' state up to date
+   * with this run's facts and findings. Humidity events are not mirrored; the
+   * query does not use them.
+   */
+  private void mirrorState(CepShard topology, Map<String, ModuleInput> inputs, List<Finding> findings) {
+    FactIndex facts = topology.getFacts();
+    inputs.forEach((moduleId, input) -> upsertState(facts, moduleId, input));
+
+    // Findings are long-lived objects of the shard sessions, so identity tells
+    // which ones are already mirrored
+    Set<Finding> current = Collections.newSetFromMap(new IdentityHashMap<>());
+    current.addAll(findings);
+    Set<Finding> mirrored = Collections.newSetFromMap(new IdentityHashMap<>());
+    facts.retractFindings(f -> {
+      if (!inputs.containsKey(f.getModuleId())) {
+        return false;
+      }
+      if (current.contains(f)) {
+        mirrored.add(f);
+        return false;
+      }
+      return true;
+    });
+    for (Finding f : findings) {
+      if (!mirrored.contains(f)) {
+        topology.getSession().insert(f);
       }
     }
+  }
 
-    if (ensureSession()) {
-      // Remove investigation fact if present (so repeated tests start clean)
-      if (investigation != null) {
-        FactHandle invFH = cepSession.getFactHandle(investigation);
-        if (invFH != null) {
-          cepSession.delete(invFH);
+  private void investigate(KieSession session, String moduleId, List<Finding> allFindings) {
+    // Use the recursive query with visited list (pass null to start)
+    try {
+      String[] hypotheses = { "H1", "H2", "H3" };
+      boolean sourceFound = false;
+
+      for (String hypothesis : hypotheses) {
+        EventLog.debug("MoistureQuery", "Query start: hypothesis={}, start={}", hypothesis, moduleId);
+        QueryResults results = session.getQueryResults("findMoistureSource", hypothesis, moduleId);
+        int size = results.size();
+        EventLog.debug("MoistureQuery", "Result count={} (single traversal)", size);
+        if (size > 0) {
+          String matchedModule = moduleId; // default
+          for (QueryResultsRow row : results) { // grab first row's bound 'mod'
+            try {
+              Object bound = row.get("mod");
+              if (bound instanceof String) {
+                matchedModule = (String) bound;
+              }
+            } catch (Exception ignore) {
+            }
+            break;
+          }
+          // Derive traversal path & depth using auxiliary path query
+          try {
+            QueryResults pathResults = session.getQueryResults("findMoistureSourcePath", hypothesis, moduleId, null);
+            if (pathResults.size() > 0) {
+              QueryResultsRow prow = pathResults.iterator().next();
+              Object pathObj = prow.get("path");
+              if (pathObj instanceof java.util.List) {
+                @SuppressWarnings("unchecked")
+                java.util.List<String> path = (java.util.List<String>) pathObj;
+                EventLog.debug("MoistureQuery", "Traversal path={} depth={}", path, path.size() - 1);
+              } else {
+                EventLog.debug("MoistureQuery", "Path binding not a List: {}", pathObj);
+              }
+            } else {
+              EventLog.debug("MoistureQuery", "Path query returned no rows despite primary match");
+            }
+          } catch (Exception px) {
+            EventLog.warn("MoistureQuery", "Path query error: {}", px.getMessage());
+          }
+          Finding moistureFinding = new Finding("Moisture source found", matchedModule,
+              "Hypothesis " + hypothesis + " satisfied at module " + matchedModule, "HIGH");
+          allFindings.add(moistureFinding);
+          sourceFound = true;
+          EventLog.info("MoistureQuery", "MATCH: hypothesis={} module={}", hypothesis, matchedModule);
+          break; // only first matching hypothesis reported
+        } else {
+          EventLog.debug("MoistureQuery", "No match for hypothesis={} starting at {}", hypothesis, moduleId);
         }
       }
 
-      // Remove all Finding facts currently in working memory
-      Collection<?> findingsInSession = cepSession.getObjects(o -> o instanceof Finding);
-      for (Object fObj : findingsInSession) {
-        FactHandle fh = cepSession.getFactHandle(fObj);
-        if (fh != null) {
-          cepSession.delete(fh);
-        }
+      if (!sourceFound) {
+        Finding noSourceFinding = new Finding("Investigation complete - no source", moduleId,
+            "No moisture source found after checking all hypotheses", "LOW");
+        allFindings.add(noSourceFinding);
+        EventLog.info("MoistureQuery", "NO MATCH for module={}", moduleId);
       }
+    } catch (Exception e) {
+      EventLog.error("EnvironmentalMonitoringService", "Error during moisture investigation query: {}", e.getMessage());
     }
-
-    return new EnvironmentalAnalysisResult(investigation, allFindings, rulesFired);
   }
 
   public List<CondensationData> getCondensationData(String moduleId) {
-    if (cepSession == null) {
+    CepShard shard = shards.existingShard(moduleId);
+    if (shard == null) {
       return new ArrayList<>();
     }
 
+    // A shard disposed by a concurrent reset holds no facts any more
     List<CondensationData> condensationData = new ArrayList<>();
-    Collection<?> objects = cepSession.getObjects(o -> o instanceof CondensationData &&
-        ((CondensationData) o).getModuleID().equals(moduleId));
-    for (Object obj : objects) {
-      condensationData.add((CondensationData) obj);
-    }
-
+    shard.withLiveLock(locked -> {
+      for (CondensationLocation location : CondensationLocation.values()) {
+        Object fact = locked.getFacts().get(CondensationData.class, moduleId, location);
+        if (fact != null) {
+          condensationData.add((CondensationData) fact);
+        }
+      }
+    });
     return condensationData;
   }
 
   public void resetSession() {
-    try {
-      if (cepSession != null) {
-        cepSession.dispose();
-      }
-      if (kieContainer != null) {
-        cepSession = kieContainer.newKieSession();
-        if (cepSession != null) {
-          cepSession.setGlobal("findingsService", findingsService);
-          System.out.println("EnvironmentalMonitoringService: CEP session reset (default session)");
-        } else {
-          System.out
-              .println("EnvironmentalMonitoringService: Default KieSession creation returned null during reset");
-        }
-      } else {
-        System.out.println("EnvironmentalMonitoringService: KieContainer is null; cannot reset CEP session");
-      }
-    } catch (Exception e) {
-      System.out.println("EnvironmentalMonitoringService: Failed to reset CEP session: " + e.getMessage());
-      cepSession = null;
-    }
+    // Sessions are recreated lazily on the next request
+    shards.disposeAll();
+    humidityWindows.clear();
+    disposeTopology();
+    EventLog.info("EnvironmentalMonitoringService", "CEP sessions reset");
+  }
+
+  private static class ModuleInput {
+    private final List<Environment> environments = new ArrayList<>();
+    private final List<CondensationData> condensations = new ArrayList<>();
+    private final List<HumidityEvent> humidity = new ArrayList<>();
+    private final List<WaterRecycling> waterRecyclings = new ArrayList<>();
+    private final List<VentilationStatus> ventilations = new ArrayList<>();
+  }
+
+  private static class ShardOutcome {
+    private final List<Finding> findings = new ArrayList<>();
+    private MoistureInvestigation investigation;
+    private int rulesFired;
   }
-}
\ No newline at end of file
+}
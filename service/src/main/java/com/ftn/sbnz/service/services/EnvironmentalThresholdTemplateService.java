@@ -4,6 +4,7 @@ import org.drools.template.DataProvider;
 import org.drools.template.DataProviderCompiler;
 import org.drools.template.ObjectDataCompiler;
 import org.drools.template.objects.ArrayDataProvider;
+import org.kie.api.KieBase;
 import org.kie.api.builder.Message;
 import org.kie.api.builder.Results;
 import org.kie.api.io.ResourceType;
@@ -11,27 +12,56 @@ import org.kie.api.runtime.KieSession;
 import org.kie.internal.utils.KieHelper;
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 
+import com.ftn.sbnz.model.enums.Priority;
 import com.ftn.sbnz.model.models.Environment;
 import com.ftn.sbnz.model.models.EnvironmentalThresholdTemplateModel;
 import com.ftn.sbnz.model.models.Finding;
+import com.ftn.sbnz.model.utils.EventLog;
+import com.ftn.sbnz.service.engine.EngineEvents;
+import com.ftn.sbnz.service.engine.EngineMetrics;
+import com.ftn.sbnz.service.engine.KieBaseCache;
+import com.ftn.sbnz.service.engine.RuleProfiler;
 
+import javax.annotation.PostConstruct;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Collections;
+import java.util.Map;
 
 @Service
 public class EnvironmentalThresholdTemplateService {
 
+    private static final String OWNER = "EnvironmentalThresholdTemplateService";
+
     private final FindingsService findingsService;
+    private final KieBaseCache kieBaseCache;
+
+    // Default CSV threshold set, compiled once at startup and never evicted
+    private volatile KieBase defaultKieBase;
 
     @Autowired
-    public EnvironmentalThresholdTemplateService(FindingsService findingsService) {
+    public EnvironmentalThresholdTemplateService(FindingsService findingsService,
+            @Value("${astrovital.templates.kiebase-cache-size:16}") int kieBaseCacheSize) {
         this.findingsService = findingsService;
+        this.kieBaseCache = new KieBaseCache(kieBaseCacheSize);
+    }
+
+    @PostConstruct
+    public void compileDefaultThresholds() {
+        try {
+            long start = System.nanoTime();
+            defaultKieBase = compileKieBase(generateDrlFromCsv());
+            EventLog.info(OWNER, "Compiled default threshold rules in {} ms", (System.nanoTime() - start) / 1_000_000);
+        } catch (Throwable t) {
+            // Don't fail startup; evaluateEnvironmentalThresholds retries lazily
+            EventLog.warn(OWNER, "Unable to precompile default thresholds: {}", t.toString());
+        }
     }
 
     /**
@@ -69,6 +99,7 @@ public class EnvironmentalThresholdTemplateService {
      * @return Generated DRL string
      */
     public String generateDrlFromObjects(List<EnvironmentalThresholdTemplateModel> thresholds) {
+        validateThresholds(thresholds);
         try {
             InputStream template = this.getClass()
                     .getResourceAsStream("/templates/environmental-thresholds.drt");
@@ -85,6 +116,19 @@ public class EnvironmentalThresholdTemplateService {
         }
     }
 
+    /**
+     * Checks client-supplied thresholds before they reach the template and
+     * replaces each priority by its canonical name, so findings never carry a
+     * priority outside the Priority enum.
+     *
+     * @throws IllegalArgumentException if a priority is missing or unknown
+     */
+    public void validateThresholds(List<EnvironmentalThresholdTemplateModel> thresholds) {
+        for (EnvironmentalThresholdTemplateModel t : thresholds) {
+            t.setPriority(Priority.of(t.getPriority()).name());
+        }
+    }
+
     /**
      * Creates a KieSession from generated DRL.
      * 
@@ -92,68 +136,105 @@ public class EnvironmentalThresholdTemplateService {
      * @return KieSession ready for rule execution
      */
     public KieSession createKieSessionFromDrl(String drl) {
-        KieHelper kieHelper = new KieHelper();
-        kieHelper.addContent(drl, ResourceType.DRL);
-
-        Results results = kieHelper.verify();
-
-        if (results.hasMessages(Message.Level.WARNING, Message.Level.ERROR)) {
-            List<Message> messages = results.getMessages(Message.Level.WARNING, Message.Level.ERROR);
-            StringBuilder errorMsg = new StringBuilder("DRL compilation errors:\n");
-            for (Message message : messages) {
-                errorMsg.append("- ").append(message.getText()).append("\n");
-            }
-            throw new IllegalStateException(errorMsg.toString());
-        }
-
-        return kieHelper.build().newKieSession();
+        return compileKieBase(drl).newKieSession();
     }
 
     /**
-     * Evaluates environment against threshold rules.
+     * Compiles generated DRL into a KieBase. This is the expensive step that the
+     * KieBase cache exists to avoid repeating.
      * 
-     * @param environments List of environment data to evaluate
-     * @return List of findings (threshold violations)
+     * @param drl Generated DRL string
+     * @return Compiled KieBase
      */
-    public List<Finding> evaluateEnvironmentalThresholds(List<Environment> environments) {
-        String drl = generateDrlFromCsv();
-        KieSession kieSession = createKieSessionFromDrl(drl);
-
-        // Insert all environments
-        for (Environment env : environments) {
-            kieSession.insert(env);
-        }
+    public KieBase compileKieBase(String drl) {
+        EngineEvents.DrlCompiled event = new EngineEvents.DrlCompiled();
+        event.begin();
+        boolean succeeded = false;
+        try {
+            KieHelper kieHelper = new KieHelper();
+            kieHelper.addContent(drl, ResourceType.DRL);
 
-        // Fire rules
-        kieSession.fireAllRules();
+            Results results = kieHelper.verify();
 
-        // Collect findings
-        List<Finding> findings = new ArrayList<>();
-        for (Object obj : kieSession.getObjects()) {
-            if (obj instanceof Finding) {
-                findings.add((Finding) obj);
+            if (results.hasMessages(Message.Level.WARNING, Message.Level.ERROR)) {
+                List<Message> messages = results.getMessages(Message.Level.WARNING, Message.Level.ERROR);
+                StringBuilder errorMsg = new StringBuilder("DRL compilation errors:\n");
+                for (Message message : messages) {
+                    errorMsg.append("- ").append(message.getText()).append("\n");
+                }
+                throw new IllegalStateException(errorMsg.toString());
             }
+
+            KieBase kieBase = kieHelper.build();
+            succeeded = true;
+            return kieBase;
+        } finally {
+            event.complete(OWNER, drl.length(), succeeded);
         }
+    }
 
-        kieSession.dispose();
-        // Persist findings into FindingsService if not already present (dedupe)
-        try {
-            for (Finding f : findings) {
-                try {
-                    if (!findingsService.hasActiveFinding(f.getModuleId(), f.getType())) {
-                        findingsService.addFindings(f.getModuleId(), Collections.singletonList(f));
-                    }
-                } catch (Exception ex) {
-                    System.out.println(
-                            "EnvironmentalThresholdTemplateService: Failed to persist finding: " + ex.getMessage());
+    /**
+     * Returns the compiled KieBase for the default CSV thresholds.
+     */
+    private KieBase getDefaultKieBase() {
+        KieBase kieBase = defaultKieBase;
+        if (kieBase == null) {
+            synchronized (this) {
+                if (defaultKieBase == null) {
+                    defaultKieBase = compileKieBase(generateDrlFromCsv());
                 }
+                kieBase = defaultKieBase;
             }
-        } catch (Exception e) {
-            System.out.println(
-                    "EnvironmentalThresholdTemplateService: Error while persisting findings: " + e.getMessage());
         }
+        return kieBase;
+    }
 
-        return findings;
+    /**
+     * Returns the compiled KieBase for a custom threshold set, served from the LRU
+     * cache when an identical set was compiled before.
+     */
+    private KieBase getCustomKieBase(List<EnvironmentalThresholdTemplateModel> thresholds) {
+        return kieBaseCache.get(thresholdSetHash(thresholds), () -> compileKieBase(generateDrlFromObjects(thresholds)));
+    }
+
+    /**
+     * Content hash of a threshold set. Every field that reaches the template is
+     * part of the key, so two sets hash equal only if they generate the same DRL.
+     */
+    static String thresholdSetHash(List<EnvironmentalThresholdTemplateModel> thresholds) {
+        List<String> parts = new ArrayList<>();
+        for (EnvironmentalThresholdTemplateModel t : thresholds) {
+            parts.addAll(Arrays.asList(t.getParameter(), t.getOperator(), String.valueOf(t.getThreshold()),
+                    t.getDuration(), t.getModuleId(), t.getAlarmType(), t.getPriority(), t.getDescription()));
+        }
+        return KieBaseCache.contentHash(parts);
+    }
+
+    /**
+     * Hit/miss statistics of the custom threshold KieBase cache.
+     */
+    public Map<String, Object> getKieBaseCacheStats() {
+        Map<String, Object> stats = kieBaseCache.snapshotStats();
+        stats.put("defaultCompiled", defaultKieBase != null);
+        return stats;
+    }
+
+    /**
+     * Drops all cached custom threshold KieBases.
+     */
+    public void clearKieBaseCache() {
+        kieBaseCache.invalidateAll();
+    }
+
+    /**
+     * Evaluates environment against threshold rules.
+     * 
+     * @param environments List of environment data to evaluate
+     * @return List of findings (threshold violations)
+     */
+    public List<Finding> evaluateEnvironmentalThresholds(List<Environment> environments) {
+        return EngineMetrics.timeService(OWNER, "evaluateEnvironmentalThresholds",
+                () -> evaluate(getDefaultKieBase(), environments));
     }
 
     /**
@@ -165,16 +246,29 @@ public class EnvironmentalThresholdTemplateService {
      */
     public List<Finding> evaluateCustomThresholds(List<Environment> environments,
             List<EnvironmentalThresholdTemplateModel> thresholds) {
-        String drl = generateDrlFromObjects(thresholds);
-        KieSession kieSession = createKieSessionFromDrl(drl);
+        validateThresholds(thresholds);
+        return EngineMetrics.timeService(OWNER, "evaluateCustomThresholds",
+                () -> evaluate(getCustomKieBase(thresholds), environments));
+    }
 
-        // Insert all environments
-        for (Environment env : environments) {
-            kieSession.insert(env);
-        }
+    /**
+     * Runs a fresh session drawn from the given compiled KieBase and persists the
+     * resulting findings.
+     */
+    private List<Finding> evaluate(KieBase kieBase, List<Environment> environments) {
+        KieSession kieSession = kieBase.newKieSession();
+        EngineMetrics.sessionCreated(OWNER);
+
+        RuleProfiler.profile(kieSession, () -> {
+            // Insert all environments
+            for (Environment env : environments) {
+                kieSession.insert(env);
+            }
 
-        // Fire rules
-        kieSession.fireAllRules();
+            // Fire rules (threshold rules have no agenda group)
+            return EngineMetrics.fire(kieSession, OWNER, "MAIN");
+        });
+        EngineMetrics.recordFactCount(OWNER, kieSession);
 
         // Collect findings
         List<Finding> findings = new ArrayList<>();
@@ -185,21 +279,18 @@ public class EnvironmentalThresholdTemplateService {
         }
 
         kieSession.dispose();
+        EngineMetrics.sessionDisposed(OWNER);
         // Persist findings into FindingsService if not already present (dedupe)
         try {
             for (Finding f : findings) {
                 try {
-                    if (!findingsService.hasActiveFinding(f.getModuleId(), f.getType())) {
-                        findingsService.addFindings(f.getModuleId(), Collections.singletonList(f));
-                    }
+                    findingsService.addFindingIfAbsent(f.getModuleId(), f);
                 } catch (Exception ex) {
-                    System.out.println(
-                            "EnvironmentalThresholdTemplateService: Failed to persist finding: " + ex.getMessage());
+                    EventLog.warn(OWNER, "Failed to persist finding: {}", ex.getMessage());
                 }
             }
         } catch (Exception e) {
-            System.out.println(
-                    "EnvironmentalThresholdTemplateService: Error while persisting findings: " + e.getMessage());
+            EventLog.error(OWNER, "Error while persisting findings: {}", e.getMessage());
         }
 
         return findings;
@@ -274,8 +365,7 @@ public class EnvironmentalThresholdTemplateService {
             }
         } catch (IOException e) {
             // Fall back to hard-coded defaults if CSV cannot be read
-            System.out.println("EnvironmentalThresholdTemplateService: Failed to read CSV for default thresholds: "
-                    + e.getMessage());
+            EventLog.warn(OWNER, "Failed to read CSV for default thresholds: {}", e.getMessage());
 
             // LAB module thresholds
             thresholds.add(new EnvironmentalThresholdTemplateModel(
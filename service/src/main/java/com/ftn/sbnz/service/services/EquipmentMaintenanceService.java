@@ -1,8 +1,11 @@
 package com.ftn.sbnz.service.services;
 
 import com.ftn.sbnz.model.models.*;
+import com.ftn.sbnz.model.utils.EventLog;
+
+import com.ftn.sbnz.service.engine.EngineMetrics;
+import com.ftn.sbnz.service.engine.KieSessionPool;
 
-import org.kie.api.runtime.KieContainer;
 import org.kie.api.runtime.KieSession;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -14,24 +17,27 @@ import java.util.List;
 @Service
 public class EquipmentMaintenanceService {
 
-  private final KieContainer kieContainer;
+  private final KieSessionPool sessionPool;
   private final FindingsService findingsService;
 
   @Autowired
-  public EquipmentMaintenanceService(KieContainer kieContainer, FindingsService findingsService) {
-    this.kieContainer = kieContainer;
+  public EquipmentMaintenanceService(KieSessionPool sessionPool, FindingsService findingsService) {
+    this.sessionPool = sessionPool;
     this.findingsService = findingsService;
   }
 
-  public synchronized List<Finding> checkMaintenanceNeeds(Environment environment,
+  public List<Finding> checkMaintenanceNeeds(Environment environment,
       VentilationStatus ventilationStatus, AirFilter airFilter) {
 
-    // Clean up expired findings from global store first
-    findingsService.cleanupAllExpiredFindings();
-
-    KieSession kieSession = kieContainer.newKieSession();
+    // Borrow a pre-warmed session; it is reset and returned to the pool afterwards
+    return EngineMetrics.timeService("EquipmentMaintenanceService", "checkMaintenanceNeeds",
+        () -> sessionPool.execute(kieSession -> runPipeline(kieSession, environment, ventilationStatus, airFilter)));
+  }
 
+  private List<Finding> runPipeline(KieSession kieSession, Environment environment,
+      VentilationStatus ventilationStatus, AirFilter airFilter) {
     // Set the global findings service so rules can persist findings
+    // (pooled sessions lose globals on reset)
     kieSession.setGlobal("findingsService", findingsService);
 
     // Insert provided facts (null-safe)
@@ -42,9 +48,13 @@ public class EquipmentMaintenanceService {
     if (airFilter != null)
       kieSession.insert(airFilter);
 
+    // Findings already active in the global store, as indexed facts the
+    // detection rules join against
+    if (environment != null)
+      findingsService.getActiveFindingKeys(environment.getModuleID()).forEach(kieSession::insert);
+
     // Run pipeline by agenda groups: detect -> persist
-    kieSession.getAgenda().getAgendaGroup("detect.equipment").setFocus();
-    kieSession.fireAllRules();
+    EngineMetrics.fire(kieSession, "EquipmentMaintenanceService", "detect.equipment");
 
     // Print findings from memory
     List<Finding> findings = new ArrayList<>();
@@ -52,15 +62,14 @@ public class EquipmentMaintenanceService {
     for (Object obj : objects) {
       Finding f = (Finding) obj;
       findings.add(f);
-      System.out.println(
-          "Equipment Finding: " + f.getType() + " | module=" + f.getModuleId() + " | priority=" + f.getPriority());
+      EventLog.debug("EquipmentMaintenanceService", "Equipment Finding: {} | module={} | priority={}", f.getType(),
+          f.getModuleId(), f.getPriority());
     }
 
     // Persist actions
-    kieSession.getAgenda().getAgendaGroup("persist.actions").setFocus();
-    kieSession.fireAllRules();
+    EngineMetrics.fire(kieSession, "EquipmentMaintenanceService", "persist.actions");
+    EngineMetrics.recordFactCount("EquipmentMaintenanceService", kieSession);
 
-    kieSession.dispose();
     return findings;
   }
 }
\ No newline at end of file
@@ -1,29 +1,390 @@
 package com.ftn.sbnz.service.services;
 
+import com.ftn.sbnz.model.dto.FindingChange;
+import com.ftn.sbnz.model.dto.FindingChanges;
+import com.ftn.sbnz.model.dto.FindingsSummary;
+import com.ftn.sbnz.model.dto.ModuleFindingsSummary;
+import com.ftn.sbnz.model.enums.Priority;
+import com.ftn.sbnz.model.models.ActiveFindingKey;
 import com.ftn.sbnz.model.models.Finding;
+import com.ftn.sbnz.model.utils.EventLog;
+import com.ftn.sbnz.model.utils.FindingClock;
+import com.ftn.sbnz.service.engine.EngineEvents;
+import com.ftn.sbnz.service.findings.FindingChangeListener;
+import com.ftn.sbnz.service.findings.FindingChangeLog;
+import com.ftn.sbnz.service.findings.FindingCoalescer;
+import com.ftn.sbnz.service.findings.FindingsJournal;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
+/**
+ * In-memory store of active findings.
+ *
+ * Findings are indexed per module and, within a module, by type. Each module
+ * has its own lock, so writers for different modules never contend. Readers
+ * take no lock: every mutation publishes a fresh immutable list for the
+ * module, and getFindings / getAllFindings return those published lists.
+ *
+ * Raising a finding whose type is already active for the module merges it
+ * into the active one (occurrence count, last seen, expiry, escalated
+ * priority) instead of adding another; FindingCoalescer rate-limits the
+ * resulting updates and suppresses re-raises right after a retirement. A
+ * merge builds an updated copy that replaces the active finding: stored
+ * findings are never changed in place, as readers hold them without a lock.
+ * A raised finding is stored as a copy too, since it may still be a fact of
+ * a rule session.
+ *
+ * When the journal is enabled, the store is rebuilt from it on startup and
+ * every change is appended to it.
+ *
+ * Each module also keeps its finding counts per priority, updated with every
+ * add and removal, so the station summary never scans findings; it is rebuilt
+ * from the per-module counts only after one of them changed.
+ */
 @Service
 public class FindingsService {
 
   // key = moduleId (use "global" if not module-specific)
+  private final Map<String, ModuleFindings> modules = new ConcurrentHashMap<>();
+  // Published immutable list per non-empty module; the read side of the store
   private final Map<String, List<Finding>> store = new ConcurrentHashMap<>();
 
-  public synchronized void addFindings(String moduleId, Collection<Finding> findings) {
-    String key = moduleId == null ? "global" : moduleId;
-    store.compute(key, (k, v) -> {
-      List<Finding> list = v == null ? new ArrayList<>() : new ArrayList<>(v);
-      list.addAll(findings);
-      return list;
+  // Recent changes for push subscribers resuming from a cursor
+  private final FindingChangeLog changeLog;
+  private final List<FindingChangeListener> listeners = new CopyOnWriteArrayList<>();
+  // Changes numbered but not yet handed to the listeners, by sequence
+  private final ConcurrentSkipListMap<Long, FindingChange> undelivered = new ConcurrentSkipListMap<>();
+  private final AtomicBoolean dispatching = new AtomicBoolean();
+  // Last sequence handed to the listeners; written only while dispatching
+  private volatile long delivered;
+  private final FindingCoalescer coalescer;
+  private FindingsJournal journal;
+
+  // Bumped on every count change; identifies a summary together with the
+  // instance id, since the version restarts from zero with the process
+  private final AtomicLong summaryVersion = new AtomicLong();
+  private final String instanceId = Long.toString(System.currentTimeMillis(), 36);
+  private volatile FindingsSummary summary;
+
+  @Autowired
+  public FindingsService(@Value("${astrovital.findings.change-log-size:10000}") int changeLogSize,
+      @Value("${astrovital.findings.journal.enabled:false}") boolean journalEnabled,
+      @Value("${astrovital.findings.journal.dir:data/findings-journal}") String journalDir,
+      @Value("${astrovital.findings.journal.segment-bytes:67108864}") int segmentBytes,
+      @Value("${astrovital.findings.journal.snapshot-every:100000}") long snapshotEvery,
+      @Value("${astrovital.findings.coalesce.hysteresis-ms:10000}") long hysteresisMillis,
+      @Value("${astrovital.findings.coalesce.update-interval-ms:5000}") long updateIntervalMillis) {
+    this.changeLog = new FindingChangeLog(changeLogSize);
+    this.coalescer = new FindingCoalescer(hysteresisMillis, updateIntervalMillis);
+    if (journalEnabled) {
+      openJournal(new FindingsJournal(Paths.get(journalDir), segmentBytes, snapshotEvery));
+    }
+  }
+
+  public FindingsService(int changeLogSize) {
+    this(changeLogSize, 0, 0);
+  }
+
+  public FindingsService(int changeLogSize, long hysteresisMillis, long updateIntervalMillis) {
+    this.changeLog = new FindingChangeLog(changeLogSize);
+    this.coalescer = new FindingCoalescer(hysteresisMillis, updateIntervalMillis);
+  }
+
+  // Recovers the store before any listener is registered, so restored findings
+  // are not published again; listeners see them through getAllFindings
+  private void openJournal(FindingsJournal candidate) {
+    try {
+      FindingsJournal.Recovery recovery = candidate.recover();
+      recovery.getFindings().forEach((moduleId, findings) -> module(moduleId).add(findings));
+      changeLog.startAfter(recovery.getLastSequence());
+      delivered = recovery.getLastSequence();
+      candidate.setSnapshotSource(changeLog::getLastSequence, this::getAllFindings);
+      listeners.add(candidate);
+      this.journal = candidate;
+      EventLog.info("FindingsService", "Recovered {} findings from journal ({} records after snapshot {}) in {} ms",
+          recovery.getFindingCount(), recovery.getReplayedRecords(), recovery.getSnapshotSequence(),
+          recovery.getDurationMillis());
+    } catch (IOException | RuntimeException e) {
+      EventLog.error("FindingsService", "Journal unavailable, findings will not survive a restart: {}", e);
+    }
+  }
+
+  @PreDestroy
+  public void closeJournal() {
+    if (journal != null) {
+      listeners.remove(journal);
+      try {
+        journal.close();
+      } catch (IOException e) {
+        EventLog.warn("FindingsService", "Failed to close journal: {}", e.getMessage());
+      }
+    }
+  }
+
+  public FindingsJournal getJournal() {
+    return journal;
+  }
+
+  public void addListener(FindingChangeListener listener) {
+    listeners.add(listener);
+  }
+
+  public void removeListener(FindingChangeListener listener) {
+    listeners.remove(listener);
+  }
+
+  public FindingChangeLog getChangeLog() {
+    return changeLog;
+  }
+
+  public FindingCoalescer getCoalescer() {
+    return coalescer;
+  }
+
+  // Called with the module lock held, so a module's changes get sequence
+  // numbers in the order they were applied to the store. The change is only
+  // queued here; dispatch hands it to the listeners once the lock is released.
+  private void publish(FindingChange.Kind kind, String moduleId, Finding finding) {
+    FindingChange change = changeLog.append(kind, moduleId, finding);
+    if (kind == FindingChange.Kind.EXPIRED || kind == FindingChange.Kind.DELETED) {
+      coalescer.retired(moduleId, finding, change.getChangedAt());
+    }
+    undelivered.put(change.getSequence(), change);
+  }
+
+  // Hands queued changes to the listeners in sequence order, one thread at a
+  // time and with no module lock held; a subscriber that skips sequences it
+  // has passed would otherwise lose a change that overtook a lower one. The
+  // next change in line is delivered by whichever thread finds it: the one
+  // that queued it or the one dispatching at the time. A thread that finds
+  // it missing leaves, since its module dispatches it once it is queued.
+  private void dispatch() {
+    while (nextInLine() && dispatching.compareAndSet(false, true)) {
+      try {
+        while (nextInLine()) {
+          FindingChange change = undelivered.remove(delivered + 1);
+          delivered = change.getSequence();
+          for (FindingChangeListener listener : listeners) {
+            try {
+              listener.onChange(change);
+            } catch (RuntimeException e) {
+              EventLog.warn("FindingsService", "Change listener failed: {}", e.getMessage());
+            }
+          }
+        }
+      } finally {
+        dispatching.set(false);
+      }
+    }
+  }
+
+  private boolean nextInLine() {
+    return undelivered.containsKey(delivered + 1);
+  }
+
+  private static String key(String moduleId) {
+    return moduleId == null ? "global" : moduleId;
+  }
+
+  private ModuleFindings module(String key) {
+    return modules.computeIfAbsent(key, ModuleFindings::new);
+  }
+
+  // Runs the work holding the module's lock, then dispatches the changes it
+  // published. Hold times are recorded as JFR events, to tell a slow critical
+  // section from contention on the lock.
+  private <R> R locked(ModuleFindings module, String operation, Supplier<R> work) {
+    try {
+      synchronized (module) {
+        EngineEvents.FindingsLockHeld held = new EngineEvents.FindingsLockHeld();
+        held.begin();
+        try {
+          return work.get();
+        } finally {
+          held.complete(module.key, operation);
+        }
+      }
+    } finally {
+      dispatch();
+    }
+  }
+
+  public void addFindings(String moduleId, Collection<Finding> findings) {
+    if (findings.isEmpty()) {
+      return;
+    }
+    ModuleFindings module = module(key(moduleId));
+    long now = FindingClock.millis();
+    locked(module, "addFindings", () -> {
+      // Repeats within the batch fold into the copy of the first finding of
+      // their type, which is not published yet
+      Map<String, Finding> added = new LinkedHashMap<>();
+      Map<String, Finding> raised = new HashMap<>();
+      for (Finding finding : findings) {
+        Finding pending = added.get(finding.getType());
+        if (pending != null) {
+          fold(pending, finding);
+          if (Priority.rank(finding.getPriorityLevel()) > Priority.rank(pending.getPriorityLevel())) {
+            pending.setPriorityLevel(finding.getPriorityLevel());
+          }
+        } else if (!mergeIntoActive(module, finding, now)) {
+          Finding stored = new Finding(finding);
+          if (!coalescer.suppress(module.key, stored, now)) {
+            added.put(finding.getType(), stored);
+            raised.put(finding.getType(), finding);
+          }
+        }
+      }
+      if (added.isEmpty()) {
+        return null;
+      }
+      module.add(added.values());
+      module.raisedBy.putAll(raised);
+      for (Finding finding : added.values()) {
+        publish(FindingChange.Kind.ADDED, module.key, finding);
+      }
+      return null;
     });
   }
 
+  // Adds the finding unless an active finding of the same type exists for the
+  // module, in which case it is merged into that one; check and add happen
+  // under the module lock. Returns true if the finding was added.
+  public boolean addFindingIfAbsent(String moduleId, Finding finding) {
+    ModuleFindings module = module(key(moduleId));
+    long now = FindingClock.millis();
+    return locked(module, "addFindingIfAbsent", () -> {
+      if (mergeIntoActive(module, finding, now)) {
+        return false;
+      }
+      Finding stored = new Finding(finding);
+      if (coalescer.suppress(module.key, stored, now)) {
+        return false;
+      }
+      module.add(Collections.singletonList(stored));
+      module.raisedBy.put(finding.getType(), finding);
+      publish(FindingChange.Kind.ADDED, module.key, stored);
+      return true;
+    });
+  }
+
+  // Called with the module lock held. An escalation is published right away,
+  // other merges only when the coalescer's update interval allows.
+  private boolean mergeIntoActive(ModuleFindings module, Finding finding, long now) {
+    Finding active = null;
+    for (Finding f : module.ofType(finding.getType())) {
+      if (!f.isExpired()) {
+        active = f;
+        break;
+      }
+    }
+    // the finding the active one was stored from, offered again
+    if (active == null || module.raisedBy.get(finding.getType()) == finding) {
+      return active != null;
+    }
+    boolean escalated = Priority.rank(finding.getPriorityLevel()) > Priority.rank(active.getPriorityLevel());
+    Finding merged = new Finding(active);
+    fold(merged, finding);
+    if (escalated) {
+      merged.setPriorityLevel(finding.getPriorityLevel());
+    }
+    module.replace(active, merged);
+    if (coalescer.mergeDue(module.key, finding.getType(), now) || escalated) {
+      publish(FindingChange.Kind.UPDATED, module.key, merged);
+    }
+    return true;
+  }
+
+  // Merges a repeat into the target; details and timestamp stay, as they
+  // identify the finding in the journal. Priority is left to the caller.
+  private static void fold(Finding target, Finding repeat) {
+    target.setOccurrences(target.getOccurrences() + repeat.getOccurrences());
+    target.setLastSeenAtMillis(Math.max(target.getLastSeenAtMillis(), repeat.getLastSeenAtMillis()));
+    target.setExpiresAtMillis(Math.max(target.getExpiresAtMillis(), repeat.getExpiresAtMillis()));
+  }
+
+  // The store's current version of a finding, which merges replace with an
+  // updated copy, or null once it was removed
+  public Finding currentVersion(String moduleId, Finding finding) {
+    for (Finding f : getFindings(moduleId)) {
+      if (sameFinding(f, finding)) {
+        return f;
+      }
+    }
+    return null;
+  }
+
+  // Changes after the given sequence, or the full state if the change log no
+  // longer reaches back that far. The sequence is read before the state, so
+  // the state holds at least every change up to it; it may also hold a few
+  // later ones, which the client receives again on its next sync and must
+  // apply idempotently.
+  public FindingChanges getChangesSince(long since, String moduleId) {
+    long sequence = changeLog.getLastSequence();
+    List<FindingChange> changes = changeLog.since(since);
+    if (changes != null) {
+      // the log may have moved on since the sequence was read
+      long cursor = changes.isEmpty() ? sequence : Math.max(sequence, changes.get(changes.size() - 1).getSequence());
+      if (moduleId != null) {
+        changes.removeIf(c -> !key(moduleId).equals(c.getModuleId()));
+      }
+      return new FindingChanges(cursor, false, changes, null);
+    }
+    Map<String, List<Finding>> findings = new LinkedHashMap<>();
+    if (moduleId == null) {
+      findings.putAll(store);
+    } else {
+      findings.put(key(moduleId), getFindings(moduleId));
+    }
+    return new FindingChanges(sequence, true, Collections.emptyList(), findings);
+  }
+
+  // Cached until a count changes. The version is read before the counts, so a
+  // summary may already include later changes; the next call rebuilds it.
+  public FindingsSummary getSummary() {
+    long version = summaryVersion.get();
+    FindingsSummary cached = summary;
+    if (cached != null && cached.getVersion() == version) {
+      return cached;
+    }
+    Map<String, ModuleFindingsSummary> perModule = new TreeMap<>();
+    Map<String, Integer> byPriority = new TreeMap<>(PRIORITY_ORDER);
+    int total = 0;
+    for (ModuleFindings module : modules.values()) {
+      ModuleFindingsSummary moduleSummary = module.summary;
+      if (moduleSummary.getTotal() == 0) {
+        continue;
+      }
+      perModule.put(module.key, moduleSummary);
+      moduleSummary.getByPriority().forEach((priority, count) -> byPriority.merge(priority, count, Integer::sum));
+      total += moduleSummary.getTotal();
+    }
+    String highest = byPriority.isEmpty() ? null : byPriority.keySet().iterator().next();
+    FindingsSummary built = new FindingsSummary(version, total, Collections.unmodifiableMap(byPriority), highest,
+        Collections.unmodifiableMap(perModule));
+    summary = built;
+    return built;
+  }
+
+  public String getInstanceId() {
+    return instanceId;
+  }
+
   public List<Finding> getFindings(String moduleId) {
-    return Collections
-        .unmodifiableList(store.getOrDefault(moduleId == null ? "global" : moduleId, Collections.emptyList()));
+    return store.getOrDefault(key(moduleId), Collections.emptyList());
   }
 
   public Map<String, List<Finding>> getAllFindings() {
@@ -31,69 +392,110 @@ public class FindingsService {
   }
 
   public void clearModuleFindings(String moduleId) {
-    store.remove(moduleId == null ? "global" : moduleId);
+    ModuleFindings module = modules.get(key(moduleId));
+    if (module == null) {
+      return;
+    }
+    locked(module, "clearModuleFindings", () -> {
+      for (Finding f : module.removeIf(f -> true)) {
+        publish(FindingChange.Kind.DELETED, module.key, f);
+      }
+      return null;
+    });
   }
 
   public void clearAll() {
-    store.clear();
+    for (String key : new ArrayList<>(modules.keySet())) {
+      clearModuleFindings(key);
+    }
   }
 
   // Check if an active (non-expired) finding of a specific type exists for a
   // module
-  public synchronized boolean hasActiveFinding(String moduleId, String findingType) {
-    List<Finding> findings = getFindings(moduleId);
-    return findings.stream()
-        .anyMatch(f -> f.getType().equals(findingType) && !f.isExpired());
+  public boolean hasActiveFinding(String moduleId, String findingType) {
+    ModuleFindings module = modules.get(key(moduleId));
+    if (module == null) {
+      return false;
+    }
+    for (Finding f : module.ofType(findingType)) {
+      if (!f.isExpired()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // Keys of the active findings of a module, inserted into rule sessions so the
+  // dedup check is an indexed join instead of an eval calling back into this
+  // service. Reads the module's current list without taking the lock.
+  public Set<ActiveFindingKey> getActiveFindingKeys(String moduleId) {
+    Set<ActiveFindingKey> keys = new LinkedHashSet<>();
+    for (Finding f : getFindings(moduleId)) {
+      if (!f.isExpired()) {
+        keys.add(new ActiveFindingKey(moduleId, f.getType()));
+      }
+    }
+    return keys;
   }
 
   // Clean up expired findings for a specific module
-  public synchronized void cleanupExpiredFindings(String moduleId) {
-    String key = moduleId == null ? "global" : moduleId;
-    List<Finding> findings = store.getOrDefault(key, Collections.emptyList());
-    List<Finding> activeFindings = findings.stream()
-        .filter(f -> !f.isExpired())
-        .collect(java.util.stream.Collectors.toList());
+  public void cleanupExpiredFindings(String moduleId) {
+    ModuleFindings module = modules.get(key(moduleId));
+    if (module == null) {
+      return;
+    }
+    locked(module, "cleanupExpiredFindings", () -> {
+      List<Finding> expired = module.removeIf(Finding::isExpired);
+      if (!expired.isEmpty()) {
+        expired.forEach(f -> publish(FindingChange.Kind.EXPIRED, module.key, f));
+        EventLog.info("FindingsService", "Cleaned up {} expired findings for module {}", expired.size(), moduleId);
+      }
+      return null;
+    });
+  }
 
-    if (activeFindings.size() != findings.size()) {
-      store.put(key, activeFindings);
-      System.out.println("FindingsService: Cleaned up " + (findings.size() - activeFindings.size()) +
-          " expired findings for module " + moduleId);
+  // Removes one finding whose expiry time has passed. Returns false if the
+  // finding is gone already or its expiry was moved to the future.
+  public boolean expireFinding(String moduleId, Finding finding) {
+    ModuleFindings module = modules.get(key(moduleId));
+    if (module == null || !finding.isExpired()) {
+      return false;
     }
+    return locked(module, "expireFinding", () -> {
+      // re-checked under the lock: a merge may have replaced the finding
+      // with a copy that expires later
+      List<Finding> expired = module.removeIf(f -> sameFinding(f, finding) && f.isExpired());
+      expired.forEach(f -> publish(FindingChange.Kind.EXPIRED, module.key, f));
+      return !expired.isEmpty();
+    });
   }
 
   // Clean up expired findings for all modules
-  public synchronized void cleanupAllExpiredFindings() {
-    for (String moduleId : new ArrayList<>(store.keySet())) {
+  public void cleanupAllExpiredFindings() {
+    for (String moduleId : new ArrayList<>(modules.keySet())) {
       cleanupExpiredFindings(moduleId);
     }
   }
 
   // Delete specific findings by type and moduleId
-  public synchronized boolean deleteFindingsByTypeAndModule(String type, String moduleId) {
-    String key = moduleId == null ? "global" : moduleId;
-    List<Finding> findings = store.getOrDefault(key, Collections.emptyList());
-
-    List<Finding> filteredFindings = findings.stream()
-        .filter(f -> !f.getType().equals(type))
-        .collect(java.util.stream.Collectors.toList());
-
-    boolean removed = filteredFindings.size() != findings.size();
-
-    if (removed) {
-      if (filteredFindings.isEmpty()) {
-        store.remove(key);
-      } else {
-        store.put(key, filteredFindings);
-      }
-      System.out.println("FindingsService: Deleted findings of type '" + type +
-          "' for module " + moduleId);
+  public boolean deleteFindingsByTypeAndModule(String type, String moduleId) {
+    ModuleFindings module = modules.get(key(moduleId));
+    if (module == null) {
+      return false;
     }
-
-    return removed;
+    return locked(module, "deleteFindingsByTypeAndModule", () -> {
+      List<Finding> deleted = module.removeType(type);
+      if (deleted.isEmpty()) {
+        return false;
+      }
+      deleted.forEach(f -> publish(FindingChange.Kind.DELETED, module.key, f));
+      EventLog.info("FindingsService", "Deleted findings of type '{}' for module {}", type, moduleId);
+      return true;
+    });
   }
 
   // Delete multiple findings by their type and moduleId
-  public synchronized int deleteMultipleFindings(List<FindingIdentifier> identifiers) {
+  public int deleteMultipleFindings(List<FindingIdentifier> identifiers) {
     int deletedCount = 0;
 
     for (FindingIdentifier identifier : identifiers) {
@@ -105,6 +507,155 @@ public class FindingsService {
     return deletedCount;
   }
 
+  /**
+   * Findings of one module. Mutated only while holding the instance lock;
+   * the type index and the published list hold immutable lists, so lookups
+   * are safe without the lock.
+   */
+  private final class ModuleFindings {
+    private final String key;
+    private final Map<String, List<Finding>> byType = new ConcurrentHashMap<>();
+    // Per type, the raised finding the active one was copied from, so the
+    // rules offering the same fact again do not count as a repeat
+    private final Map<String, Finding> raisedBy = new HashMap<>();
+    private List<Finding> all = Collections.emptyList();
+    private final Map<String, Integer> priorityCounts = new HashMap<>();
+    private volatile ModuleFindingsSummary summary = EMPTY_SUMMARY;
+
+    private ModuleFindings(String key) {
+      this.key = key;
+    }
+
+    private List<Finding> ofType(String type) {
+      return byType.getOrDefault(type, Collections.emptyList());
+    }
+
+    private void add(Collection<Finding> findings) {
+      List<Finding> updated = new ArrayList<>(all.size() + findings.size());
+      updated.addAll(all);
+      updated.addAll(findings);
+      for (Finding f : findings) {
+        byType.compute(f.getType(), (t, list) -> append(list, f));
+        priorityCounts.merge(priority(f), 1, Integer::sum);
+      }
+      publishList(updated);
+    }
+
+    private List<Finding> removeType(String type) {
+      List<Finding> removed = byType.remove(type);
+      raisedBy.remove(type);
+      if (removed == null) {
+        return Collections.emptyList();
+      }
+      List<Finding> updated = new ArrayList<>(all.size());
+      for (Finding f : all) {
+        if (!type.equals(f.getType())) {
+          updated.add(f);
+        }
+      }
+      uncount(removed);
+      publishList(updated);
+      return removed;
+    }
+
+    private List<Finding> removeIf(Predicate<Finding> filter) {
+      List<Finding> removed = new ArrayList<>();
+      List<Finding> updated = new ArrayList<>(all.size());
+      for (Finding f : all) {
+        if (filter.test(f)) {
+          removed.add(f);
+        } else {
+          updated.add(f);
+        }
+      }
+      if (removed.isEmpty()) {
+        return removed;
+      }
+      // Replace the type lists in place so lock-free lookups never see a
+      // transiently empty index
+      Map<String, List<Finding>> grouped = new HashMap<>();
+      for (Finding f : updated) {
+        grouped.computeIfAbsent(f.getType(), t -> new ArrayList<>()).add(f);
+      }
+      byType.keySet().retainAll(grouped.keySet());
+      grouped.forEach((t, list) -> byType.put(t, Collections.unmodifiableList(list)));
+      removed.forEach(f -> raisedBy.remove(f.getType()));
+      uncount(removed);
+      publishList(updated);
+      return removed;
+    }
+
+    private void publishList(List<Finding> updated) {
+      all = Collections.unmodifiableList(updated);
+      if (updated.isEmpty()) {
+        store.remove(key);
+      } else {
+        store.put(key, all);
+      }
+      publishSummary(updated.size());
+    }
+
+    // Swaps the merged copy in for the finding it was made from
+    private void replace(Finding current, Finding merged) {
+      List<Finding> updated = new ArrayList<>(all);
+      updated.replaceAll(f -> f == current ? merged : f);
+      byType.computeIfPresent(current.getType(), (t, list) -> {
+        List<Finding> replaced = new ArrayList<>(list);
+        replaced.replaceAll(f -> f == current ? merged : f);
+        return Collections.unmodifiableList(replaced);
+      });
+      priorityCounts.computeIfPresent(priority(current), (p, count) -> count == 1 ? null : count - 1);
+      priorityCounts.merge(priority(merged), 1, Integer::sum);
+      publishList(updated);
+    }
+
+    private void uncount(List<Finding> removed) {
+      for (Finding f : removed) {
+        priorityCounts.computeIfPresent(priority(f), (p, count) -> count == 1 ? null : count - 1);
+      }
+    }
+
+    private void publishSummary(int total) {
+      if (total == 0) {
+        summary = EMPTY_SUMMARY;
+      } else {
+        Map<String, Integer> byPriority = new TreeMap<>(PRIORITY_ORDER);
+        byPriority.putAll(priorityCounts);
+        summary = new ModuleFindingsSummary(total, Collections.unmodifiableMap(byPriority),
+            byPriority.keySet().iterator().next());
+      }
+      summaryVersion.incrementAndGet();
+    }
+  }
+
+  private static final ModuleFindingsSummary EMPTY_SUMMARY =
+      new ModuleFindingsSummary(0, Collections.emptyMap(), null);
+
+  // Highest priority first; unknown priorities after the known ones, by name
+  private static final Comparator<String> PRIORITY_ORDER =
+      Comparator.<String>comparingInt(Priority::rank).reversed().thenComparing(Comparator.naturalOrder());
+
+  private static String priority(Finding finding) {
+    return finding.getPriority() == null ? "UNKNOWN" : finding.getPriority();
+  }
+
+  // Findings have no id; copies made by merges keep type, details and
+  // creation time
+  private static boolean sameFinding(Finding a, Finding b) {
+    return a.getTimestampMillis() == b.getTimestampMillis() && Objects.equals(a.getType(), b.getType())
+        && Objects.equals(a.getDetails(), b.getDetails());
+  }
+
+  private static List<Finding> append(List<Finding> list, Finding finding) {
+    if (list == null) {
+      return Collections.singletonList(finding);
+    }
+    List<Finding> updated = new ArrayList<>(list.size() + 1);
+    updated.addAll(list);
+    updated.add(finding);
+    return Collections.unmodifiableList(updated);
+  }
+
   // Helper class for finding identification
   public static class FindingIdentifier {
     private String type;
@@ -1,8 +1,11 @@
 package com.ftn.sbnz.service.services;
 
 import com.ftn.sbnz.model.models.*;
+import com.ftn.sbnz.model.utils.EventLog;
+
+import com.ftn.sbnz.service.engine.EngineMetrics;
+import com.ftn.sbnz.service.engine.KieSessionPool;
 
-import org.kie.api.runtime.KieContainer;
 import org.kie.api.runtime.KieSession;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -14,23 +17,26 @@ import java.util.List;
 @Service
 public class HealthMetricsService {
 
-  private final KieContainer kieContainer;
+  private final KieSessionPool sessionPool;
   private final FindingsService findingsService;
 
   @Autowired
-  public HealthMetricsService(KieContainer kieContainer, FindingsService findingsService) {
-    this.kieContainer = kieContainer;
+  public HealthMetricsService(KieSessionPool sessionPool, FindingsService findingsService) {
+    this.sessionPool = sessionPool;
     this.findingsService = findingsService;
   }
 
-  public synchronized List<Finding> checkHealthMetrics(Environment environment, Vitals vitals,
+  public List<Finding> checkHealthMetrics(Environment environment, Vitals vitals,
       CrewSymptoms symptoms, VentilationStatus ventilationStatus) {
-    KieSession kieSession = kieContainer.newKieSession();
-
-    // Clean up expired findings for all modules before processing
-    findingsService.cleanupAllExpiredFindings();
+    // Borrow a pre-warmed session; it is reset and returned to the pool afterwards
+    return EngineMetrics.timeService("HealthMetricsService", "checkHealthMetrics",
+        () -> sessionPool.execute(kieSession -> runPipeline(kieSession, environment, vitals, symptoms,
+            ventilationStatus)));
+  }
 
-    // Set globals
+  private List<Finding> runPipeline(KieSession kieSession, Environment environment, Vitals vitals,
+      CrewSymptoms symptoms, VentilationStatus ventilationStatus) {
+    // Set globals (pooled sessions lose them on reset)
     kieSession.setGlobal("findingsService", findingsService);
 
     // Insert provided facts (null-safe)
@@ -43,12 +49,14 @@ public class HealthMetricsService {
     if (ventilationStatus != null)
       kieSession.insert(ventilationStatus);
 
-    // Run pipeline by agenda groups: detect -> diagnose -> persist
-    kieSession.getAgenda().getAgendaGroup("detect.health").setFocus();
-    kieSession.fireAllRules();
+    // Findings already active in the global store, as indexed facts the
+    // detection rules join against
+    if (environment != null)
+      findingsService.getActiveFindingKeys(environment.getModuleID()).forEach(kieSession::insert);
 
-    kieSession.getAgenda().getAgendaGroup("diagnose.health").setFocus();
-    kieSession.fireAllRules();
+    // Run pipeline by agenda groups: detect -> diagnose -> persist
+    EngineMetrics.fire(kieSession, "HealthMetricsService", "detect.health");
+    EngineMetrics.fire(kieSession, "HealthMetricsService", "diagnose.health");
 
     // Print findings from memory (for debugging/temporary simple output)
     List<Finding> findings = new ArrayList<>();
@@ -56,15 +64,14 @@ public class HealthMetricsService {
     for (Object obj : inserted) {
       Finding f = (Finding) obj;
       findings.add(f);
-      System.out.println("Found: " + f.getType() + " | module=" + f.getModuleId() + " | priority=" + f.getPriority()
-          + " | details=" + f.getDetails());
+      EventLog.debug("HealthMetricsService", "Found: {} | module={} | priority={} | details={}", f.getType(),
+          f.getModuleId(), f.getPriority(), f.getDetails());
     }
 
     // Persist actions
-    kieSession.getAgenda().getAgendaGroup("persist.actions").setFocus();
-    kieSession.fireAllRules();
+    EngineMetrics.fire(kieSession, "HealthMetricsService", "persist.actions");
+    EngineMetrics.recordFactCount("HealthMetricsService", kieSession);
 
-    kieSession.dispose();
     return findings;
   }
 }
\ No newline at end of file
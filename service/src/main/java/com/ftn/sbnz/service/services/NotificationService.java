@@ -1,5 +1,7 @@
 package com.ftn.sbnz.service.services;
 
+import com.ftn.sbnz.model.utils.EventLog;
+
 import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -16,7 +18,7 @@ public class NotificationService {
 
     // For now, just print to console
     // Later you can extend this to send to message queues, databases, etc.
-    System.out.println("NOTIFICATION: " + message);
+    EventLog.info("NOTIFICATION", message);
   }
 
   public void sendNotification(String type, String source, String details) {
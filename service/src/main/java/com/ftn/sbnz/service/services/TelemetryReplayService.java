@@ -0,0 +1,491 @@
+package com.ftn.sbnz.service.services;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ftn.sbnz.model.dto.ReplayResult;
+import com.ftn.sbnz.model.dto.ReplayTimelineEntry;
+import com.ftn.sbnz.model.dtos.ReplayRecord;
+import com.ftn.sbnz.model.events.AirQualityEvent;
+import com.ftn.sbnz.model.events.HumidityEvent;
+import com.ftn.sbnz.model.models.Finding;
+import com.ftn.sbnz.model.models.FindingType;
+import com.ftn.sbnz.model.models.HumidityTrend;
+import com.ftn.sbnz.model.utils.EventLog;
+import com.ftn.sbnz.model.utils.FindingClock;
+import com.ftn.sbnz.model.utils.HumidityTrendWindow;
+import com.ftn.sbnz.service.engine.EngineMetrics;
+import com.ftn.sbnz.service.engine.FactIndex;
+
+import org.kie.api.KieServices;
+import org.kie.api.event.rule.DefaultRuleRuntimeEventListener;
+import org.kie.api.event.rule.ObjectDeletedEvent;
+import org.kie.api.event.rule.ObjectInsertedEvent;
+import org.kie.api.runtime.KieContainer;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.KieSessionConfiguration;
+import org.kie.api.runtime.conf.ClockTypeOption;
+import org.kie.api.time.SessionPseudoClock;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Replays archived telemetry through the CEP rules on a pseudo clock.
+ *
+ * Records are partitioned by module and each module is replayed on its own
+ * session (replayKieSession, a pseudo-clock session of the default KieBase)
+ * on the replay executor, so a replay runs as fast as the cores allow. Per
+ * module the records are applied in time order: the session clock is moved
+ * to the record time, findings whose expiry passed are retracted, all
+ * records of that instant are inserted the way the live CEP services do and
+ * the cep.air-quality and cep.environment agenda groups are fired. As in the
+ * live environmental service, the environmental state findings are re-derived
+ * whenever the module's state changes; one that the rules do not raise again
+ * is reported as cleared. Findings
+ * get their times from the session clock through FindingClock, so expiry
+ * and the timeline are in replayed time.
+ *
+ * Replays never touch the live sessions or FindingsService. The topology
+ * (moisture source) query is not replayed, it spans modules.
+ */
+@Service
+public class TelemetryReplayService {
+
+  private static final String OWNER = "TelemetryReplayService";
+  private static final String SESSION_NAME = "replayKieSession";
+  private static final String[] AGENDA_GROUPS = { "cep.air-quality", "cep.environment" };
+  // Raised by cep.environment from the module's current state
+  private static final Set<FindingType> STATE_FINDINGS = Set.of(FindingType.CONDENSATION_ON_WALLS,
+      FindingType.CONDENSATION_ON_PANELS, FindingType.CONDENSATION_ON_WATER_LINES,
+      FindingType.INVESTIGATION_REQUIRED);
+
+  private final KieContainer kieContainer;
+  private final ObjectMapper objectMapper;
+  private final ExecutorService replayExecutor;
+  private final Path replayDirectory;
+
+  @Autowired
+  public TelemetryReplayService(KieContainer kieContainer, ObjectMapper objectMapper,
+      @Qualifier("replayExecutor") ExecutorService replayExecutor,
+      @Value("${astrovital.replay.directory:}") String replayDirectory) {
+    this.kieContainer = kieContainer;
+    this.objectMapper = objectMapper;
+    this.replayExecutor = replayExecutor;
+    this.replayDirectory = replayDirectory.isBlank() ? null : Paths.get(replayDirectory).toAbsolutePath().normalize();
+  }
+
+  /**
+   * Replays NDJSON ReplayRecord lines read from the stream.
+   */
+  public ReplayResult replay(InputStream in) throws IOException {
+    Map<String, ModuleRecords> modules = new LinkedHashMap<>();
+    read(in, modules);
+    return replay(modules);
+  }
+
+  /**
+   * Replays NDJSON files (gzip compressed if named *.gz) from the configured
+   * replay directory as one dataset.
+   */
+  public ReplayResult replayFiles(List<String> fileNames) throws IOException {
+    if (replayDirectory == null) {
+      throw new IllegalStateException("astrovital.replay.directory is not configured");
+    }
+    Map<String, ModuleRecords> modules = new LinkedHashMap<>();
+    for (String fileName : fileNames) {
+      Path file = replayDirectory.resolve(fileName).normalize();
+      if (!file.startsWith(replayDirectory)) {
+        throw new IllegalArgumentException("File outside the replay directory: " + fileName);
+      }
+      try (InputStream in = open(file)) {
+        read(in, modules);
+      }
+    }
+    return replay(modules);
+  }
+
+  private static InputStream open(Path file) throws IOException {
+    InputStream in = Files.newInputStream(file);
+    return file.getFileName().toString().endsWith(".gz") ? new GZIPInputStream(in, 1 << 16) : in;
+  }
+
+  private void read(InputStream in, Map<String, ModuleRecords> modules) throws IOException {
+    int skipped = 0;
+    try (MappingIterator<ReplayRecord> records = objectMapper.readerFor(ReplayRecord.class).readValues(in)) {
+      while (records.hasNextValue()) {
+        ReplayRecord record = records.nextValue();
+        String moduleId = moduleOf(record);
+        if (moduleId == null) {
+          skipped++;
+          continue;
+        }
+        modules.computeIfAbsent(moduleId, ModuleRecords::new).add(record);
+      }
+    }
+    if (skipped > 0) {
+      EventLog.warn(OWNER, "Skipped {} record(s) without a module id", skipped);
+    }
+  }
+
+  private static String moduleOf(ReplayRecord record) {
+    if (record.getAirQualityEvent() != null) {
+      return record.getAirQualityEvent().getModuleId();
+    }
+    if (record.getHumidityEvent() != null) {
+      return record.getHumidityEvent().getModuleId();
+    }
+    if (record.getEnvironment() != null) {
+      return record.getEnvironment().getModuleID();
+    }
+    if (record.getCondensationData() != null) {
+      return record.getCondensationData().getModuleID();
+    }
+    if (record.getWaterRecycling() != null) {
+      return record.getWaterRecycling().getModuleID();
+    }
+    if (record.getVentilationStatus() != null) {
+      return record.getVentilationStatus().getModuleID();
+    }
+    return null;
+  }
+
+  private ReplayResult replay(Map<String, ModuleRecords> modules) {
+    long start = System.nanoTime();
+    List<CompletableFuture<ModuleOutcome>> futures = new ArrayList<>();
+    for (ModuleRecords records : modules.values()) {
+      futures.add(CompletableFuture.supplyAsync(() -> replayModule(records), replayExecutor));
+    }
+
+    List<ReplayTimelineEntry> timeline = new ArrayList<>();
+    long records = 0;
+    long rulesFired = 0;
+    long from = Long.MAX_VALUE;
+    long to = Long.MIN_VALUE;
+    int activeAtEnd = 0;
+    long droppedEvents = 0;
+    for (CompletableFuture<ModuleOutcome> future : futures) {
+      ModuleOutcome outcome = future.join();
+      timeline.addAll(outcome.timeline);
+      records += outcome.records;
+      rulesFired += outcome.rulesFired;
+      from = Math.min(from, outcome.from);
+      to = Math.max(to, outcome.to);
+      activeAtEnd += outcome.activeAtEnd;
+      droppedEvents += outcome.droppedEvents;
+    }
+    timeline.sort(Comparator.comparingLong(ReplayTimelineEntry::getTime)
+        .thenComparing(ReplayTimelineEntry::getModuleId));
+    long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+    EventLog.info(OWNER, "Replayed {} records of {} module(s) in {} ms, {} timeline entries", records,
+        modules.size(), elapsedMillis, timeline.size());
+    if (droppedEvents > 0) {
+      EventLog.warn(OWNER, "Dropped {} repeated event(s) of the replayed records", droppedEvents);
+      EngineMetrics.eventsDropped(OWNER, (int) droppedEvents);
+    }
+    ReplayResult result = new ReplayResult(modules.size(), records, rulesFired, records == 0 ? 0 : from,
+        records == 0 ? 0 : to, elapsedMillis, activeAtEnd, timeline);
+    result.setDroppedEvents(droppedEvents);
+    return result;
+  }
+
+  private KieSession newSession() {
+    if (kieContainer.getKieSessionModel(SESSION_NAME) != null) {
+      return kieContainer.newKieSession(SESSION_NAME);
+    }
+    // kjar built before replayKieSession was declared
+    KieSessionConfiguration conf = KieServices.Factory.get().newKieSessionConfiguration();
+    conf.setOption(ClockTypeOption.get("pseudo"));
+    return kieContainer.newKieSession(conf);
+  }
+
+  private ModuleOutcome replayModule(ModuleRecords module) {
+    List<TimedRecord> records = module.sorted();
+    ModuleOutcome outcome = new ModuleOutcome(records);
+    KieSession session = newSession();
+    EngineMetrics.sessionCreated(OWNER);
+    try {
+      SessionPseudoClock clock = session.getSessionClock();
+      FactIndex facts = new FactIndex(session);
+      HumidityTrendWindow humidity = new HumidityTrendWindow(module.moduleId);
+      TimelineListener timeline = new TimelineListener(clock, outcome.timeline);
+      session.addEventListener(timeline);
+
+      return FindingClock.callWith(new PseudoClock(clock), () -> {
+        int i = 0;
+        while (i < records.size()) {
+          long time = records.get(i).time;
+          long delta = time - clock.getCurrentTime();
+          if (delta > 0) {
+            clock.advanceTime(delta, TimeUnit.MILLISECONDS);
+          }
+          facts.retractFindings(Finding::isExpired);
+
+          boolean humidityChanged = false;
+          boolean stateChanged = false;
+          for (; i < records.size() && records.get(i).time == time; i++) {
+            ReplayRecord record = records.get(i).record;
+            humidityChanged |= apply(facts, module.moduleId, record, humidity);
+            stateChanged |= hasState(record);
+          }
+          HumidityTrend trend = humidity.trend();
+          if (humidityChanged && trend != null) {
+            facts.upsert(module.moduleId, trend);
+          }
+          if (stateChanged || humidityChanged) {
+            timeline.rederive(() -> facts.retractFindings(f -> STATE_FINDINGS.contains(f.getFindingType())));
+          }
+
+          for (String agendaGroup : AGENDA_GROUPS) {
+            outcome.rulesFired += EngineMetrics.fire(session, OWNER, agendaGroup);
+          }
+          timeline.settle(clock.getCurrentTime());
+        }
+        outcome.activeAtEnd = facts.findingCount();
+        outcome.droppedEvents = facts.takeDroppedEvents();
+        return outcome;
+      });
+    } finally {
+      session.dispose();
+      EngineMetrics.sessionDisposed(OWNER);
+    }
+  }
+
+  /**
+   * Inserts one record the way the live CEP services do: state facts are
+   * upserted, air quality events inserted and humidity readings folded into
+   * the module's trend window.
+   *
+   * @return true if the humidity window changed
+   */
+  private static boolean apply(FactIndex facts, String moduleId, ReplayRecord record, HumidityTrendWindow humidity) {
+    if (record.getEnvironment() != null) {
+      facts.upsert(moduleId, record.getEnvironment());
+    }
+    if (record.getCondensationData() != null) {
+      facts.upsert(moduleId, record.getCondensationData().getLocationEnum(), record.getCondensationData());
+    }
+    if (record.getWaterRecycling() != null) {
+      facts.upsert(moduleId, record.getWaterRecycling());
+    }
+    if (record.getVentilationStatus() != null) {
+      facts.upsert(moduleId, record.getVentilationStatus());
+    }
+    if (record.getAirQualityEvent() != null) {
+      AirQualityEvent event = record.getAirQualityEvent();
+      facts.insertEvent(moduleId, event.getTimestamp(), List.of(event.getVocLevel(), event.getPmLevel()), event);
+    }
+    HumidityEvent reading = record.getHumidityEvent();
+    return reading != null
+        && facts.markDelivered(HumidityEvent.class, moduleId, reading.getTimestamp(), reading.getHumidity())
+        && humidity.add(reading.getTimestamp(), reading.getHumidity());
+  }
+
+  private static boolean hasState(ReplayRecord record) {
+    return record.getEnvironment() != null || record.getCondensationData() != null
+        || record.getWaterRecycling() != null || record.getVentilationStatus() != null;
+  }
+
+  /**
+   * Records of one module in file order, each with the time it happens at.
+   */
+  private static final class ModuleRecords {
+    private final String moduleId;
+    private final List<TimedRecord> records = new ArrayList<>();
+    private long lastTime = Finding.NO_TIME;
+
+    private ModuleRecords(String moduleId) {
+      this.moduleId = moduleId;
+    }
+
+    private void add(ReplayRecord record) {
+      long time = timeOf(record);
+      if (time != Finding.NO_TIME) {
+        lastTime = time;
+      }
+      records.add(new TimedRecord(lastTime, record));
+    }
+
+    // An explicit timestamp wins and is copied onto the events
+    private static long timeOf(ReplayRecord record) {
+      AirQualityEvent air = record.getAirQualityEvent();
+      HumidityEvent humidity = record.getHumidityEvent();
+      if (record.getTimestamp() != null) {
+        long time = record.getTimestamp();
+        if (air != null) {
+          air.setTimestamp(time);
+        }
+        if (humidity != null) {
+          humidity.setTimestamp(time);
+        }
+        return time;
+      }
+      if (air != null) {
+        return air.getTimestamp();
+      }
+      if (humidity != null) {
+        return humidity.getTimestamp();
+      }
+      return Finding.NO_TIME;
+    }
+
+    // Records before the module's first timed record happen at that time
+    private List<TimedRecord> sorted() {
+      long first = Finding.NO_TIME;
+      for (TimedRecord r : records) {
+        if (r.time != Finding.NO_TIME) {
+          first = r.time;
+          break;
+        }
+      }
+      List<TimedRecord> sorted = new ArrayList<>(records.size());
+      for (TimedRecord r : records) {
+        sorted.add(r.time != Finding.NO_TIME || first == Finding.NO_TIME ? r : new TimedRecord(first, r.record));
+      }
+      // stable, so records of one instant keep their file order
+      sorted.sort(Comparator.comparingLong(r -> r.time));
+      return sorted;
+    }
+  }
+
+  private static final class TimedRecord {
+    private final long time;
+    private final ReplayRecord record;
+
+    private TimedRecord(long time, ReplayRecord record) {
+      this.time = time;
+      this.record = record;
+    }
+  }
+
+  private static final class ModuleOutcome {
+    private final List<ReplayTimelineEntry> timeline = new ArrayList<>();
+    private final long records;
+    private final long from;
+    private final long to;
+    private long rulesFired;
+    private int activeAtEnd;
+    private int droppedEvents;
+
+    private ModuleOutcome(List<TimedRecord> sorted) {
+      this.records = sorted.size();
+      this.from = sorted.isEmpty() ? Long.MAX_VALUE : sorted.get(0).time;
+      this.to = sorted.isEmpty() ? Long.MIN_VALUE : sorted.get(sorted.size() - 1).time;
+    }
+  }
+
+  /**
+   * Turns finding inserts and deletes into timeline entries. Outside a rule
+   * the replay deletes findings when they expire, and state findings to
+   * re-derive them; those only show up if the rules do not raise them again.
+   */
+  private static final class TimelineListener extends DefaultRuleRuntimeEventListener {
+    private final SessionPseudoClock clock;
+    private final List<ReplayTimelineEntry> timeline;
+    // State findings retracted for re-derivation at the current instant
+    private final Map<FindingType, Finding> rederiving = new HashMap<>();
+    private boolean retracting;
+
+    private TimelineListener(SessionPseudoClock clock, List<ReplayTimelineEntry> timeline) {
+      this.clock = clock;
+      this.timeline = timeline;
+    }
+
+    private void rederive(Runnable retraction) {
+      retracting = true;
+      try {
+        retraction.run();
+      } finally {
+        retracting = false;
+      }
+    }
+
+    // Findings retracted for re-derivation and not raised again have cleared
+    private void settle(long time) {
+      rederiving.values().forEach(finding -> add(finding, time, "CLEARED"));
+      rederiving.clear();
+    }
+
+    @Override
+    public void objectInserted(ObjectInsertedEvent event) {
+      if (event.getObject() instanceof Finding) {
+        Finding finding = (Finding) event.getObject();
+        if (rederiving.remove(finding.getFindingType()) == null) {
+          add(finding, clock.getCurrentTime(), "RAISED");
+        }
+      }
+    }
+
+    @Override
+    public void objectDeleted(ObjectDeletedEvent event) {
+      if (event.getOldObject() instanceof Finding) {
+        Finding finding = (Finding) event.getOldObject();
+        if (retracting) {
+          rederiving.put(finding.getFindingType(), finding);
+        } else if (event.getRule() != null) {
+          add(finding, clock.getCurrentTime(), "CLEARED");
+        } else {
+          add(finding, finding.getExpiresAtMillis(), "EXPIRED");
+        }
+      }
+    }
+
+    private void add(Finding finding, long time, String change) {
+      timeline.add(new ReplayTimelineEntry(time, finding.getModuleId(), finding.getType(), finding.getPriority(),
+          finding.getDetails(), change));
+    }
+  }
+
+  /**
+   * A session's pseudo clock as a java.time.Clock, for FindingClock.
+   */
+  private static final class PseudoClock extends Clock {
+    private final SessionPseudoClock clock;
+
+    private PseudoClock(SessionPseudoClock clock) {
+      this.clock = clock;
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public long millis() {
+      return clock.getCurrentTime();
+    }
+
+    @Override
+    public Instant instant() {
+      return Instant.ofEpochMilli(millis());
+    }
+  }
+}
@@ -0,0 +1,414 @@
+package com.ftn.sbnz.service.services;
+
+import org.drools.template.ObjectDataCompiler;
+import org.kie.api.KieBase;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.rule.FactHandle;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.ftn.sbnz.model.dto.ThresholdSweepResult;
+import com.ftn.sbnz.model.dtos.ReplayRecord;
+import com.ftn.sbnz.model.dtos.ThresholdSweepRequest;
+import com.ftn.sbnz.model.models.Environment;
+import com.ftn.sbnz.model.models.EnvironmentalThresholdTemplateModel;
+import com.ftn.sbnz.model.models.Finding;
+import com.ftn.sbnz.model.models.ThresholdParameter;
+import com.ftn.sbnz.model.utils.EventLog;
+import com.ftn.sbnz.service.engine.EngineMetrics;
+import com.ftn.sbnz.service.engine.KieBaseCache;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluates many candidate threshold sets against historical samples in
+ * parallel.
+ *
+ * Candidates of one sweep differ only in threshold values, so the rules are
+ * generated from environmental-threshold-sweep.drt, which reads each row's
+ * threshold from a ThresholdParameter fact instead of a DRL literal. The
+ * resulting KieBase depends only on the shape of the set (parameters,
+ * operators, modules, alarm types): it is compiled once and shared by every
+ * candidate, and cached for later sweeps of the same shape. Each candidate
+ * runs on its own session on the sweep fork-join pool.
+ *
+ * Samples are applied in time order, one Environment upsert and one
+ * fireAllRules each, like a live environment feed. Nothing is persisted.
+ */
+@Service
+public class ThresholdSweepService {
+
+    private static final String OWNER = "ThresholdSweepService";
+    private static final String TEMPLATE = "/templates/environmental-threshold-sweep.drt";
+
+    private final EnvironmentalThresholdTemplateService templateService;
+    private final ForkJoinPool sweepPool;
+    private final KieBaseCache kieBaseCache;
+    private final int maxCandidates;
+
+    @Autowired
+    public ThresholdSweepService(EnvironmentalThresholdTemplateService templateService,
+            @Qualifier("sweepPool") ForkJoinPool sweepPool,
+            @Value("${astrovital.sweep.kiebase-cache-size:4}") int kieBaseCacheSize,
+            @Value("${astrovital.sweep.max-candidates:10000}") int maxCandidates) {
+        this.templateService = templateService;
+        this.sweepPool = sweepPool;
+        this.kieBaseCache = new KieBaseCache(kieBaseCacheSize);
+        this.maxCandidates = maxCandidates;
+    }
+
+    /**
+     * Runs the sweep.
+     *
+     * @throws IllegalArgumentException if a range is invalid, matches no
+     *                                  threshold row, a threshold has an
+     *                                  unknown priority or the sweep has
+     *                                  too many candidates
+     */
+    public ThresholdSweepResult sweep(ThresholdSweepRequest request) {
+        return EngineMetrics.timeService(OWNER, "sweep", () -> run(request));
+    }
+
+    /**
+     * Hit/miss statistics of the parametric KieBase cache.
+     */
+    public Map<String, Object> getKieBaseCacheStats() {
+        return kieBaseCache.snapshotStats();
+    }
+
+    private ThresholdSweepResult run(ThresholdSweepRequest request) {
+        long start = System.nanoTime();
+        List<EnvironmentalThresholdTemplateModel> rows = request.getThresholds() == null
+                || request.getThresholds().isEmpty()
+                        ? templateService.getDefaultAstroVitalThresholds()
+                        : request.getThresholds();
+        templateService.validateThresholds(rows);
+        List<ThresholdSweepRequest.Range> ranges = request.getRanges() == null ? List.of() : request.getRanges();
+        List<double[]> candidates = expand(ranges);
+        Sweep sweep = new Sweep(rows, ranges, samples(request.getSamples()), request.getIncidents());
+
+        boolean[] compiled = { false };
+        KieBase kieBase = kieBaseCache.get(shapeHash(rows), () -> {
+            compiled[0] = true;
+            return templateService.compileKieBase(generateDrl(rows));
+        });
+
+        List<ForkJoinTask<ThresholdSweepResult.Candidate>> tasks = new ArrayList<>(candidates.size());
+        for (int i = 0; i < candidates.size(); i++) {
+            int index = i;
+            tasks.add(sweepPool.submit(() -> evaluate(kieBase, sweep, index, candidates.get(index))));
+        }
+        List<ThresholdSweepResult.Candidate> results = new ArrayList<>(tasks.size());
+        for (ForkJoinTask<ThresholdSweepResult.Candidate> task : tasks) {
+            results.add(task.join());
+        }
+
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        EventLog.info(OWNER, "Swept {} candidate(s) over {} samples in {} ms", results.size(),
+                sweep.samples.size(), elapsedMillis);
+        return new ThresholdSweepResult(sweep.samples.size(), compiled[0], elapsedMillis, results);
+    }
+
+    // Cartesian product of the range values, one value per range
+    private List<double[]> expand(List<ThresholdSweepRequest.Range> ranges) {
+        long total = 1;
+        for (ThresholdSweepRequest.Range range : ranges) {
+            if (range.getParameter() == null || !(range.getStep() > 0) || range.getTo() < range.getFrom()) {
+                throw new IllegalArgumentException("Invalid range " + range.label() + ": need from <= to and step > 0");
+            }
+            double steps = Math.floor((range.getTo() - range.getFrom()) / range.getStep() + 1e-9) + 1;
+            if (steps > maxCandidates || (total *= (long) steps) > maxCandidates) {
+                throw new IllegalArgumentException("Sweep exceeds " + maxCandidates + " candidates");
+            }
+        }
+        List<double[]> candidates = new ArrayList<>((int) total);
+        candidates.add(new double[ranges.size()]);
+        for (int r = 0; r < ranges.size(); r++) {
+            ThresholdSweepRequest.Range range = ranges.get(r);
+            int steps = steps(range);
+            List<double[]> expanded = new ArrayList<>(candidates.size() * steps);
+            for (double[] candidate : candidates) {
+                for (int s = 0; s < steps; s++) {
+                    double[] next = candidate.clone();
+                    next[r] = range.getFrom() + s * range.getStep();
+                    expanded.add(next);
+                }
+            }
+            candidates = expanded;
+        }
+        return candidates;
+    }
+
+    private static int steps(ThresholdSweepRequest.Range range) {
+        // the epsilon keeps "to" itself in when the division lands just below it
+        return (int) Math.floor((range.getTo() - range.getFrom()) / range.getStep() + 1e-9) + 1;
+    }
+
+    // Samples with an environment, in time order; one without a timestamp
+    // happens at the time of the previous sample
+    private static List<Sample> samples(List<ReplayRecord> records) {
+        List<Sample> samples = new ArrayList<>();
+        if (records == null) {
+            return samples;
+        }
+        long time = 0;
+        for (ReplayRecord record : records) {
+            if (record.getTimestamp() != null) {
+                time = record.getTimestamp();
+            }
+            Environment environment = record.getEnvironment();
+            if (environment != null && environment.getModuleID() != null) {
+                samples.add(new Sample(time, environment));
+            }
+        }
+        samples.sort(Comparator.comparingLong(s -> s.time));
+        return samples;
+    }
+
+    private static String shapeHash(List<EnvironmentalThresholdTemplateModel> rows) {
+        List<String> parts = new ArrayList<>();
+        for (EnvironmentalThresholdTemplateModel row : rows) {
+            parts.addAll(Arrays.asList(row.getParameter(), row.getOperator(), row.getModuleId(), row.getAlarmType()));
+        }
+        return KieBaseCache.contentHash(parts);
+    }
+
+    private String generateDrl(List<EnvironmentalThresholdTemplateModel> rows) {
+        try (InputStream template = getClass().getResourceAsStream(TEMPLATE)) {
+            if (template == null) {
+                throw new RuntimeException("Template file not found: " + TEMPLATE);
+            }
+            // Rows are passed as maps so each carries its index explicitly
+            List<Map<String, Object>> data = new ArrayList<>(rows.size());
+            for (int i = 0; i < rows.size(); i++) {
+                EnvironmentalThresholdTemplateModel row = rows.get(i);
+                Map<String, Object> values = new HashMap<>();
+                values.put("index", i);
+                values.put("parameter", row.getParameter());
+                values.put("operator", row.getOperator());
+                values.put("moduleId", row.getModuleId());
+                values.put("alarmType", row.getAlarmType());
+                data.add(values);
+            }
+            return new ObjectDataCompiler().compile(data, template);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Error generating sweep DRL from template", e);
+        }
+    }
+
+    private ThresholdSweepResult.Candidate evaluate(KieBase kieBase, Sweep sweep, int index, double[] values) {
+        double[] thresholds = sweep.thresholds(values);
+        int[] alarmsPerRow = new int[thresholds.length];
+        long[] firstAlarmPerRow = new long[thresholds.length];
+        Arrays.fill(firstAlarmPerRow, Finding.NO_TIME);
+        boolean[] active = new boolean[thresholds.length];
+        boolean[] detected = new boolean[sweep.incidents == null ? 0 : sweep.incidents.size()];
+        int violatingSamples = 0;
+        int falsePositives = 0;
+
+        KieSession session = kieBase.newKieSession();
+        EngineMetrics.sessionCreated(OWNER);
+        try {
+            BitSet fired = new BitSet(thresholds.length);
+            session.setGlobal("alarms", fired);
+            for (int row = 0; row < thresholds.length; row++) {
+                session.insert(new ThresholdParameter(row, thresholds[row]));
+            }
+
+            // Per-sample fires are not metered, the sweep is timed as a whole
+            Map<String, FactHandle> environments = new HashMap<>();
+            for (Sample sample : sweep.samples) {
+                String moduleId = sample.environment.getModuleID();
+                fired.clear();
+                FactHandle handle = environments.get(moduleId);
+                if (handle == null) {
+                    environments.put(moduleId, session.insert(sample.environment));
+                } else {
+                    session.update(handle, sample.environment);
+                }
+                session.fireAllRules();
+
+                for (int row : sweep.rowsOf(moduleId)) {
+                    boolean violated = fired.get(row);
+                    if (violated) {
+                        violatingSamples++;
+                        sweep.markDetected(detected, row, sample.time);
+                        if (!active[row]) {
+                            alarmsPerRow[row]++;
+                            if (firstAlarmPerRow[row] == Finding.NO_TIME) {
+                                firstAlarmPerRow[row] = sample.time;
+                            }
+                            if (sweep.incidents != null && !sweep.covered(row, sample.time)) {
+                                falsePositives++;
+                            }
+                        }
+                    }
+                    active[row] = violated;
+                }
+            }
+        } finally {
+            session.dispose();
+            EngineMetrics.sessionDisposed(OWNER);
+        }
+
+        return sweep.candidate(index, values, alarmsPerRow, firstAlarmPerRow, violatingSamples,
+                falsePositives, detected);
+    }
+
+    private static final class Sample {
+        private final long time;
+        private final Environment environment;
+
+        private Sample(long time, Environment environment) {
+            this.time = time;
+            this.environment = environment;
+        }
+    }
+
+    /**
+     * Inputs shared read-only by the candidates of one sweep.
+     */
+    private static final class Sweep {
+        private final List<EnvironmentalThresholdTemplateModel> rows;
+        private final List<ThresholdSweepRequest.Range> ranges;
+        private final List<Sample> samples;
+        private final List<ThresholdSweepRequest.Incident> incidents;
+        // Rows each range sets, and rows per module
+        private final int[][] rangeRows;
+        private final Map<String, int[]> moduleRows = new HashMap<>();
+
+        private Sweep(List<EnvironmentalThresholdTemplateModel> rows, List<ThresholdSweepRequest.Range> ranges,
+                List<Sample> samples, List<ThresholdSweepRequest.Incident> incidents) {
+            this.rows = rows;
+            this.ranges = ranges;
+            this.samples = samples;
+            this.incidents = incidents == null || incidents.isEmpty() ? null : incidents;
+            this.rangeRows = new int[ranges.size()][];
+            for (int r = 0; r < ranges.size(); r++) {
+                rangeRows[r] = matching(ranges.get(r));
+            }
+            Map<String, List<Integer>> byModule = new HashMap<>();
+            for (int row = 0; row < rows.size(); row++) {
+                byModule.computeIfAbsent(rows.get(row).getModuleId(), k -> new ArrayList<>()).add(row);
+            }
+            byModule.forEach((module, list) -> moduleRows.put(module, list.stream().mapToInt(Integer::intValue).toArray()));
+        }
+
+        private int[] matching(ThresholdSweepRequest.Range range) {
+            List<Integer> matched = new ArrayList<>();
+            for (int row = 0; row < rows.size(); row++) {
+                EnvironmentalThresholdTemplateModel t = rows.get(row);
+                if (range.getParameter().equals(t.getParameter())
+                        && (range.getOperator() == null || range.getOperator().equals(t.getOperator()))
+                        && (range.getModuleId() == null || range.getModuleId().equals(t.getModuleId()))) {
+                    matched.add(row);
+                }
+            }
+            if (matched.isEmpty()) {
+                throw new IllegalArgumentException("Range " + range.label() + " matches no threshold row");
+            }
+            return matched.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        private int[] rowsOf(String moduleId) {
+            return moduleRows.getOrDefault(moduleId, new int[0]);
+        }
+
+        private double[] thresholds(double[] values) {
+            double[] thresholds = new double[rows.size()];
+            for (int row = 0; row < rows.size(); row++) {
+                Double base = rows.get(row).getThreshold();
+                thresholds[row] = base == null ? 0.0 : base;
+            }
+            for (int r = 0; r < rangeRows.length; r++) {
+                for (int row : rangeRows[r]) {
+                    thresholds[row] = values[r];
+                }
+            }
+            return thresholds;
+        }
+
+        private boolean matches(ThresholdSweepRequest.Incident incident, int row, long time) {
+            EnvironmentalThresholdTemplateModel t = rows.get(row);
+            return incident.getModuleId() != null && incident.getModuleId().equals(t.getModuleId())
+                    && (incident.getAlarmType() == null || incident.getAlarmType().equals(t.getAlarmType()))
+                    && time >= incident.getFrom() && time <= incident.getTo();
+        }
+
+        private boolean covered(int row, long time) {
+            for (ThresholdSweepRequest.Incident incident : incidents) {
+                if (matches(incident, row, time)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void markDetected(boolean[] detected, int row, long time) {
+            for (int i = 0; i < detected.length; i++) {
+                if (!detected[i] && matches(incidents.get(i), row, time)) {
+                    detected[i] = true;
+                }
+            }
+        }
+
+        private ThresholdSweepResult.Candidate candidate(int index, double[] values, int[] alarmsPerRow,
+                long[] firstAlarmPerRow, int violatingSamples, int falsePositives, boolean[] detected) {
+            Map<String, Double> labelled = new LinkedHashMap<>();
+            for (int r = 0; r < ranges.size(); r++) {
+                labelled.put(ranges.get(r).label(), values[r]);
+            }
+            Map<String, Integer> alarmsByType = new LinkedHashMap<>();
+            Map<String, Long> firstAlarmByType = new LinkedHashMap<>();
+            int alarms = 0;
+            long firstAlarm = Finding.NO_TIME;
+            for (int row = 0; row < alarmsPerRow.length; row++) {
+                if (alarmsPerRow[row] == 0) {
+                    continue;
+                }
+                String type = rows.get(row).getAlarmType();
+                alarms += alarmsPerRow[row];
+                alarmsByType.merge(type, alarmsPerRow[row], Integer::sum);
+                firstAlarmByType.merge(type, firstAlarmPerRow[row], Math::min);
+                if (firstAlarm == Finding.NO_TIME || firstAlarmPerRow[row] < firstAlarm) {
+                    firstAlarm = firstAlarmPerRow[row];
+                }
+            }
+
+            ThresholdSweepResult.Candidate candidate = new ThresholdSweepResult.Candidate();
+            candidate.setIndex(index);
+            candidate.setValues(labelled);
+            candidate.setAlarms(alarms);
+            candidate.setViolatingSamples(violatingSamples);
+            candidate.setFirstAlarmMillis(firstAlarm == Finding.NO_TIME ? null : firstAlarm);
+            candidate.setAlarmsByType(alarmsByType);
+            candidate.setFirstAlarmByType(firstAlarmByType);
+            if (incidents != null) {
+                int missed = 0;
+                for (boolean d : detected) {
+                    if (!d) {
+                        missed++;
+                    }
+                }
+                candidate.setFalsePositives(falsePositives);
+                candidate.setMissedIncidents(missed);
+            }
+            return candidate;
+        }
+    }
+}
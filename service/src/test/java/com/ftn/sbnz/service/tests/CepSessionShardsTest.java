@@ -0,0 +1,127 @@
+package com.ftn.sbnz.service.tests;
+
+import com.ftn.sbnz.service.engine.CepSessionShards;
+import com.ftn.sbnz.service.engine.CepSessionShards.Mode;
+import com.ftn.sbnz.service.engine.CepShard;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.kie.api.KieBase;
+import org.kie.api.io.ResourceType;
+import org.kie.internal.utils.KieHelper;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class CepSessionShardsTest {
+
+	private static final KieBase KIE_BASE = new KieHelper()
+			.addContent("package test\nrule \"reading\" when String() then end\n", ResourceType.DRL)
+			.build();
+
+	private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+	@AfterEach
+	void shutdown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void routesModulesByMode() {
+		CepSessionShards byModule = shards(Mode.MODULE, 4);
+		assertEquals("LAB", byModule.shardKey("LAB"));
+		assertEquals("global", byModule.shardKey(null));
+		assertSame(byModule.shardFor("LAB"), byModule.shardFor("LAB"));
+		assertNotSame(byModule.shardFor("LAB"), byModule.shardFor("CMD"));
+		byModule.disposeAll();
+
+		CepSessionShards hashed = shards(Mode.HASH, 4);
+		assertTrue(hashed.shardKey("LAB").matches("p[0-3]"));
+		assertEquals(hashed.shardKey("LAB"), hashed.shardKey("LAB"));
+
+		CepSessionShards single = shards(Mode.SINGLE, 4);
+		assertSame(single.shardFor("LAB"), single.shardFor("CMD"));
+		single.disposeAll();
+	}
+
+	@Test
+	void runsEachShardOnceWithItsOwnModules() {
+		CepSessionShards shards = shards(Mode.MODULE, 4);
+		try {
+			List<Map<String, String>> runs = shards.process(readings(), (shard, modules) -> {
+				modules.keySet().forEach(moduleId -> assertEquals(shard.getKey(), moduleId));
+				return modules;
+			});
+			assertEquals(3, runs.size());
+		} finally {
+			shards.disposeAll();
+		}
+	}
+
+	@Test
+	void routesAgainWhenAResetDisposedTheShard() {
+		CepSessionShards shards = shards(Mode.MODULE, 4);
+		try {
+			CepShard stale = shards.shardFor("LAB");
+			shards.disposeAll();
+			assertFalse(stale.withLiveLock(shard -> fail("ran on a disposed shard")));
+
+			List<Long> facts = shards.process(Map.of("LAB", "21.5"), (shard, modules) -> {
+				modules.values().forEach(shard.getSession()::insert);
+				return shard.getSession().getFactCount();
+			});
+			assertEquals(List.of(1L), facts);
+			assertNotSame(stale, shards.existingShard("LAB"));
+		} finally {
+			shards.disposeAll();
+		}
+	}
+
+	@Test
+	void survivesResetsWhileProcessing() throws Exception {
+		CepSessionShards shards = shards(Mode.MODULE, 4);
+		AtomicBoolean running = new AtomicBoolean(true);
+		Thread resetter = new Thread(() -> {
+			while (running.get()) {
+				shards.disposeAll();
+			}
+		});
+		resetter.start();
+		try {
+			for (int i = 0; i < 500; i++) {
+				List<Integer> fired = shards.process(readings(), (shard, modules) -> {
+					modules.values().forEach(shard.getSession()::insert);
+					return shard.getSession().fireAllRules();
+				});
+				assertEquals(3, fired.size());
+			}
+		} finally {
+			running.set(false);
+			resetter.join();
+			shards.disposeAll();
+		}
+	}
+
+	private CepSessionShards shards(Mode mode, int partitions) {
+		return new CepSessionShards("CepSessionShardsTest", KIE_BASE::newKieSession, mode, partitions, executor);
+	}
+
+	private static Map<String, String> readings() {
+		Map<String, String> readings = new LinkedHashMap<>();
+		readings.put("LAB", "21.5");
+		readings.put("CMD", "22.0");
+		readings.put("COMM", "20.5");
+		return readings;
+	}
+}
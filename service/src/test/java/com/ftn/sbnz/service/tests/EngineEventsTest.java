@@ -0,0 +1,45 @@
+package com.ftn.sbnz.service.tests;
+
+import com.ftn.sbnz.model.models.Finding;
+import com.ftn.sbnz.service.services.FindingsService;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EngineEventsTest {
+
+	@Test
+	void recordsFindingsLockHoldTimes() throws Exception {
+		FindingsService service = new FindingsService(100);
+		Path dump = Files.createTempFile("engine-events", ".jfr");
+		try (Recording recording = new Recording()) {
+			recording.enable("astrovital.FindingsLockHeld").withThreshold(Duration.ZERO);
+			recording.start();
+			service.addFindings("LAB", List.of(new Finding("High CO2", "LAB", "High CO2 in LAB", "HIGH")));
+			service.deleteFindingsByTypeAndModule("High CO2", "LAB");
+			recording.stop();
+			recording.dump(dump);
+
+			List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+			assertTrue(events.stream().anyMatch(e -> held(e, "LAB", "addFindings")));
+			assertTrue(events.stream().anyMatch(e -> held(e, "LAB", "deleteFindingsByTypeAndModule")));
+		} finally {
+			Files.deleteIfExists(dump);
+		}
+	}
+
+	private static boolean held(RecordedEvent event, String module, String operation) {
+		return event.getEventType().getName().equals("astrovital.FindingsLockHeld")
+				&& module.equals(event.getString("module"))
+				&& operation.equals(event.getString("operation"));
+	}
+}
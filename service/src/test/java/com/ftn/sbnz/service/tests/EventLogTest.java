@@ -0,0 +1,58 @@
+package com.ftn.sbnz.service.tests;
+
+import com.ftn.sbnz.model.utils.EventLog;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EventLogTest {
+
+	private final PrintStream originalOut = System.out;
+
+	@AfterEach
+	void restore() {
+		System.setOut(originalOut);
+		EventLog.setLevel(EventLog.Level.INFO);
+	}
+
+	@Test
+	void writesEnabledEventsWithArgumentsFilledIn() {
+		ByteArrayOutputStream captured = capture();
+		EventLog.setLevel(EventLog.Level.INFO);
+
+		EventLog.info("FindingsService", "Deleted findings of type '{}' for module {}", "Low O2", "LAB");
+		EventLog.debug("FindingsService", "Hidden {}", 42);
+		EventLog.warn("FindingsService", "Unmatched {} and {}", "one");
+		EventLog.flush();
+
+		String out = captured.toString(StandardCharsets.UTF_8);
+		assertTrue(out.contains("INFO  [" + Thread.currentThread().getName()
+				+ "] FindingsService: Deleted findings of type 'Low O2' for module LAB"));
+		assertTrue(out.contains("WARN  [" + Thread.currentThread().getName() + "] FindingsService: Unmatched one and {}"));
+		assertFalse(out.contains("Hidden"));
+	}
+
+	@Test
+	void offSilencesEverything() {
+		ByteArrayOutputStream captured = capture();
+		EventLog.setLevel(EventLog.Level.OFF);
+
+		EventLog.error("FindingsService", "Not written");
+		EventLog.flush();
+
+		assertFalse(captured.toString(StandardCharsets.UTF_8).contains("Not written"));
+	}
+
+	private static ByteArrayOutputStream capture() {
+		ByteArrayOutputStream captured = new ByteArrayOutputStream();
+		System.setOut(new PrintStream(captured, true, StandardCharsets.UTF_8));
+		return captured;
+	}
+}
@@ -0,0 +1,73 @@
+package com.ftn.sbnz.service.tests;
+
+import com.ftn.sbnz.service.engine.EngineMetrics;
+import com.ftn.sbnz.service.engine.FactCountListener;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.kie.api.KieBase;
+import org.kie.api.io.ResourceType;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.rule.FactHandle;
+import org.kie.internal.utils.KieHelper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class FactCountListenerTest {
+
+	private static final KieBase KIE_BASE = new KieHelper()
+			.addContent("package test\nrule \"reading\" when String() then end\n", ResourceType.DRL)
+			.build();
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	@Test
+	void countsFactsByType() {
+		KieSession session = session();
+		try {
+			session.insert("21.5");
+			FactHandle handle = session.insert("22.0");
+			session.insert(7);
+			session.delete(handle);
+
+			assertEquals(1.0, facts("String"));
+			assertEquals(1.0, facts("Integer"));
+		} finally {
+			session.dispose();
+		}
+	}
+
+	@Test
+	void aSessionCreatedAfterAResetReportsItsOwnCounts() {
+		KieSession first = session();
+		first.insert("21.5");
+		first.insert("22.0");
+		EngineMetrics.untrackFacts(first);
+		first.dispose();
+		assertNull(registry.find("astrovital.session.facts").tag("type", "String").gauge());
+
+		KieSession second = session();
+		try {
+			second.insert("20.5");
+			assertEquals(1.0, facts("String"));
+		} finally {
+			second.dispose();
+		}
+	}
+
+	private KieSession session() {
+		KieSession session = KIE_BASE.newKieSession();
+		session.addEventListener(new FactCountListener(registry, "FactCountListenerTest", "LAB"));
+		return session;
+	}
+
+	private double facts(String type) {
+		return registry.get("astrovital.session.facts")
+				.tag("owner", "FactCountListenerTest")
+				.tag("shard", "LAB")
+				.tag("type", type)
+				.gauge()
+				.value();
+	}
+}
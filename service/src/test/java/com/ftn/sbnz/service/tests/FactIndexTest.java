@@ -0,0 +1,86 @@
+package com.ftn.sbnz.service.tests;
+
+import com.ftn.sbnz.model.events.AirQualityEvent;
+import com.ftn.sbnz.model.models.Environment;
+import com.ftn.sbnz.service.engine.FactIndex;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.kie.api.KieBase;
+import org.kie.api.conf.EventProcessingOption;
+import org.kie.api.io.ResourceType;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.rule.FactHandle;
+import org.kie.internal.utils.KieHelper;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FactIndexTest {
+
+	private static final KieBase KIE_BASE = new KieHelper()
+			.addContent("package test\n"
+					+ "import com.ftn.sbnz.model.events.AirQualityEvent\n"
+					+ "rule \"reading\" when AirQualityEvent() then end\n", ResourceType.DRL)
+			.build(EventProcessingOption.STREAM);
+
+	private final KieSession session = KIE_BASE.newKieSession();
+	private final FactIndex facts = new FactIndex(session);
+
+	@AfterEach
+	void dispose() {
+		session.dispose();
+	}
+
+	@Test
+	void upsertReplacesTheFactOfTheSameKey() {
+		Environment first = environment("LAB", 21.0);
+		Environment second = environment("LAB", 23.5);
+
+		FactHandle handle = facts.upsert("LAB", first);
+		assertSame(handle, facts.upsert("LAB", second));
+		assertSame(second, session.getObject(handle));
+		assertSame(second, facts.get(Environment.class, "LAB", null));
+		assertEquals(1, session.getFactCount());
+
+		facts.upsert("LAB", "spare", environment("LAB", 20.0));
+		facts.upsert("CMD", environment("CMD", 22.0));
+		assertEquals(3, session.getFactCount());
+		assertEquals(3, facts.stateFactCount());
+
+		assertEquals(2, facts.retractModule("LAB"));
+		assertEquals(1, session.getFactCount());
+	}
+
+	@Test
+	void dropsRedeliveredEventsOnly() {
+		long now = System.currentTimeMillis();
+		assertTrue(insert("LAB", now, 310.0));
+		// another reading in the same millisecond
+		assertTrue(insert("LAB", now, 325.0));
+		// other modules keep their own deliveries
+		assertTrue(insert("CMD", now, 310.0));
+		assertFalse(insert("LAB", now, 310.0));
+		// late, but inside the @Expires("25h") window
+		assertTrue(insert("LAB", now - TimeUnit.MINUTES.toMillis(10), 290.0));
+		assertFalse(insert("LAB", now - TimeUnit.HOURS.toMillis(26), 290.0));
+
+		assertEquals(2, facts.takeDroppedEvents());
+		assertEquals(0, facts.takeDroppedEvents());
+		assertEquals(4, session.getFactCount());
+	}
+
+	private boolean insert(String moduleId, long timestamp, double vocLevel) {
+		AirQualityEvent event = new AirQualityEvent(vocLevel, 12.0, moduleId, timestamp);
+		return facts.insertEvent(moduleId, timestamp, List.of(vocLevel, 12.0), event);
+	}
+
+	private static Environment environment(String moduleId, double temperature) {
+		return new Environment(moduleId, 21.0, 400.0, 0.5, temperature, 65.0, 1013.25, 30.0, 20.0);
+	}
+}
@@ -0,0 +1,113 @@
+package com.ftn.sbnz.service.tests;
+
+import com.ftn.sbnz.model.dto.FindingChange;
+import com.ftn.sbnz.model.dto.FindingChanges;
+import com.ftn.sbnz.model.models.Finding;
+import com.ftn.sbnz.service.services.FindingsService;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FindingChangesTest {
+
+	@Test
+	void listenersSeeConcurrentModulesInSequenceOrder() throws Exception {
+		FindingsService service = new FindingsService(100);
+		List<Long> sequences = Collections.synchronizedList(new ArrayList<>());
+		service.addListener(change -> sequences.add(change.getSequence()));
+
+		CountDownLatch start = new CountDownLatch(1);
+		List<Thread> publishers = new ArrayList<>();
+		for (String moduleId : List.of("LAB", "CMD")) {
+			Thread publisher = new Thread(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					return;
+				}
+				for (int i = 0; i < 2000; i++) {
+					String type = "Reading " + i;
+					service.addFindings(moduleId, List.of(finding(type, moduleId)));
+					service.deleteFindingsByTypeAndModule(type, moduleId);
+				}
+			});
+			publisher.start();
+			publishers.add(publisher);
+		}
+		start.countDown();
+		for (Thread publisher : publishers) {
+			publisher.join();
+		}
+
+		assertEquals(8000, sequences.size());
+		for (int i = 0; i < sequences.size(); i++) {
+			assertEquals(i + 1, sequences.get(i).longValue());
+		}
+	}
+
+	@Test
+	void returnsTheChangesAfterACursorStillInTheLog() {
+		FindingsService service = new FindingsService(4);
+		service.addFindings("LAB", List.of(finding("High CO2", "LAB")));
+		service.addFindings("CMD", List.of(finding("Low O2", "CMD")));
+		service.addFindings("LAB", List.of(finding("High CO", "LAB")));
+
+		FindingChanges changes = service.getChangesSince(1, "LAB");
+		assertFalse(changes.isSnapshot());
+		assertEquals(3, changes.getSequence());
+		assertEquals(1, changes.getChanges().size());
+		assertEquals("High CO", changes.getChanges().get(0).getFinding().getType());
+		assertNull(changes.getFindings());
+	}
+
+	@Test
+	void fallsBackToASnapshotWhenTheCursorLeftTheLog() {
+		FindingsService service = new FindingsService(4);
+		for (int i = 0; i < 6; i++) {
+			service.addFindings("LAB", List.of(finding("Reading " + i, "LAB")));
+		}
+		service.addFindings("CMD", List.of(finding("Low O2", "CMD")));
+		service.deleteFindingsByTypeAndModule("Reading 0", "LAB");
+		// the log holds sequences 5 to 8; a client at 3 missed 4
+		assertEquals(5, service.getChangeLog().getOldestSequence());
+
+		FindingChanges all = service.getChangesSince(3, null);
+		assertTrue(all.isSnapshot());
+		assertEquals(8, all.getSequence());
+		assertTrue(all.getChanges().isEmpty());
+		assertEquals(5, all.getFindings().get("LAB").size());
+		assertEquals(1, all.getFindings().get("CMD").size());
+
+		FindingChanges lab = service.getChangesSince(3, "LAB");
+		assertTrue(lab.isSnapshot());
+		assertEquals(List.of("LAB"), List.copyOf(lab.getFindings().keySet()));
+
+		// one that was already caught up still gets the delta
+		assertFalse(service.getChangesSince(4, null).isSnapshot());
+	}
+
+	@Test
+	void fallsBackToASnapshotForACursorAheadOfTheLog() {
+		FindingsService service = new FindingsService(4);
+		service.addFindings("LAB", List.of(finding("High CO2", "LAB")));
+
+		// e.g. issued by the process before a restart
+		FindingChanges changes = service.getChangesSince(40, null);
+		assertTrue(changes.isSnapshot());
+		assertEquals(1, changes.getSequence());
+		assertEquals(1, changes.getFindings().get("LAB").size());
+	}
+
+	private static Finding finding(String type, String moduleId) {
+		return new Finding(type, moduleId, type + " in " + moduleId, "LOW");
+	}
+}
@@ -0,0 +1,34 @@
+package com.ftn.sbnz.service.tests;
+
+import com.ftn.sbnz.model.models.Finding;
+import com.ftn.sbnz.model.utils.FindingClock;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FindingClockTest {
+
+	private static final long REPLAYED = 1_700_000_000_000L;
+
+	@Test
+	void threadClockIsSeenOnlyByTheCallingThread() throws Exception {
+		Clock replay = Clock.fixed(Instant.ofEpochMilli(REPLAYED), ZoneOffset.UTC);
+
+		FindingClock.callWith(replay, () -> {
+			Finding finding = new Finding("High CO2", "LAB", "High CO2 in LAB", "HIGH");
+			assertEquals(REPLAYED, finding.getTimestampMillis());
+			assertNotEquals(REPLAYED, CompletableFuture.supplyAsync(FindingClock::millis).join().longValue());
+			return null;
+		});
+
+		assertTrue(FindingClock.millis() > REPLAYED);
+	}
+}
@@ -0,0 +1,138 @@
+package com.ftn.sbnz.service.tests;
+
+import com.ftn.sbnz.model.dto.FindingChange;
+import com.ftn.sbnz.model.models.Finding;
+import com.ftn.sbnz.model.utils.FindingClock;
+import com.ftn.sbnz.service.services.FindingsService;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FindingCoalescingTest {
+
+	@Test
+	void mergesRepeatsIntoTheActiveFinding() {
+		FindingsService service = new FindingsService(1000, 60_000, 60_000);
+		List<FindingChange> changes = record(service);
+
+		for (int i = 0; i < 100; i++) {
+			service.addFindingIfAbsent("LAB", finding("High CO2", "HIGH"));
+		}
+
+		List<Finding> findings = service.getFindings("LAB");
+		assertEquals(1, findings.size());
+		assertEquals(100, findings.get(0).getOccurrences());
+		// one ADDED, one UPDATED, the rest throttled
+		assertEquals(2, changes.size());
+		assertEquals(FindingChange.Kind.UPDATED, changes.get(1).getKind());
+	}
+
+	@Test
+	void publishesEscalationsImmediately() {
+		FindingsService service = new FindingsService(1000, 60_000, 60_000);
+		List<FindingChange> changes = record(service);
+
+		service.addFindings("LAB", List.of(finding("High CO2", "MEDIUM")));
+		service.addFindings("LAB", List.of(finding("High CO2", "MEDIUM")));
+		service.addFindings("LAB", List.of(finding("High CO2", "CRITICAL")));
+
+		assertEquals("CRITICAL", service.getFindings("LAB").get(0).getPriority());
+		assertEquals("CRITICAL", service.getSummary().getHighestPriority());
+		assertEquals(3, changes.size());
+	}
+
+	@Test
+	void mergesRaisesInTheSameMillisecond() {
+		FindingsService service = new FindingsService(1000, 60_000, 60_000);
+		Clock frozen = Clock.fixed(Instant.parse("2026-01-01T00:00:00Z"), ZoneOffset.UTC);
+
+		FindingClock.callWith(frozen, () -> {
+			service.addFindings("LAB", List.of(finding("High CO2", "MEDIUM")));
+			service.addFindings("LAB", List.of(finding("High CO2", "MEDIUM")));
+			service.addFindings("LAB", List.of(finding("High CO2", "CRITICAL")));
+			return null;
+		});
+
+		assertEquals("CRITICAL", service.getFindings("LAB").get(0).getPriority());
+		assertEquals(3, service.getFindings("LAB").get(0).getOccurrences());
+	}
+
+	@Test
+	void measuresTheHysteresisWindowOnTheFindingClock() {
+		FindingsService service = new FindingsService(1000, 60_000, 0);
+		Instant start = Instant.parse("2026-01-01T00:00:00Z");
+
+		FindingClock.callWith(Clock.fixed(start, ZoneOffset.UTC), () -> {
+			service.addFindings("LAB", List.of(finding("High CO2", "HIGH")));
+			return service.deleteFindingsByTypeAndModule("High CO2", "LAB");
+		});
+		boolean added = FindingClock.callWith(Clock.fixed(start.plusSeconds(61), ZoneOffset.UTC),
+				() -> service.addFindingIfAbsent("LAB", finding("High CO2", "HIGH")));
+
+		assertTrue(added);
+		assertEquals(start.toEpochMilli(), service.getChangeLog().since(0).get(0).getChangedAt());
+	}
+
+	@Test
+	void suppressesReRaisesInsideTheHysteresisWindow() {
+		FindingsService service = new FindingsService(1000, 60_000, 0);
+
+		service.addFindings("LAB", List.of(finding("High CO2", "HIGH")));
+		service.deleteFindingsByTypeAndModule("High CO2", "LAB");
+
+		assertFalse(service.addFindingIfAbsent("LAB", finding("High CO2", "HIGH")));
+		assertFalse(service.addFindingIfAbsent("LAB", finding("High CO2", "LOW")));
+		assertTrue(service.getFindings("LAB").isEmpty());
+
+		assertTrue(service.addFindingIfAbsent("LAB", finding("High CO2", "CRITICAL")));
+		// carries the two suppressed raises
+		assertEquals(3, service.getFindings("LAB").get(0).getOccurrences());
+	}
+
+	@Test
+	void mergesIntoACopyOfThePublishedFinding() {
+		FindingsService service = new FindingsService(1000, 0, 0);
+		Finding raised = finding("High CO2", "MEDIUM");
+		service.addFindingIfAbsent("LAB", raised);
+		List<Finding> published = service.getFindings("LAB");
+		Finding active = published.get(0);
+
+		Finding repeat = finding("High CO2", "CRITICAL");
+		repeat.setTimestampMillis(raised.getTimestampMillis() + 1);
+		assertFalse(service.addFindingIfAbsent("LAB", repeat));
+		// offering the same finding again is not a repeat
+		assertFalse(service.addFindingIfAbsent("LAB", raised));
+
+		Finding merged = service.getFindings("LAB").get(0);
+		assertEquals(2, merged.getOccurrences());
+		assertEquals("CRITICAL", merged.getPriority());
+		assertEquals("CRITICAL", service.getSummary().getHighestPriority());
+		// what readers and rule sessions already hold stays as it was
+		assertSame(active, published.get(0));
+		assertEquals(1, active.getOccurrences());
+		assertEquals("MEDIUM", active.getPriority());
+		assertEquals(1, raised.getOccurrences());
+		assertEquals(1, repeat.getOccurrences());
+		assertSame(merged, service.currentVersion("LAB", raised));
+	}
+
+	private static List<FindingChange> record(FindingsService service) {
+		List<FindingChange> changes = new ArrayList<>();
+		service.addListener(changes::add);
+		return changes;
+	}
+
+	private static Finding finding(String type, String priority) {
+		return new Finding(type, "LAB", type + " in LAB", priority);
+	}
+}
@@ -0,0 +1,51 @@
+package com.ftn.sbnz.service.tests;
+
+import com.ftn.sbnz.model.models.Finding;
+import com.ftn.sbnz.service.findings.FindingExpiryService;
+import com.ftn.sbnz.service.services.FindingsService;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FindingExpiryServiceTest {
+
+	@Test
+	void dropsTheEntriesOfDeletedFindings() {
+		FindingsService service = new FindingsService(1000);
+		FindingExpiryService expiry = new FindingExpiryService(service);
+		try {
+			for (int i = 0; i < 1000; i++) {
+				service.addFindings("LAB", List.of(finding("High CO2 " + (i % 10))));
+				service.deleteFindingsByTypeAndModule("High CO2 " + (i % 10), "LAB");
+			}
+			service.addFindings("LAB", List.of(finding("Low O2")));
+
+			assertEquals(1, expiry.snapshotStats().get("pending"));
+		} finally {
+			expiry.destroy();
+		}
+	}
+
+	@Test
+	void keepsOneEntryPerFindingAcrossMerges() {
+		FindingsService service = new FindingsService(1000);
+		FindingExpiryService expiry = new FindingExpiryService(service);
+		try {
+			for (int i = 0; i < 100; i++) {
+				service.addFindings("LAB", List.of(finding("High CO2")));
+			}
+
+			assertEquals(100, service.getFindings("LAB").get(0).getOccurrences());
+			assertEquals(1, expiry.snapshotStats().get("pending"));
+		} finally {
+			expiry.destroy();
+		}
+	}
+
+	private static Finding finding(String type) {
+		return new Finding(type, "LAB", type + " in LAB", "HIGH");
+	}
+}
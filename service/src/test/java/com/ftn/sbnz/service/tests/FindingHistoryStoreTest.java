@@ -0,0 +1,55 @@
+package com.ftn.sbnz.service.tests;
+
+import com.ftn.sbnz.model.dto.FindingChange;
+import com.ftn.sbnz.model.dto.FindingHistoryEntry;
+import com.ftn.sbnz.model.models.Finding;
+import com.ftn.sbnz.service.findings.FindingHistoryStore;
+import com.ftn.sbnz.service.services.FindingsService;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FindingHistoryStoreTest {
+
+	private static final int CHUNK_ROWS = 1 << 16;
+
+	@Test
+	void keepsTheDetailsOfEveryRow() {
+		FindingHistoryStore history = new FindingHistoryStore(new FindingsService(100), CHUNK_ROWS * 2L);
+		// more distinct details than a chunk starts with, and repeats across and within chunks
+		for (int i = 0; i < CHUNK_ROWS + 500; i++) {
+			history.append(FindingChange.Kind.EXPIRED, "LAB", finding("CO2 at " + (i % 300) + " ppm"), 1000L + i);
+		}
+
+		List<FindingHistoryEntry> entries = new ArrayList<>();
+		history.query(null, null, "LAB", null, null, Long.MAX_VALUE, FindingHistoryStore.MAX_PAGE_SIZE,
+				entries::add);
+		assertEquals(FindingHistoryStore.MAX_PAGE_SIZE, entries.size());
+		for (FindingHistoryEntry entry : entries) {
+			int row = (int) (entry.getId() - 1);
+			assertEquals("CO2 at " + (row % 300) + " ppm", entry.getDetails());
+		}
+		assertEquals(600L, history.snapshotStats().get("distinctDetails"));
+	}
+
+	@Test
+	void dropsTheOldestChunkAtMaxRows() {
+		FindingHistoryStore history = new FindingHistoryStore(new FindingsService(100), CHUNK_ROWS);
+		for (int i = 0; i < CHUNK_ROWS + 1; i++) {
+			history.append(FindingChange.Kind.DELETED, "LAB", finding("CO2 " + i), 1000L + i);
+		}
+
+		assertEquals(1L, history.snapshotStats().get("rows"));
+		List<FindingHistoryEntry> entries = new ArrayList<>();
+		history.query(null, null, null, null, null, Long.MAX_VALUE, 10, entries::add);
+		assertEquals("CO2 " + CHUNK_ROWS, entries.get(0).getDetails());
+	}
+
+	private static Finding finding(String details) {
+		return new Finding("High CO2", "LAB", details, "HIGH");
+	}
+}
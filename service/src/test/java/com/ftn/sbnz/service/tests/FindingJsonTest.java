@@ -0,0 +1,57 @@
+package com.ftn.sbnz.service.tests;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ftn.sbnz.model.enums.Priority;
+import com.ftn.sbnz.model.models.Finding;
+import com.ftn.sbnz.model.models.FindingType;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FindingJsonTest {
+
+	// read-only properties such as expired are ignored on input, as with Spring Boot's mapper
+	private final ObjectMapper mapper = new ObjectMapper().findAndRegisterModules()
+			.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+	@Test
+	void keepsTheJsonShape() throws Exception {
+		Finding finding = new Finding("Risk of hypoxia", "LAB", "O2 low", "HIGH");
+		finding.setTimestamp(LocalDateTime.of(2026, 1, 1, 12, 0));
+
+		JsonNode json = mapper.readTree(mapper.writeValueAsString(finding));
+
+		List<String> fields = new ArrayList<>();
+		json.fieldNames().forEachRemaining(fields::add);
+		fields.sort(null);
+		assertEquals(List.of("details", "expired", "expiresAt", "lastSeenAt", "moduleId", "notified", "occurrences",
+				"priority", "timestamp", "type"), fields);
+		assertEquals("Risk of hypoxia", json.get("type").asText());
+		assertEquals("HIGH", json.get("priority").asText());
+
+		Finding read = mapper.readValue(json.toString(), Finding.class);
+		assertSame(FindingType.RISK_OF_HYPOXIA, read.getFindingType());
+		assertEquals(Priority.HIGH, read.getPriorityLevel());
+		assertEquals(finding.getTimestampMillis(), read.getTimestampMillis());
+	}
+
+	@Test
+	void rejectsUnknownPrioritiesFromClients() {
+		assertEquals(Priority.HIGH, Priority.of("high"));
+		assertEquals(Priority.CRITICAL, Priority.of(" Critical "));
+		assertThrows(IllegalArgumentException.class, () -> Priority.of("URGENT"));
+		assertThrows(IllegalArgumentException.class, () -> Priority.of(null));
+		// rule-side parsing stays lenient
+		assertNull(Priority.parse("URGENT"));
+	}
+}
@@ -0,0 +1,61 @@
+package com.ftn.sbnz.service.tests;
+
+import com.ftn.sbnz.model.models.Finding;
+import com.ftn.sbnz.model.models.FindingType;
+import com.ftn.sbnz.service.findings.FindingMetrics;
+import com.ftn.sbnz.service.services.FindingsService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FindingMetricsTest {
+
+	@Test
+	void countsChangesPerModuleAndType() {
+		FindingsService service = new FindingsService(100);
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		new FindingMetrics(service, registry);
+		String hypoxia = FindingType.RISK_OF_HYPOXIA.getName();
+
+		service.addFindings("LAB", List.of(finding(hypoxia, "LAB"), finding("Low O2", "LAB")));
+		service.addFindings("CMD", List.of(finding(hypoxia, "CMD")));
+		service.deleteFindingsByTypeAndModule(hypoxia, "LAB");
+
+		assertEquals(1.0, changes(registry, "LAB", hypoxia, "ADDED"));
+		assertEquals(1.0, changes(registry, "LAB", hypoxia, "DELETED"));
+		assertEquals(1.0, changes(registry, "CMD", hypoxia, "ADDED"));
+		assertEquals(1.0, registry.get("astrovital.findings.active").tag("module", "LAB").gauge().value());
+		assertEquals(1.0, registry.get("astrovital.findings.active").tag("module", "CMD").gauge().value());
+	}
+
+	@Test
+	void tagsTypesOutsideTheCatalogAsCustom() {
+		FindingsService service = new FindingsService(100);
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		new FindingMetrics(service, registry);
+
+		for (int i = 0; i < 50; i++) {
+			service.addFindings("LAB", List.of(finding("Client alarm " + i, "LAB")));
+		}
+
+		assertEquals(50.0, changes(registry, "LAB", "custom", "ADDED"));
+		assertEquals(1, registry.find("astrovital.findings.changes").counters().size());
+	}
+
+	private static double changes(SimpleMeterRegistry registry, String module, String type, String change) {
+		return registry.get("astrovital.findings.changes")
+				.tag("module", module)
+				.tag("type", type)
+				.tag("change", change)
+				.counter()
+				.count();
+	}
+
+	private static Finding finding(String type, String moduleId) {
+		return new Finding(type, moduleId, type + " in " + moduleId, "HIGH");
+	}
+}
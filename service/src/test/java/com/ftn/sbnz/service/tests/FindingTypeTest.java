@@ -0,0 +1,37 @@
+package com.ftn.sbnz.service.tests;
+
+import com.ftn.sbnz.model.models.FindingType;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FindingTypeTest {
+
+	@Test
+	void mapsRuleTypesToTheirCatalogEntry() {
+		FindingType type = FindingType.of("Risk of hypoxia");
+
+		assertSame(FindingType.RISK_OF_HYPOXIA, type);
+		assertFalse(type.isCustom());
+		assertSame(type, FindingType.byId(type.getId()));
+	}
+
+	@Test
+	void keepsOtherNamesOutOfTheCatalog() {
+		int catalogued = FindingType.count();
+
+		for (int i = 0; i < 1000; i++) {
+			FindingType type = FindingType.of("Client alarm " + i);
+			assertTrue(type.isCustom());
+			assertEquals("Client alarm " + i, type.getName());
+		}
+
+		assertEquals(catalogued, FindingType.count());
+		assertEquals(FindingType.of("High CO2"), FindingType.of("High CO2"));
+		assertEquals(FindingType.of("High CO2").hashCode(), FindingType.of("High CO2").hashCode());
+	}
+}
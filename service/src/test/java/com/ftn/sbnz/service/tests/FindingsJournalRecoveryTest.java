@@ -0,0 +1,175 @@
+package com.ftn.sbnz.service.tests;
+
+import com.ftn.sbnz.model.dto.FindingChange;
+import com.ftn.sbnz.model.models.Finding;
+import com.ftn.sbnz.service.findings.FindingChangeLog;
+import com.ftn.sbnz.service.findings.FindingsJournal;
+import com.ftn.sbnz.service.services.FindingsService;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FindingsJournalRecoveryTest {
+
+	private static final LocalDateTime BASE_TIME = LocalDateTime.of(2026, 1, 1, 0, 0);
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void restoresActiveFindingsAfterCrash() {
+		FindingsService before = new FindingsService(1000, true, dir.toString(), 1 << 20, 100_000, 0, 0);
+		before.addFindings("LAB", List.of(finding("High CO2", "LAB"), finding("Low O2", "LAB")));
+		before.addFindings("CMD", List.of(finding("High CO2", "CMD")));
+		before.deleteFindingsByTypeAndModule("Low O2", "LAB");
+		long lastSequence = before.getChangeLog().getLastSequence();
+		// no closeJournal(): the process "crashes" with only the segment on disk
+
+		FindingsService after = new FindingsService(1000, true, dir.toString(), 1 << 20, 100_000, 0, 0);
+
+		assertEquals(List.of("High CO2"), types(after.getFindings("LAB")));
+		assertEquals(List.of("High CO2"), types(after.getFindings("CMD")));
+		assertTrue(after.hasActiveFinding("LAB", "High CO2"));
+		assertEquals(lastSequence, after.getChangeLog().getLastSequence());
+	}
+
+	@Test
+	void replaysOnlyTheTailAfterTheLatestSnapshot() throws Exception {
+		FindingChangeLog log = new FindingChangeLog(16);
+		Map<String, List<Finding>> store = new HashMap<>();
+		FindingsJournal journal = new FindingsJournal(dir, 1 << 20, Long.MAX_VALUE);
+		journal.recover();
+		journal.setSnapshotSource(log::getLastSequence, () -> store);
+
+		for (int i = 0; i < 100; i++) {
+			add(journal, log, store, finding("F" + i, "LAB"));
+		}
+		journal.snapshot();
+		for (int i = 100; i < 105; i++) {
+			add(journal, log, store, finding("F" + i, "LAB"));
+		}
+
+		FindingsJournal.Recovery recovery = new FindingsJournal(dir, 1 << 20, Long.MAX_VALUE).recover();
+
+		assertEquals(100, recovery.getSnapshotSequence());
+		assertEquals(5, recovery.getReplayedRecords());
+		assertEquals(105, recovery.getFindingCount());
+		assertEquals(105, recovery.getLastSequence());
+	}
+
+	@Test
+	void stopsAtATornRecord() throws Exception {
+		FindingChangeLog log = new FindingChangeLog(16);
+		FindingsJournal journal = new FindingsJournal(dir, 1 << 20, Long.MAX_VALUE);
+		journal.recover();
+		for (int i = 0; i < 3; i++) {
+			journal.onChange(log.append(FindingChange.Kind.ADDED, "LAB", finding("F" + i, "LAB")));
+		}
+
+		corruptLastRecord(onlySegment());
+		FindingsJournal.Recovery recovery = new FindingsJournal(dir, 1 << 20, Long.MAX_VALUE).recover();
+
+		assertEquals(2, recovery.getFindingCount());
+		assertEquals(2, recovery.getLastSequence());
+	}
+
+	@Test
+	void recoversRecordsSpreadOverManySegments() throws Exception {
+		int findings = 100_000;
+		FindingChangeLog log = new FindingChangeLog(16);
+		FindingsJournal journal = new FindingsJournal(dir, 1 << 20, Long.MAX_VALUE);
+		journal.recover();
+		for (int i = 0; i < findings; i++) {
+			Finding finding = numbered(i);
+			journal.onChange(log.append(FindingChange.Kind.ADDED, finding.getModuleId(), finding));
+		}
+		for (int i = 0; i < findings; i += 2) {
+			Finding finding = numbered(i);
+			journal.onChange(log.append(FindingChange.Kind.EXPIRED, finding.getModuleId(), finding));
+		}
+
+		FindingsJournal.Recovery recovery = new FindingsJournal(dir, 1 << 20, Long.MAX_VALUE).recover();
+
+		String replay = "recovered " + recovery.getFindingCount() + " findings from " + recovery.getReplayedRecords()
+				+ " records in " + recovery.getDurationMillis() + " ms";
+		assertTrue(segments() > 1, replay);
+		assertEquals(findings + findings / 2, recovery.getReplayedRecords(), replay);
+		assertEquals(findings / 2, recovery.getFindingCount(), replay);
+	}
+
+	private static void add(FindingsJournal journal, FindingChangeLog log, Map<String, List<Finding>> store,
+			Finding finding) {
+		store.computeIfAbsent(finding.getModuleId(), k -> new ArrayList<>()).add(finding);
+		journal.onChange(log.append(FindingChange.Kind.ADDED, finding.getModuleId(), finding));
+	}
+
+	private static Finding finding(String type, String moduleId) {
+		return new Finding(type, moduleId, type + " in " + moduleId, "HIGH");
+	}
+
+	// Rebuilds the same finding for the same number, so the test does not have
+	// to hold all the findings to expire half of them
+	private static Finding numbered(int i) {
+		Finding finding = finding("F" + (i % 50), "M" + (i % 20));
+		finding.setDetails("reading " + i);
+		finding.setTimestamp(BASE_TIME);
+		finding.setExpiresAt(BASE_TIME.plusMinutes(30));
+		return finding;
+	}
+
+	private static List<String> types(List<Finding> findings) {
+		return findings.stream().map(Finding::getType).collect(Collectors.toList());
+	}
+
+	private Path onlySegment() throws Exception {
+		List<Path> segments = listSegments();
+		assertEquals(1, segments.size());
+		return segments.get(0);
+	}
+
+	private int segments() throws Exception {
+		return listSegments().size();
+	}
+
+	private List<Path> listSegments() throws Exception {
+		try (Stream<Path> files = Files.list(dir)) {
+			return files.filter(p -> p.getFileName().toString().endsWith(".log")).collect(Collectors.toList());
+		}
+	}
+
+	// Walks the length-prefixed records and flips a byte in the body of the last one
+	private static void corruptLastRecord(Path segment) throws Exception {
+		try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+			long offset = 0;
+			long last = -1;
+			while (offset + 8 <= file.length()) {
+				file.seek(offset);
+				int length = file.readInt();
+				if (length <= 0) {
+					break;
+				}
+				last = offset;
+				offset += 8 + length;
+			}
+			assertTrue(last >= 0);
+			file.seek(last + 9);
+			int b = file.read();
+			file.seek(last + 9);
+			file.write(b ^ 0xff);
+		}
+	}
+}
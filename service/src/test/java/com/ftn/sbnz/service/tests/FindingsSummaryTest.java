@@ -0,0 +1,56 @@
+package com.ftn.sbnz.service.tests;
+
+import com.ftn.sbnz.model.dto.FindingsSummary;
+import com.ftn.sbnz.model.models.Finding;
+import com.ftn.sbnz.service.services.FindingsService;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class FindingsSummaryTest {
+
+	@Test
+	void countsFollowAddsAndRemovals() {
+		FindingsService service = new FindingsService(100);
+		service.addFindings("LAB", List.of(finding("High CO2", "LAB", "HIGH"), finding("Low O2", "LAB", "CRITICAL")));
+		service.addFindings("CMD", List.of(finding("Dust", "CMD", "MEDIUM")));
+
+		FindingsSummary summary = service.getSummary();
+		assertEquals(3, summary.getTotal());
+		assertEquals("CRITICAL", summary.getHighestPriority());
+		assertEquals("CRITICAL", summary.getModules().get("LAB").getHighestPriority());
+		assertEquals(1, summary.getByPriority().get("MEDIUM"));
+
+		service.deleteFindingsByTypeAndModule("Low O2", "LAB");
+		service.clearModuleFindings("CMD");
+
+		summary = service.getSummary();
+		assertEquals(1, summary.getTotal());
+		assertEquals("HIGH", summary.getHighestPriority());
+		assertNull(summary.getModules().get("CMD"));
+		assertNull(summary.getByPriority().get("CRITICAL"));
+	}
+
+	@Test
+	void reusesTheSummaryUntilACountChanges() {
+		FindingsService service = new FindingsService(100);
+		service.addFindings("LAB", List.of(finding("High CO2", "LAB", "HIGH")));
+
+		FindingsSummary first = service.getSummary();
+		assertSame(first, service.getSummary());
+
+		service.addFindings("LAB", List.of(finding("Low O2", "LAB", "LOW")));
+		FindingsSummary second = service.getSummary();
+		assertEquals(2, second.getTotal());
+		assertEquals(first.getVersion() + 1, second.getVersion());
+	}
+
+	private static Finding finding(String type, String moduleId, String priority) {
+		return new Finding(type, moduleId, type + " in " + moduleId, priority);
+	}
+}
@@ -0,0 +1,49 @@
+package com.ftn.sbnz.service.tests;
+
+import com.ftn.sbnz.model.models.HumidityTrend;
+import com.ftn.sbnz.model.utils.HumidityTrendWindow;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HumidityTrendWindowTest {
+
+	private static final long START = 1_700_000_000_000L;
+	private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+
+	@Test
+	void keepsLateAndSameTimestampReadingsInOrder() {
+		HumidityTrendWindow window = new HumidityTrendWindow("LAB", 2);
+		assertTrue(window.add(START, 50.0));
+		assertTrue(window.add(START + 6 * HOUR, 70.0));
+		assertTrue(window.add(START + 6 * HOUR, 72.0));
+		assertTrue(window.add(START + HOUR, 55.0));
+		// behind the 6h5m window of the most recent reading
+		assertFalse(window.add(START - HOUR, 40.0));
+
+		HumidityTrend trend = window.trend();
+		assertEquals(50.0, trend.getOldestHumidity());
+		assertEquals(START, trend.getOldestTimestamp());
+		assertEquals(72.0, trend.getRecentHumidity());
+		assertEquals(START + 6 * HOUR, trend.getRecentTimestamp());
+	}
+
+	@Test
+	void evictsReadingsThatFellOutOfTheWindow() {
+		HumidityTrendWindow window = new HumidityTrendWindow("LAB");
+		assertTrue(window.add(START, 50.0));
+		assertTrue(window.add(START + HOUR, 60.0));
+		assertTrue(window.add(START + 7 * HOUR, 80.0));
+		assertTrue(window.add(START + 6 * HOUR, 75.0));
+
+		HumidityTrend trend = window.trend();
+		assertEquals(60.0, trend.getOldestHumidity());
+		assertEquals(80.0, trend.getRecentHumidity());
+		assertEquals(3, window.size());
+	}
+}
@@ -0,0 +1,95 @@
+package com.ftn.sbnz.service.tests;
+
+import com.ftn.sbnz.service.engine.KieBaseCache;
+
+import org.junit.jupiter.api.Test;
+import org.kie.api.KieBase;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KieBaseCacheTest {
+
+	@Test
+	void keysRuleSetsByTheirContent() {
+		String key = KieBaseCache.contentHash(Arrays.asList("CO2", "1000", "HIGH"));
+
+		assertEquals(key, KieBaseCache.contentHash(Arrays.asList("CO2", "1000", "HIGH")));
+		assertNotEquals(key, KieBaseCache.contentHash(Arrays.asList("CO2", "1001", "HIGH")));
+		assertNotEquals(KieBaseCache.contentHash(Arrays.asList("ab", "c")),
+				KieBaseCache.contentHash(Arrays.asList("a", "bc")));
+		assertNotEquals(KieBaseCache.contentHash(Arrays.asList("a", null)),
+				KieBaseCache.contentHash(Arrays.asList("a", "")));
+	}
+
+	@Test
+	void evictsTheLeastRecentlyUsedBase() {
+		KieBaseCache cache = new KieBaseCache(2);
+		AtomicInteger compiles = new AtomicInteger();
+
+		KieBase a = cache.get("a", () -> compiled(compiles));
+		cache.get("b", () -> compiled(compiles));
+		assertSame(a, cache.get("a", () -> compiled(compiles)));
+		cache.get("c", () -> compiled(compiles));
+		cache.get("b", () -> compiled(compiles));
+
+		assertEquals(4, compiles.get());
+		assertEquals(2, cache.size());
+		assertEquals(1, cache.getHits());
+		assertEquals(4, cache.getMisses());
+		assertEquals(2, cache.getEvictions());
+	}
+
+	@Test
+	void countsCallersJoiningACompileSeparately() throws Exception {
+		KieBaseCache cache = new KieBaseCache(4);
+		AtomicInteger compiles = new AtomicInteger();
+		CountDownLatch compiling = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		CompletableFuture<KieBase> first = CompletableFuture.supplyAsync(() -> cache.get("rules", () -> {
+			compiling.countDown();
+			await(release);
+			return compiled(compiles);
+		}));
+		assertTrue(compiling.await(5, TimeUnit.SECONDS));
+		CompletableFuture<KieBase> second = CompletableFuture.supplyAsync(
+				() -> cache.get("rules", () -> compiled(compiles)));
+		while (cache.getJoined() == 0 && !second.isDone()) {
+			Thread.onSpinWait();
+		}
+		release.countDown();
+
+		assertSame(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+		assertEquals(1, compiles.get());
+		Map<String, Object> stats = cache.snapshotStats();
+		assertEquals(0L, stats.get("hits"));
+		assertEquals(1L, stats.get("misses"));
+		assertEquals(1L, stats.get("joined"));
+		assertEquals(0.0, stats.get("hitRatio"));
+	}
+
+	private static KieBase compiled(AtomicInteger compiles) {
+		compiles.incrementAndGet();
+		return (KieBase) Proxy.newProxyInstance(KieBase.class.getClassLoader(), new Class<?>[] { KieBase.class },
+				(proxy, method, args) -> method.getName().equals("equals") ? proxy == args[0] : null);
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,84 @@
+package com.ftn.sbnz.service.tests;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ftn.sbnz.model.dto.StreamBatchResult;
+import com.ftn.sbnz.service.controllers.NdjsonBatchStreamer;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NdjsonBatchStreamerTest {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final NdjsonBatchStreamer streamer = new NdjsonBatchStreamer(objectMapper, 2);
+
+	@Test
+	void processesRecordsInBatches() throws IOException {
+		List<StreamBatchResult> results = stream("{\"a\":1}\n{\"a\":2}\n{\"a\":3}\n", batch -> result());
+		assertEquals(2, results.size());
+		assertEquals(2, results.get(0).getRecords());
+		assertEquals(1, results.get(1).getRecords());
+		assertTrue(results.get(1).isLast());
+		assertNull(results.get(1).getError());
+	}
+
+	@Test
+	void reportsAMalformedLineWithTheLastBatch() throws IOException {
+		List<StreamBatchResult> results = stream("{\"a\":1}\n{\"a\":\n", batch -> result());
+		assertEquals(1, results.size());
+		assertEquals(1, results.get(0).getRecords());
+		assertTrue(results.get(0).isLast());
+		assertNotNull(results.get(0).getError());
+	}
+
+	@Test
+	void propagatesProcessingFailures() {
+		IllegalStateException failure = new IllegalStateException("session disposed");
+		assertThrows(IllegalStateException.class, () -> stream("{\"a\":1}\n{\"a\":2}\n", batch -> {
+			throw failure;
+		}));
+	}
+
+	@Test
+	void propagatesResponseFailures() {
+		OutputStream closed = new OutputStream() {
+			@Override
+			public void write(int b) throws IOException {
+				throw new IOException("client went away");
+			}
+		};
+		InputStream in = new ByteArrayInputStream("{\"a\":1}\n".getBytes(StandardCharsets.UTF_8));
+		assertThrows(IOException.class, () -> streamer.stream(in, closed, Map.class, batch -> result()));
+	}
+
+	private List<StreamBatchResult> stream(String body,
+			Function<List<Map>, StreamBatchResult> processor) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		streamer.stream(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), out, Map.class, processor);
+		List<StreamBatchResult> results = new ArrayList<>();
+		for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+			results.add(objectMapper.readValue(line, StreamBatchResult.class));
+		}
+		return results;
+	}
+
+	private static StreamBatchResult result() {
+		return new StreamBatchResult(0, 0, 0, new ArrayList<>());
+	}
+}